@@ -38,6 +38,11 @@ import java.util.ArrayList;
  * having an emitRate number of vertices is added to the emitter as a child.
  * These vertices act as the particles of the system. Consequently, all those
  * children objects which have exceeded their age limits are deleted every second.
+ * <p>
+ * In pooled mode (see {@link #setPooledMode(boolean)}) the emitter instead owns a single
+ * child with a fixed size particle mesh. The mesh is used as a ring buffer: every second
+ * the newly emitted particles overwrite the oldest ones, which have expired by then.
+ * The whole system is drawn with one draw call and emitting does not create any objects.
  *
  */
 
@@ -82,6 +87,25 @@ class GVREmitter extends GVRSceneObject {
     private float currTime = 0;
     ArrayList<Integer> idxsToDelete;
 
+    //spawn time of pool slots which have not been used yet, keeps them clipped.
+    private static final float UNUSED_SPAWN_TIME = -1000.0f;
+    private static final int BOUNDING_VOLUME_PARTICLES = 8;
+
+    //particle ring buffer used in pooled mode, with the bounding volume
+    //particles in the first slots.
+    private boolean mPooledMode = false;
+    private Particles mPoolParticles;
+    private GVRSceneObject mPoolObject;
+    private float[] mPoolPositions;
+    private float[] mPoolVelocities;
+    private float[] mPoolSpawnTimes;
+    private int mPoolCapacity;
+    private int mPoolHead;
+    //set when the bounding volume or the particle properties change,
+    //so the pool only uploads them again when needed.
+    private boolean mBoundsChanged = true;
+    private boolean mPropertiesChanged = true;
+
 
     public GVREmitter(GVRContext gvrContext)
     {
@@ -123,6 +147,21 @@ class GVREmitter extends GVRSceneObject {
         idxsToDelete.clear();
     }
 
+    /**
+     * Make sure the arrays the subclasses generate the particles of one
+     * emission into hold exactly {@link #getEmitRate()} particles.
+     * They are only allocated again when the emit rate changes.
+     */
+    protected void allocateParticleArrays()
+    {
+        if ((null == mParticleGenTimes) || (mParticleGenTimes.length != mEmitRate * 2))
+        {
+            mParticlePositions = new float[mEmitRate * 3];
+            mParticleVelocities = new float[mEmitRate * 3];
+            mParticleGenTimes = new float[mEmitRate * 2];
+        }
+    }
+
     /**
      * If the burst mode is on, emit the particles only once.
      *
@@ -163,6 +202,11 @@ class GVREmitter extends GVRSceneObject {
     private void emit(float[] particlePositions, float[] particleVelocities,
                       float[] particleTimeStamps)
     {
+        if (mPooledMode)
+        {
+            emitToPool(particlePositions, particleVelocities, particleTimeStamps);
+            return;
+        }
         float[] allParticlePositions = new float[particlePositions.length + particleBoundingVolume.length];
         System.arraycopy(particlePositions, 0, allParticlePositions, 0, particlePositions.length);
         System.arraycopy(particleBoundingVolume, 0, allParticlePositions,
@@ -191,6 +235,121 @@ class GVREmitter extends GVRSceneObject {
     }
 
 
+    /**
+     * Copy the emitted particles over the oldest slots of the particle pool and
+     * upload only those slots to its mesh. The pool holds the particles of
+     * (maxAge + 2) emissions, so every overwritten particle has expired.
+     * The pool and its scene object are only created again when the
+     * required capacity changes, and the material is only updated
+     * when the particle properties change.
+     *
+     * @param particlePositions
+     * @param particleVelocities
+     * @param particleTimeStamps
+     */
+
+    private void emitToPool(float[] particlePositions, float[] particleVelocities,
+                            float[] particleTimeStamps)
+    {
+        int count = particleTimeStamps.length / 2;
+        int capacity = count * ((int) Math.ceil(mMaxAge) + 2);
+
+        if (capacity != mPoolCapacity)
+        {
+            releasePool();
+            int numSlots = BOUNDING_VOLUME_PARTICLES + capacity;
+            mPoolPositions = new float[numSlots * 3];
+            mPoolVelocities = new float[numSlots * 3];
+            mPoolSpawnTimes = new float[numSlots * 2];
+            for (int i = 0; i < numSlots * 2; i += 2)
+            {
+                mPoolSpawnTimes[i] = UNUSED_SPAWN_TIME;
+            }
+            mPoolCapacity = capacity;
+            mPoolHead = 0;
+        }
+
+        boolean boundsChanged = mBoundsChanged && (null != particleBoundingVolume);
+        if (boundsChanged)
+        {
+            System.arraycopy(particleBoundingVolume, 0, mPoolPositions, 0, particleBoundingVolume.length);
+            System.arraycopy(BVVelocities, 0, mPoolVelocities, 0, BVVelocities.length);
+            System.arraycopy(BVSpawnTimes, 0, mPoolSpawnTimes, 0, BVSpawnTimes.length);
+            mBoundsChanged = false;
+        }
+
+        //the emitted particles wrap around the end of the ring buffer
+        //at most once, giving at most two ranges of slots to upload.
+        int firstHead = mPoolHead;
+        int firstCount = Math.min(count, mPoolCapacity - firstHead);
+        copyToPool(particlePositions, particleVelocities, particleTimeStamps,
+                0, firstHead, firstCount);
+        copyToPool(particlePositions, particleVelocities, particleTimeStamps,
+                firstCount, 0, count - firstCount);
+        mPoolHead = (firstHead + count) % mPoolCapacity;
+
+        if (null == mPoolParticles)
+        {
+            mPoolParticles = new Particles(mGVRContext, mMaxAge,
+                    mParticleSize, mEnvironmentAcceleration, mParticleSizeRate, mFadeWithAge,
+                    mParticleTexture, mColor);
+            mPoolObject = mPoolParticles.makeParticleMesh(mPoolPositions,
+                    mPoolVelocities, mPoolSpawnTimes);
+            mPoolObject.getRenderData().getMaterial().setFloat("u_time", currTime);
+            this.addChildObject(mPoolObject);
+            mPropertiesChanged = false;
+            return;
+        }
+        if (mPropertiesChanged)
+        {
+            mPoolParticles.setProperties(mMaxAge, mParticleSize, mEnvironmentAcceleration,
+                    mParticleSizeRate, mFadeWithAge, mParticleTexture, mColor);
+            mPropertiesChanged = false;
+        }
+        if (boundsChanged)
+        {
+            mPoolParticles.updateParticleMesh(mPoolPositions, mPoolVelocities, mPoolSpawnTimes,
+                    0, BOUNDING_VOLUME_PARTICLES);
+        }
+        uploadPoolRange(firstHead, firstCount);
+        uploadPoolRange(0, count - firstCount);
+    }
+
+    private void copyToPool(float[] particlePositions, float[] particleVelocities,
+                            float[] particleTimeStamps, int first, int head, int count)
+    {
+        int slot = BOUNDING_VOLUME_PARTICLES + head;
+        System.arraycopy(particlePositions, first * 3, mPoolPositions, slot * 3, count * 3);
+        System.arraycopy(particleVelocities, first * 3, mPoolVelocities, slot * 3, count * 3);
+        System.arraycopy(particleTimeStamps, first * 2, mPoolSpawnTimes, slot * 2, count * 2);
+    }
+
+    private void uploadPoolRange(int head, int count)
+    {
+        if (count > 0)
+        {
+            mPoolParticles.updateParticleMesh(mPoolPositions, mPoolVelocities, mPoolSpawnTimes,
+                    BOUNDING_VOLUME_PARTICLES + head, count);
+        }
+    }
+
+    private void releasePool()
+    {
+        if (null != mPoolObject)
+        {
+            this.removeChildObject(mPoolObject);
+        }
+        mPoolObject = null;
+        mPoolParticles = null;
+        mPoolPositions = null;
+        mPoolVelocities = null;
+        mPoolSpawnTimes = null;
+        mPoolCapacity = 0;
+        mPoolHead = 0;
+        mBoundsChanged = true;
+        mPropertiesChanged = true;
+    }
+
     /**
      * Create a bouding volume for the particle system centered at its position with
      * the specified width, height and depth. This is important to do because the parent scene
@@ -229,6 +388,8 @@ class GVREmitter extends GVRSceneObject {
                     for ( int i = 0; i < 24; i ++ )
                         BVVelocities[i] = 0;
 
+                    mBoundsChanged = true;
+
                 }
             });
         }
@@ -245,6 +406,10 @@ class GVREmitter extends GVRSceneObject {
             GVRSceneObject obj = meshInfo.get(i).first;
             obj.getRenderData().getMaterial().setFloat("u_time", time);
         }
+        if (null != mPoolObject)
+        {
+            mPoolObject.getRenderData().getMaterial().setFloat("u_time", time);
+        }
     }
 
     /**
@@ -276,6 +441,7 @@ class GVREmitter extends GVRSceneObject {
     public void setParticleAge ( float age )
     {
         mMaxAge = age;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -284,6 +450,7 @@ class GVREmitter extends GVRSceneObject {
     public void setParticleSize ( float size )
     {
         mParticleSize = size;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -312,6 +479,7 @@ class GVREmitter extends GVRSceneObject {
     public void setEnvironmentAcceleration( Vector3f acceleration )
     {
         mEnvironmentAcceleration = acceleration;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -322,6 +490,7 @@ class GVREmitter extends GVRSceneObject {
     public void setParticleSizeChangeRate( float rate )
     {
         mParticleSizeRate = rate;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -331,6 +500,7 @@ class GVREmitter extends GVRSceneObject {
     public void setFadeWithAge ( boolean fade )
     {
         mFadeWithAge = fade;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -342,12 +512,44 @@ class GVREmitter extends GVRSceneObject {
         burstMode = mode;
     }
 
+    /**
+     * Switch between emitting a new scene object per emission and
+     * recycling a single fixed size particle mesh.
+     * @param pooled True to keep all particles in one ring buffer mesh drawn with
+     *               a single draw call, false to create a scene object for every
+     *               emission.
+     */
+    public void setPooledMode(final boolean pooled)
+    {
+        if (null != mGVRContext) {
+            mGVRContext.runOnGlThread(new Runnable() {
+
+                @Override
+                public void run() {
+                    mPooledMode = pooled;
+                    if (!pooled) {
+                        releasePool();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * @return True if the particles are kept in a single ring buffer mesh.
+     */
+    public boolean isPooledMode()
+    {
+        return mPooledMode;
+    }
+
     /**
      * @param tex Texture of the particle.
      */
     public void setParticleTexture(GVRTexture tex)
     {
         mParticleTexture = tex;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -357,6 +559,7 @@ class GVREmitter extends GVRSceneObject {
     public void  setColorMultiplier( Vector4f color )
     {
         mColor = color;
+        mPropertiesChanged = true;
     }
 
     /**
@@ -364,6 +567,7 @@ class GVREmitter extends GVRSceneObject {
      */
     public void clearSystem()
     {
+        releasePool();
         int nchildren = this.getChildrenCount();
         for( int i = 0; i < nchildren; i ++ )
         {
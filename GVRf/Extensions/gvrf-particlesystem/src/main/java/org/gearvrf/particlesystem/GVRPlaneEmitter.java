@@ -19,7 +19,6 @@ import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
 import org.gearvrf.scene_objects.GVRTextViewSceneObject;
 import org.gearvrf.utility.Log;
-import org.joml.Vector3f;
 
 import java.lang.ref.WeakReference;
 import java.util.Random;
@@ -45,25 +44,15 @@ public class GVRPlaneEmitter extends GVREmitter {
         mGVRContext.registerDrawFrameListener(mFrameListener);
     }
 
-    private Vector3f getNextPosition() {
-
-        float x = mRandom.nextFloat() * mWidth - mWidth/2;
-        float z = mRandom.nextFloat() * mHeight - mHeight/2;
-        return new Vector3f(x, 0, z);
-    }
-
-    private float[] generateParticlePositions()
+    private void generateParticlePositions()
     {
-        float[] positions = new float[mEmitRate * 3];
+        float[] positions = mParticlePositions;
         for ( int i = 0; i < mEmitRate * 3; i += 3 ) {
 
-            Vector3f nextPos = getNextPosition();
-            positions[i] = nextPos.x;
-            positions[i+1] = nextPos.y;
-            positions[i+2] = nextPos.z;
+            positions[i] = mRandom.nextFloat() * mWidth - mWidth/2;
+            positions[i+1] = 0;
+            positions[i+2] = mRandom.nextFloat() * mHeight - mHeight/2;
         }
-
-        return positions;
     }
 
     private float getNextVelocity() {
@@ -75,12 +64,11 @@ public class GVRPlaneEmitter extends GVREmitter {
 
     /**
      * generate random velocities in the given range
-     * @return
      */
 
-    private float[] generateParticleVelocities()
+    private void generateParticleVelocities()
     {
-        float velocities[] = new float[mEmitRate * 3];
+        float velocities[] = mParticleVelocities;
         for ( int i = 0; i < mEmitRate * 3; i +=3 )
         {
             velocities[i] = 0;
@@ -88,7 +76,6 @@ public class GVRPlaneEmitter extends GVREmitter {
             velocities[i+2] = 0;
 
         }
-        return velocities;
     }
 
     /**
@@ -97,17 +84,15 @@ public class GVRPlaneEmitter extends GVREmitter {
      *  with every pair passed.
      *
      * @param totalTime
-     * @return
      */
-    private float[] generateParticleTimeStamps(float totalTime)
+    private void generateParticleTimeStamps(float totalTime)
     {
-        float timeStamps[] = new float[mEmitRate * 2];
+        float timeStamps[] = mParticleGenTimes;
         for ( int i = 0; i < mEmitRate * 2; i +=2 )
         {
             timeStamps[i] = totalTime + mRandom.nextFloat();
             timeStamps[i + 1] = 0;
         }
-        return timeStamps;
     }
 
 
@@ -143,9 +128,10 @@ public class GVRPlaneEmitter extends GVREmitter {
                     if (mElapsedTime > 1.0f) {
                         mElapsedTime = 0;
 
-                        emitter.mParticlePositions = emitter.generateParticlePositions();
-                        emitter.mParticleVelocities = emitter.generateParticleVelocities();
-                        emitter.mParticleGenTimes = emitter.generateParticleTimeStamps(totalTime);
+                        emitter.allocateParticleArrays();
+                        emitter.generateParticlePositions();
+                        emitter.generateParticleVelocities();
+                        emitter.generateParticleTimeStamps(totalTime);
 
                         emitter.emitWithBurstCheck(emitter.mParticlePositions, emitter.mParticleVelocities,
                                 emitter.mParticleGenTimes);
@@ -33,6 +33,7 @@ public class GVRSphericalEmitter extends GVREmitter{
     private Random mRandom = new Random();
 
     private float mRadius = 1.0f;
+    private final Vector3f mVelocity = new Vector3f();
     private float totalTime = 0;
     private float mElapsedTime = 0;
 
@@ -51,11 +52,10 @@ public class GVRSphericalEmitter extends GVREmitter{
      * generating a random point within a sphere of radius r, due to less
      * operations involved.
      *
-     * @return
      */
-    private float[] generateParticlePositions()
+    private void generateParticlePositions()
     {
-        float[] positions = new float[mEmitRate * 3];
+        float[] positions = mParticlePositions;
 
         for ( int i = 0; i < mEmitRate * 3; i += 3 )
         {
@@ -71,7 +71,6 @@ public class GVRSphericalEmitter extends GVREmitter{
             positions[i+1] = y;
             positions[i+2] = z;
         }
-        return positions;
     }
 
     /**
@@ -80,12 +79,11 @@ public class GVRSphericalEmitter extends GVREmitter{
      *  with every pair passed.
      *
      * @param totalTime
-     * @return
      */
 
-    private float[] generateParticleTimeStamps(float totalTime)
+    private void generateParticleTimeStamps(float totalTime)
     {
-        float timeStamps[] = new float[mEmitRate * 2];
+        float timeStamps[] = mParticleGenTimes;
 
         if ( burstMode ) {
             for (int i = 0; i < mEmitRate * 2; i += 2) {
@@ -99,8 +97,6 @@ public class GVRSphericalEmitter extends GVREmitter{
                 timeStamps[i + 1] = 0;
             }
         }
-        return timeStamps;
-
     }
 
     /**
@@ -108,12 +104,11 @@ public class GVRSphericalEmitter extends GVREmitter{
      * the position of a particle as a vector. This normalised vector is scaled by
      * the speed range.
      *
-     * @return
      */
-    private float[] generateParticleVelocities()
+    private void generateParticleVelocities()
     {
-        float [] particleVelocities = new float[mEmitRate * 3];
-        Vector3f temp = new Vector3f(0,0,0);
+        float [] particleVelocities = mParticleVelocities;
+        Vector3f temp = mVelocity;
         for ( int i = 0; i < mEmitRate * 3 ; i +=3 )
         {
             temp.x = mParticlePositions[i];
@@ -123,16 +118,13 @@ public class GVRSphericalEmitter extends GVREmitter{
             float scaleFactor = mRandom.nextFloat() * (maxVelocity - minVelocity)
                                 + minVelocity;
 
-            temp = temp.normalize() ;
+            temp.normalize();
             temp.mul(scaleFactor, temp);
 
             particleVelocities[i] = temp.x;
             particleVelocities[i+1] = temp.y;
             particleVelocities[i+2] = temp.z;
         }
-
-        return particleVelocities;
-
     }
 
     private static final class GVRDrawFrameListenerImpl implements GVRDrawFrameListener {
@@ -166,9 +158,10 @@ public class GVRSphericalEmitter extends GVREmitter{
                     if (mElapsedTime > 1.0f) {
                         mElapsedTime = 0;
 
-                        emitter.mParticlePositions = emitter.generateParticlePositions();
-                        emitter.mParticleVelocities = emitter.generateParticleVelocities();
-                        emitter.mParticleGenTimes = emitter.generateParticleTimeStamps(totalTime);
+                        emitter.allocateParticleArrays();
+                        emitter.generateParticlePositions();
+                        emitter.generateParticleVelocities();
+                        emitter.generateParticleTimeStamps(totalTime);
 
                         emitter.emitWithBurstCheck(emitter.mParticlePositions, emitter.mParticleVelocities,
                                 emitter.mParticleGenTimes);
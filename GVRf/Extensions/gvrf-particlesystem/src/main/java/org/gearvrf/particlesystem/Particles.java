@@ -86,19 +86,11 @@ class Particles {
 
         material = new GVRMaterial(mGVRContext,
                 GVRMaterial.GVRShaderType.BeingGenerated.ID);
-
-        material.setVec4("u_color", mColorMultiplier.x, mColorMultiplier.y,
-                mColorMultiplier.z, mColorMultiplier.w);
-        material.setFloat("u_particle_age", mAge);
-        material.setVec3("u_acceleration", mAcceleration.x, mAcceleration.y, mAcceleration.z);
-        material.setFloat("u_particle_size", mSize);
-        material.setFloat("u_size_change_rate", mParticleSizeRate);
-        material.setFloat("u_fade", mFadeWithAge);
+        updateMaterial();
 
         GVRRenderData renderData = new GVRRenderData(mGVRContext);
         renderData.setMaterial(material);
         renderData.setMesh(mParticleMesh);
-        material.setMainTexture(mTexture);
 
         GVRSceneObject meshObject = new GVRSceneObject(mGVRContext);
         meshObject.attachRenderData(renderData);
@@ -121,4 +113,54 @@ class Particles {
 
         return meshObject;
     }
+
+    /**
+     * Replaces some of the particles of the mesh created by {@link #makeParticleMesh}.
+     * The arrays must have the same layout and size as the ones passed to
+     * {@link #makeParticleMesh}, but only the particles in the given range
+     * are copied and uploaded, so the caller may keep reusing them.
+     *
+     * @param vertices the vertex positions of the particles.
+     * @param velocities the velocity attributes for each vertex.
+     * @param particleTimeStamps the spawning times of each vertex.
+     * @param first index of the first particle to replace.
+     * @param count number of particles to replace.
+     */
+    public void updateParticleMesh(float[] vertices, float[] velocities,
+                                   float[] particleTimeStamps, int first, int count)
+    {
+        mParticleMesh.setVertices(vertices, first, count);
+        mParticleMesh.setNormals(velocities, first, count);
+        mParticleMesh.setTexCoords(particleTimeStamps, 0, first, count);
+    }
+
+    /**
+     * Changes the particle properties of the mesh created by
+     * {@link #makeParticleMesh}.
+     */
+    public void setProperties(float age, float particleSize, Vector3f acceleration,
+                              float particleSizeRate, boolean fadeWithAge,
+                              GVRTexture tex, Vector4f color)
+    {
+        mAge = age;
+        mSize = particleSize;
+        mAcceleration = acceleration;
+        mParticleSizeRate = particleSizeRate;
+        mColorMultiplier = color;
+        mFadeWithAge = fadeWithAge ? 1.0f : 0.0f;
+        mTexture = tex;
+        updateMaterial();
+    }
+
+    private void updateMaterial()
+    {
+        material.setVec4("u_color", mColorMultiplier.x, mColorMultiplier.y,
+                mColorMultiplier.z, mColorMultiplier.w);
+        material.setFloat("u_particle_age", mAge);
+        material.setVec3("u_acceleration", mAcceleration.x, mAcceleration.y, mAcceleration.z);
+        material.setFloat("u_particle_size", mSize);
+        material.setFloat("u_size_change_rate", mParticleSizeRate);
+        material.setFloat("u_fade", mFadeWithAge);
+        material.setMainTexture(mTexture);
+    }
 }
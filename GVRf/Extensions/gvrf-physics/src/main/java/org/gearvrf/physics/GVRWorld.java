@@ -20,9 +20,11 @@ import android.util.LongSparseArray;
 import org.gearvrf.GVRBehavior;
 import org.gearvrf.GVRComponent;
 import org.gearvrf.GVRContext;
+import org.gearvrf.GVRFloatEventDispatcher;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRSceneObject.ComponentVisitor;
 import org.gearvrf.ISceneObjectEvents;
+import org.gearvrf.debug.GVRProfiler;
 
 /**
  * Represents a physics world where all {@link GVRSceneObject} with {@link GVRRigidBody} component
@@ -40,6 +42,28 @@ public class GVRWorld extends GVRBehavior implements ISceneObjectEvents, Compone
 
     private final LongSparseArray<GVRRigidBody> mRigidBodies = new LongSparseArray<GVRRigidBody>();
     private final GVRCollisionMatrix mCollisionMatrix;
+    private final Object[] mCollisionParams = new Object[3];
+
+    private static final int COLLISION_EVENT_ENTER = 0;
+    private static final int COLLISION_EVENT_EXIT = 1;
+
+    private static final GVRProfiler.Scope PHYSICS_SCOPE = GVRProfiler.getScope("physics step");
+
+    private static final GVRFloatEventDispatcher<ICollisionEvents> sCollisionEventDispatcher =
+            new GVRFloatEventDispatcher<ICollisionEvents>(ICollisionEvents.class, "onEnter", "onExit") {
+        @Override
+        protected void dispatch(ICollisionEvents handler, int eventId, Object[] params, float distance) {
+            GVRSceneObject sceneObj0 = (GVRSceneObject) params[0];
+            GVRSceneObject sceneObj1 = (GVRSceneObject) params[1];
+            float[] normal = (float[]) params[2];
+
+            if (eventId == COLLISION_EVENT_ENTER) {
+                handler.onEnter(sceneObj0, sceneObj1, normal, distance);
+            } else {
+                handler.onExit(sceneObj0, sceneObj1, normal, distance);
+            }
+        }
+    };
 
     /**
      * Constructs new instance to simulatethe Physics World of the Scene.
@@ -138,8 +162,10 @@ public class GVRWorld extends GVRBehavior implements ISceneObjectEvents, Compone
             return;
         }
         mIsProcessing = true;
+        long startTime = PHYSICS_SCOPE.begin();
         NativePhysics3DWorld.step(getNative(), mFrameTime);
         generateCollisionEvents();
+        PHYSICS_SCOPE.end(startTime);
         mFrameTime = 0.0f;
         mIsProcessing = false;
     }
@@ -147,28 +173,33 @@ public class GVRWorld extends GVRBehavior implements ISceneObjectEvents, Compone
     private void generateCollisionEvents() {
         GVRCollisionInfo collisionInfos[] = NativePhysics3DWorld.listCollisions(getNative());
 
-        String onEnter = "onEnter";
-        String onExit = "onExit";
-
         for (GVRCollisionInfo info : collisionInfos) {
             if (info.isHit) {
-                sendCollisionEvent(info, onEnter);
+                sendCollisionEvent(info, COLLISION_EVENT_ENTER);
             }
             else {
-                sendCollisionEvent(info, onExit);
+                sendCollisionEvent(info, COLLISION_EVENT_EXIT);
             }
         }
     }
 
-    private void sendCollisionEvent(GVRCollisionInfo info, String eventName) {
+    private void sendCollisionEvent(GVRCollisionInfo info, int eventId) {
         GVRSceneObject bodyA = mRigidBodies.get(info.bodyA).getOwnerObject();
         GVRSceneObject bodyB = mRigidBodies.get(info.bodyB).getOwnerObject();
+        Object[] params = mCollisionParams;
+
+        params[0] = bodyA;
+        params[1] = bodyB;
+        params[2] = info.normal;
+        getGVRContext().getEventManager().sendEvent(bodyA, sCollisionEventDispatcher, eventId,
+                params, info.distance);
 
-        getGVRContext().getEventManager().sendEvent(bodyA, ICollisionEvents.class, eventName,
-                bodyA, bodyB, info.normal, info.distance);
+        params[0] = bodyB;
+        params[1] = bodyA;
+        getGVRContext().getEventManager().sendEvent(bodyB, sCollisionEventDispatcher, eventId,
+                params, info.distance);
 
-        getGVRContext().getEventManager().sendEvent(bodyB, ICollisionEvents.class, eventName,
-                bodyB, bodyA, info.normal, info.distance);
+        params[0] = params[1] = params[2] = null;
     }
 
     private void doPhysicsAttach(GVRSceneObject rootSceneObject) {
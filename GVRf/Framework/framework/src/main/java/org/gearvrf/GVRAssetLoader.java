@@ -96,6 +96,7 @@ public final class GVRAssetLoader {
         protected Integer                 mNumTextures;
         protected boolean                 mReplaceScene = false;
         protected boolean                 mUseTextureCache = true;
+        protected boolean                 mStreamTextures = false;
 
         /**
          * Request to load an asset.
@@ -177,6 +178,14 @@ public final class GVRAssetLoader {
             mUseTextureCache = false;
         }
 
+        /**
+         * Load textures through the {@link GVRTextureStreamer}
+         */
+        void enableTextureStreaming()
+        {
+            mStreamTextures = true;
+        }
+
         /**
          * Load a texture asynchronously with a callback.
          * @param request callback that indicates which texture to load
@@ -190,8 +199,12 @@ public final class GVRAssetLoader {
                 try
                 {
                     GVRAndroidResource resource = mVolume.openResource(request.TextureFile);
-                    mContext.getAssetLoader().loadTexture(resource, request, mContext.getAssetLoader().getDefaultTextureParameters(),
-                                                          DEFAULT_PRIORITY, GVRCompressedTexture.BALANCED, mUseTextureCache);
+                    if (mStreamTextures)
+                    {
+                        mContext.getAssetLoader().getTextureStreamer().stream(this, request, resource);
+                        return;
+                    }
+                    loadTextureResource(request, resource);
                 }
                 catch (IOException ex)
                 {
@@ -216,7 +229,7 @@ public final class GVRAssetLoader {
             {
                 GVRAndroidResource resource = mVolume.openResource(request.TextureFile);
                 FutureResource<GVRTexture> result = new FutureResource<GVRTexture>(resource);
-                mContext.getAssetLoader().loadTexture(resource, request);
+                loadTextureResource(request, resource);
                 return result;
             }
             catch (IOException ex)
@@ -227,6 +240,33 @@ public final class GVRAssetLoader {
             return null;
          }
 
+        /*
+         * Load a texture file. With the import cache enabled, the texture
+         * is made from its cached pixels if they are there, otherwise the
+         * decoded pixels are written to the cache.
+         */
+        private void loadTextureResource(TextureRequest request, GVRAndroidResource resource)
+        {
+            GVRAssetLoader loader = mContext.getAssetLoader();
+            GVRImportCache importCache = loader.mImportCache;
+            TextureCallback callback = request;
+
+            if ((importCache != null)
+                && (resource.getResourceType() != GVRAndroidResource.ResourceType.INPUT_STREAM)
+                && (resource.getResourceType() != GVRAndroidResource.ResourceType.NETWORK)
+                && !(mUseTextureCache && (mTextureCache.get(resource) != null)))
+            {
+                callback = importCache.loadTexture(mContext, request, resource,
+                                                   loader.getDefaultTextureParameters());
+                if (callback == null)
+                {
+                    return;
+                }
+            }
+            loader.loadTexture(resource, callback, loader.getDefaultTextureParameters(),
+                               DEFAULT_PRIORITY, GVRCompressedTexture.BALANCED, mUseTextureCache);
+        }
+
         /**
          * Load an embedded RGBA texture from the JASSIMP AiScene.
          * An embedded texture is represented as an AiTexture object in Java.
@@ -300,6 +340,10 @@ public final class GVRAssetLoader {
             mContext.getEventManager().sendEvent(mContext,
                     IAssetEvents.class,
                     "onModelLoaded", new Object[]{mContext, model, modelFile});
+            if (mStreamTextures)
+            {
+                mContext.getAssetLoader().getTextureStreamer().bindOwners(this, model);
+            }
             if (mNumTextures == 0)
             {
                 generateLoadEvent();
@@ -354,6 +398,10 @@ public final class GVRAssetLoader {
         public void onModelError(GVRContext context, String error, String modelFile)
         {
             Log.e(TAG, "ASSET: ERROR: model %s did not load %s", modelFile, error);
+            if (mStreamTextures)
+            {
+                mContext.getAssetLoader().getTextureStreamer().bindOwners(this, null);
+            }
             if (mUserHandler != null)
             {
                 mUserHandler.onModelError(context, error, modelFile);
@@ -559,12 +607,16 @@ public final class GVRAssetLoader {
         }
     }
 
+    protected static long sTextureCacheSize = 0;
     protected static ResourceCache<GVRTexture> mTextureCache = new ResourceCache<GVRTexture>();
+    protected static ResourceCacheBase<GVRByteArray> sFileCache = new ResourceCacheBase<GVRByteArray>();
     protected static HashMap<String, GVRTexture> mEmbeddedCache = new HashMap<String, GVRTexture>();
     protected static GVRTexture mDefaultTexture = null;
 
     protected GVRContext mContext;
     protected ResourceCache<GVRMesh> mMeshCache = new ResourceCache<>();
+    protected GVRImportCache mImportCache = null;
+    protected GVRTextureStreamer mTextureStreamer = null;
 
     /**
      * When the application is restarted we recreate the texture cache
@@ -576,7 +628,7 @@ public final class GVRAssetLoader {
 
             @Override
             public void run() {
-                mTextureCache = new ResourceCache<GVRTexture>();
+                mTextureCache = new ResourceCache<GVRTexture>(sTextureCacheSize);
                 mEmbeddedCache = new HashMap<String, GVRTexture>();
                 mDefaultTexture = null;
             }
@@ -593,6 +645,117 @@ public final class GVRAssetLoader {
         mDefaultTextureParameters = new GVRTextureParameters(context);
     }
 
+    /**
+     * Set the memory budget of the texture cache, which is shared by
+     * all asset loaders. Textures are kept in memory, even when they are
+     * no longer used, until their estimated sizes add up to the budget.
+     * The default budget of 0 only keeps textures which are still in use.
+     *
+     * @param maxSize budget in bytes
+     * @see GVRTexture#getDataSize()
+     */
+    public static void setTextureCacheSize(long maxSize)
+    {
+        sTextureCacheSize = maxSize;
+        mTextureCache.setMaxSize(maxSize);
+    }
+
+    /**
+     * Get the texture cache, to inspect its hit, miss and eviction counts.
+     * @return texture cache shared by all asset loaders
+     */
+    public static ResourceCache<GVRTexture> getTextureCache()
+    {
+        return mTextureCache;
+    }
+
+    /**
+     * Set the memory budget of the cache of model files read by the
+     * importer, which is shared by all asset loaders.
+     * The default budget of 0 only keeps files which are still in use.
+     *
+     * @param maxSize budget in bytes
+     */
+    public static void setFileCacheSize(long maxSize)
+    {
+        sFileCache.setMaxSize(maxSize);
+    }
+
+    /**
+     * Get the cache of model files read by the importer,
+     * to inspect its hit, miss and eviction counts.
+     * @return file cache shared by all asset loaders
+     */
+    public static ResourceCacheBase<GVRByteArray> getFileCache()
+    {
+        return sFileCache;
+    }
+
+    /**
+     * Set the memory budget of the mesh cache of this asset loader.
+     * The default budget of 0 only keeps meshes which are still in use.
+     *
+     * @param maxSize budget in bytes
+     */
+    public void setMeshCacheSize(long maxSize)
+    {
+        mMeshCache.setMaxSize(maxSize);
+    }
+
+    /**
+     * Get the mesh cache of this asset loader,
+     * to inspect its hit, miss and eviction counts.
+     * @return mesh cache
+     */
+    public ResourceCache<GVRMesh> getMeshCache()
+    {
+        return mMeshCache;
+    }
+
+    /**
+     * Enable the on-disk cache of imported models.
+     * <p>
+     * Models loaded with the asset importer are written to the
+     * cache directory after they are imported. Later loads of the same
+     * file, with the same import settings, build the scene objects from
+     * the cached copy instead of importing the file again. The decoded
+     * pixels of the bitmap textures of models, X3D files included, are
+     * cached too, so they are not decoded again. The scene graph of X3D
+     * files is not cached.
+     *
+     * @param directory directory for the cache files, for example a
+     *                  subdirectory of {@link Context#getCacheDir()},
+     *                  or null to disable the cache.
+     */
+    public void setImportCacheDirectory(File directory)
+    {
+        mImportCache = (directory != null) ? new GVRImportCache(directory) : null;
+    }
+
+    /**
+     * Get the directory of the on-disk cache of imported models.
+     * @return cache directory, or null if the cache is disabled
+     * @see #setImportCacheDirectory(File)
+     */
+    public File getImportCacheDirectory()
+    {
+        return (mImportCache != null) ? mImportCache.getDirectory() : null;
+    }
+
+    /**
+     * Get the texture streamer which loads the textures of assets
+     * imported with {@link GVRImportSettings#STREAM_TEXTURES}.
+     * @return texture streamer of this asset loader
+     */
+    public synchronized GVRTextureStreamer getTextureStreamer()
+    {
+        if (mTextureStreamer == null)
+        {
+            mTextureStreamer = new GVRTextureStreamer(mContext);
+        }
+        return mTextureStreamer;
+    }
+
     /**
      * Get the embedded texture cache.
      * This is an internal routine used during asset loading for processing
@@ -1171,7 +1334,7 @@ public final class GVRAssetLoader {
 
         public CachedVolumeIO(ResourceVolumeIO uncachedIO) {
             this.uncachedIO = uncachedIO;
-            cache = new ResourceCacheBase<GVRByteArray>();
+            cache = sFileCache;
         }
 
         @Override
@@ -1965,12 +2128,37 @@ public final class GVRAssetLoader {
         GVRJassimpAdapter jassimpAdapter = new GVRJassimpAdapter(this, filePath);
 
         model.setName(filePath);
+        if (settings.contains(GVRImportSettings.STREAM_TEXTURES))
+        {
+            request.enableTextureStreaming();
+        }
         GVRResourceVolume volume = request.getVolume();
+        GVRImportCache importCache = mImportCache;
+        GVRImportCache.RecordingVolumeIO volumeIO =
+                new GVRImportCache.RecordingVolumeIO(new CachedVolumeIO(new ResourceVolumeIO(volume)));
+        String mainFile = FileNameUtils.getFilename(filePath);
+        String cacheKey = null;
+
+        if (importCache != null)
+        {
+            // Keep the file in memory, the importer reads it again
+            byte[] source = volumeIO.read(mainFile);
+            if (source != null)
+            {
+                cacheKey = GVRImportCache.makeKey(source, settings);
+                if (importCache.load(cacheKey, request, model, volumeIO, mainFile,
+                                     settings.contains(GVRImportSettings.START_ANIMATIONS)))
+                {
+                    request.onModelLoaded(mContext, model, filePath);
+                    return model;
+                }
+            }
+        }
         try
         {
-            assimpScene = Jassimp.importFileEx(FileNameUtils.getFilename(filePath),
+            assimpScene = Jassimp.importFileEx(mainFile,
                     jassimpAdapter.toJassimpSettings(settings),
-                    new CachedVolumeIO(new ResourceVolumeIO(volume)));
+                    volumeIO);
         }
         catch (IOException ex)
         {
@@ -1986,6 +2174,10 @@ public final class GVRAssetLoader {
         }
         boolean startAnimations = settings.contains(GVRImportSettings.START_ANIMATIONS);
         jassimpAdapter.processScene(request, model, assimpScene, volume, startAnimations);
+        if ((cacheKey != null) && GVRImportCache.isCacheable(assimpScene, jassimpAdapter))
+        {
+            importCache.save(cacheKey, assimpScene, volumeIO.getReadFiles());
+        }
         request.onModelLoaded(mContext, model, filePath);
         return model;
     }
@@ -2000,7 +2192,16 @@ public final class GVRAssetLoader {
         GVRAndroidResource resource = volume.openResource(fileName);
 
         root.setName(fileName);
+        if (settings.contains(GVRImportSettings.STREAM_TEXTURES))
+        {
+            assetRequest.enableTextureStreaming();
+        }
         org.gearvrf.x3d.X3Dobject x3dObject = new org.gearvrf.x3d.X3Dobject(assetRequest, root);
+        if (settings.contains(GVRImportSettings.PROGRESSIVE_LOAD)
+            && (assetRequest.mScene != null) && !assetRequest.replaceScene())
+        {
+            x3dObject.setProgressiveScene(assetRequest.mScene);
+        }
         try
         {
             ShaderSettings shaderSettings = new ShaderSettings(new GVRMaterial(mContext));
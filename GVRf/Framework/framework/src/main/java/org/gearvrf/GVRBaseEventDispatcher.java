@@ -0,0 +1,81 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.lang.reflect.Method;
+
+/**
+ * Dispatch table shared by {@link GVREventDispatcher} and
+ * {@link GVRFloatEventDispatcher}: the event interface and the names of
+ * its events, indexed by event ID. Extend one of those two classes
+ * instead of this one.
+ *
+ * @param <T> the event interface handled by this dispatcher
+ */
+public abstract class GVRBaseEventDispatcher<T extends IEvents> {
+    private final Class<T> mEventsClass;
+    private final String[] mEventNames;
+
+    GVRBaseEventDispatcher(Class<T> eventsClass, String... eventNames) {
+        mEventsClass = eventsClass;
+        mEventNames = eventNames;
+        for (String name : eventNames) {
+            if (!hasMethod(eventsClass, name)) {
+                throw new IllegalArgumentException(String.format("The interface contains no method %s", name));
+            }
+        }
+    }
+
+    /**
+     * Gets the event interface handled by this dispatcher.
+     * @return interface class of the event group
+     */
+    public final Class<T> getEventsClass() {
+        return mEventsClass;
+    }
+
+    /**
+     * Gets the name of an event.
+     * @param eventId ID of the event
+     * @return name of the event, as used by scripts
+     */
+    public final String getEventName(int eventId) {
+        return mEventNames[eventId];
+    }
+
+    /**
+     * Gets the number of events in the dispatch table.
+     * @return number of event IDs
+     */
+    public final int getEventCount() {
+        return mEventNames.length;
+    }
+
+    /*
+     * Calls the handler method for an event. The value is only used by
+     * dispatchers of events with a trailing float parameter.
+     */
+    abstract void dispatchTo(Object handler, int eventId, Object[] params, float value);
+
+    private static boolean hasMethod(Class<?> eventsClass, String name) {
+        for (Method method : eventsClass.getMethods()) {
+            if (method.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -49,6 +49,20 @@ public class GVRBaseSensor {
     protected IEventReceiver owner;
     private DepthComparator depthComparator;
     private boolean depthOrderEnabled;
+    // reused by processList, which the sensor manager calls under its lock
+    private final Object[] eventParams = new Object[1];
+
+    /**
+     * Dispatch table for {@link ISensorEvents}, sent for every sensor
+     * event of every frame.
+     */
+    static final GVREventDispatcher<ISensorEvents> sSensorEventDispatcher =
+            new GVREventDispatcher<ISensorEvents>(ISensorEvents.class, "onSensorEvent") {
+        @Override
+        protected void dispatch(ISensorEvents handler, int eventId, Object[] params) {
+            handler.onSensorEvent((SensorEvent) params[0]);
+        }
+    };
 
     /**
      * Constructor for {@link GVRBaseSensor}. By default the depth order property is set to false
@@ -149,10 +163,12 @@ public class GVRBaseSensor {
             for (int i = 0; i < events.size(); i++) {
                 SensorEvent event = events.get(i);
                 event.setEventGroup(getEventGroup(i,events.size()));
-                eventHandled = eventManager.sendEvent(ownerCopy, ISensorEvents.class,
-                        "onSensorEvent", event);
+                eventParams[0] = event;
+                eventHandled = eventManager.sendEvent(ownerCopy, sSensorEventDispatcher,
+                        0, eventParams);
                 event.recycle();
             }
+            eventParams[0] = null;
         }
         return eventHandled;
     }
@@ -70,6 +70,9 @@ public class GVRBitmapTexture extends GVRTexture {
         super(gvrContext, NativeBaseTexture.bareConstructor(textureParameters.getCurrentValuesArray()));
         NativeBaseTexture.setJavaOwner(getNative(), this);
         mBitmap = bitmap;
+        if (null != bitmap) {
+            mDataSize = bitmap.getByteCount();
+        }
 
         // check for transparency
         if(mBitmap != null && mBitmap.hasAlpha()) {
@@ -187,6 +190,7 @@ public class GVRBitmapTexture extends GVRTexture {
         mWidth = width;
         mHeight = height;
         mGrayscaleData = grayscaleData;
+        mDataSize = width * height;
     }
 
     /**
@@ -278,7 +282,7 @@ public class GVRBitmapTexture extends GVRTexture {
         if (getGVRContext().isCurrentThreadGLThread()) {
             updateTask.run();
         } else {
-            getGVRContext().runOnGlThread(updateTask);
+            getGVRContext().runOnGlThread(updateTask, GVRContext.GL_TASK_UPLOAD);
         }
         return updateTask;
     }
@@ -347,7 +351,7 @@ public class GVRBitmapTexture extends GVRTexture {
         if (getGVRContext().isCurrentThreadGLThread()) {
             updateTask.run();
         } else {
-            getGVRContext().runOnGlThread(updateTask);
+            getGVRContext().runOnGlThread(updateTask, GVRContext.GL_TASK_UPLOAD);
         }
         return updateTask;
     }
@@ -362,6 +366,13 @@ public class GVRBitmapTexture extends GVRTexture {
         return null;
     }
 
+    /*
+     * The bitmap the texture is made from, or null once it has been uploaded.
+     */
+    Bitmap getSourceBitmap() {
+        return mBitmap;
+    }
+
     @SuppressWarnings("unused")
     protected void idAvailable(final int id) {
         super.idAvailable(id);
@@ -381,12 +392,13 @@ public class GVRBitmapTexture extends GVRTexture {
      * pixels parameters. The buffer is not copied!
      */
     public void postBuffer(final int width, final int height, final int format, final int type, final Buffer pixels) {
+        mDataSize = width * height * 4;
         getGVRContext().runOnGlThread(new Runnable() {
             @Override
             public void run() {
                 NativeBaseTexture.updateFromBuffer(getNative(), width, height, format, type, pixels);
             }
-        });
+        }, GVRContext.GL_TASK_UPLOAD);
     }
 
     private Bitmap mBitmap;
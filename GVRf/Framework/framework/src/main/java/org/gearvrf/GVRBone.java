@@ -72,6 +72,12 @@ public final class GVRBone extends GVRComponent implements PrettyPrint {
 
     /**
      * Returns a list of bone weights.
+     * <p>
+     * Only the weights set with {@link #setBoneWeights(List)} are returned.
+     * The asset importer does not set them, it stores the weights of all
+     * the bones of a mesh packed per vertex instead, see
+     * {@link GVRVertexBoneData#getBoneIndices()} and
+     * {@link GVRVertexBoneData#getBoneWeights()}.
      *
      * @return the bone weights
      */
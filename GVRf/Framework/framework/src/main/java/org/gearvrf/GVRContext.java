@@ -52,10 +52,14 @@ import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
 import java.util.EnumSet;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Like the Android {@link Context} class, {@code GVRContext} provides core
@@ -157,6 +161,32 @@ public abstract class GVRContext implements IEventReceiver {
      */
     public static final int DEFAULT_PRIORITY = 0;
 
+    /**
+     * Priority of GL tasks which must run in the next frame, like the
+     * response to input. They are never deferred.
+     *
+     * @see #runOnGlThread(Runnable, int)
+     */
+    public static final int GL_TASK_URGENT = 0;
+
+    /**
+     * Priority of the GL tasks queued with {@link #runOnGlThread(Runnable)}.
+     * They run in order with the upload tasks, so they are deferred to a
+     * later frame when they were queued after a deferred upload.
+     *
+     * @see #runOnGlThread(Runnable, int)
+     */
+    public static final int GL_TASK_NORMAL = 1;
+
+    /**
+     * Priority of bulk GL work, like texture uploads. These tasks run in
+     * order with the normal ones, within the frame budget of the
+     * {@link GVRGLTaskQueue}.
+     *
+     * @see #runOnGlThread(Runnable, int)
+     */
+    public static final int GL_TASK_UPLOAD = 2;
+
     /**
      * The ID of the GLthread. We use this ID to prevent non-GL thread from
      * calling GL functions.
@@ -441,6 +471,31 @@ public abstract class GVRContext implements IEventReceiver {
      */
     public abstract void runOnGlThread(Runnable runnable);
 
+    /**
+     * Enqueues a callback to be run in the GL thread, with a priority.
+     *
+     * Urgent callbacks all run in the next frame. Normal and upload
+     * callbacks run in the order they were queued, within the frame budget
+     * of the {@link GVRGLTaskQueue}, and the rest are deferred to the
+     * following frames. If this is called
+     * on the GL thread, the callback runs immediately.
+     *
+     * @param runnable
+     *            A bit of code that must run on the GL thread
+     * @param priority
+     *            {@link #GL_TASK_URGENT}, {@link #GL_TASK_NORMAL} or
+     *            {@link #GL_TASK_UPLOAD}
+     */
+    public abstract void runOnGlThread(Runnable runnable, int priority);
+
+    /**
+     * Gets the queue of the {@linkplain #runOnGlThread(Runnable, int) GL
+     * callbacks}, to set its frame budget or read its statistics.
+     *
+     * @return the GL task queue
+     */
+    public abstract GVRGLTaskQueue getGlTaskQueue();
+
     /**
      * Enqueues a callback to be run in the GL thread after rendering a frame.
      *
@@ -449,6 +504,9 @@ public abstract class GVRContext implements IEventReceiver {
      * made from the GL thread (aka the "GL context"). The callback queue is
      * processed after a frame has been rendered.
      *
+     * Posting a runnable which is still waiting to run replaces its delay:
+     * it runs once, {@code delayFrames} frames after the last post.
+     *
      * @param delayFrames
      *            Number of frames to delay the task. 0 means current frame.
      * @param runnable
@@ -800,15 +858,85 @@ public abstract class GVRContext implements IEventReceiver {
     /**
      * We need hard references to {@linkplain GVRReference our references} -
      * otherwise, the references get garbage collected (usually before their
-     * objects) and never get enqueued.
+     * objects) and never get enqueued. They are keyed by native pointer, so
+     * that {@link #findReference(long)} does not search, and the map is
+     * striped so that threads creating objects do not wait for each other.
+     */
+    private final ConcurrentHashMap<Long, GVRReference> mReferences =
+            new ConcurrentHashMap<Long, GVRReference>(1024, 0.75f, 16);
+    /**
+     * References released explicitly, whose native objects are deleted at
+     * the end of the next frame, when the GL thread is not drawing them.
      */
-    private final Set<GVRReference> mReferenceSet = new HashSet<GVRReference>();
+    private final Queue<GVRReference> mReleaseQueue = new ConcurrentLinkedQueue<GVRReference>();
+    private final ConcurrentHashMap<Class<?>, AtomicInteger> mLiveCounts =
+            new ConcurrentHashMap<Class<?>, AtomicInteger>();
+    private final ThreadLocal<GVRReleaseScope> mReleaseScope = new ThreadLocal<GVRReleaseScope>();
 
     protected final void finalizeUnreachableObjects() {
         GVRReference reference;
         while (null != (reference = (GVRReference)mReferenceQueue.poll())) {
             reference.close();
         }
+        while (null != (reference = mReleaseQueue.poll())) {
+            reference.close();
+        }
+    }
+
+    /**
+     * Gets the number of hybrid objects whose native memory has not been
+     * freed yet, by class.
+     *
+     * @return snapshot of the number of live objects of each class
+     */
+    public Map<Class<?>, Integer> getLiveObjectCounts() {
+        Map<Class<?>, Integer> counts = new HashMap<Class<?>, Integer>();
+        for (Map.Entry<Class<?>, AtomicInteger> entry : mLiveCounts.entrySet()) {
+            int count = entry.getValue().get();
+            if (count > 0) {
+                counts.put(entry.getKey(), count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the number of hybrid objects whose native memory has not been
+     * freed yet.
+     *
+     * @return number of live objects of all classes
+     */
+    public int getLiveObjectCount() {
+        int count = 0;
+        for (AtomicInteger liveCount : mLiveCounts.values()) {
+            count += liveCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * Opens a release scope on the calling thread.
+     * <p>
+     * Every {@link GVRMesh}, {@link GVRTexture} and {@link GVRMaterial}
+     * created by this thread until the scope is closed is released by
+     * {@link GVRReleaseScope#close()}, instead of waiting for the garbage
+     * collector. Use it with try-with-resources around code which creates
+     * temporary meshes, textures or materials, and
+     * {@link GVRReleaseScope#keep(GVRHybridObject) keep} the objects which
+     * are still used after the scope.
+     *
+     * @return new scope, nested in the scope already open on this thread
+     */
+    public GVRReleaseScope openReleaseScope() {
+        GVRReleaseScope scope = new GVRReleaseScope(this, mReleaseScope.get());
+        mReleaseScope.set(scope);
+        return scope;
+    }
+
+    void closeReleaseScope(GVRReleaseScope scope) {
+        if (mReleaseScope.get() == scope) {
+            mReleaseScope.set(scope.getParent());
+        }
     }
 
     void onDestroy() {
@@ -820,56 +948,112 @@ public abstract class GVRContext implements IEventReceiver {
     final class GVRReference extends PhantomReference<GVRHybridObject> {
         private long mNativePointer;
         private final List<NativeCleanupHandler> mCleanupHandlers;
+        private final AtomicInteger mLiveCount;
+        /*
+         * Reference of another wrapper of the same native object, kept
+         * reachable while this one is in the map.
+         */
+        private GVRReference mShadowed;
+        /*
+         * Number of live wrappers of the native object, shared by their
+         * references. The last one to close deletes the native object.
+         */
+        private AtomicInteger mWrappers;
 
         private GVRReference(GVRHybridObject object, long nativePointer,
-                List<NativeCleanupHandler> cleanupHandlers) {
+                List<NativeCleanupHandler> cleanupHandlers, AtomicInteger liveCount) {
             super(object, mReferenceQueue);
 
             mNativePointer = nativePointer;
             mCleanupHandlers = cleanupHandlers;
+            mLiveCount = liveCount;
         }
 
-        private void close() {
-            close(true);
+        private synchronized boolean isLive() {
+            return mNativePointer != 0;
         }
 
-        private void close(boolean removeFromSet) {
-            synchronized (mReferenceSet) {
-                if (mNativePointer != 0) {
+        private void close() {
+            long nativePointer;
+            synchronized (this) {
+                nativePointer = mNativePointer;
+                if (nativePointer == 0) {
+                    return;
+                }
+                if (mWrappers.decrementAndGet() == 0) {
                     if (mCleanupHandlers != null) {
                         for (NativeCleanupHandler handler : mCleanupHandlers) {
-                            handler.nativeCleanup(mNativePointer);
+                            handler.nativeCleanup(nativePointer);
                         }
                     }
-                    NativeHybridObject.delete(mNativePointer);
-                    mNativePointer = 0;
+                    NativeHybridObject.delete(nativePointer);
                 }
-
-                if (removeFromSet) {
-                    mReferenceSet.remove(this);
+                mNativePointer = 0;
+            }
+            mLiveCount.decrementAndGet();
+            if (mReferences.remove(nativePointer, this)) {
+                GVRReference shadowed = mShadowed;
+                while ((shadowed != null) && !shadowed.isLive()) {
+                    shadowed = shadowed.mShadowed;
+                }
+                if (shadowed != null) {
+                    mReferences.putIfAbsent(nativePointer, shadowed);
                 }
             }
         }
+
+        /*
+         * Deletes the native object at the end of the frame. The phantom
+         * reference is cleared, it will not be enqueued any more.
+         */
+        private void release() {
+            clear();
+            mReleaseQueue.add(this);
+        }
     }
 
-    final void registerHybridObject(GVRHybridObject gvrHybridObject, long nativePointer, List<NativeCleanupHandler> cleanupHandlers) {
-        synchronized (mReferenceSet) {
-            mReferenceSet.add(new GVRReference(gvrHybridObject, nativePointer, cleanupHandlers));
+    final GVRReference registerHybridObject(GVRHybridObject gvrHybridObject, long nativePointer, List<NativeCleanupHandler> cleanupHandlers) {
+        Class<?> clazz = gvrHybridObject.getClass();
+        AtomicInteger liveCount = mLiveCounts.get(clazz);
+        if (liveCount == null) {
+            AtomicInteger newCount = new AtomicInteger();
+            liveCount = mLiveCounts.putIfAbsent(clazz, newCount);
+            if (liveCount == null) {
+                liveCount = newCount;
+            }
+        }
+        liveCount.incrementAndGet();
+
+        GVRReference reference = new GVRReference(gvrHybridObject, nativePointer, cleanupHandlers, liveCount);
+        GVRReference shadowed = mReferences.put(nativePointer, reference);
+        reference.mShadowed = shadowed;
+        if ((shadowed != null) && shadowed.isLive()) {
+            reference.mWrappers = shadowed.mWrappers;
+            reference.mWrappers.incrementAndGet();
+        } else {
+            reference.mWrappers = new AtomicInteger(1);
         }
+
+        GVRReleaseScope scope = mReleaseScope.get();
+        if ((scope != null) && GVRReleaseScope.captures(gvrHybridObject)) {
+            scope.add(gvrHybridObject);
+        }
+        return reference;
     }
 
     /**
-     * Explicitly close()ing an object is going to be relatively rare - most
-     * native memory will be freed when the owner-objects are garbage collected.
-     * Doing a lookup in these rare cases means that we can avoid giving every @link
-     * {@link GVRHybridObject} a hard reference to its {@link GVRReference}.
+     * Finds the reference of the wrapper last created for a native object.
      */
     final GVRReference findReference(long nativePointer) {
-        for (GVRReference reference : mReferenceSet) {
-            if (reference.mNativePointer == nativePointer) {
-                return reference;
-            }
-        }
-        return null;
+        return mReferences.get(nativePointer);
+    }
+
+    /**
+     * Frees the native object of a hybrid object at the end of the frame.
+     * The reference is the one returned when the object was registered, so
+     * another wrapper of the same native object is left alone.
+     */
+    final void releaseReference(GVRReference reference) {
+        reference.release();
     }
 }
@@ -104,6 +104,14 @@ public final class GVRContextProxy extends GVRContext {
         mContext.get().runOnGlThread(runnable);
     }
 
+    public void runOnGlThread(Runnable runnable, int priority) {
+        mContext.get().runOnGlThread(runnable, priority);
+    }
+
+    public GVRGLTaskQueue getGlTaskQueue() {
+        return mContext.get().getGlTaskQueue();
+    }
+
     public void runOnGlThreadPostRender(int delayFrames, Runnable runnable) {
         mContext.get().runOnGlThreadPostRender(delayFrames, runnable);
     }
@@ -60,6 +60,11 @@ public class GVRCubemapTexture extends GVRTexture {
             GVRTextureParameters textureParameters) {
         super(gvrContext, NativeCubemapTexture.bitmapArrayConstructor(
                 bitmapArray, textureParameters.getCurrentValuesArray()));
+        for (Bitmap bitmap : bitmapArray) {
+            if (bitmap != null) {
+                mDataSize += bitmap.getByteCount();
+            }
+        }
     }
 
     /**
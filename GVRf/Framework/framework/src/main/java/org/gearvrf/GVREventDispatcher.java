@@ -0,0 +1,74 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+/**
+ * A precompiled dispatch table for one event group. Instead of looking up
+ * handler methods by name and calling them through reflection, a
+ * dispatcher maps integer event IDs onto direct calls of the event
+ * interface. It is used with
+ * {@link GVREventManager#sendEvent(Object, GVREventDispatcher, int, Object[])}
+ * for events which are sent every frame, such as pick and collision events.
+ * <p>
+ * Events whose last parameter is a {@code float} use a
+ * {@link GVRFloatEventDispatcher} instead.
+ * <p>
+ * Each event group should have a single dispatcher instance which is shared
+ * by all senders. The event names are only used when the event is delivered
+ * to scripts, which are still called by name.
+ *
+ * <pre>
+ * {@code
+ * static final GVREventDispatcher<IPickEvents> DISPATCHER =
+ *     new GVREventDispatcher<IPickEvents>(IPickEvents.class, "onPick", "onNoPick") {
+ *         protected void dispatch(IPickEvents handler, int eventId, Object[] params) {
+ *             switch (eventId) {
+ *             case 0: handler.onPick((GVRPicker) params[0]); break;
+ *             case 1: handler.onNoPick((GVRPicker) params[0]); break;
+ *             }
+ *         }
+ *     };
+ * }
+ * </pre>
+ *
+ * @param <T> the event interface handled by this dispatcher
+ */
+public abstract class GVREventDispatcher<T extends IEvents> extends GVRBaseEventDispatcher<T> {
+    /**
+     * Constructs a dispatcher for an event group.
+     * @param eventsClass interface class representing the event group,
+     *                    such as {@link IPickEvents}.class
+     * @param eventNames  names of the events, indexed by event ID.
+     *                    Every name must be a method of {@code eventsClass}.
+     */
+    protected GVREventDispatcher(Class<T> eventsClass, String... eventNames) {
+        super(eventsClass, eventNames);
+    }
+
+    /**
+     * Calls the handler method for an event.
+     * @param handler object implementing the event interface
+     * @param eventId ID of the event to deliver
+     * @param params  parameters of the event, matching the
+     *                parameter list of the interface method
+     */
+    protected abstract void dispatch(T handler, int eventId, Object[] params);
+
+    @Override
+    final void dispatchTo(Object handler, int eventId, Object[] params, float value) {
+        dispatch(getEventsClass().cast(handler), eventId, params);
+    }
+}
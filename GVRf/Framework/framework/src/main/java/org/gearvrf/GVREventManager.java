@@ -17,12 +17,14 @@ package org.gearvrf;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.WeakHashMap;
 
+import org.gearvrf.debug.GVRProfiler;
 import org.gearvrf.script.GVRScriptFile;
 import org.gearvrf.script.IScriptable;
 
@@ -161,6 +163,105 @@ public class GVREventManager {
         return handledSuccessful;
     }
 
+    /**
+     * Delivers an event through a precompiled {@link GVREventDispatcher}.
+     * The event is delivered to the same handlers, in the same order, as
+     * {@link #sendEvent(Object, Class, String, Object...)}, but Java handlers
+     * are called directly through the dispatch table instead of by reflection.
+     * No lock is taken and nothing is allocated, which makes this the preferred
+     * way to send events every frame. The caller may reuse the {@code params}
+     * array between events.
+     *
+     * @param target
+     *     The object which handles the event.
+     * @param dispatcher
+     *     The dispatch table for the event group.
+     * @param eventId
+     *     The ID of the event in the dispatch table.
+     * @param params
+     *     Parameters of the event. They are not verified against the
+     *     interface; a mismatch results in a {@link ClassCastException}.
+     * @return
+     *     {@code true} if the event is handled, {@code false} if not handled.
+     */
+    public boolean sendEvent(Object target, GVREventDispatcher<?> dispatcher,
+            int eventId, Object[] params) {
+        return sendEventWithMask(SEND_MASK_ALL, target, dispatcher, eventId, params);
+    }
+
+    protected boolean sendEventWithMask(int sendMask, Object target, GVREventDispatcher<?> dispatcher,
+            int eventId, Object[] params) {
+        return sendDispatchedEvent(sendMask, target, dispatcher, eventId, params, false, 0.0f);
+    }
+
+    /**
+     * Delivers an event with a trailing {@code float} parameter through a
+     * precompiled {@link GVRFloatEventDispatcher}. The float is passed to
+     * Java handlers without boxing. It is only boxed and appended to {@code params} when
+     * the event is also delivered to a script.
+     *
+     * @param target
+     *     The object which handles the event.
+     * @param dispatcher
+     *     The dispatch table for the event group.
+     * @param eventId
+     *     The ID of the event in the dispatch table.
+     * @param params
+     *     Parameters of the event which precede the float parameter.
+     * @param value
+     *     The last parameter of the event.
+     * @return
+     *     {@code true} if the event is handled, {@code false} if not handled.
+     */
+    public boolean sendEvent(Object target, GVRFloatEventDispatcher<?> dispatcher,
+            int eventId, Object[] params, float value) {
+        return sendDispatchedEvent(SEND_MASK_ALL, target, dispatcher, eventId, params, true, value);
+    }
+
+    private boolean sendDispatchedEvent(int sendMask, Object target, GVRBaseEventDispatcher<?> dispatcher,
+            int eventId, Object[] params, boolean hasValue, float value) {
+        boolean handledSuccessful = false;
+        Class<? extends IEvents> eventsClass = dispatcher.getEventsClass();
+
+        if ((sendMask & SEND_MASK_OBJECT) != 0) {
+            if (eventsClass.isInstance(target)) {
+                dispatcher.dispatchTo(target, eventId, params, value);
+                handledSuccessful = true;
+            }
+        }
+
+        if ((sendMask & SEND_MASK_LISTENERS) != 0) {
+            if (target instanceof IEventReceiver) {
+                GVREventReceiver receiver = ((IEventReceiver) target).getEventReceiver();
+                IEvents[] listeners = receiver.getListenerArray();
+
+                for (IEvents listener : listeners) {
+                    // Skip the listener due to different type, or has been removed
+                    if (!eventsClass.isInstance(listener) || receiver.getOwner() != target)
+                        continue;
+
+                    // This may throw RuntimeException if the handler does so.
+                    dispatcher.dispatchTo(listener, eventId, params, value);
+                    handledSuccessful = true;
+                }
+            }
+        }
+
+        if ((sendMask & SEND_MASK_SCRIPTS) != 0) {
+            if (target instanceof IScriptable) {
+                Object[] scriptParams = params;
+                if (hasValue) {
+                    scriptParams = Arrays.copyOf(params, params.length + 1);
+                    scriptParams[params.length] = value;
+                }
+                handledSuccessful |= tryInvokeScript((IScriptable)target,
+                        dispatcher.getEventName(eventId), scriptParams);
+            }
+        }
+
+        return handledSuccessful;
+    }
+
     /*
      * Return the method in eventsClass by checking the signature.
      * RuntimeException is thrown if the event is not found in the eventsClass interface,
@@ -299,7 +400,10 @@ public class GVREventManager {
         if (script == null)
             return false;
 
-        return script.invokeFunction(eventName, params);
+        long startTime = GVRProfiler.SCRIPT.begin();
+        boolean invoked = script.invokeFunction(eventName, params);
+        GVRProfiler.SCRIPT.end(startTime);
+        return invoked;
     }
 
     private void invokeMethod(Object target, Method method, Object[] params) {
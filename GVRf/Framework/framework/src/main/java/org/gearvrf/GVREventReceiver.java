@@ -44,6 +44,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class GVREventReceiver {
     protected IEventReceiver mOwner;
     protected List<IEvents> mListeners;
+    private volatile IEvents[] mListenerArray = new IEvents[0];
 
     /**
      * Constructs an event receiver for the host object.
@@ -66,7 +67,10 @@ public class GVREventReceiver {
      *         The listener to be added.
      */
     public void addListener(IEvents listener) {
-        mListeners.add(listener);
+        synchronized (mListeners) {
+            mListeners.add(listener);
+            mListenerArray = mListeners.toArray(new IEvents[mListeners.size()]);
+        }
     }
 
     /**
@@ -76,7 +80,10 @@ public class GVREventReceiver {
      *         The listener to be removed.
      */
     public void removeListener(IEvents listener) {
-        mListeners.remove(listener);
+        synchronized (mListeners) {
+            mListeners.remove(listener);
+            mListenerArray = mListeners.toArray(new IEvents[mListeners.size()]);
+        }
     }
 
     /**
@@ -88,6 +95,14 @@ public class GVREventReceiver {
         return mListeners;
     }
 
+    /**
+     * Gets a snapshot of the listeners which can be iterated without
+     * allocation. The array must not be modified.
+     */
+    IEvents[] getListenerArray() {
+        return mListenerArray;
+    }
+
     /**
      * Gets the owner of the event receiver.
      * @return The owner of the event receiver.
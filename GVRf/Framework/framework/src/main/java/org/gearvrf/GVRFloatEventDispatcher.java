@@ -0,0 +1,63 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+/**
+ * A precompiled dispatch table for an event group whose events all end
+ * with a {@code float} parameter, such as the collision events and their
+ * distance. The float is passed to the handlers without boxing. It is
+ * used with
+ * {@link GVREventManager#sendEvent(Object, GVRFloatEventDispatcher, int, Object[], float)}.
+ *
+ * <pre>
+ * {@code
+ * static final GVRFloatEventDispatcher<ICollisionEvents> DISPATCHER =
+ *     new GVRFloatEventDispatcher<ICollisionEvents>(ICollisionEvents.class, "onEnter", "onExit") {
+ *         protected void dispatch(ICollisionEvents handler, int eventId, Object[] params, float distance) {
+ *             ...
+ *         }
+ *     };
+ * }
+ * </pre>
+ *
+ * @param <T> the event interface handled by this dispatcher
+ * @see GVREventDispatcher
+ */
+public abstract class GVRFloatEventDispatcher<T extends IEvents> extends GVRBaseEventDispatcher<T> {
+    /**
+     * Constructs a dispatcher for an event group.
+     * @param eventsClass interface class representing the event group
+     * @param eventNames  names of the events, indexed by event ID.
+     *                    Every name must be a method of {@code eventsClass}.
+     */
+    protected GVRFloatEventDispatcher(Class<T> eventsClass, String... eventNames) {
+        super(eventsClass, eventNames);
+    }
+
+    /**
+     * Calls the handler method for an event.
+     * @param handler object implementing the event interface
+     * @param eventId ID of the event to deliver
+     * @param params  parameters of the event which precede the float
+     * @param value   the last parameter of the event
+     */
+    protected abstract void dispatch(T handler, int eventId, Object[] params, float value);
+
+    @Override
+    final void dispatchTo(Object handler, int eventId, Object[] params, float value) {
+        dispatch(getEventsClass().cast(handler), eventId, params, value);
+    }
+}
@@ -81,6 +81,7 @@ public class GVRFloatTexture extends GVRTexture {
                 || data.length < height * width * 2) {
             throw new IllegalArgumentException();
         }
+        mDataSize = width * height * 2 * 4;
         return NativeFloatTexture.update(getNative(), width, height, data);
     }
 }
@@ -0,0 +1,289 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gearvrf.utility.Log;
+
+/**
+ * Queue of the tasks passed to {@link GVRContext#runOnGlThread(Runnable, int)}.
+ * <p>
+ * Any thread can add tasks without locking. Every frame, the GL thread
+ * runs all the {@link GVRContext#GL_TASK_URGENT urgent} tasks, then the
+ * {@link GVRContext#GL_TASK_NORMAL normal} and
+ * {@link GVRContext#GL_TASK_UPLOAD upload} tasks in the order they were
+ * queued. Once the frame budget is used up, the next upload task and all
+ * the tasks queued after it are deferred to the next frames, so that a
+ * burst of texture uploads does not stall a frame. Normal tasks are only
+ * deferred when they wait behind a deferred upload, and at least one
+ * upload task runs every frame, however long it takes.
+ * <p>
+ * The counters describe the last frame, for example to display them or
+ * to log them with {@link org.gearvrf.debug.GVRProfiler}.
+ */
+public final class GVRGLTaskQueue {
+    private static final String TAG = Log.tag(GVRGLTaskQueue.class);
+
+    /**
+     * Default time the normal and upload tasks may take each frame.
+     */
+    public static final float DEFAULT_FRAME_BUDGET = 4.0f;
+
+    private final Queue<Runnable> mUrgent = new ConcurrentLinkedQueue<Runnable>();
+    private final Queue<Task> mTasks = new ConcurrentLinkedQueue<Task>();
+    private final AtomicInteger mPending = new AtomicInteger();
+    private final AtomicInteger mQueued = new AtomicInteger();
+    private volatile long mBudgetNanos = (long) (DEFAULT_FRAME_BUDGET * 1000000);
+
+    private int mLastQueued;
+    private int mLastExecuted;
+    private int mLastDeferred;
+    private long mLastNanos;
+
+    /*
+     * Post-render tasks are handed over to the GL thread without locking
+     * and kept in a list which only the GL thread touches. A runnable
+     * posted again while it waits keeps its place and takes the new delay.
+     */
+    private final Queue<PostRenderTask> mPostRenderQueue = new ConcurrentLinkedQueue<PostRenderTask>();
+    private final List<PostRenderTask> mPostRenderTasks = new ArrayList<PostRenderTask>();
+    private final Map<Runnable, PostRenderTask> mPostRenderWaiting = new HashMap<Runnable, PostRenderTask>();
+
+    private static final class Task {
+        final Runnable mRunnable;
+        final boolean mUpload;
+
+        Task(Runnable runnable, boolean upload) {
+            mRunnable = runnable;
+            mUpload = upload;
+        }
+    }
+
+    private static final class PostRenderTask {
+        final Runnable mRunnable;
+        int mDelayFrames;
+
+        PostRenderTask(Runnable runnable, int delayFrames) {
+            mRunnable = runnable;
+            mDelayFrames = delayFrames;
+        }
+    }
+
+    GVRGLTaskQueue() {
+    }
+
+    /**
+     * Sets how long the normal and upload tasks may run each frame.
+     *
+     * @param milliseconds
+     *            time budget, 0 or less to run every task in the frame
+     *            it was queued in
+     */
+    public void setFrameBudget(float milliseconds) {
+        mBudgetNanos = (milliseconds > 0) ? (long) (milliseconds * 1000000) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the time the normal and upload tasks may run each frame.
+     *
+     * @return time budget in milliseconds
+     */
+    public float getFrameBudget() {
+        long budget = mBudgetNanos;
+        return (budget == Long.MAX_VALUE) ? 0 : budget / 1000000.0f;
+    }
+
+    /**
+     * Gets the number of tasks queued between the last two frames.
+     *
+     * @return number of tasks added
+     */
+    public int getQueuedCount() {
+        return mLastQueued;
+    }
+
+    /**
+     * Gets the number of tasks run in the last frame.
+     *
+     * @return number of tasks run
+     */
+    public int getExecutedCount() {
+        return mLastExecuted;
+    }
+
+    /**
+     * Gets the number of tasks left for later frames by the last frame.
+     *
+     * @return number of tasks deferred
+     */
+    public int getDeferredCount() {
+        return mLastDeferred;
+    }
+
+    /**
+     * Gets the time taken by the tasks run in the last frame.
+     *
+     * @return time in milliseconds
+     */
+    public float getExecutionTime() {
+        return mLastNanos / 1000000.0f;
+    }
+
+    /**
+     * Gets the number of normal and upload tasks waiting to run.
+     *
+     * @return number of tasks in the queue
+     */
+    public int getPendingCount() {
+        return mPending.get();
+    }
+
+    void add(Runnable runnable, int priority) {
+        if (priority == GVRContext.GL_TASK_URGENT) {
+            mUrgent.add(runnable);
+        } else {
+            mTasks.add(new Task(runnable, priority == GVRContext.GL_TASK_UPLOAD));
+            mPending.incrementAndGet();
+        }
+        mQueued.incrementAndGet();
+    }
+
+    void addPostRender(Runnable runnable, int delayFrames) {
+        mPostRenderQueue.add(new PostRenderTask(runnable, delayFrames));
+    }
+
+    /**
+     * Runs the tasks of one frame on the GL thread.
+     */
+    void runFrame() {
+        long start = System.nanoTime();
+        long deadline = start + mBudgetNanos;
+        int waiting = mPending.get();
+        int executed = drainUrgent();
+
+        if (deadline < start) {
+            deadline = Long.MAX_VALUE;   // overflow of an unlimited budget
+        }
+        int ran = drain(deadline);
+        mLastNanos = System.nanoTime() - start;
+        mLastExecuted = executed + ran;
+        mLastQueued = mQueued.getAndSet(0);
+        /*
+         * The tasks run in order, so the ones queued before the frame
+         * started ran first: tasks queued since then are not deferred.
+         */
+        mLastDeferred = Math.max(0, waiting - ran);
+    }
+
+    /**
+     * Runs all the tasks, whatever the budget.
+     */
+    void runAll() {
+        drainUrgent();
+        drain(Long.MAX_VALUE);
+    }
+
+    /**
+     * Runs the post-render tasks whose delay has expired.
+     */
+    void runPostRender() {
+        PostRenderTask task;
+        while ((task = mPostRenderQueue.poll()) != null) {
+            PostRenderTask waiting = mPostRenderWaiting.get(task.mRunnable);
+            if (waiting != null) {
+                waiting.mDelayFrames = task.mDelayFrames;
+            } else {
+                mPostRenderWaiting.put(task.mRunnable, task);
+                mPostRenderTasks.add(task);
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < mPostRenderTasks.size(); ++i) {
+            task = mPostRenderTasks.get(i);
+            if (task.mDelayFrames <= 0) {
+                mPostRenderWaiting.remove(task.mRunnable);
+                run(task.mRunnable);
+            } else {
+                --task.mDelayFrames;
+                mPostRenderTasks.set(kept++, task);
+            }
+        }
+        for (int i = mPostRenderTasks.size() - 1; i >= kept; --i) {
+            mPostRenderTasks.remove(i);
+        }
+    }
+
+    void clear() {
+        mUrgent.clear();
+        mTasks.clear();
+        mPending.set(0);
+        mPostRenderQueue.clear();
+        mPostRenderTasks.clear();
+        mPostRenderWaiting.clear();
+    }
+
+    private int drainUrgent() {
+        int executed = 0;
+        Runnable runnable;
+
+        while ((runnable = mUrgent.poll()) != null) {
+            run(runnable);
+            ++executed;
+        }
+        return executed;
+    }
+
+    /*
+     * Runs the normal and upload tasks in order until the queue is empty
+     * or the deadline has passed and the next task is an upload.
+     * The first upload always runs, so uploads make progress.
+     */
+    private int drain(long deadline) {
+        int executed = 0;
+        boolean uploaded = false;
+        Task task;
+
+        while ((task = mTasks.peek()) != null) {
+            if (task.mUpload) {
+                if (uploaded && (System.nanoTime() >= deadline)) {
+                    break;
+                }
+                uploaded = true;
+            }
+            mTasks.poll();
+            mPending.decrementAndGet();
+            run(task.mRunnable);
+            ++executed;
+        }
+        return executed;
+    }
+
+    private static void run(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (final Exception exc) {
+            Log.e(TAG, "Runnable-on-GL %s threw %s", runnable, exc.toString());
+            exc.printStackTrace();
+        }
+    }
+}
@@ -40,11 +40,16 @@ public abstract class GVRHybridObject {
 
     private final GVRContext mGVRContext;
     /**
-     * This is not {@code final}: the first call to {@link #close()} sets
-     * {@link #mNativePointer} to 0, so that {@link #close()} can safely be
-     * called multiple times.
+     * This is not {@code final}: the first call to {@link #releaseNative()}
+     * sets {@link #mNativePointer} to 0, so that {@link #releaseNative()}
+     * can safely be called multiple times.
      */
     private long mNativePointer;
+    /**
+     * Reference registered for this wrapper, released by
+     * {@link #releaseNative()}. It does not keep this object reachable.
+     */
+    private final GVRContext.GVRReference mReference;
 
     /*
      * Constructors
@@ -89,7 +94,7 @@ public abstract class GVRHybridObject {
         mGVRContext = gvrContext;
         mNativePointer = nativePointer;
 
-        gvrContext.registerHybridObject(this,nativePointer, cleanupHandlers);
+        mReference = gvrContext.registerHybridObject(this,nativePointer, cleanupHandlers);
     }
 
     /*
@@ -115,6 +120,32 @@ public abstract class GVRHybridObject {
         return mNativePointer;
     }
 
+    /**
+     * Frees the native object now instead of when this object is garbage
+     * collected.
+     * <p>
+     * The native object is deleted at the end of the current frame, so it
+     * may still be drawn by the frame being rendered. If other wrappers of
+     * the same native object are alive, it is only deleted with the last
+     * of them. After this call
+     * {@link #getNative()} returns 0 and the object must not be used
+     * any more, nor be referenced by other objects of the scene, such as
+     * a {@link GVRRenderData} using a released mesh or material. Calling
+     * it again does nothing.
+     *
+     * @see GVRContext#openReleaseScope()
+     */
+    public final void releaseNative() {
+        long nativePointer;
+        synchronized (this) {
+            nativePointer = mNativePointer;
+            mNativePointer = 0;
+        }
+        if (nativePointer != 0) {
+            mGVRContext.releaseReference(mReference);
+        }
+    }
+
     /*package*/ static long[] getNativePtrArray(Collection<? extends GVRHybridObject> objects) {
         long[] ptrs = new long[objects.size()];
 
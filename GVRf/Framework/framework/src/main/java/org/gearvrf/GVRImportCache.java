@@ -0,0 +1,1049 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import android.graphics.Bitmap;
+
+import org.gearvrf.GVRAndroidResource.TextureCallback;
+import org.gearvrf.animation.GVRAnimator;
+import org.gearvrf.animation.keyframe.GVRAnimationBehavior;
+import org.gearvrf.animation.keyframe.GVRAnimationChannel;
+import org.gearvrf.animation.keyframe.GVRKeyFrameAnimation;
+import org.gearvrf.jassimp.AiAnimation;
+import org.gearvrf.jassimp.AiBone;
+import org.gearvrf.jassimp.AiColor;
+import org.gearvrf.jassimp.AiMaterial;
+import org.gearvrf.jassimp.AiMesh;
+import org.gearvrf.jassimp.AiNode;
+import org.gearvrf.jassimp.AiNodeAnim;
+import org.gearvrf.jassimp.AiScene;
+import org.gearvrf.jassimp.AiTextureMapMode;
+import org.gearvrf.jassimp.AiTextureType;
+import org.gearvrf.jassimp.JassimpConfig;
+import org.gearvrf.jassimp.JassimpFileIO;
+import org.gearvrf.scene_objects.GVRModelSceneObject;
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.ResourceReader;
+import org.gearvrf.utility.Threads;
+import org.joml.Quaternionf;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk cache of imported models.
+ * <p>
+ * After a model has been imported with jassimp, its node hierarchy,
+ * mesh attributes and materials are written to a compact binary file
+ * named after a hash of the model file contents and the import settings.
+ * When the same model is loaded again, the file is memory mapped and the
+ * scene objects are built directly from it, without running the importer.
+ * Every other file the importer read (such as the material library of
+ * an OBJ file) is recorded with its hash and checked before the cached
+ * copy is used.
+ * <p>
+ * Bones, with their packed per vertex indices and weights, and animation
+ * channels are cached with the meshes. Models with lights, cameras or
+ * embedded textures, and imports using node factories, are always
+ * imported from the source.
+ * <p>
+ * The decoded pixels of the bitmap textures loaded by asset requests,
+ * including the textures of X3D files, are kept in the same directory,
+ * named after a hash of the texture file. A texture found there is made
+ * from its pixels without decoding the file again. The scene graph of
+ * an X3D file is not cached, the file is parsed every time.
+ */
+final class GVRImportCache
+{
+    private static final String TAG = Log.tag(GVRImportCache.class);
+    private static final int MAGIC = 0x47565243; // "GVRC"
+    private static final int TEXTURE_MAGIC = 0x47565254; // "GVRT"
+    private static final int VERSION = 3;
+    private static final String EXTENSION = ".gvrc";
+    private static final String TEXTURE_EXTENSION = ".gvrt";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int MAX_TEX_COORDS = JassimpConfig.MAX_NUMBER_TEXCOORDS;
+    private static final int MAX_VERTEX_COLORS = JassimpConfig.MAX_NUMBER_COLORSETS;
+
+    private final File mDirectory;
+
+    /**
+     * File IO for the importer which remembers the hash of every file read.
+     */
+    static class RecordingVolumeIO implements JassimpFileIO
+    {
+        private final JassimpFileIO mIO;
+        private final Map<String, byte[]> mReadFiles = new LinkedHashMap<String, byte[]>();
+
+        RecordingVolumeIO(JassimpFileIO io)
+        {
+            mIO = io;
+        }
+
+        @Override
+        public byte[] read(String path)
+        {
+            byte[] data = mIO.read(path);
+            if ((data != null) && !mReadFiles.containsKey(path))
+            {
+                mReadFiles.put(path, digest(data));
+            }
+            return data;
+        }
+
+        Map<String, byte[]> getReadFiles()
+        {
+            return mReadFiles;
+        }
+    }
+
+    GVRImportCache(File directory)
+    {
+        mDirectory = directory;
+    }
+
+    File getDirectory()
+    {
+        return mDirectory;
+    }
+
+    /**
+     * Make the cache key of a model.
+     * @param source   contents of the model file
+     * @param settings import settings
+     * @return hexadecimal hash identifying the import result
+     */
+    static String makeKey(byte[] source, EnumSet<GVRImportSettings> settings)
+    {
+        MessageDigest md = newDigest();
+        md.update(source);
+        md.update(settings.toString().getBytes(UTF8));
+        md.update((byte) VERSION);
+        return toHex(md.digest());
+    }
+
+    /**
+     * Tell whether an imported scene can be rebuilt from the cache.
+     */
+    static boolean isCacheable(AiScene scene, GVRJassimpAdapter adapter)
+    {
+        if (adapter.hasNodeFactories()
+            || (scene.getLights().size() > 0) || (scene.getCameras().size() > 0))
+        {
+            return false;
+        }
+        for (AiMesh mesh : scene.getMeshes())
+        {
+            AiMaterial material = scene.getMaterials().get(mesh.getMaterialIndex());
+            for (AiTextureType texType : AiTextureType.values())
+            {
+                if (texType == AiTextureType.UNKNOWN)
+                {
+                    continue;
+                }
+                for (int i = 0; i < material.getNumTextures(texType); ++i)
+                {
+                    if (material.getTextureFile(texType, i).startsWith("*"))
+                    {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build the scene objects of a cached model under {@code model}.
+     * @param key       cache key from {@link #makeKey(byte[], EnumSet)}
+     * @param request   asset request used to load the textures
+     * @param model     root of the loaded model
+     * @param io        file IO used to validate the other files read
+     *                  by the importer
+     * @param mainFile  name of the model file, which is validated by the key
+     * @param startAnimations true to start the animations of the model
+     * @return true if the model was loaded from the cache, false if it has
+     *         to be imported
+     */
+    boolean load(String key, GVRAssetLoader.AssetRequest request, GVRSceneObject model,
+                 JassimpFileIO io, String mainFile, boolean startAnimations)
+    {
+        File file = new File(mDirectory, key + EXTENSION);
+        if (!file.exists())
+        {
+            return false;
+        }
+        RandomAccessFile raf = null;
+        int numChildren = model.getChildrenCount();
+        try
+        {
+            raf = new RandomAccessFile(file, "r");
+            ByteBuffer data = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+
+            if ((data.getInt() != MAGIC) || (data.getInt() != VERSION))
+            {
+                return false;
+            }
+            int numFiles = data.getInt();
+            for (int i = 0; i < numFiles; ++i)
+            {
+                String path = readString(data);
+                byte[] hash = new byte[data.getInt()];
+                data.get(hash);
+                if (path.equals(mainFile))
+                {
+                    continue;
+                }
+                byte[] contents = io.read(path);
+                if ((contents == null) || !MessageDigest.isEqual(hash, digest(contents)))
+                {
+                    Log.d(TAG, "cached import of %s is out of date, %s changed", mainFile, path);
+                    return false;
+                }
+            }
+
+            GVRContext context = model.getGVRContext();
+            int numMeshes = data.getInt();
+            GVRMesh[] meshes = new GVRMesh[numMeshes];
+            GVRMaterial[] materials = new GVRMaterial[numMeshes];
+            for (int i = 0; i < numMeshes; ++i)
+            {
+                meshes[i] = readMesh(context, data);
+                materials[i] = readMaterial(context, request, data);
+            }
+            readNode(context, data, model, meshes, materials);
+            readAnimations(context, data, model, startAnimations);
+            Log.d(TAG, "loaded %s from cache", mainFile);
+            return true;
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            Log.w(TAG, "cannot read cached import of %s: %s", mainFile, ex.getMessage());
+            while (model.getChildrenCount() > numChildren)
+            {
+                model.removeChildObject(model.getChildByIndex(numChildren));
+            }
+            return false;
+        }
+        finally
+        {
+            close(raf);
+        }
+    }
+
+    /**
+     * Write an imported scene to the cache.
+     * @param key       cache key from {@link #makeKey(byte[], EnumSet)}
+     * @param scene     imported scene, must be {@link #isCacheable cacheable}
+     * @param readFiles files read by the importer, with their hashes
+     */
+    void save(String key, AiScene scene, Map<String, byte[]> readFiles)
+    {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs())
+        {
+            Log.w(TAG, "cannot create import cache directory %s", mDirectory);
+            return;
+        }
+        File file = new File(mDirectory, key + EXTENSION);
+        File tempFile = new File(mDirectory, key + ".tmp");
+        DataOutputStream out = null;
+        try
+        {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(readFiles.size());
+            for (Map.Entry<String, byte[]> entry : readFiles.entrySet())
+            {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+
+            List<AiMesh> meshes = scene.getMeshes();
+            out.writeInt(meshes.size());
+            for (AiMesh mesh : meshes)
+            {
+                writeMesh(out, mesh);
+                writeMaterial(out, scene.getMaterials().get(mesh.getMaterialIndex()), mesh);
+            }
+            writeNode(out, scene.getSceneRoot(GVRJassimpAdapter.sWrapperProvider));
+            writeAnimations(out, scene.getAnimations());
+            out.close();
+            out = null;
+            if (!tempFile.renameTo(file))
+            {
+                throw new IOException("cannot rename " + tempFile);
+            }
+        }
+        catch (IOException ex)
+        {
+            Log.w(TAG, "cannot write import cache %s: %s", file, ex.getMessage());
+            close(out);
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Load a texture of an asset from its cached pixels.
+     * <p>
+     * The texture file is read and hashed. If the pixels of a file with
+     * the same hash are in the cache, the texture is made from them and
+     * passed to the request. Otherwise the returned callback should be
+     * used to load the texture as usual, it writes the decoded pixels
+     * of a bitmap texture to the cache.
+     * @param context    context to make the texture with
+     * @param texRequest texture request of the asset
+     * @param resource   texture file, its stream is closed again
+     * @param texParams  parameters to make the texture with
+     * @return callback to load the texture with, or null if the texture
+     *         was loaded from the cache
+     */
+    TextureCallback loadTexture(GVRContext context, GVRAssetLoader.TextureRequest texRequest,
+                                GVRAndroidResource resource, GVRTextureParameters texParams)
+    {
+        byte[] hash;
+        try
+        {
+            InputStream stream = resource.getStream();
+            if (stream == null)
+            {
+                return texRequest;
+            }
+            hash = digest(ResourceReader.readStream(stream));
+        }
+        catch (IOException ex)
+        {
+            return texRequest;
+        }
+        finally
+        {
+            resource.closeStream();
+        }
+        File file = new File(mDirectory, toHex(hash) + TEXTURE_EXTENSION);
+        if (file.exists())
+        {
+            GVRTexture texture = readTexture(context, file, texParams);
+            if (texture != null)
+            {
+                texRequest.loaded(texture, resource);
+                return null;
+            }
+        }
+        return new TextureSaver(texRequest, file);
+    }
+
+    /*
+     * Textures: the bitmap configuration, width and height followed by
+     * the pixels as copied from the bitmap.
+     */
+    private static GVRTexture readTexture(GVRContext context, File file, GVRTextureParameters texParams)
+    {
+        RandomAccessFile raf = null;
+        try
+        {
+            raf = new RandomAccessFile(file, "r");
+            ByteBuffer data = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+
+            if ((data.getInt() != TEXTURE_MAGIC) || (data.getInt() != VERSION))
+            {
+                return null;
+            }
+            Bitmap.Config config = Bitmap.Config.valueOf(readString(data));
+            int width = data.getInt();
+            int height = data.getInt();
+            Bitmap bitmap = Bitmap.createBitmap(width, height, config);
+            bitmap.copyPixelsFromBuffer(data);
+            return new GVRBitmapTexture(context, bitmap, texParams);
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            Log.w(TAG, "cannot read cached texture %s: %s", file, ex.getMessage());
+            return null;
+        }
+        finally
+        {
+            close(raf);
+        }
+    }
+
+    private void writeTexture(File file, Bitmap bitmap)
+    {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs())
+        {
+            Log.w(TAG, "cannot create import cache directory %s", mDirectory);
+            return;
+        }
+        File tempFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try
+        {
+            ByteBuffer pixels = ByteBuffer.allocate(bitmap.getByteCount());
+            bitmap.copyPixelsToBuffer(pixels);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(TEXTURE_MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, bitmap.getConfig().name());
+            out.writeInt(bitmap.getWidth());
+            out.writeInt(bitmap.getHeight());
+            out.write(pixels.array());
+            out.close();
+            out = null;
+            if (!tempFile.renameTo(file))
+            {
+                throw new IOException("cannot rename " + tempFile);
+            }
+        }
+        catch (IOException ex)
+        {
+            Log.w(TAG, "cannot write cached texture %s: %s", file, ex.getMessage());
+            close(out);
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Passes the texture on to the texture request and writes the pixels
+     * of a bitmap texture to the cache, in the background. The pixels
+     * are only available until the texture has been uploaded, textures
+     * which are already uploaded are not cached.
+     */
+    private class TextureSaver implements TextureCallback
+    {
+        private final GVRAssetLoader.TextureRequest mRequest;
+        private final File mFile;
+
+        TextureSaver(GVRAssetLoader.TextureRequest request, File file)
+        {
+            mRequest = request;
+            mFile = file;
+        }
+
+        @Override
+        public void loaded(GVRTexture texture, GVRAndroidResource resource)
+        {
+            if (texture instanceof GVRBitmapTexture)
+            {
+                final Bitmap bitmap = ((GVRBitmapTexture) texture).getSourceBitmap();
+                if ((bitmap != null) && (bitmap.getConfig() != null))
+                {
+                    Threads.spawnLow(new Runnable()
+                    {
+                        public void run()
+                        {
+                            writeTexture(mFile, bitmap);
+                        }
+                    });
+                }
+            }
+            mRequest.loaded(texture, resource);
+        }
+
+        @Override
+        public void failed(Throwable t, GVRAndroidResource resource)
+        {
+            mRequest.failed(t, resource);
+        }
+
+        @Override
+        public boolean stillWanted(GVRAndroidResource resource)
+        {
+            return mRequest.stillWanted(resource);
+        }
+    }
+
+    /*
+     * Meshes: positions, normals, tangents, bitangents, texture coordinates
+     * and colors, each as a float array with -1 for a missing attribute,
+     * followed by the 32-bit indices and the bones. The bones are the name
+     * and offset matrix of each bone, followed by the packed bone indices
+     * and weights of the vertices.
+     */
+    private static void writeMesh(DataOutputStream out, AiMesh mesh) throws IOException
+    {
+        int numVertices = mesh.getNumVertices();
+
+        writeFloats(out, mesh.getPositionBuffer());
+        writeFloats(out, mesh.getNormalBuffer());
+        writeFloats(out, mesh.getTangentBuffer());
+        writeFloats(out, mesh.getBitangentBuffer());
+        for (int texIndex = 0; texIndex < MAX_TEX_COORDS; ++texIndex)
+        {
+            FloatBuffer source = mesh.getTexCoordBuffer(texIndex);
+            if (source == null)
+            {
+                out.writeInt(-1);
+            }
+            else if (mesh.getNumUVComponents(texIndex) == 2)
+            {
+                writeFloats(out, source);
+            }
+            else
+            {
+                out.writeInt(numVertices * 2);
+                for (int i = 0; i < numVertices; ++i)
+                {
+                    out.writeFloat(mesh.getTexCoordU(i, texIndex));
+                    out.writeFloat(mesh.getTexCoordV(i, texIndex));
+                }
+            }
+        }
+        for (int c = 0; c < MAX_VERTEX_COLORS; ++c)
+        {
+            writeFloats(out, mesh.getColorBuffer(c));
+        }
+
+        IntBuffer indices = mesh.getIndexBuffer();
+        if (indices == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            out.writeInt(indices.capacity());
+            for (int i = 0; i < indices.capacity(); ++i)
+            {
+                out.writeInt(indices.get(i));
+            }
+        }
+
+        if (!mesh.hasBones())
+        {
+            out.writeInt(0);
+            return;
+        }
+        List<AiBone> bones = mesh.getBones();
+        out.writeInt(bones.size());
+        for (AiBone bone : bones)
+        {
+            writeString(out, bone.getName());
+            for (float f : bone.getOffsetMatrix(GVRJassimpAdapter.sWrapperProvider))
+            {
+                out.writeFloat(f);
+            }
+        }
+        int[] boneIndices = new int[numVertices * GVRJassimpAdapter.BONES_PER_VERTEX];
+        float[] boneWeights = new float[numVertices * GVRJassimpAdapter.BONES_PER_VERTEX];
+        GVRJassimpAdapter.packBoneWeights(mesh, boneIndices, boneWeights);
+        for (int index : boneIndices)
+        {
+            out.writeInt(index);
+        }
+        for (float weight : boneWeights)
+        {
+            out.writeFloat(weight);
+        }
+    }
+
+    private static GVRMesh readMesh(GVRContext context, ByteBuffer data)
+    {
+        GVRMesh mesh = new GVRMesh(context);
+        float[] values;
+        int numVertices = 0;
+
+        if ((values = readFloats(data)) != null)
+        {
+            mesh.setVertices(values);
+            numVertices = values.length / 3;
+        }
+        if ((values = readFloats(data)) != null)
+        {
+            mesh.setNormals(values);
+        }
+        if ((values = readFloats(data)) != null)
+        {
+            mesh.setVec3Vector("a_tangent", values);
+        }
+        if ((values = readFloats(data)) != null)
+        {
+            mesh.setVec3Vector("a_bitangent", values);
+        }
+        for (int texIndex = 0; texIndex < MAX_TEX_COORDS; ++texIndex)
+        {
+            if ((values = readFloats(data)) != null)
+            {
+                mesh.setTexCoords(values, texIndex);
+            }
+        }
+        for (int c = 0; c < MAX_VERTEX_COLORS; ++c)
+        {
+            if ((values = readFloats(data)) != null)
+            {
+                mesh.setVec4Vector((c > 0) ? "a_color" + c : "a_color", values);
+            }
+        }
+
+        int numIndices = data.getInt();
+        if (numIndices >= 0)
+        {
+            int[] indices = new int[numIndices];
+            data.asIntBuffer().get(indices);
+            data.position(data.position() + 4 * numIndices);
+            mesh.setIndices(indices);
+        }
+
+        int numBones = data.getInt();
+        if (numBones > 0)
+        {
+            List<GVRBone> bones = new ArrayList<GVRBone>(numBones);
+            for (int i = 0; i < numBones; ++i)
+            {
+                GVRBone bone = new GVRBone(context);
+                float[] matrix = new float[16];
+                bone.setName(readString(data));
+                data.asFloatBuffer().get(matrix);
+                data.position(data.position() + 4 * matrix.length);
+                bone.setOffsetMatrix(matrix);
+                bones.add(bone);
+            }
+            int numWeights = numVertices * GVRJassimpAdapter.BONES_PER_VERTEX;
+            int[] boneIndices = new int[numWeights];
+            float[] boneWeights = new float[numWeights];
+            data.asIntBuffer().get(boneIndices);
+            data.position(data.position() + 4 * numWeights);
+            data.asFloatBuffer().get(boneWeights);
+            data.position(data.position() + 4 * numWeights);
+            mesh.setBones(bones, boneIndices, boneWeights);
+        }
+        return mesh;
+    }
+
+    /*
+     * Materials: the uniforms set by GVRJassimpAdapter and the texture
+     * references of the mesh.
+     */
+    private static void writeMaterial(DataOutputStream out, AiMaterial material, AiMesh mesh) throws IOException
+    {
+        AiColor diffuse = material.getDiffuseColor(GVRJassimpAdapter.sWrapperProvider);
+        float opacity = diffuse.getAlpha();
+        if (material.getOpacity() > 0)
+        {
+            opacity *= material.getOpacity();
+        }
+        writeColor(out, diffuse.getRed(), diffuse.getGreen(), diffuse.getBlue(), opacity);
+        writeColor(out, material.getSpecularColor(GVRJassimpAdapter.sWrapperProvider));
+        writeColor(out, material.getAmbientColor(GVRJassimpAdapter.sWrapperProvider));
+        writeColor(out, material.getEmissiveColor(GVRJassimpAdapter.sWrapperProvider));
+        out.writeFloat(material.getShininess());
+
+        int numTextures = 0;
+        for (AiTextureType texType : AiTextureType.values())
+        {
+            if (texType == AiTextureType.UNKNOWN)
+            {
+                continue;
+            }
+            for (int i = 0; i < material.getNumTextures(texType); ++i)
+            {
+                if (!"".equals(material.getTextureFile(texType, i)))
+                {
+                    ++numTextures;
+                }
+            }
+        }
+        out.writeInt(numTextures);
+        for (AiTextureType texType : AiTextureType.values())
+        {
+            if (texType == AiTextureType.UNKNOWN)
+            {
+                continue;
+            }
+            for (int i = 0; i < material.getNumTextures(texType); ++i)
+            {
+                String texFileName = material.getTextureFile(texType, i);
+                if ("".equals(texFileName))
+                {
+                    continue;
+                }
+                int uvIndex = material.getTextureUVIndex(texType, i);
+                if (!mesh.hasTexCoords(uvIndex))
+                {
+                    uvIndex = 0;
+                }
+                String typeName = GVRJassimpAdapter.textureMap.get(texType);
+                String textureKey = typeName + "Texture";
+                String texCoordKey = "a_texcoord";
+                String shaderKey = typeName + "_coord";
+
+                if (uvIndex > 0)
+                {
+                    texCoordKey += uvIndex;
+                }
+                if (i > 0)
+                {
+                    textureKey += i;
+                    shaderKey += i;
+                }
+                writeString(out, texFileName);
+                writeString(out, textureKey);
+                writeString(out, texCoordKey);
+                writeString(out, shaderKey);
+                out.writeInt((i > 0) ? material.getTextureOp(texType, i).ordinal() : -1);
+                out.writeInt(material.getTextureMapModeU(texType, i).ordinal());
+                out.writeInt(material.getTextureMapModeV(texType, i).ordinal());
+            }
+        }
+    }
+
+    private static GVRMaterial readMaterial(GVRContext context, GVRAssetLoader.AssetRequest request,
+                                            ByteBuffer data)
+    {
+        GVRMaterial material = new GVRMaterial(context, GVRMaterial.GVRShaderType.BeingGenerated.ID);
+        AiTextureMapMode[] mapModes = AiTextureMapMode.values();
+
+        material.setVec4("diffuse_color", data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat());
+        material.setSpecularColor(data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat());
+        material.setAmbientColor(data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat());
+        material.setVec4("emissive_color", data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat());
+        material.setSpecularExponent(data.getFloat());
+
+        int numTextures = data.getInt();
+        for (int i = 0; i < numTextures; ++i)
+        {
+            String texFileName = readString(data);
+            String textureKey = readString(data);
+            String texCoordKey = readString(data);
+            String shaderKey = readString(data);
+            int blendop = data.getInt();
+            AiTextureMapMode wrapS = mapModes[data.getInt()];
+            AiTextureMapMode wrapT = mapModes[data.getInt()];
+
+            if (blendop >= 0)
+            {
+                material.setFloat(textureKey + "_blendop", (float) blendop);
+            }
+            material.setTexCoord(textureKey, texCoordKey, shaderKey);
+            GVRTextureParameters texParams = new GVRTextureParameters(context);
+            texParams.setWrapSType(GVRJassimpAdapter.wrapModeMap.get(wrapS));
+            texParams.setWrapTType(GVRJassimpAdapter.wrapModeMap.get(wrapT));
+            request.loadTexture(new GVRAssetLoader.MaterialTextureRequest(request, texFileName,
+                    material, textureKey, texParams));
+        }
+        return material;
+    }
+
+    /*
+     * Nodes: name, optional transform, mesh indices and children,
+     * in the same layout as the jassimp node tree.
+     */
+    private static void writeNode(DataOutputStream out, AiNode node) throws IOException
+    {
+        float[] matrix = node.getTransform(GVRJassimpAdapter.sWrapperProvider);
+
+        writeString(out, node.getName());
+        out.writeBoolean(matrix != null);
+        if (matrix != null)
+        {
+            for (float f : matrix)
+            {
+                out.writeFloat(f);
+            }
+        }
+        out.writeInt(node.getNumMeshes());
+        for (int meshIndex : node.getMeshes())
+        {
+            out.writeInt(meshIndex);
+        }
+        out.writeInt(node.getChildren().size());
+        for (AiNode child : node.getChildren())
+        {
+            writeNode(out, child);
+        }
+    }
+
+    private static void readNode(final GVRContext context, ByteBuffer data, GVRSceneObject parent,
+                                 GVRMesh[] meshes, GVRMaterial[] materials)
+    {
+        String name = readString(data);
+        float[] matrix = null;
+        if (data.get() != 0)
+        {
+            matrix = new float[16];
+            data.asFloatBuffer().get(matrix);
+            data.position(data.position() + 4 * matrix.length);
+        }
+
+        final GVRSceneObject sceneObject;
+        int numMeshes = data.getInt();
+        if (numMeshes == 1)
+        {
+            sceneObject = makeMeshObject(context, name, parent, data.getInt(), meshes, materials);
+        }
+        else
+        {
+            sceneObject = new GVRSceneObject(context);
+            sceneObject.setName(name);
+            parent.addChildObject(sceneObject);
+            for (int i = 0; i < numMeshes; ++i)
+            {
+                makeMeshObject(context, name, sceneObject, data.getInt(), meshes, materials);
+            }
+        }
+        if (matrix != null)
+        {
+            sceneObject.getTransform().setModelMatrix(matrix);
+        }
+
+        int numChildren = data.getInt();
+        for (int i = 0; i < numChildren; ++i)
+        {
+            readNode(context, data, sceneObject, meshes, materials);
+        }
+
+        context.runOnTheFrameworkThread(new Runnable() {
+            public void run() {
+                // Inform the loaded object after it has been attached to the scene graph
+                context.getEventManager().sendEvent(
+                        sceneObject,
+                        ISceneObjectEvents.class,
+                        "onLoaded");
+            }
+        });
+    }
+
+    private static GVRSceneObject makeMeshObject(GVRContext context, String name, GVRSceneObject parent,
+                                                 int meshIndex, GVRMesh[] meshes, GVRMaterial[] materials)
+    {
+        GVRSceneObject sceneObject = new GVRSceneObject(context);
+        GVRRenderData renderData = new GVRRenderData(context);
+
+        sceneObject.setName(name);
+        renderData.setMesh(meshes[meshIndex]);
+        renderData.setMaterial(materials[meshIndex]);
+        renderData.setShaderTemplate(GVRPhongShader.class);
+        sceneObject.attachRenderData(renderData);
+        parent.addChildObject(sceneObject);
+        return sceneObject;
+    }
+
+    /*
+     * Animations: name, duration and ticks per second, followed by the
+     * channels. A channel is the node name, the behaviors before and after
+     * the animation, the number of position, rotation and scale keys and
+     * then the keys, each being its time followed by its value.
+     */
+    private static void writeAnimations(DataOutputStream out, List<AiAnimation> animations) throws IOException
+    {
+        out.writeInt(animations.size());
+        for (AiAnimation aiAnim : animations)
+        {
+            writeString(out, aiAnim.getName());
+            out.writeFloat((float) aiAnim.getDuration());
+            out.writeFloat((float) aiAnim.getTicksPerSecond());
+            out.writeInt(aiAnim.getNumChannels());
+            for (AiNodeAnim aiNodeAnim : aiAnim.getChannels())
+            {
+                writeString(out, aiNodeAnim.getNodeName());
+                out.writeInt(GVRJassimpAdapter.convertAnimationBehavior(aiNodeAnim.getPreState()).ordinal());
+                out.writeInt(GVRJassimpAdapter.convertAnimationBehavior(aiNodeAnim.getPostState()).ordinal());
+                out.writeInt(aiNodeAnim.getNumPosKeys());
+                out.writeInt(aiNodeAnim.getNumRotKeys());
+                out.writeInt(aiNodeAnim.getNumScaleKeys());
+                for (int i = 0; i < aiNodeAnim.getNumPosKeys(); ++i)
+                {
+                    out.writeFloat((float) aiNodeAnim.getPosKeyTime(i));
+                    for (float f : aiNodeAnim.getPosKeyVector(i, GVRJassimpAdapter.sWrapperProvider))
+                    {
+                        out.writeFloat(f);
+                    }
+                }
+                for (int i = 0; i < aiNodeAnim.getNumRotKeys(); ++i)
+                {
+                    Quaternionf rot = aiNodeAnim.getRotKeyQuaternion(i, GVRJassimpAdapter.sWrapperProvider);
+                    out.writeFloat((float) aiNodeAnim.getRotKeyTime(i));
+                    writeColor(out, rot.x, rot.y, rot.z, rot.w);
+                }
+                for (int i = 0; i < aiNodeAnim.getNumScaleKeys(); ++i)
+                {
+                    out.writeFloat((float) aiNodeAnim.getScaleKeyTime(i));
+                    for (float f : aiNodeAnim.getScaleKeyVector(i, GVRJassimpAdapter.sWrapperProvider))
+                    {
+                        out.writeFloat(f);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void readAnimations(GVRContext context, ByteBuffer data, GVRSceneObject model,
+                                       boolean startAnimations)
+    {
+        int numAnimations = data.getInt();
+        if (numAnimations == 0)
+        {
+            return;
+        }
+        GVRAnimationBehavior[] behaviors = GVRAnimationBehavior.values();
+        GVRAnimator animator = new GVRAnimator(context, startAnimations);
+        model.attachComponent(animator);
+        for (int a = 0; a < numAnimations; ++a)
+        {
+            String name = readString(data);
+            float duration = data.getFloat();
+            float ticksPerSecond = data.getFloat();
+            GVRKeyFrameAnimation animation = new GVRKeyFrameAnimation(name, model, duration, ticksPerSecond);
+            int numChannels = data.getInt();
+
+            for (int c = 0; c < numChannels; ++c)
+            {
+                String nodeName = readString(data);
+                GVRAnimationBehavior preState = behaviors[data.getInt()];
+                GVRAnimationBehavior postState = behaviors[data.getInt()];
+                int numPosKeys = data.getInt();
+                int numRotKeys = data.getInt();
+                int numScaleKeys = data.getInt();
+                GVRAnimationChannel channel = new GVRAnimationChannel(nodeName, numPosKeys,
+                        numRotKeys, numScaleKeys, preState, postState);
+
+                for (int i = 0; i < numPosKeys; ++i)
+                {
+                    channel.setPosKeyVector(i, data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat());
+                }
+                for (int i = 0; i < numRotKeys; ++i)
+                {
+                    float time = data.getFloat();
+                    channel.setRotKeyQuaternion(i, time,
+                            new Quaternionf(data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat()));
+                }
+                for (int i = 0; i < numScaleKeys; ++i)
+                {
+                    channel.setScaleKeyVector(i, data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat());
+                }
+                animation.addChannel(channel);
+            }
+            animation.prepare();
+            animator.addAnimation(animation);
+            if (model instanceof GVRModelSceneObject)
+            {
+                ((GVRModelSceneObject) model).getAnimations().add(animation);
+            }
+        }
+    }
+
+    private static void writeFloats(DataOutputStream out, FloatBuffer buffer) throws IOException
+    {
+        if (buffer == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        int count = buffer.capacity();
+        out.writeInt(count);
+        for (int i = 0; i < count; ++i)
+        {
+            out.writeFloat(buffer.get(i));
+        }
+    }
+
+    private static float[] readFloats(ByteBuffer data)
+    {
+        int count = data.getInt();
+        if (count < 0)
+        {
+            return null;
+        }
+        float[] values = new float[count];
+        data.asFloatBuffer().get(values);
+        data.position(data.position() + 4 * count);
+        return values;
+    }
+
+    private static void writeColor(DataOutputStream out, AiColor color) throws IOException
+    {
+        writeColor(out, color.getRed(), color.getGreen(), color.getBlue(), color.getAlpha());
+    }
+
+    private static void writeColor(DataOutputStream out, float r, float g, float b, float a) throws IOException
+    {
+        out.writeFloat(r);
+        out.writeFloat(g);
+        out.writeFloat(b);
+        out.writeFloat(a);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        byte[] bytes = (s != null) ? s.getBytes(UTF8) : new byte[0];
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer data)
+    {
+        byte[] bytes = new byte[data.getInt()];
+        data.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static byte[] digest(byte[] data)
+    {
+        return newDigest().digest(data);
+    }
+
+    private static String toHex(byte[] bytes)
+    {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+        {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
+    }
+
+    private static void close(Closeable closeable)
+    {
+        if (closeable != null)
+        {
+            try
+            {
+                closeable.close();
+            }
+            catch (IOException ex)
+            {
+            }
+        }
+    }
+}
@@ -87,7 +87,22 @@ public enum GVRImportSettings {
     /**
      * Causes the animations in the asset to start as soon as the asset is added to the scene.
      */
-    START_ANIMATIONS(0x100000);
+    START_ANIMATIONS(0x100000),
+    /**
+     * Adds the asset to the scene while it is being loaded, showing each
+     * top level node as soon as it has been parsed. Only X3D assets
+     * which are added to a scene without replacing it are loaded
+     * progressively.
+     */
+    PROGRESSIVE_LOAD(0x40000000),
+    /**
+     * Shows a small preview of each texture file while the full resolution
+     * texture is loading. Full resolution textures are loaded in order of
+     * their size on screen, and textures which are out of view are not
+     * loaded until they come into view.
+     * @see GVRTextureStreamer
+     */
+    STREAM_TEXTURES(0x20000000);
     
     private int mValue;
     
@@ -116,6 +131,8 @@ public enum GVRImportSettings {
             flags |= s.getValue();
         }
         flags &= ~START_ANIMATIONS.getValue();
+        flags &= ~PROGRESSIVE_LOAD.getValue();
+        flags &= ~STREAM_TEXTURES.getValue();
         return flags;
     }
     
@@ -37,11 +37,20 @@ class GVRInputManagerImpl extends GVRInputManager {
     private List<CursorControllerListener> listeners;
     private GVRScene scene;
     private List<GVRCursorController> controllers;
+    private final GVRContext context;
+    private final GVRDrawFrameListener frameListener = new GVRDrawFrameListener() {
+        @Override
+        public void onDrawFrame(float frameTime) {
+            sensorManager.nextFrame();
+        }
+    };
 
     GVRInputManagerImpl(GVRContext gvrContext, boolean useGazeCursorController,
                         boolean useAndroidWearTouchpad) {
         super(gvrContext, useGazeCursorController, useAndroidWearTouchpad);
         sensorManager = SensorManager.getInstance();
+        context = gvrContext;
+        context.registerDrawFrameListener(frameListener);
 
         controllers = new ArrayList<GVRCursorController>();
         listeners = new ArrayList<CursorControllerListener>();
@@ -105,6 +114,7 @@ class GVRInputManagerImpl extends GVRInputManager {
     @Override
     protected void close() {
         super.close();
+        context.unregisterDrawFrameListener(frameListener);
         controllers.clear();
         sensorManager.clear();
     }
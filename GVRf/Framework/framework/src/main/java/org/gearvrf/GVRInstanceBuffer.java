@@ -0,0 +1,402 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-instance vertex attributes of a {@link GVRInstancedRenderData}.
+ * <p>
+ * Every instance has the same named attributes, each of 1 to 16 floats,
+ * stored one after the other in a packed float array. The default layout
+ * has a {@link #MATRIX model matrix} and a {@link #COLOR color} per
+ * instance; custom layouts may add vec4s or other attributes, whose
+ * names must start with {@code a_instance}. The shader template defines
+ * {@code HAS_<name>} for every attribute of the layout, so the shaders
+ * can read them.
+ * <p>
+ * The setters only change the Java copy of the buffer. {@link #update()}
+ * then sends the instances from the first to the last one which changed
+ * to the native buffer, which uploads them to the GPU before the next
+ * draw. Updating a few neighbouring instances of a large buffer only
+ * copies those instances, but updating the first and the last instance
+ * copies the whole buffer.
+ * <p>
+ * The buffer is not thread safe: change it and call {@link #update()}
+ * from one thread, typically from {@link GVRMain#onStep()}.
+ */
+public final class GVRInstanceBuffer extends GVRHybridObject {
+    /**
+     * Model matrix of the instance, 16 floats in column major order.
+     * It is applied before the matrix of the owner object; the bounds
+     * of the owner include all the instances, so culling and the pickers
+     * which test bounding volumes see every instance. A
+     * {@link GVRMeshCollider} only tests the mesh itself, without the
+     * instance matrices.
+     */
+    public static final String MATRIX = "a_instance_matrix";
+
+    /**
+     * Color of the instance, 4 floats, multiplied with the color computed
+     * by the shader.
+     */
+    public static final String COLOR = "a_instance_color";
+
+    private static final String PREFIX = "a_instance";
+    private static final int MATRIX_SIZE = 16;
+    private static final int COLOR_SIZE = 4;
+    private static final float[] IDENTITY = { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1 };
+
+    private final String[] mNames;
+    private final int[] mSizes;
+    private final int[] mOffsets;
+    private final int mStride;
+    private final int mMatrixOffset;
+    private final List<GVRRenderData> mUsers = new ArrayList<GVRRenderData>();
+
+    private float[] mData;
+    private int mCapacity;
+    private int mInstanceCount = 0;
+    private int mDirtyFirst = 0;
+    private int mDirtyEnd = 0;
+    private boolean mCapacityChanged = true;
+    private boolean mCountChanged = false;
+    private boolean mBoundsChanged = false;
+
+    /**
+     * Constructs a buffer with a {@link #MATRIX} and a {@link #COLOR}
+     * per instance.
+     *
+     * @param gvrContext
+     *            Current {@link GVRContext}
+     * @param capacity
+     *            Number of instances the buffer holds before it grows
+     */
+    public GVRInstanceBuffer(GVRContext gvrContext, int capacity) {
+        this(gvrContext, new String[] { MATRIX, COLOR }, new int[] { MATRIX_SIZE, COLOR_SIZE },
+                capacity);
+    }
+
+    /**
+     * Constructs a buffer with a custom layout.
+     *
+     * @param gvrContext
+     *            Current {@link GVRContext}
+     * @param names
+     *            Names of the attributes of one instance, as declared in
+     *            the vertex shader; they must start with {@code a_instance}
+     * @param sizes
+     *            Number of floats of each attribute, from 1 to 16
+     * @param capacity
+     *            Number of instances the buffer holds before it grows
+     * @throws IllegalArgumentException
+     *             if a name or a size is invalid
+     */
+    public GVRInstanceBuffer(GVRContext gvrContext, String[] names, int[] sizes, int capacity) {
+        super(gvrContext, NativeInstanceBuffer.ctor());
+        if ((names.length == 0) || (names.length != sizes.length)) {
+            throw new IllegalArgumentException("one size is needed for each attribute name");
+        }
+        mNames = names.clone();
+        mSizes = sizes.clone();
+        mOffsets = new int[names.length];
+
+        int stride = 0;
+        int matrixOffset = -1;
+        for (int i = 0; i < names.length; ++i) {
+            if (!names[i].startsWith(PREFIX)) {
+                throw new IllegalArgumentException("instance attribute " + names[i]
+                        + " does not start with " + PREFIX);
+            }
+            if ((sizes[i] < 1) || (sizes[i] > MATRIX_SIZE)) {
+                throw new IllegalArgumentException("instance attribute " + names[i]
+                        + " has an invalid size " + sizes[i]);
+            }
+            if (names[i].equals(MATRIX) && (sizes[i] == MATRIX_SIZE)) {
+                matrixOffset = stride;
+            }
+            mOffsets[i] = stride;
+            stride += sizes[i];
+        }
+        mStride = stride;
+        mMatrixOffset = matrixOffset;
+        mCapacity = Math.max(capacity, 1);
+        mData = new float[mCapacity * mStride];
+        NativeInstanceBuffer.setLayout(getNative(), mNames, mSizes);
+    }
+
+    /**
+     * Gets the names of the attributes of one instance.
+     *
+     * @return attribute names, in the order of the layout
+     */
+    public List<String> getAttributeNames() {
+        return Collections.unmodifiableList(Arrays.asList(mNames));
+    }
+
+    /**
+     * Gets the number of floats of one instance.
+     *
+     * @return sum of the attribute sizes
+     */
+    public int getStride() {
+        return mStride;
+    }
+
+    /**
+     * Gets the number of instances drawn.
+     *
+     * @return instance count
+     */
+    public int getInstanceCount() {
+        return mInstanceCount;
+    }
+
+    /**
+     * Sets the number of instances drawn, which are the first ones of the
+     * buffer. The buffer grows if needed. New instances have an identity
+     * {@link #MATRIX} and a white {@link #COLOR}.
+     *
+     * @param count
+     *            Number of instances to draw
+     */
+    public void setInstanceCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("negative instance count " + count);
+        }
+        if (count > mCapacity) {
+            int capacity = mCapacity;
+            while (capacity < count) {
+                capacity *= 2;
+            }
+            mData = Arrays.copyOf(mData, capacity * mStride);
+            mCapacity = capacity;
+            mCapacityChanged = true;
+        }
+        for (int i = mInstanceCount; i < count; ++i) {
+            setDefaults(i);
+        }
+        if (count != mInstanceCount) {
+            mInstanceCount = count;
+            mCountChanged = true;
+        }
+    }
+
+    /**
+     * Sets the model matrix of an instance.
+     *
+     * @param index
+     *            Index of the instance
+     * @param matrix
+     *            Array with 16 floats in column major order
+     * @param offset
+     *            Offset of the matrix in the array
+     */
+    public void setMatrix(int index, float[] matrix, int offset) {
+        setFloats(index, MATRIX, matrix, offset);
+    }
+
+    /**
+     * Sets the color of an instance.
+     *
+     * @param index
+     *            Index of the instance
+     * @param r
+     *            Red component
+     * @param g
+     *            Green component
+     * @param b
+     *            Blue component
+     * @param a
+     *            Alpha component
+     */
+    public void setColor(int index, float r, float g, float b, float a) {
+        setVec4(index, COLOR, r, g, b, a);
+    }
+
+    /**
+     * Sets an attribute of 4 floats of an instance.
+     *
+     * @param index
+     *            Index of the instance
+     * @param name
+     *            Name of the attribute
+     * @param x
+     *            First component
+     * @param y
+     *            Second component
+     * @param z
+     *            Third component
+     * @param w
+     *            Fourth component
+     */
+    public void setVec4(int index, String name, float x, float y, float z, float w) {
+        int offset = getOffset(index, name, 4);
+        mData[offset] = x;
+        mData[offset + 1] = y;
+        mData[offset + 2] = z;
+        mData[offset + 3] = w;
+        markDirty(index, name);
+    }
+
+    /**
+     * Sets any attribute of an instance.
+     *
+     * @param index
+     *            Index of the instance
+     * @param name
+     *            Name of the attribute
+     * @param values
+     *            Array with as many floats as the attribute size
+     * @param offset
+     *            Offset of the values in the array
+     */
+    public void setFloats(int index, String name, float[] values, int offset) {
+        int size = mSizes[getAttribute(name)];
+        System.arraycopy(values, offset, mData, getOffset(index, name, size), size);
+        markDirty(index, name);
+    }
+
+    /**
+     * Gets any attribute of an instance.
+     *
+     * @param index
+     *            Index of the instance
+     * @param name
+     *            Name of the attribute
+     * @param values
+     *            Array to receive as many floats as the attribute size
+     * @param offset
+     *            Offset of the values in the array
+     */
+    public void getFloats(int index, String name, float[] values, int offset) {
+        int size = mSizes[getAttribute(name)];
+        System.arraycopy(mData, getOffset(index, name, size), values, offset, size);
+    }
+
+    /**
+     * Sends the instances which changed since the last update to the
+     * native buffer, in one call. They are uploaded to the GPU before the
+     * next frame draws them.
+     */
+    public void update() {
+        long buffer = getNative();
+
+        if (mCapacityChanged) {
+            NativeInstanceBuffer.setCapacity(buffer, mCapacity);
+            mDirtyFirst = 0;
+            mDirtyEnd = mInstanceCount;
+            mCapacityChanged = false;
+        }
+        if (mDirtyFirst < mDirtyEnd) {
+            NativeInstanceBuffer.setData(buffer, mData, mDirtyFirst, mDirtyEnd - mDirtyFirst);
+            mDirtyFirst = mDirtyEnd = 0;
+        }
+        if (mCountChanged) {
+            NativeInstanceBuffer.setInstanceCount(buffer, mInstanceCount);
+            mCountChanged = false;
+            mBoundsChanged = true;
+        }
+        if (mBoundsChanged) {
+            synchronized (mUsers) {
+                for (GVRRenderData rdata : mUsers) {
+                    NativeRenderData.instancesChanged(rdata.getNative());
+                }
+            }
+            mBoundsChanged = false;
+        }
+    }
+
+    void addUser(GVRRenderData rdata) {
+        synchronized (mUsers) {
+            if (!mUsers.contains(rdata)) {
+                mUsers.add(rdata);
+            }
+        }
+    }
+
+    void removeUser(GVRRenderData rdata) {
+        synchronized (mUsers) {
+            mUsers.remove(rdata);
+        }
+    }
+
+    private void setDefaults(int index) {
+        int first = index * mStride;
+        Arrays.fill(mData, first, first + mStride, 0.0f);
+        for (int i = 0; i < mNames.length; ++i) {
+            if (mOffsets[i] == mMatrixOffset) {
+                System.arraycopy(IDENTITY, 0, mData, first + mOffsets[i], MATRIX_SIZE);
+            } else if (mNames[i].equals(COLOR) && (mSizes[i] == COLOR_SIZE)) {
+                Arrays.fill(mData, first + mOffsets[i], first + mOffsets[i] + COLOR_SIZE, 1.0f);
+            }
+        }
+        markDirty(index, null);
+    }
+
+    private int getAttribute(String name) {
+        for (int i = 0; i < mNames.length; ++i) {
+            if (mNames[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("no instance attribute " + name);
+    }
+
+    private int getOffset(int index, String name, int size) {
+        if ((index < 0) || (index >= mInstanceCount)) {
+            throw new IndexOutOfBoundsException("index " + index + " count " + mInstanceCount);
+        }
+        int attribute = getAttribute(name);
+        if (mSizes[attribute] != size) {
+            throw new IllegalArgumentException("instance attribute " + name + " has "
+                    + mSizes[attribute] + " floats, not " + size);
+        }
+        return index * mStride + mOffsets[attribute];
+    }
+
+    /*
+     * The changed instances are tracked as one span, from the first to
+     * the last, so update() sends a single range.
+     */
+    private void markDirty(int index, String name) {
+        if (mDirtyFirst == mDirtyEnd) {
+            mDirtyFirst = index;
+            mDirtyEnd = index + 1;
+        } else {
+            mDirtyFirst = Math.min(mDirtyFirst, index);
+            mDirtyEnd = Math.max(mDirtyEnd, index + 1);
+        }
+        if ((name == null) || name.equals(MATRIX)) {
+            mBoundsChanged = true;
+        }
+    }
+}
+
+class NativeInstanceBuffer {
+    static native long ctor();
+
+    static native void setLayout(long buffer, String[] names, int[] sizes);
+
+    static native void setCapacity(long buffer, int capacity);
+
+    static native void setData(long buffer, float[] data, int first, int count);
+
+    static native void setInstanceCount(long buffer, int count);
+}
@@ -0,0 +1,91 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+/**
+ * Draws many copies of one mesh with one material in a single draw call.
+ * <p>
+ * Each copy, or instance, reads its own attributes from a
+ * {@link GVRInstanceBuffer}: usually a model matrix, applied before the
+ * matrix of the owner object, and a color. The shader template generates
+ * an instancing variant of its shaders for the layout of the buffer;
+ * {@link GVRPhongShader} is used by default. Thousands of trees, rocks or
+ * particles then cost one draw call instead of one scene object each.
+ * <p>
+ * Instanced render datas do not cast shadows, since the shadow map is
+ * drawn with a shader which ignores the instance attributes, and they
+ * are never merged by the dynamic batching.
+ */
+public class GVRInstancedRenderData extends GVRRenderData {
+    private GVRInstanceBuffer mInstanceBuffer;
+
+    /**
+     * Constructs an instanced render data.
+     *
+     * @param gvrContext
+     *            Current {@link GVRContext}
+     * @param mesh
+     *            Mesh drawn by every instance
+     * @param material
+     *            Material shared by all the instances
+     * @param instanceBuffer
+     *            Attributes of the instances
+     */
+    public GVRInstancedRenderData(GVRContext gvrContext, GVRMesh mesh, GVRMaterial material,
+            GVRInstanceBuffer instanceBuffer) {
+        super(gvrContext);
+        setMesh(mesh);
+        setMaterial(material);
+        setShaderTemplate(GVRPhongShader.class);
+        setCastShadows(false);
+        setInstanceBuffer(instanceBuffer);
+    }
+
+    /**
+     * Gets the attributes of the instances.
+     *
+     * @return instance buffer
+     */
+    public GVRInstanceBuffer getInstanceBuffer() {
+        return mInstanceBuffer;
+    }
+
+    /**
+     * Sets the attributes of the instances. Several render datas may
+     * share an instance buffer, to draw the same instances with different
+     * meshes, for example the levels of detail of a model. Replacing the
+     * buffer selects the shader again, since its layout may differ.
+     *
+     * @param instanceBuffer
+     *            Attributes of the instances
+     */
+    public void setInstanceBuffer(GVRInstanceBuffer instanceBuffer) {
+        if (instanceBuffer == null) {
+            throw new IllegalArgumentException("instance buffer cannot be null");
+        }
+        GVRInstanceBuffer previous = mInstanceBuffer;
+
+        if (previous != null) {
+            previous.removeUser(this);
+        }
+        mInstanceBuffer = instanceBuffer;
+        instanceBuffer.addUser(this);
+        NativeRenderData.setInstanceBuffer(getNative(), instanceBuffer.getNative());
+        if ((previous != null) && (getGVRContext().getMainScene() != null)) {
+            bindShader(getGVRContext().getMainScene());
+        }
+    }
+}
@@ -5,17 +5,24 @@ import android.graphics.BitmapFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.CharBuffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import static java.lang.Math.max;
 
 import org.gearvrf.animation.GVRAnimation;
@@ -45,6 +52,7 @@ import org.gearvrf.jassimp.Jassimp;
 import org.gearvrf.jassimp.JassimpConfig;
 import org.gearvrf.scene_objects.GVRModelSceneObject;
 import org.gearvrf.utility.Log;
+import org.gearvrf.utility.Threads;
 import org.joml.Matrix4f;
 import org.joml.Quaternionf;
 import org.joml.Vector3f;
@@ -61,6 +69,7 @@ class GVRJassimpAdapter {
     private String mFileName;
     private static final int MAX_TEX_COORDS = JassimpConfig.MAX_NUMBER_TEXCOORDS;
     private static final int MAX_VERTEX_COLORS = JassimpConfig.MAX_NUMBER_COLORSETS;
+    static final int BONES_PER_VERTEX = 4;
 
 
     public interface INodeFactory {
@@ -82,58 +91,59 @@ class GVRJassimpAdapter {
         mNodeFactories.remove(factory);
     }
 
+    boolean hasNodeFactories() {
+        return !mNodeFactories.isEmpty();
+    }
+
+    /*
+     * The AiMesh buffers are direct and in native byte order,
+     * GVRMesh copies them into the native mesh without Java arrays.
+     */
     public GVRMesh createMesh(GVRContext ctx, AiMesh aiMesh) {
         GVRMesh mesh = new GVRMesh(ctx);
 
         // Vertices
         FloatBuffer verticesBuffer = aiMesh.getPositionBuffer();
         if (verticesBuffer != null) {
-            float[] verticesArray = new float[verticesBuffer.capacity()];
-            verticesBuffer.get(verticesArray, 0, verticesBuffer.capacity());
-            mesh.setVertices(verticesArray);
+            mesh.setVertices(verticesBuffer);
         }
 
         // Tangents
         FloatBuffer tangetsBuffer = aiMesh.getTangentBuffer();
         if(tangetsBuffer != null) {
-            float[] tangentsArray = new float[tangetsBuffer.capacity()];
-            tangetsBuffer.get(tangentsArray, 0, tangetsBuffer.capacity());
-            mesh.setVec3Vector("a_tangent", tangentsArray);
+            mesh.setVec3Vector("a_tangent", tangetsBuffer);
         }
 
         // Bitangents
         FloatBuffer bitangentsBuffer = aiMesh.getBitangentBuffer();
         if(bitangentsBuffer != null) {
-            float[] bitangentsArray = new float[bitangentsBuffer.capacity()];
-            bitangentsBuffer.get(bitangentsArray, 0, bitangentsBuffer.capacity());
-            mesh.setVec3Vector("a_bitangent", bitangentsArray);
+            mesh.setVec3Vector("a_bitangent", bitangentsBuffer);
         }
 
         // Normals
         FloatBuffer normalsBuffer = aiMesh.getNormalBuffer();
         if (normalsBuffer != null) {
-            float[] normalsArray = new float[normalsBuffer.capacity()];
-            normalsBuffer.get(normalsArray, 0, normalsBuffer.capacity());
-            mesh.setNormals(normalsArray);
+            mesh.setNormals(normalsBuffer);
         }
 
         // TexCoords
         for(int texIndex=0; texIndex< MAX_TEX_COORDS; texIndex++) {
             FloatBuffer fbuf = aiMesh.getTexCoordBuffer(texIndex);
             if (fbuf != null) {
-                FloatBuffer coords = FloatBuffer.allocate(aiMesh.getNumVertices() * 2);
                 if (aiMesh.getNumUVComponents(texIndex) == 2) {
-                    FloatBuffer coordsSource = aiMesh.getTexCoordBuffer(texIndex);
-                    coords.put(coordsSource);
+                    mesh.setTexCoords(fbuf, texIndex);
                 } else {
+                    FloatBuffer coords = ByteBuffer.allocateDirect(aiMesh.getNumVertices() * 2 * 4)
+                            .order(ByteOrder.nativeOrder()).asFloatBuffer();
                     for (int i = 0; i < aiMesh.getNumVertices(); ++i) {
                         float u = aiMesh.getTexCoordU(i, texIndex);
                         float v = aiMesh.getTexCoordV(i, texIndex);
                         coords.put(u);
                         coords.put(v);
                     }
+                    coords.flip();
+                    mesh.setTexCoords(coords, texIndex);
                 }
-                mesh.setTexCoords(coords.array(), texIndex);
             }
         }
 
@@ -141,65 +151,75 @@ class GVRJassimpAdapter {
         for(int c = 0; c < MAX_VERTEX_COLORS; c++) {
             FloatBuffer fbuf = aiMesh.getColorBuffer(c);
             if (fbuf != null) {
-                FloatBuffer coords = FloatBuffer.allocate(aiMesh.getNumVertices() * 4);
-                FloatBuffer source = aiMesh.getColorBuffer(c);
                 String name = "a_color";
 
                 if (c > 0) {
                     name += c;
                 }
-                coords.put(source);
-                mesh.setVec4Vector(name, coords.array());
+                mesh.setVec4Vector(name, fbuf);
             }
         }
 
         // Triangles
         IntBuffer indexBuffer = aiMesh.getIndexBuffer();
         if (indexBuffer != null) {
-            CharBuffer triangles = CharBuffer.allocate(indexBuffer.capacity());
-            for (int i = 0; i < indexBuffer.capacity(); ++i) {
-                triangles.put((char)indexBuffer.get());
-            }
-            mesh.setIndices(triangles.array());
+            mesh.setIndices(indexBuffer);
         }
 
         // Bones
         if (aiMesh.hasBones()) {
             List<GVRBone> bones = new ArrayList<GVRBone>();
+            int numVertices = aiMesh.getNumVertices();
+            int[] boneIndices = new int[numVertices * BONES_PER_VERTEX];
+            float[] boneWeights = new float[numVertices * BONES_PER_VERTEX];
+
             for (AiBone bone : aiMesh.getBones()) {
                 bones.add(createBone(ctx, bone));
             }
-            mesh.setBones(bones);
+            packBoneWeights(aiMesh, boneIndices, boneWeights);
+            mesh.setBones(bones, boneIndices, boneWeights);
         }
 
         return mesh;
     }
 
+    /*
+     * Pack the bone weights of a mesh into BONES_PER_VERTEX bone indices
+     * and weights per vertex, the bone index being the position of the
+     * bone in the bone list of the mesh.
+     */
+    static void packBoneWeights(AiMesh aiMesh, int[] boneIndices, float[] boneWeights) {
+        int numVertices = aiMesh.getNumVertices();
+        int boneId = 0;
+
+        for (AiBone bone : aiMesh.getBones()) {
+            for (AiBoneWeight weight : bone.getBoneWeights()) {
+                int vid = weight.getVertexId();
+                int slot = vid * BONES_PER_VERTEX;
+                int last = slot + BONES_PER_VERTEX;
+                while ((slot < last) && (boneWeights[slot] != 0)) {
+                    ++slot;
+                }
+                if (slot < last) {
+                    boneIndices[slot] = boneId;
+                    boneWeights[slot] = weight.getWeight();
+                } else {
+                    Log.w(TAG, "Vertex %d (total %d) has too many bones", vid, numVertices);
+                }
+            }
+            ++boneId;
+        }
+    }
+
     private GVRBone createBone(GVRContext ctx, AiBone aiBone) {
         float[] mtx = aiBone.getOffsetMatrix(sWrapperProvider);
         GVRBone bone = new GVRBone(ctx);
 
         bone.setName(aiBone.getName());
         bone.setOffsetMatrix(mtx);
-
-        List<GVRBoneWeight> weights = new ArrayList<GVRBoneWeight>();
-        for (AiBoneWeight aiBoneWeight : aiBone.getBoneWeights()) {
-            weights.add(createBoneWeight(ctx, aiBoneWeight));
-        }
-        bone.setBoneWeights(weights);
-
         return bone;
     }
 
-    private GVRBoneWeight createBoneWeight(GVRContext ctx, AiBoneWeight aiBoneWeight) {
-        GVRBoneWeight boneWeight = new GVRBoneWeight(ctx);
-
-        boneWeight.setVertexId(aiBoneWeight.getVertexId());
-        boneWeight.setWeight(aiBoneWeight.getWeight());
-
-        return boneWeight;
-    }
-
     public GVRSceneObject createSceneObject(GVRContext ctx, AiNode node) {
         GVRSceneObject sceneObject = null;
 
@@ -217,12 +237,21 @@ class GVRJassimpAdapter {
     }
 
     public GVRKeyFrameAnimation createAnimation(AiAnimation aiAnim, GVRSceneObject target) {
-        GVRKeyFrameAnimation anim = new GVRKeyFrameAnimation(aiAnim.getName(), target,
-                (float)aiAnim.getDuration(), (float)aiAnim.getTicksPerSecond());
+        List<GVRAnimationChannel> channels = new ArrayList<GVRAnimationChannel>();
 
         // Convert node anims
         for (AiNodeAnim aiNodeAnim : aiAnim.getChannels()) {
-            GVRAnimationChannel channel = createAnimChannel(aiNodeAnim);
+            channels.add(createAnimChannel(aiNodeAnim));
+        }
+        return createAnimation(aiAnim, target, channels);
+    }
+
+    private GVRKeyFrameAnimation createAnimation(AiAnimation aiAnim, GVRSceneObject target,
+                                                 List<GVRAnimationChannel> channels) {
+        GVRKeyFrameAnimation anim = new GVRKeyFrameAnimation(aiAnim.getName(), target,
+                (float)aiAnim.getDuration(), (float)aiAnim.getTicksPerSecond());
+
+        for (GVRAnimationChannel channel : channels) {
             anim.addChannel(channel);
         }
 
@@ -259,7 +288,7 @@ class GVRJassimpAdapter {
         return node;
     }
 
-    private GVRAnimationBehavior convertAnimationBehavior(AiAnimBehavior behavior) {
+    static GVRAnimationBehavior convertAnimationBehavior(AiAnimBehavior behavior) {
         switch (behavior) {
         case DEFAULT:
             return GVRAnimationBehavior.DEFAULT;
@@ -314,6 +343,8 @@ class GVRJassimpAdapter {
             case FLIP_UV:
                 return AiPostProcessSteps.FLIP_UVS;
             case START_ANIMATIONS:
+            case PROGRESSIVE_LOAD:
+            case STREAM_TEXTURES:
                 return null;
             default:
                 // Unsupported setting
@@ -338,15 +369,48 @@ class GVRJassimpAdapter {
         importLights(aiLights, lightList);
         if (scene != null)
         {
-            recurseAssimpNodes(request, model, scene.getSceneRoot(sWrapperProvider), lightList);
+            AiNode root = scene.getSceneRoot(sWrapperProvider);
             List<AiAnimation> animations = scene.getAnimations();
+            List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+
+            /*
+             * Meshes, material uniforms and animation channels do not depend
+             * on each other, they are converted concurrently first. The
+             * scene graph is then built in the order of the nodes, taking
+             * the results in the order in which the tasks were added.
+             */
+            addMeshTasks(root, tasks);
+            int numMeshTasks = tasks.size();
+            for (AiAnimation aiAnim : animations)
+            {
+                for (final AiNodeAnim aiNodeAnim : aiAnim.getChannels())
+                {
+                    tasks.add(new Callable<Object>()
+                    {
+                        public Object call()
+                        {
+                            return createAnimChannel(aiNodeAnim);
+                        }
+                    });
+                }
+            }
+            List<Object> results = runConcurrently(tasks);
+
+            recurseAssimpNodes(request, model, root, lightList,
+                               results.subList(0, numMeshTasks).iterator());
+            Iterator<Object> channels = results.subList(numMeshTasks, results.size()).iterator();
             if (animations.size() > 0)
             {
                 GVRAnimator animator = new GVRAnimator(mContext, startAnimations);
                 model.attachComponent(animator);
                 for (AiAnimation aiAnim : scene.getAnimations())
                 {
-                    GVRAnimation animation = createAnimation(aiAnim, model);
+                    List<GVRAnimationChannel> animChannels = new ArrayList<GVRAnimationChannel>();
+                    for (int i = 0; i < aiAnim.getNumChannels(); ++i)
+                    {
+                        animChannels.add((GVRAnimationChannel) channels.next());
+                    }
+                    GVRAnimation animation = createAnimation(aiAnim, model, animChannels);
                     GVRModelSceneObject modelRoot = null;
                     if (GVRModelSceneObject.class.isAssignableFrom(model.getClass()))
                     {
@@ -365,6 +429,120 @@ class GVRJassimpAdapter {
         }
     }
 
+    /*
+     * The mesh and the material of a mesh node, without its textures.
+     */
+    private static class MeshData
+    {
+        final GVRMesh mMesh;
+        final GVRMaterial mMaterial;
+
+        MeshData(GVRMesh mesh, GVRMaterial material)
+        {
+            mMesh = mesh;
+            mMaterial = material;
+        }
+    }
+
+    /*
+     * Adds a task for each mesh reference, in the order recurseAssimpNodes
+     * visits them.
+     */
+    private void addMeshTasks(AiNode node, List<Callable<Object>> tasks)
+    {
+        for (int i = 0; i < node.getNumMeshes(); i++)
+        {
+            final AiMesh aiMesh = mScene.getMeshes().get(node.getMeshes()[i]);
+            tasks.add(new Callable<Object>()
+            {
+                public Object call()
+                {
+                    AiMaterial material = mScene.getMaterials().get(aiMesh.getMaterialIndex());
+                    return new MeshData(createMesh(mContext, aiMesh), createMaterial(material));
+                }
+            });
+        }
+        for (AiNode child : node.getChildren())
+        {
+            addMeshTasks(child, tasks);
+        }
+    }
+
+    /*
+     * Runs the tasks on the Threads pool with at most one worker per core,
+     * the calling thread being one of them. Each worker takes the next
+     * task nobody has started yet, so a worker which finishes a small mesh
+     * early moves on to the remaining ones. The results are in the order
+     * of the tasks.
+     */
+    private static List<Object> runConcurrently(final List<Callable<Object>> tasks)
+    {
+        final int numTasks = tasks.size();
+        final Object[] results = new Object[numTasks];
+        final AtomicInteger nextTask = new AtomicInteger();
+        int numWorkers = Math.min(numTasks, Runtime.getRuntime().availableProcessors());
+        List<Future<?>> workers = new ArrayList<Future<?>>(numWorkers);
+        Callable<Void> worker = new Callable<Void>()
+        {
+            public Void call() throws Exception
+            {
+                int i;
+                while ((i = nextTask.getAndIncrement()) < numTasks)
+                {
+                    results[i] = tasks.get(i).call();
+                }
+                return null;
+            }
+        };
+
+        try
+        {
+            for (int i = 1; i < numWorkers; ++i)
+            {
+                workers.add(Threads.spawn(worker));
+            }
+            if (numWorkers > 0)
+            {
+                worker.call();
+            }
+            for (Future<?> f : workers)
+            {
+                f.get();
+            }
+        }
+        catch (ExecutionException ex)
+        {
+            throw asRuntimeException(ex.getCause());
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        }
+        catch (Exception ex)
+        {
+            throw asRuntimeException(ex);
+        }
+        finally
+        {
+            nextTask.set(numTasks);
+        }
+        return Arrays.asList(results);
+    }
+
+    private static RuntimeException asRuntimeException(Throwable t)
+    {
+        if (t instanceof RuntimeException)
+        {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error)
+        {
+            throw (Error) t;
+        }
+        return new RuntimeException(t);
+    }
+
     private GVRSceneObject makeCamera()
     {
         List<AiCamera> cameras = mScene.getCameras();
@@ -396,7 +574,8 @@ class GVRJassimpAdapter {
         GVRSceneObject parentSceneObject,
         AiNode node,
         Hashtable<String,
-        GVRLightBase> lightlist) {
+        GVRLightBase> lightlist,
+        Iterator<Object> meshData) {
         final GVRSceneObject sceneObject;
         final GVRContext context = mContext;
 
@@ -406,13 +585,15 @@ class GVRJassimpAdapter {
         } else if (node.getNumMeshes() == 1) {
             // add the scene object to the scene graph
             AiMesh aiMesh = mScene.getMeshes().get(node.getMeshes()[0]);
-            sceneObject = createSubSceneObject(request, parentSceneObject, node, aiMesh);
+            sceneObject = createSubSceneObject(request, parentSceneObject, node, aiMesh,
+                                               (MeshData) meshData.next());
         } else {
             sceneObject = createSceneObject(mContext, node);
             parentSceneObject.addChildObject(sceneObject);
             for (int i = 0; i < node.getNumMeshes(); i++) {
                 AiMesh aiMesh = mScene.getMeshes().get(node.getMeshes()[i]);
-                GVRSceneObject childSceneObject = createSubSceneObject(request, sceneObject, node, aiMesh);
+                GVRSceneObject childSceneObject = createSubSceneObject(request, sceneObject, node, aiMesh,
+                                                                       (MeshData) meshData.next());
             }
         }
 
@@ -422,7 +603,7 @@ class GVRJassimpAdapter {
         }
         attachLights(lightlist, sceneObject);
         for (AiNode child : node.getChildren()) {
-            recurseAssimpNodes(request, sceneObject, child, lightlist);
+            recurseAssimpNodes(request, sceneObject, child, lightlist, meshData);
         }
 
         context.runOnTheFrameworkThread(new Runnable() {
@@ -461,6 +642,9 @@ class GVRJassimpAdapter {
      *
      * @param aiMesh
      *            The assimp mesh
+     *
+     * @param meshData
+     *            The mesh and material converted from aiMesh
      **
      * @return The new {@link GVRSceneObject} with the input mesh for the node {@link node}
      *
@@ -471,10 +655,35 @@ class GVRJassimpAdapter {
             GVRAssetLoader.AssetRequest assetRequest,
             GVRSceneObject parent,
             AiNode node,
-            AiMesh aiMesh)
+            AiMesh aiMesh,
+            MeshData meshData)
     {
-        FutureWrapper<GVRMesh> futureMesh = new FutureWrapper<GVRMesh>(createMesh(mContext, aiMesh));
+        FutureWrapper<GVRMesh> futureMesh = new FutureWrapper<GVRMesh>(meshData.mMesh);
         AiMaterial material = mScene.getMaterials().get(aiMesh.getMaterialIndex());
+        final GVRMaterial meshMaterial = meshData.mMaterial;
+
+        /* Textures */
+        loadTextures(assetRequest, material, meshMaterial, aiMesh);
+
+
+        GVRSceneObject sceneObject = createSceneObject(mContext, node);
+        GVRRenderData sceneObjectRenderData = new GVRRenderData(mContext);
+        sceneObjectRenderData.setMesh(futureMesh);
+
+        sceneObjectRenderData.setMaterial(meshMaterial);
+        sceneObjectRenderData.setShaderTemplate(GVRPhongShader.class);
+        sceneObject.attachRenderData(sceneObjectRenderData);
+
+        parent.addChildObject(sceneObject);
+        return sceneObject;
+    }
+
+    /**
+     * Creates the material of a mesh with the colors of the assimp material.
+     * The textures are loaded separately by {@link #loadTextures}.
+     */
+    private GVRMaterial createMaterial(AiMaterial material)
+    {
         final GVRMaterial meshMaterial = new GVRMaterial(mContext, GVRMaterial.GVRShaderType.BeingGenerated.ID);
 
         /* Diffuse color & Opacity */
@@ -510,24 +719,10 @@ class GVRJassimpAdapter {
         /* Specular Exponent */
         float specularExponent = material.getShininess();
         meshMaterial.setSpecularExponent(specularExponent);
-
-        /* Textures */
-        loadTextures(assetRequest, material, meshMaterial, aiMesh);
-
-
-        GVRSceneObject sceneObject = createSceneObject(mContext, node);
-        GVRRenderData sceneObjectRenderData = new GVRRenderData(mContext);
-        sceneObjectRenderData.setMesh(futureMesh);
-
-        sceneObjectRenderData.setMaterial(meshMaterial);
-        sceneObjectRenderData.setShaderTemplate(GVRPhongShader.class);
-        sceneObject.attachRenderData(sceneObjectRenderData);
-
-        parent.addChildObject(sceneObject);
-        return sceneObject;
+        return meshMaterial;
     }
 
-    private static final Map<AiTextureType, String> textureMap;
+    static final Map<AiTextureType, String> textureMap;
     static
     {
         textureMap = new HashMap<AiTextureType, String>();
@@ -544,7 +739,7 @@ class GVRJassimpAdapter {
         textureMap.put(AiTextureType.REFLECTION,"reflection");
     }
 
-    private static final Map<AiTextureMapMode, GVRTextureParameters.TextureWrapType> wrapModeMap;
+    static final Map<AiTextureMapMode, GVRTextureParameters.TextureWrapType> wrapModeMap;
     static
     {
         wrapModeMap = new HashMap<AiTextureMapMode, GVRTextureParameters.TextureWrapType>();
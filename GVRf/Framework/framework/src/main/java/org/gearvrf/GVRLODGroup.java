@@ -15,10 +15,7 @@
 
 package org.gearvrf;
 
-import org.gearvrf.utility.Log;
-import org.joml.Vector4f;
-
-import java.util.LinkedList;
+import java.util.Arrays;
 
 
 /**
@@ -36,6 +33,10 @@ import java.util.LinkedList;
  * lodGroup.addRange(9, sphereLowDensity);
  * root.attachComponent(lodGroup);
  * </pre>
+ *
+ * The ranges of all the LOD groups are evaluated once per frame by the
+ * {@link GVRLODManager}, which also controls hysteresis and how many
+ * groups may change level per frame.
  */
 public final class GVRLODGroup extends GVRBehavior {
     static private long TYPE_LODGROUP = newComponentType(GVRLODGroup.class);
@@ -49,9 +50,27 @@ public final class GVRLODGroup extends GVRBehavior {
         return TYPE_LODGROUP;
     }
 
-    private final Vector4f mCenter = new Vector4f();
-    private final Vector4f mVector = new Vector4f();
-    private final LinkedList<Object[]> mRanges = new LinkedList<>();
+    /*
+     * Ranges sorted by increasing threshold: the squared distance, or the
+     * squared screen size for groups selected by screen size. Written under
+     * the group lock and copied by the LOD manager when mVersion changes.
+     */
+    private float[] mThresholds = new float[4];
+    private GVRSceneObject[] mObjects = new GVRSceneObject[4];
+    private int mCount = 0;
+    private Boolean mScreenSize = null;
+    volatile int mVersion = 0;
+
+    // LOD manager state, only touched by the GL thread
+    static final int LEVEL_UNKNOWN = -2;
+    int mSlot = -1;
+    int mFirst;
+    int mNumRanges;
+    boolean mBySize;
+    float[] mRangeThresholds;
+    GVRSceneObject[] mRangeObjects;
+    int mLevel = LEVEL_UNKNOWN;
+    int mDesired = -1;
 
     /**
      * Add a range to this LOD group. Specify the scene object that should be displayed in this
@@ -60,32 +79,59 @@ public final class GVRLODGroup extends GVRBehavior {
      * @param range show the scene object if the camera distance is greater than this value
      * @param sceneObject scene object that should be rendered when in this range
      * @throws IllegalArgumentException if range is negative or sceneObject null
+     * @throws IllegalStateException if the group already has screen size ranges
      */
     public synchronized void addRange(final float range, final GVRSceneObject sceneObject)
     {
-        if (null == sceneObject) {
-            throw new IllegalArgumentException("sceneObject must be specified!");
-        }
         if (range < 0) {
             throw new IllegalArgumentException("range cannot be negative");
         }
+        insert(false, range * range, sceneObject);
+    }
 
-        final int size = mRanges.size();
-        final float rangePow2 = range*range;
-        final Object[] newElement = new Object[] {rangePow2, sceneObject};
-
-        for (int i = 0; i < size; ++i) {
-            final Object[] el = mRanges.get(i);
-            final Float r = (Float)el[0];
-            if (r > rangePow2) {
-                mRanges.add(i, newElement);
-                break;
-            }
+    /**
+     * Add a range selected by the size of the object on screen. The size is
+     * the diameter of the bounding sphere of the range's scene object,
+     * divided by the height of the view of the main camera. Use
+     * {@link Float#POSITIVE_INFINITY} for the most detailed object.
+     * @param screenSize show the scene object if it covers less than this
+     *                   fraction of the screen height
+     * @param sceneObject scene object that should be rendered when in this range
+     * @throws IllegalArgumentException if screenSize is not positive or sceneObject null
+     * @throws IllegalStateException if the group already has distance ranges
+     */
+    public synchronized void addScreenSizeRange(final float screenSize, final GVRSceneObject sceneObject)
+    {
+        if (!(screenSize > 0)) {
+            throw new IllegalArgumentException("screen size must be positive");
+        }
+        // Sorted by decreasing size, like distances are sorted by increasing distance
+        insert(true, -screenSize * screenSize, sceneObject);
+    }
+
+    private void insert(boolean screenSize, float threshold, GVRSceneObject sceneObject) {
+        if (null == sceneObject) {
+            throw new IllegalArgumentException("sceneObject must be specified!");
+        }
+        if ((mScreenSize != null) && (mScreenSize != screenSize)) {
+            throw new IllegalStateException("cannot mix distance and screen size ranges in one LOD group");
         }
+        mScreenSize = screenSize;
 
-        if (mRanges.size() == size) {
-            mRanges.add(newElement);
+        if (mCount == mObjects.length) {
+            mThresholds = Arrays.copyOf(mThresholds, mCount * 2);
+            mObjects = Arrays.copyOf(mObjects, mCount * 2);
         }
+        int i = mCount;
+        while ((i > 0) && (mThresholds[i - 1] > threshold)) {
+            mThresholds[i] = mThresholds[i - 1];
+            mObjects[i] = mObjects[i - 1];
+            --i;
+        }
+        mThresholds[i] = threshold;
+        mObjects[i] = sceneObject;
+        ++mCount;
+        ++mVersion;
 
         final GVRSceneObject owner = getOwnerObject();
         if (null != owner) {
@@ -94,63 +140,50 @@ public final class GVRLODGroup extends GVRBehavior {
     }
 
     /**
-     * Do not call directly.
-     * @deprecated
+     * Copies the ranges for the LOD manager.
+     * @return the version of the copied ranges
      */
-    public void onDrawFrame(float frameTime) {
-        final GVRSceneObject owner = getOwnerObject();
-        if (owner == null) {
-            return;
+    synchronized int copyRanges() {
+        mNumRanges = mCount;
+        mBySize = (mScreenSize != null) && mScreenSize;
+        mRangeThresholds = new float[mCount];
+        mRangeObjects = new GVRSceneObject[mCount];
+        for (int i = 0; i < mCount; ++i) {
+            // Screen sizes are stored negated to sort them
+            mRangeThresholds[i] = mBySize ? -mThresholds[i] : mThresholds[i];
+            mRangeObjects[i] = mObjects[i];
         }
+        return mVersion;
+    }
 
-        final int size = mRanges.size();
-        final GVRTransform t = getGVRContext().getMainScene().getMainCameraRig().getCenterCamera().getTransform();
-
-        for (final Object[] range : mRanges) {
-            ((GVRSceneObject)range[1]).setEnable(false);
-        }
-
-        for (int i = size - 1; i >= 0; --i) {
-            final Object[] range = mRanges.get(i);
-            final GVRSceneObject child = (GVRSceneObject) range[1];
-            if (child.getParent() != owner) {
-                Log.w(TAG, "the scene object for distance greater than " + range[0] + " is not a child of the owner; skipping it");
-                continue;
-            }
-
-            final float[] values = child.getBoundingVolumeRawValues();
-            mCenter.set(values[0], values[1], values[2], 1.0f);
-            mVector.set(t.getPositionX(), t.getPositionY(), t.getPositionZ(), 1.0f);
-
-            mVector.sub(mCenter);
-            mVector.negate();
-
-            float distance = mVector.dot(mVector);
-
-            if (distance >= (Float) range[0]) {
-                child.setEnable(true);
-                break;
-            }
-        }
+    /**
+     * Gets the index of the range being displayed.
+     * @return range index in the order of increasing distance or decreasing
+     *         screen size, -1 if none is displayed yet
+     */
+    public int getCurrentLevel() {
+        return Math.max(mLevel, -1);
     }
 
     @Override
     public synchronized void onAttach(GVRSceneObject newOwner) {
         super.onAttach(newOwner);
 
-        for (final Object[] el : mRanges) {
-            newOwner.addChildObject((GVRSceneObject)el[1]);
+        for (int i = 0; i < mCount; ++i) {
+            newOwner.addChildObject(mObjects[i]);
         }
+        GVRLODManager.getInstance(getGVRContext()).add(this);
     }
 
     @Override
     public synchronized void onDetach(GVRSceneObject oldOwner) {
         super.onDetach(oldOwner);
 
-        for (final Object[] el : mRanges) {
-            oldOwner.removeChildObject((GVRSceneObject)el[1]);
+        GVRLODManager.getInstance(getGVRContext()).remove(this);
+        for (int i = 0; i < mCount; ++i) {
+            oldOwner.removeChildObject(mObjects[i]);
         }
     }
 
     private static final String TAG = "GVRLODGroup";
-}
\ No newline at end of file
+}
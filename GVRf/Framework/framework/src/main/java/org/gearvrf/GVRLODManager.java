@@ -0,0 +1,482 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gearvrf.debug.GVRProfiler;
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.Threads;
+
+/**
+ * Selects the level of every {@link GVRLODGroup} once per frame.
+ * <p>
+ * The bounding spheres of all the range objects are read with a single
+ * native call, then each group picks the range matching the distance from
+ * the main camera, or its size on screen. To avoid objects flickering
+ * between two levels at a range boundary, a group only moves to a coarser
+ * level once it is past the boundary by the {@linkplain #setHysteresis(float)
+ * hysteresis} fraction, and stays at its level until it is that much
+ * inside the finer one. The number of groups changing level in a frame
+ * can be limited with {@link #setSwitchBudget(int)}; the others change in
+ * the next frames.
+ * <p>
+ * Groups register themselves when they are attached to a scene object, so
+ * applications only use this class to tune the selection.
+ */
+public class GVRLODManager {
+    private static final String TAG = Log.tag(GVRLODManager.class);
+
+    /**
+     * Minimum number of groups evaluated per worker when
+     * {@linkplain #setParallel(boolean) parallel evaluation} is enabled.
+     */
+    public static final int PARALLEL_CHUNK = 256;
+
+    /**
+     * Default {@linkplain #setHysteresis(float) hysteresis}.
+     */
+    public static final float DEFAULT_HYSTERESIS = 0.1f;
+
+    private static GVRLODManager sInstance = null;
+
+    static {
+        GVRContext.addResetOnRestartHandler(new Runnable() {
+
+            @Override
+            public void run() {
+                sInstance = null;
+            }
+        });
+    }
+
+    private final GVRContext mContext;
+
+    // Registered groups, only touched by the GL thread
+    private GVRLODGroup[] mGroups = new GVRLODGroup[16];
+    private int[] mVersions = new int[16];
+    private int mCount = 0;
+    private boolean mLayoutDirty = false;
+
+    // Range objects of all the groups and their bounding spheres
+    private long[] mNatives = new long[64];
+    private float[] mSpheres = new float[64 * 4];
+    private int mNumRanges = 0;
+
+    /*
+     * Adds and removals waiting for the next frame. The GL thread swaps
+     * the lists with the second pair, so that neither side allocates.
+     */
+    private final Object mPendingLock = new Object();
+    private List<GVRLODGroup> mPending = new ArrayList<GVRLODGroup>();
+    private List<Boolean> mPendingAdds = new ArrayList<Boolean>();
+    private List<GVRLODGroup> mApplying = new ArrayList<GVRLODGroup>();
+    private List<Boolean> mApplyingAdds = new ArrayList<Boolean>();
+
+    private volatile float mHysteresis = DEFAULT_HYSTERESIS;
+    private volatile int mSwitchBudget = 0;
+    private int mNextSwitch = 0;
+    private int mLastSwitches = 0;
+    private int mLastDeferred = 0;
+
+    // Camera of the frame being evaluated
+    private float mCameraX, mCameraY, mCameraZ;
+    private float mTanHalfFov2;
+
+    private volatile boolean mParallel = false;
+    private final List<Future<?>> mWorkerFutures = new ArrayList<Future<?>>();
+    private final AtomicInteger mNextChunk = new AtomicInteger();
+    private int mChunkSize;
+    private final Runnable mWorker = new Runnable() {
+        @Override
+        public void run() {
+            final int count = mCount;
+            final int chunkSize = mChunkSize;
+            int start;
+
+            while ((start = mNextChunk.getAndAdd(chunkSize)) < count) {
+                int end = Math.min(start + chunkSize, count);
+
+                for (int i = start; i < end; ++i) {
+                    select(mGroups[i]);
+                }
+            }
+        }
+    };
+
+    private final GVRDrawFrameListener mOnDrawFrame = new GVRDrawFrameListener() {
+        @Override
+        public void onDrawFrame(float frameTime) {
+            long startTime = GVRProfiler.LOD.begin();
+            applyPending();
+            evaluate();
+            GVRProfiler.LOD.end(startTime);
+        }
+    };
+
+    protected GVRLODManager(GVRContext gvrContext) {
+        mContext = gvrContext;
+        gvrContext.registerDrawFrameListener(mOnDrawFrame);
+    }
+
+    /**
+     * Gets the LOD manager of the application, created with the first
+     * LOD group attached to a scene object.
+     *
+     * @param gvrContext
+     *            current GVR context
+     */
+    public static synchronized GVRLODManager getInstance(GVRContext gvrContext) {
+        if (sInstance == null) {
+            sInstance = new GVRLODManager(gvrContext);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Sets how far past a range boundary a group must be to change level.
+     *
+     * @param fraction
+     *            fraction of the range distance or screen size, 0 to switch
+     *            exactly at the boundaries
+     */
+    public void setHysteresis(float fraction) {
+        if ((fraction < 0) || (fraction >= 1)) {
+            throw new IllegalArgumentException("hysteresis must be in [0, 1)");
+        }
+        mHysteresis = fraction;
+    }
+
+    /**
+     * Gets the hysteresis of the range boundaries.
+     *
+     * @return fraction of the range distance or screen size
+     */
+    public float getHysteresis() {
+        return mHysteresis;
+    }
+
+    /**
+     * Limits the number of groups changing level in a frame, to spread the
+     * cost of the first frame of newly visible levels.
+     *
+     * @param maxSwitches
+     *            maximum number of level changes per frame, 0 for no limit
+     */
+    public void setSwitchBudget(int maxSwitches) {
+        mSwitchBudget = Math.max(maxSwitches, 0);
+    }
+
+    /**
+     * Gets the maximum number of level changes per frame.
+     *
+     * @return switch budget, 0 if there is no limit
+     */
+    public int getSwitchBudget() {
+        return mSwitchBudget;
+    }
+
+    /**
+     * Evaluates the groups on several threads when there are more than
+     * {@link #PARALLEL_CHUNK} of them per core. The levels are still
+     * changed on the GL thread.
+     *
+     * @param parallel
+     *            true to evaluate the groups in parallel
+     */
+    public void setParallel(boolean parallel) {
+        mParallel = parallel;
+    }
+
+    /**
+     * Gets the number of registered LOD groups.
+     *
+     * @return number of groups evaluated each frame
+     */
+    public int getGroupCount() {
+        return mCount;
+    }
+
+    /**
+     * Gets the number of groups which changed level in the last frame.
+     *
+     * @return number of level changes
+     */
+    public int getSwitchCount() {
+        return mLastSwitches;
+    }
+
+    /**
+     * Gets the number of level changes left for later frames by the
+     * {@linkplain #setSwitchBudget(int) switch budget} in the last frame.
+     *
+     * @return number of deferred level changes
+     */
+    public int getDeferredCount() {
+        return mLastDeferred;
+    }
+
+    void add(GVRLODGroup group) {
+        synchronized (mPendingLock) {
+            mPending.add(group);
+            mPendingAdds.add(Boolean.TRUE);
+        }
+    }
+
+    void remove(GVRLODGroup group) {
+        synchronized (mPendingLock) {
+            mPending.add(group);
+            mPendingAdds.add(Boolean.FALSE);
+        }
+    }
+
+    private void applyPending() {
+        synchronized (mPendingLock) {
+            List<GVRLODGroup> groups = mPending;
+            List<Boolean> adds = mPendingAdds;
+            mPending = mApplying;
+            mPendingAdds = mApplyingAdds;
+            mApplying = groups;
+            mApplyingAdds = adds;
+        }
+        for (int i = 0; i < mApplying.size(); ++i) {
+            GVRLODGroup group = mApplying.get(i);
+            boolean owned = (group.mSlot >= 0) && (group.mSlot < mCount)
+                    && (mGroups[group.mSlot] == group);
+
+            if (mApplyingAdds.get(i)) {
+                if (!owned) {
+                    if (mCount == mGroups.length) {
+                        mGroups = Arrays.copyOf(mGroups, mCount * 2);
+                        mVersions = Arrays.copyOf(mVersions, mCount * 2);
+                    }
+                    group.mSlot = mCount;
+                    group.mLevel = GVRLODGroup.LEVEL_UNKNOWN;
+                    mGroups[mCount] = group;
+                    mVersions[mCount] = group.copyRanges();
+                    ++mCount;
+                    mLayoutDirty = true;
+                }
+            } else if (owned) {
+                int slot = group.mSlot;
+                GVRLODGroup last = mGroups[--mCount];
+
+                mGroups[slot] = last;
+                mVersions[slot] = mVersions[mCount];
+                last.mSlot = slot;
+                mGroups[mCount] = null;
+                group.mSlot = -1;
+                mLayoutDirty = true;
+            }
+        }
+        mApplying.clear();
+        mApplyingAdds.clear();
+    }
+
+    /*
+     * Lays out the range objects of all the groups one after the other,
+     * after groups were added or removed, or ranges were added.
+     */
+    private void updateLayout() {
+        for (int i = 0; i < mCount; ++i) {
+            GVRLODGroup group = mGroups[i];
+            if (group.mVersion != mVersions[i]) {
+                // Inserted ranges shift the levels: enable them all again
+                mVersions[i] = group.copyRanges();
+                group.mLevel = GVRLODGroup.LEVEL_UNKNOWN;
+                mLayoutDirty = true;
+            }
+        }
+        if (!mLayoutDirty) {
+            return;
+        }
+        int numRanges = 0;
+        for (int i = 0; i < mCount; ++i) {
+            numRanges += mGroups[i].mNumRanges;
+        }
+        if (mNatives.length < numRanges) {
+            mNatives = new long[numRanges * 2];
+            mSpheres = new float[numRanges * 2 * 4];
+        }
+        int r = 0;
+        for (int i = 0; i < mCount; ++i) {
+            GVRLODGroup group = mGroups[i];
+            group.mFirst = r;
+            for (int j = 0; j < group.mNumRanges; ++j) {
+                mNatives[r++] = group.mRangeObjects[j].getNative();
+            }
+        }
+        mNumRanges = r;
+        mLayoutDirty = false;
+    }
+
+    private void evaluate() {
+        updateLayout();
+        if (mCount == 0) {
+            mLastSwitches = 0;
+            mLastDeferred = 0;
+            return;
+        }
+        GVRScene scene = mContext.getMainScene();
+        if (scene == null) {
+            return;
+        }
+        GVRPerspectiveCamera camera = scene.getMainCameraRig().getCenterCamera();
+        GVRTransform t = camera.getTransform();
+        double tanHalfFov = Math.tan(Math.toRadians(camera.getFovY() / 2));
+
+        mCameraX = t.getPositionX();
+        mCameraY = t.getPositionY();
+        mCameraZ = t.getPositionZ();
+        mTanHalfFov2 = (float) (tanHalfFov * tanHalfFov);
+        NativeSceneObject.getBoundingSpheres(mNatives, mNumRanges, mSpheres);
+
+        int numWorkers = Math.min(mCount / PARALLEL_CHUNK,
+                Runtime.getRuntime().availableProcessors());
+        if (mParallel && (numWorkers >= 2)) {
+            selectParallel(numWorkers);
+        } else {
+            for (int i = 0; i < mCount; ++i) {
+                select(mGroups[i]);
+            }
+        }
+        applySwitches();
+    }
+
+    /*
+     * Chooses the level of a group from the bounding spheres. Only reads
+     * shared state, so several workers can select different groups.
+     */
+    private void select(GVRLODGroup group) {
+        final GVRSceneObject owner = group.getOwnerObject();
+        final int current = group.mLevel;
+        final float h = mHysteresis;
+        final float coarser = (1 + h) * (1 + h);
+        final float staying = (1 - h) * (1 - h);
+        int desired = -1;
+
+        if (!group.isEnabled()) {
+            group.mDesired = current;   // leave the displayed level alone
+            return;
+        }
+        if (owner != null) {
+            for (int i = group.mNumRanges - 1; i >= 0; --i) {
+                if (group.mRangeObjects[i].getParent() != owner) {
+                    continue;
+                }
+                int s = (group.mFirst + i) * 4;
+                float dx = mSpheres[s] - mCameraX;
+                float dy = mSpheres[s + 1] - mCameraY;
+                float dz = mSpheres[s + 2] - mCameraZ;
+                float distance2 = dx * dx + dy * dy + dz * dz;
+                float threshold = group.mRangeThresholds[i];
+                float k = (current < 0) ? 1 : (i > current) ? coarser : (i == current) ? staying : 1;
+                boolean inRange;
+
+                if (group.mBySize) {
+                    // screen size = 2 r / (2 d tan(fov / 2)), compared squared
+                    float radius = mSpheres[s + 3];
+                    inRange = radius * radius * k <= threshold * distance2 * mTanHalfFov2;
+                } else {
+                    inRange = distance2 >= threshold * k;
+                }
+                if (inRange) {
+                    desired = i;
+                    break;
+                }
+            }
+        }
+        group.mDesired = desired;
+    }
+
+    private void selectParallel(int numWorkers) {
+        mChunkSize = Math.max(PARALLEL_CHUNK, mCount / (numWorkers * 4));
+        mNextChunk.set(0);
+        for (int i = 1; i < numWorkers; ++i) {
+            mWorkerFutures.add(Threads.spawnHigh(mWorker));
+        }
+        try {
+            mWorker.run();
+        } finally {
+            try {
+                for (int i = 0; i < mWorkerFutures.size(); ++i) {
+                    mWorkerFutures.get(i).get();
+                }
+            } catch (ExecutionException e) {
+                Log.e(TAG, "Parallel LOD selection threw %s", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            mWorkerFutures.clear();
+        }
+    }
+
+    /*
+     * Enables the selected ranges. Groups which have never been displayed
+     * are not counted in the budget, so nothing pops in late. The others
+     * are visited from where the previous frame stopped, so every group
+     * eventually gets its turn.
+     */
+    private void applySwitches() {
+        final int budget = mSwitchBudget;
+        int switches = 0;
+        int deferred = 0;
+
+        if (mNextSwitch >= mCount) {
+            mNextSwitch = 0;
+        }
+        int resume = -1;
+        for (int n = 0; n < mCount; ++n) {
+            int i = (mNextSwitch + n) % mCount;
+            GVRLODGroup group = mGroups[i];
+            int desired = group.mDesired;
+
+            if (desired == group.mLevel) {
+                continue;
+            }
+            if (group.mLevel == GVRLODGroup.LEVEL_UNKNOWN) {
+                for (int j = 0; j < group.mNumRanges; ++j) {
+                    group.mRangeObjects[j].setEnable(j == desired);
+                }
+                group.mLevel = desired;
+                continue;
+            }
+            if ((budget > 0) && (switches >= budget)) {
+                if (resume < 0) {
+                    resume = i;
+                }
+                ++deferred;
+                continue;
+            }
+            if (group.mLevel >= 0) {
+                group.mRangeObjects[group.mLevel].setEnable(false);
+            }
+            if (desired >= 0) {
+                group.mRangeObjects[desired].setEnable(true);
+            }
+            group.mLevel = desired;
+            ++switches;
+        }
+        mNextSwitch = (resume >= 0) ? resume : 0;
+        mLastSwitches = switches;
+        mLastDeferred = deferred;
+    }
+}
@@ -15,9 +15,11 @@
 
 package org.gearvrf;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 
 import org.gearvrf.GVRAndroidResource.TextureCallback;
@@ -80,6 +82,9 @@ public class GVRMaterial extends GVRHybridObject implements GVRShaders {
     private int mShaderFeatureSet;
     private GVRShaderId shaderId;
     final private Map<String, TextureInfo> textures = new HashMap();
+    final private Set<String> mUniformNames = Collections.newSetFromMap(
+            new ConcurrentHashMap<String, Boolean>());
+    private volatile int mNamesVersion = 0;
 
     /** Pre-built shader ids. */
     public abstract static class GVRShaderType {
@@ -604,6 +609,7 @@ public class GVRMaterial extends GVRHybridObject implements GVRShaders {
             {
                 tinfo = new TextureInfo();
                 textures.put(key, tinfo);
+                ++mNamesVersion;
             }
             if (texture != null)
             {
@@ -678,6 +684,7 @@ public class GVRMaterial extends GVRHybridObject implements GVRShaders {
             {
                 tinfo = new TextureInfo();
                 textures.put(texName, tinfo);
+                ++mNamesVersion;
             }
             tinfo.TexCoordAttr = texCoordAttr;
             tinfo.ShaderVar = shaderVarName;
@@ -735,6 +742,7 @@ public class GVRMaterial extends GVRHybridObject implements GVRShaders {
      * @see GVRRenderData#setDrawMode(int)
      */
     public void setLineWidth(float lineWidth) {
+        addUniformName("line_width");
         NativeMaterial.setFloat(getNative(), "line_width", lineWidth);
     }
     
@@ -745,6 +753,7 @@ public class GVRMaterial extends GVRHybridObject implements GVRShaders {
     public void setFloat(String key, float value) {
         checkStringNotNullOrEmpty("key", key);
         checkFloatNotNaNOrInfinity("value", value);
+        addUniformName(key);
         NativeMaterial.setFloat(getNative(), key, value);
     }
 
@@ -754,6 +763,7 @@ public class GVRMaterial extends GVRHybridObject implements GVRShaders {
 
     public void setVec2(String key, float x, float y) {
         checkStringNotNullOrEmpty("key", key);
+        addUniformName(key);
         NativeMaterial.setVec2(getNative(), key, x, y);
     }
 
@@ -763,6 +773,7 @@ public class GVRMaterial extends GVRHybridObject implements GVRShaders {
 
     public void setVec3(String key, float x, float y, float z) {
         checkStringNotNullOrEmpty("key", key);
+        addUniformName(key);
         NativeMaterial.setVec3(getNative(), key, x, y, z);
     }
 
@@ -772,6 +783,7 @@ public class GVRMaterial extends GVRHybridObject implements GVRShaders {
 
     public void setVec4(String key, float x, float y, float z, float w) {
         checkStringNotNullOrEmpty("key", key);
+        addUniformName(key);
         NativeMaterial.setVec4(getNative(), key, x, y, z, w);
     }
 
@@ -785,6 +797,7 @@ public class GVRMaterial extends GVRHybridObject implements GVRShaders {
             float x2, float y2, float z2, float w2, float x3, float y3,
             float z3, float w3, float x4, float y4, float z4, float w4) {
         checkStringNotNullOrEmpty("key", key);
+        addUniformName(key);
         NativeMaterial.setMat4(getNative(), key, x1, y1, z1, w1, x2, y2, z2,
                 w2, x3, y3, z3, w3, x4, y4, z4, w4);
     }
@@ -799,6 +812,20 @@ public class GVRMaterial extends GVRHybridObject implements GVRShaders {
     	return NativeMaterial.hasUniform(getNative(), name);
     }
 
+    /*
+     * Incremented whenever a texture or uniform name is added, so the
+     * shader template knows when to compute the variant defines again.
+     */
+    int getNamesVersion() {
+        return mNamesVersion;
+    }
+
+    private void addUniformName(String key) {
+        if (mUniformNames.add(key)) {
+            ++mNamesVersion;
+        }
+    }
+
     /**
      * Return the list of texture keys for this material.
      * @return set of unique texture names.
@@ -15,8 +15,10 @@
 
 package org.gearvrf;
 
+import android.content.pm.PackageManager;
 import android.content.res.Resources;
 
+import java.io.File;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
@@ -40,12 +42,66 @@ import org.gearvrf.utility.Log;
     public class GVRMaterialShaderManager extends
         GVRBaseShaderManager implements GVRShaderManagers {
 
+    private static final String TAG = Log.tag(GVRMaterialShaderManager.class);
     private final Map<GVRShaderId, GVRMaterialMap> materialMaps = new HashMap<GVRShaderId, GVRMaterialMap>();
+    private volatile GVRShaderCache mShaderCache = null;
 
     GVRMaterialShaderManager(GVRContext gvrContext) {
         super(gvrContext, NativeShaderManager.ctor());
     }
 
+    /**
+     * Enable the on-disk cache of shaders generated from templates.
+     * <p>
+     * The sources of every variant generated by a {@link GVRShaderTemplate}
+     * and the linked GL programs are written to the cache directory.
+     * When the application starts again, the variants are read from the
+     * cache instead of being generated, and the programs are loaded as
+     * binaries instead of being compiled, which shortens the first frames
+     * of a scene using many shader variants. The cache is invalidated
+     * when the application is updated or the GL driver changes.
+     *
+     * @param directory directory for the cache files, for example a
+     *                  subdirectory of {@link android.content.Context#getCacheDir()},
+     *                  or null to disable the cache.
+     */
+    public void setCacheDirectory(File directory) {
+        if (directory == null) {
+            mShaderCache = null;
+            NativeShaderManager.setProgramCacheDirectory(null);
+            return;
+        }
+        File programs = new File(directory, "programs");
+        if (!programs.isDirectory() && !programs.mkdirs()) {
+            Log.w(TAG, "cannot create shader cache directory %s", programs);
+        }
+        mShaderCache = new GVRShaderCache(directory, getAppVersion());
+        NativeShaderManager.setProgramCacheDirectory(programs.getPath());
+    }
+
+    /**
+     * Get the directory of the on-disk shader cache.
+     * @return cache directory, or null if the cache is disabled
+     * @see #setCacheDirectory(File)
+     */
+    public File getCacheDirectory() {
+        GVRShaderCache cache = mShaderCache;
+        return (cache != null) ? cache.getDirectory() : null;
+    }
+
+    GVRShaderCache getShaderCache() {
+        return mShaderCache;
+    }
+
+    private long getAppVersion() {
+        android.content.Context context = getGVRContext().getContext();
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return 0;
+        }
+    }
+
     /**
      * Builds a shader program from the supplied vertex and fragment shader
      * code.
@@ -134,4 +190,6 @@ class NativeShaderManager {
             String fragmentShader);
 
     static native long getCustomShader(long shaderManager, int id);
+
+    static native void setProgramCacheDirectory(String directory);
 }
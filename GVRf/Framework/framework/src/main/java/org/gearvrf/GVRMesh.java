@@ -17,6 +17,10 @@ package org.gearvrf;
 
 import static org.gearvrf.utility.Assert.*;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -75,10 +79,45 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
      */
     public void setVertices(float[] vertices) {
         checkValidFloatArray("vertices", vertices, 3);
-        mAttributeKeys.add("a_position");
+        addAttributeKey("a_position");
         NativeMesh.setVertices(getNative(), vertices);
     }
 
+    /**
+     * Sets the 3D vertices of the mesh from a buffer of packed {@code float}
+     * triplets. The floats between the position and the limit of the
+     * buffer are used; a direct buffer in native byte order, like the
+     * ones returned by jassimp, is copied without an intermediate array.
+     *
+     * @param vertices
+     *            Buffer containing the packed vertex data.
+     */
+    public void setVertices(FloatBuffer vertices) {
+        setFloatBuffer("a_position", vertices, 3);
+    }
+
+    /**
+     * Overwrites some of the vertices of the mesh in place. The array is laid
+     * out like the one passed to {@link #setVertices(float[])} and covers the
+     * whole mesh, but only the vertices from {@code firstVertex} to
+     * {@code firstVertex + vertexCount - 1} are copied, and only those are
+     * uploaded to the GPU. The mesh must already have that many vertices.
+     * <p>
+     * This is meant for meshes which are rewritten piece by piece every
+     * frame, such as particle pools. The bounding volume of the mesh grows to
+     * include the new vertices but does not shrink.
+     *
+     * @param vertices
+     *            Array containing the packed vertex data of the whole mesh.
+     * @param firstVertex
+     *            Index of the first vertex to copy.
+     * @param vertexCount
+     *            Number of vertices to copy.
+     */
+    public void setVertices(float[] vertices, int firstVertex, int vertexCount) {
+        setFloatRange("a_position", vertices, 3, firstVertex, vertexCount);
+    }
+
     /**
      * Get the normal vectors of the mesh. Each normal vector is represented as
      * a packed {@code float} triplet:
@@ -102,10 +141,37 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
      */
     public void setNormals(float[] normals) {
         checkValidFloatArray("normals", normals, 3);
-        mAttributeKeys.add("a_normal");
+        addAttributeKey("a_normal");
         NativeMesh.setNormals(getNative(), normals);
     }
 
+    /**
+     * Sets the normal vectors of the mesh from a buffer of packed
+     * {@code float} triplets.
+     *
+     * @param normals
+     *            Buffer containing the packed normal data.
+     * @see #setVertices(FloatBuffer)
+     */
+    public void setNormals(FloatBuffer normals) {
+        setFloatBuffer("a_normal", normals, 3);
+    }
+
+    /**
+     * Overwrites some of the normal vectors of the mesh in place.
+     *
+     * @param normals
+     *            Array containing the packed normal data of the whole mesh.
+     * @param firstVertex
+     *            Index of the first vertex to copy.
+     * @param vertexCount
+     *            Number of vertices to copy.
+     * @see #setVertices(float[], int, int)
+     */
+    public void setNormals(float[] normals, int firstVertex, int vertexCount) {
+        setFloatRange("a_normal", normals, 3, firstVertex, vertexCount);
+    }
+
     /**
      * Get the u,v texture coordinates for the mesh. Each texture coordinate is
      * represented as a packed {@code float} pair:
@@ -136,10 +202,46 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
 
         String key = (index > 0) ? ("a_texcoord" +index) : "a_texcoord";
         checkValidFloatArray(key, texCoords, 2);
-        mAttributeKeys.add(key);
+        addAttributeKey(key);
         NativeMesh.setVec2Vector(getNative(),key,texCoords);
     }
 
+    /**
+     * Overwrites some of the texture coordinates of the mesh in place.
+     *
+     * @param texCoords
+     *            Array containing the packed texture coordinate data of
+     *            the whole mesh.
+     * @param index
+     *            Which set of texture coordinates, 0 for "a_texcoord",
+     *            n for "a_texcoord<i>n</i>".
+     * @param firstVertex
+     *            Index of the first vertex to copy.
+     * @param vertexCount
+     *            Number of vertices to copy.
+     * @see #setVertices(float[], int, int)
+     */
+    public void setTexCoords(float[] texCoords, int index, int firstVertex, int vertexCount) {
+        String key = (index > 0) ? ("a_texcoord" + index) : "a_texcoord";
+        setFloatRange(key, texCoords, 2, firstVertex, vertexCount);
+    }
+
+    /**
+     * Sets one set of texture coordinates from a buffer of packed
+     * {@code float} pairs.
+     *
+     * @param texCoords
+     *            Buffer containing the packed texture coordinate data.
+     * @param index
+     *            Which set of texture coordinates, 0 for "a_texcoord",
+     *            n for "a_texcoord<i>n</i>".
+     * @see #setVertices(FloatBuffer)
+     */
+    public void setTexCoords(FloatBuffer texCoords, int index) {
+        String key = (index > 0) ? ("a_texcoord" + index) : "a_texcoord";
+        setFloatBuffer(key, texCoords, 2);
+    }
+
     /**
      * Get the triangle vertex indices of the mesh. The indices for each
      * triangle are represented as a packed {@code char} triplet, where
@@ -150,11 +252,14 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
      * </code>
      * 
      * @return Array with the packed triangle index data.
+     * @throws IllegalStateException
+     *             if an index does not fit in a {@code char}, see
+     *             {@link #getIntIndices()}
      *
      * @deprecated use {@link #getIndices()} instead.
      */
     public char[] getTriangles() {
-        return NativeMesh.getTriangles(getNative());
+        return narrowIfEmpty(NativeMesh.getTriangles(getNative()));
     }
 
     /**
@@ -180,9 +285,33 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
      * vertex to be referenced.
      * 
      * @return Array with the packed index data.
+     * @throws IllegalStateException
+     *             if an index does not fit in a {@code char}, see
+     *             {@link #getIntIndices()}
      */
     public char[] getIndices() {
-        return NativeMesh.getIndices(getNative());
+        return narrowIfEmpty(NativeMesh.getIndices(getNative()));
+    }
+
+    /*
+     * Meshes with 32-bit indices have no 16-bit ones: narrow the 32-bit
+     * indices rather than return an empty array.
+     */
+    private char[] narrowIfEmpty(char[] indices) {
+        if (indices.length != 0) {
+            return indices;
+        }
+        int[] intIndices = getIntIndices();
+        char[] narrowed = new char[intIndices.length];
+        for (int i = 0; i < intIndices.length; ++i) {
+            int index = intIndices[i];
+            if ((index & ~0xFFFF) != 0) {
+                throw new IllegalStateException("Index " + index
+                        + " does not fit in 16 bits, use getIntIndices()");
+            }
+            narrowed[i] = (char) index;
+        }
+        return narrowed;
     }
 
     /**
@@ -196,6 +325,51 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
         NativeMesh.setIndices(getNative(), indices);
     }
 
+    /**
+     * Get the vertex indices of the mesh as {@code int} values. Unlike
+     * {@link #getIndices()} this also works for meshes with more than
+     * 65536 vertices.
+     *
+     * @return Array with the packed index data.
+     */
+    public int[] getIntIndices() {
+        return NativeMesh.getIntIndices(getNative());
+    }
+
+    /**
+     * Sets the vertex indices of the mesh from {@code int} values.
+     * The indices are kept as 16-bit values when they all fit, otherwise
+     * they are kept as 32-bit values. Meshes with 32-bit indices are
+     * rendered on their own, they are never batched.
+     *
+     * @param indices
+     *            Array containing the packed index data.
+     */
+    public void setIndices(int[] indices) {
+        checkNotNull("indices", indices);
+        NativeMesh.setIntIndices(getNative(), indices);
+    }
+
+    /**
+     * Sets the vertex indices of the mesh from a buffer of {@code int}
+     * values, from its position to its limit.
+     *
+     * @param indices
+     *            Buffer containing the packed index data.
+     * @see #setIndices(int[])
+     */
+    public void setIndices(IntBuffer indices) {
+        checkNotNull("indices", indices);
+        if (indices.isDirect() && (indices.order() == ByteOrder.nativeOrder())) {
+            NativeMesh.setIndexBuffer(getNative(), indices, indices.position(),
+                    indices.remaining());
+        } else {
+            int[] data = new int[indices.remaining()];
+            indices.duplicate().get(data);
+            NativeMesh.setIntIndices(getNative(), data);
+        }
+    }
+
     /**
      * Get the array of {@code float} scalars bound to the shader attribute
      * {@code key}.
@@ -219,7 +393,7 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
      */
     public void setFloatVector(String key, float[] floatVector) {
         checkValidFloatVector("key", key, "floatVector", floatVector, 1);
-        mAttributeKeys.add(key);
+        addAttributeKey(key);
         NativeMesh.setFloatVector(getNative(), key, floatVector);
     }
 
@@ -247,10 +421,25 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
      */
     public void setVec2Vector(String key, float[] vec2Vector) {
         checkValidFloatVector("key", key, "vec2Vector", vec2Vector, 2);
-        mAttributeKeys.add(key);
+        addAttributeKey(key);
         NativeMesh.setVec2Vector(getNative(), key, vec2Vector);
     }
 
+    /**
+     * Bind a buffer of two-component {@code float} vectors to the shader
+     * attribute {@code key}.
+     *
+     * @param key
+     *            Name of the shader attribute
+     * @param vec2Vector
+     *            Buffer with the two-component vector data.
+     * @see #setVertices(FloatBuffer)
+     */
+    public void setVec2Vector(String key, FloatBuffer vec2Vector) {
+        checkStringNotNullOrEmpty("key", key);
+        setFloatBuffer(key, vec2Vector, 2);
+    }
+
     /**
      * Get the array of three-component {@code float} vectors bound to the
      * shader attribute {@code key}.
@@ -275,10 +464,25 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
      */
     public void setVec3Vector(String key, float[] vec3Vector) {
         checkValidFloatVector("key", key, "vec3Vector", vec3Vector, 3);
-        mAttributeKeys.add(key);
+        addAttributeKey(key);
         NativeMesh.setVec3Vector(getNative(), key, vec3Vector);
     }
 
+    /**
+     * Bind a buffer of three-component {@code float} vectors to the shader
+     * attribute {@code key}.
+     *
+     * @param key
+     *            Name of the shader attribute
+     * @param vec3Vector
+     *            Buffer with the three-component vector data.
+     * @see #setVertices(FloatBuffer)
+     */
+    public void setVec3Vector(String key, FloatBuffer vec3Vector) {
+        checkStringNotNullOrEmpty("key", key);
+        setFloatBuffer(key, vec3Vector, 3);
+    }
+
     /**
      * Get the array of four-component {@code float} vectors bound to the shader
      * attribute {@code key}.
@@ -303,9 +507,24 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
      */
     public void setVec4Vector(String key, float[] vec4Vector) {
         checkValidFloatVector("key", key, "vec4Vector", vec4Vector, 4);
-        mAttributeKeys.add(key);
+        addAttributeKey(key);
         NativeMesh.setVec4Vector(getNative(), key, vec4Vector);
     }
+
+    /**
+     * Bind a buffer of four-component {@code float} vectors to the shader
+     * attribute {@code key}.
+     *
+     * @param key
+     *            Name of the shader attribute
+     * @param vec4Vector
+     *            Buffer with the four-component vector data.
+     * @see #setVertices(FloatBuffer)
+     */
+    public void setVec4Vector(String key, FloatBuffer vec4Vector) {
+        checkStringNotNullOrEmpty("key", key);
+        setFloatBuffer(key, vec4Vector, 4);
+    }
     
     /**
      * Get the names of all the vertex attributes on this mesh.
@@ -340,6 +559,19 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
     public boolean hasAttribute(String key) {
     	return NativeMesh.hasAttribute(getNative(), key);
     }
+
+    /**
+     * Get the memory used by the vertex and index data of the mesh, in bytes.
+     * The size is computed from the vertex and index counts kept by the
+     * native mesh, without copying any of the data.
+     * Used by resource caches to account for the meshes they keep alive.
+     *
+     * @return The size of the vertex and index data.
+     * @see GVRTexture#getDataSize()
+     */
+    public int getDataSize() {
+        return NativeMesh.getDataSize(getNative());
+    }
     
     /**
      * Constructs a {@link GVRMesh mesh} that contains this mesh.
@@ -396,12 +628,34 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
             }
         }
         if (getVertexBoneData() != null) {
-            mAttributeKeys.add("a_bone_indices");
-            mAttributeKeys.add("a_bone_weights");
+            addAttributeKey("a_bone_indices");
+            addAttributeKey("a_bone_weights");
             getVertexBoneData().normalizeWeights();
         }
     }
 
+    /**
+     * Sets bones of this mesh together with the packed bone indices and
+     * weights of every vertex, instead of reading them from the
+     * {@link GVRBoneWeight} lists of the bones.
+     *
+     * @param bones a list of bones
+     * @param boneIndices index of the bone in {@code bones}, 4 per vertex
+     * @param boneWeights weight of the bone, 4 per vertex
+     * @see GVRVertexBoneData#setBoneWeights(int[], float[])
+     */
+    public void setBones(List<GVRBone> bones, int[] boneIndices, float[] boneWeights) {
+        checkDivisibleDataLength("boneIndices", boneIndices, 4);
+        checkDivisibleDataLength("boneWeights", boneWeights, 4);
+        mBones.clear();
+        mBones.addAll(bones);
+
+        NativeMesh.setBones(getNative(), GVRHybridObject.getNativePtrArray(mBones));
+        addAttributeKey("a_bone_indices");
+        addAttributeKey("a_bone_weights");
+        getVertexBoneData().setBoneWeights(boneIndices, boneWeights);
+    }
+
     /**
      * Gets the vertex bone data.
      *
@@ -415,7 +669,7 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
     public void prettyPrint(StringBuffer sb, int indent) {
         sb.append(getVertices() == null ? 0 : Integer.toString(getVertices().length / 3));
         sb.append(" vertices, ");
-        sb.append(getIndices() == null ? 0 : Integer.toString(getIndices().length / 3));
+        sb.append(Integer.toString(getIntIndices().length / 3));
         sb.append(" triangles, ");
         sb.append(getTexCoords() == null ? 0 : Integer.toString(getTexCoords().length / 2));
         sb.append(" tex-coords, ");
@@ -541,6 +795,50 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
         return sb.toString();
     }
 
+    /*
+     * Incremented whenever an attribute name is added, so the shader
+     * template knows when to compute the variant defines again.
+     */
+    int getAttributesVersion() {
+        return mAttributesVersion;
+    }
+
+    private void addAttributeKey(String key) {
+        if (mAttributeKeys.add(key)) {
+            ++mAttributesVersion;
+        }
+    }
+
+    private void setFloatRange(String key, float[] data, int components,
+            int firstVertex, int vertexCount) {
+        checkNotNull(key, data);
+        if ((firstVertex < 0) || (vertexCount < 0)
+                || ((firstVertex + vertexCount) * components > data.length)) {
+            throw Exceptions.IllegalArgument(
+                    "Vertices %d to %d are outside of the %s array of %d elements",
+                    firstVertex, firstVertex + vertexCount - 1, key, data.length / components);
+        }
+        if (!mAttributeKeys.contains(key)) {
+            throw Exceptions.IllegalArgument("The mesh has no %s attribute to update", key);
+        }
+        NativeMesh.setFloatRange(getNative(), key, components, data, firstVertex, vertexCount);
+    }
+
+    private void setFloatBuffer(String key, FloatBuffer buffer, int components) {
+        checkNotNull(key, buffer);
+        checkDivisibleDataLength(key, buffer.remaining(), components);
+        addAttributeKey(key);
+        if (buffer.isDirect() && (buffer.order() == ByteOrder.nativeOrder())) {
+            NativeMesh.setFloatBuffer(getNative(), key, components, buffer,
+                    buffer.position(), buffer.remaining());
+        } else {
+            FloatBuffer copy = ByteBuffer.allocateDirect(buffer.remaining() * 4)
+                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
+            copy.put(buffer.duplicate());
+            NativeMesh.setFloatBuffer(getNative(), key, components, copy, 0, copy.capacity());
+        }
+    }
+
     private void checkValidFloatVector(String keyName, String key,
             String vectorName, float[] vector, int expectedComponents) {
         checkStringNotNullOrEmpty(keyName, key);
@@ -570,6 +868,7 @@ public class GVRMesh extends GVRHybridObject implements PrettyPrint {
     private List<GVRBone> mBones = new ArrayList<GVRBone>();
     private GVRVertexBoneData mVertexBoneData;
     private Set<String> mAttributeKeys;
+    private volatile int mAttributesVersion = 0;
 }
 
 class NativeMesh {
@@ -595,6 +894,18 @@ class NativeMesh {
 
     static native void setIndices(long mesh, char[] indices);
 
+    static native int[] getIntIndices(long mesh);
+
+    static native void setIntIndices(long mesh, int[] indices);
+
+    static native void setIndexBuffer(long mesh, IntBuffer indices, int offset, int length);
+
+    static native void setFloatBuffer(long mesh, String key, int components,
+            FloatBuffer buffer, int offset, int length);
+
+    static native void setFloatRange(long mesh, String key, int components,
+            float[] data, int first, int count);
+
     static native float[] getFloatVector(long mesh, String key);
 
     static native void setFloatVector(long mesh, String key, float[] floatVector);
@@ -618,4 +929,6 @@ class NativeMesh {
     static native void getSphereBound(long mesh, float[] sphere);
     
     static native boolean hasAttribute(long mesh, String key);
+
+    static native int getDataSize(long mesh);
 }
@@ -69,6 +69,8 @@ import org.gearvrf.R;
            setSegment("VertexShader", vtxShader);
            setSegment("VertexNormalShader", normalShader);
            setSegment("VertexSkinShader", skinShader);
+           // getRenderDefines only adds the light map state to the base defines
+           mCacheVariantKeys = inheritsRenderDefines(GVRPhongShader.class);
        }
        
        public HashMap<String, Integer> getRenderDefines(GVRRenderData rdata, GVRScene scene)
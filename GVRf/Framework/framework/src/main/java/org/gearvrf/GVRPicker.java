@@ -16,10 +16,12 @@
 package org.gearvrf;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.gearvrf.debug.GVRProfiler;
 import org.gearvrf.utility.Log;
 import org.joml.Vector3f;
 
@@ -71,6 +73,45 @@ public class GVRPicker extends GVRBehavior {
 
     protected GVRScene mScene;
     protected GVRPickedObject[] mPicked = null;
+    private final Object[] mEventParams1 = new Object[1];
+    private final Object[] mEventParams2 = new Object[2];
+
+    static final int PICK_EVENT_PICK = 0;
+    static final int PICK_EVENT_NOPICK = 1;
+    static final int PICK_EVENT_ENTER = 2;
+    static final int PICK_EVENT_EXIT = 3;
+    static final int PICK_EVENT_INSIDE = 4;
+
+    /**
+     * Dispatch table for {@link IPickEvents}, indexed by the PICK_EVENT constants.
+     */
+    static final GVREventDispatcher<IPickEvents> sPickEventDispatcher =
+            new GVREventDispatcher<IPickEvents>(IPickEvents.class,
+                    "onPick", "onNoPick", "onEnter", "onExit", "onInside")
+    {
+        @Override
+        protected void dispatch(IPickEvents handler, int eventId, Object[] params)
+        {
+            switch (eventId)
+            {
+                case PICK_EVENT_PICK:
+                    handler.onPick((GVRPicker) params[0]);
+                    break;
+                case PICK_EVENT_NOPICK:
+                    handler.onNoPick((GVRPicker) params[0]);
+                    break;
+                case PICK_EVENT_ENTER:
+                    handler.onEnter((GVRSceneObject) params[0], (GVRPickedObject) params[1]);
+                    break;
+                case PICK_EVENT_EXIT:
+                    handler.onExit((GVRSceneObject) params[0]);
+                    break;
+                case PICK_EVENT_INSIDE:
+                    handler.onInside((GVRSceneObject) params[0], (GVRPickedObject) params[1]);
+                    break;
+            }
+        }
+    };
 
     /**
      * Construct a picker which picks from a given scene.
@@ -193,7 +234,9 @@ public class GVRPicker extends GVRBehavior {
     {
         if (isEnabled())
         {
+            long startTime = GVRProfiler.PICKER.begin();
             doPick();
+            GVRProfiler.PICKER.end(startTime);
         }
     }
 
@@ -234,7 +277,7 @@ public class GVRPicker extends GVRBehavior {
                 GVRCollider collider = collision.hitCollider;
                 if (!hasCollider(picked, collider))
                 {
-                    getGVRContext().getEventManager().sendEvent(mScene, IPickEvents.class, "onExit", collider.getOwnerObject());
+                    sendPickEvent(PICK_EVENT_EXIT, collider.getOwnerObject());
                     selectionChanged = true;
                 }
             }
@@ -258,12 +301,12 @@ public class GVRPicker extends GVRBehavior {
             GVRCollider collider = collision.hitCollider;
             if (!hasCollider(mPicked, collider))
             {
-                getGVRContext().getEventManager().sendEvent(mScene, IPickEvents.class, "onEnter", collider.getOwnerObject(), collision);
+                sendPickEvent(PICK_EVENT_ENTER, collider.getOwnerObject(), collision);
                 selectionChanged = true;
             }
             else
             {
-                getGVRContext().getEventManager().sendEvent(mScene, IPickEvents.class, "onInside", collider.getOwnerObject(), collision);
+                sendPickEvent(PICK_EVENT_INSIDE, collider.getOwnerObject(), collision);
             }
         }
         if (selectionChanged)
@@ -271,16 +314,32 @@ public class GVRPicker extends GVRBehavior {
             if (pickedCount > 0)
             {
                 mPicked = picked;
-                getGVRContext().getEventManager().sendEvent(mScene, IPickEvents.class, "onPick", this);
+                sendPickEvent(PICK_EVENT_PICK, this);
             }
             else
             {
                 mPicked = null;
-                getGVRContext().getEventManager().sendEvent(mScene, IPickEvents.class, "onNoPick", this);
+                sendPickEvent(PICK_EVENT_NOPICK, this);
             }
         }
     }
 
+    private void sendPickEvent(int eventId, Object param)
+    {
+        mEventParams1[0] = param;
+        getGVRContext().getEventManager().sendEvent(mScene, sPickEventDispatcher, eventId, mEventParams1);
+        mEventParams1[0] = null;
+    }
+
+    private void sendPickEvent(int eventId, Object param0, Object param1)
+    {
+        mEventParams2[0] = param0;
+        mEventParams2[1] = param1;
+        getGVRContext().getEventManager().sendEvent(mScene, sPickEventDispatcher, eventId, mEventParams2);
+        mEventParams2[0] = null;
+        mEventParams2[1] = null;
+    }
+
     private boolean hasCollider(GVRPickedObject[] pickList, GVRCollider findme)
     {
         if (pickList == null)
@@ -530,6 +589,56 @@ public class GVRPicker extends GVRBehavior {
         }
     }
 
+    /**
+     * Casts a ray into the scene graph, and stores the objects it intersects
+     * in a caller-owned hit buffer.
+     * <p/>
+     * This is the allocation-free counterpart of
+     * {@link #pickObjects(GVRScene, GVRTransform, float, float, float, float, float, float)}.
+     * Instead of creating a {@link GVRPickedObject} for every hit, the hits
+     * are written into the primitive arrays of {@code hits}, which can be reused
+     * for every pick. This makes it suitable for picking every frame.
+     * <p/>
+     * If there are more hits than the capacity of the buffer, only the hits
+     * closest to the ray origin are stored. {@link GVRPickHits#getTotalHits()}
+     * tells how many hits there were in total.
+     *
+     * @param scene
+     *            The {@link GVRScene} with all the objects to be tested.
+     * @param trans
+     *            The {@link GVRTransform} establishing the coordinate system of the ray,
+     *            null to use the head transform of the main camera rig.
+     * @param ox
+     *            The x coordinate of the ray origin.
+     * @param oy
+     *            The y coordinate of the ray origin.
+     * @param oz
+     *            The z coordinate of the ray origin.
+     * @param dx
+     *            The x vector of the ray direction.
+     * @param dy
+     *            The y vector of the ray direction.
+     * @param dz
+     *            The z vector of the ray direction.
+     * @param hits
+     *            The buffer to receive the hits, sorted by distance from the ray origin.
+     * @return number of hits stored in the buffer
+     * @see GVRPickHits
+     */
+    public static final int pickObjects(GVRScene scene, GVRTransform trans, float ox, float oy, float oz, float dx,
+                                        float dy, float dz, GVRPickHits hits) {
+        sFindObjectsLock.lock();
+        try {
+            long nativeTrans = (trans != null) ? trans.getNative() : 0L;
+            int total = NativePicker.pickObjectsToBuffer(scene.getNative(), nativeTrans, ox, oy, oz, dx, dy, dz,
+                    hits.mHitData, hits.mColliderPointers, hits.getCapacity());
+            hits.update(total);
+            return hits.getCount();
+        } finally {
+            sFindObjectsLock.unlock();
+        }
+    }
+
     /**
      * Casts a ray into the scene graph, and returns the objects it intersects.
      *
@@ -770,6 +879,211 @@ public class GVRPicker extends GVRBehavior {
         }
     }
 
+    /**
+     * A reusable buffer of pick results.
+     * <p/>
+     * The hits are kept in primitive arrays which are allocated once
+     * when the buffer is constructed. Each pick into the buffer with
+     * {@link GVRPicker#pickObjects(GVRScene, GVRTransform, float, float, float, float, float, float, GVRPickHits)}
+     * overwrites the previous results. The accessors take the index of
+     * the hit, where hit 0 is the closest to the ray origin.
+     * <p/>
+     * The buffer is not thread safe. Each thread picking
+     * into a buffer should use its own.
+     * @see GVRPickedObject
+     */
+    public static final class GVRPickHits {
+        // Floats per hit, the layout must match NativePicker.pickObjectsToBuffer
+        private static final int HIT_STRIDE = 13;
+        private static final int DISTANCE = 0;
+        private static final int HIT_POSITION = 1;
+        private static final int FACE_INDEX = 4;
+        private static final int BARYCENTRIC = 5;
+        private static final int TEXCOORD = 8;
+        private static final int NORMAL = 10;
+
+        final ByteBuffer mHitData;
+        final long[] mColliderPointers;
+        private final GVRCollider[] mColliders;
+        private final int mCapacity;
+        private int mCount;
+        private int mTotalHits;
+
+        /**
+         * Creates a hit buffer.
+         * @param capacity maximum number of hits the buffer can hold
+         */
+        public GVRPickHits(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("capacity must be positive");
+            }
+            mCapacity = capacity;
+            mHitData = ByteBuffer.allocateDirect(capacity * HIT_STRIDE * 4).order(ByteOrder.nativeOrder());
+            mColliderPointers = new long[capacity];
+            mColliders = new GVRCollider[capacity];
+        }
+
+        void update(int totalHits) {
+            int count = Math.min(totalHits, mCapacity);
+
+            for (int i = 0; i < count; ++i) {
+                mColliders[i] = GVRCollider.lookup(mColliderPointers[i]);
+            }
+            for (int i = count; i < mCount; ++i) {
+                mColliders[i] = null;
+            }
+            mCount = count;
+            mTotalHits = totalHits;
+        }
+
+        /**
+         * Removes all hits from the buffer.
+         */
+        public void clear() {
+            update(0);
+        }
+
+        /** The maximum number of hits the buffer can hold */
+        public int getCapacity() {
+            return mCapacity;
+        }
+
+        /** The number of hits in the buffer */
+        public int getCount() {
+            return mCount;
+        }
+
+        /**
+         * The number of hits found by the last pick.
+         * This is larger than {@link #getCount()} if
+         * not all of the hits fit in the buffer.
+         */
+        public int getTotalHits() {
+            return mTotalHits;
+        }
+
+        /**
+         * The {@link GVRCollider} that the ray intersected.
+         * @param index index of the hit
+         * @return collider hit, null if it has been destroyed
+         */
+        public GVRCollider getHitCollider(int index) {
+            checkIndex(index);
+            return mColliders[index];
+        }
+
+        /**
+         * The {@link GVRSceneObject} that the ray intersected.
+         * This is the owner of the collider hit.
+         * @param index index of the hit
+         * @return scene object hit, null if the collider has been destroyed
+         */
+        public GVRSceneObject getHitObject(int index) {
+            GVRCollider collider = getHitCollider(index);
+            return (collider != null) ? collider.getOwnerObject() : null;
+        }
+
+        /** The distance from the origin of the pick ray */
+        public float getHitDistance(int index) {
+            return getFloat(index, DISTANCE);
+        }
+
+        /** The x coordinate of the hit location */
+        public float getHitX(int index) {
+            return getFloat(index, HIT_POSITION);
+        }
+
+        /** The y coordinate of the hit location */
+        public float getHitY(int index) {
+            return getFloat(index, HIT_POSITION + 1);
+        }
+
+        /** The z coordinate of the hit location */
+        public float getHitZ(int index) {
+            return getFloat(index, HIT_POSITION + 2);
+        }
+
+        /**
+         * The index of the face hit if the collider is a
+         * {@link GVRMeshCollider}, -1 otherwise.
+         */
+        public int getFaceIndex(int index) {
+            checkIndex(index);
+            return mHitData.getInt((index * HIT_STRIDE + FACE_INDEX) * 4);
+        }
+
+        /** The x coordinate of the barycentric hit location */
+        public float getBarycentricX(int index) {
+            return getFloat(index, BARYCENTRIC);
+        }
+
+        /** The y coordinate of the barycentric hit location */
+        public float getBarycentricY(int index) {
+            return getFloat(index, BARYCENTRIC + 1);
+        }
+
+        /** The z coordinate of the barycentric hit location */
+        public float getBarycentricZ(int index) {
+            return getFloat(index, BARYCENTRIC + 2);
+        }
+
+        /** The u coordinate of the texture hit location */
+        public float getTextureU(int index) {
+            return getFloat(index, TEXCOORD);
+        }
+
+        /** The v coordinate of the texture hit location */
+        public float getTextureV(int index) {
+            return getFloat(index, TEXCOORD + 1);
+        }
+
+        /** The x coordinate of the surface normal */
+        public float getNormalX(int index) {
+            return getFloat(index, NORMAL);
+        }
+
+        /** The y coordinate of the surface normal */
+        public float getNormalY(int index) {
+            return getFloat(index, NORMAL + 1);
+        }
+
+        /** The z coordinate of the surface normal */
+        public float getNormalZ(int index) {
+            return getFloat(index, NORMAL + 2);
+        }
+
+        /**
+         * Creates a {@link GVRPickedObject} from a hit in the buffer.
+         * This allocates, use it only when a hit has to be kept
+         * after the buffer is reused.
+         * @param index index of the hit
+         * @return picked object, null if the collider has been destroyed
+         */
+        public GVRPickedObject toPickedObject(int index) {
+            GVRCollider collider = getHitCollider(index);
+            if (collider == null) {
+                return null;
+            }
+            return new GVRPickedObject(collider,
+                    new float[] { getHitX(index), getHitY(index), getHitZ(index) },
+                    getHitDistance(index), getFaceIndex(index),
+                    new float[] { getBarycentricX(index), getBarycentricY(index), getBarycentricZ(index) },
+                    new float[] { getTextureU(index), getTextureV(index) },
+                    new float[] { getNormalX(index), getNormalY(index), getNormalZ(index) });
+        }
+
+        private float getFloat(int index, int offset) {
+            checkIndex(index);
+            return mHitData.getFloat((index * HIT_STRIDE + offset) * 4);
+        }
+
+        private void checkIndex(int index) {
+            if ((index < 0) || (index >= mCount)) {
+                throw new IndexOutOfBoundsException("Hit index " + index + " out of range");
+            }
+        }
+    }
+
     static final ReentrantLock sFindObjectsLock = new ReentrantLock();
 }
 
@@ -780,6 +1094,9 @@ final class NativePicker {
     static native GVRPicker.GVRPickedObject[] pickObjects(long scene, long transform, float ox, float oy, float oz,
             float dx, float dy, float dz);
 
+    static native int pickObjectsToBuffer(long scene, long transform, float ox, float oy, float oz,
+            float dx, float dy, float dz, ByteBuffer hitBuffer, long[] colliders, int capacity);
+
     static native GVRPicker.GVRPickedObject pickSceneObject(long sceneObject, float ox, float oy, float oz,
             float dx, float dy, float dz);
 
@@ -0,0 +1,174 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Releases the native memory of a group of hybrid objects at once.
+ * <p>
+ * A scope is opened with {@link GVRContext#openReleaseScope()} and
+ * collects every {@link GVRMesh}, {@link GVRTexture} and
+ * {@link GVRMaterial} created by the same thread until it is closed.
+ * Other objects, like the transform and render data of a scene object,
+ * belong to their owner and are not collected. Objects created by other
+ * threads can be added with {@link #add(GVRHybridObject)}.
+ * {@link #close()} calls {@link GVRHybridObject#releaseNative()} on all of
+ * them, except those passed to {@link #keep(GVRHybridObject)} and the
+ * resources they use:
+ *
+ * <pre>
+ * try (GVRReleaseScope scope = context.openReleaseScope()) {
+ *     GVRMesh mesh = buildMesh(context);
+ *     scope.keep(merge(mesh, otherMesh));
+ * }
+ * </pre>
+ *
+ * Scopes nest: closing an inner scope releases its objects only.
+ */
+public final class GVRReleaseScope implements Closeable {
+    private final GVRContext mContext;
+    private final GVRReleaseScope mParent;
+    private final List<GVRHybridObject> mObjects = new ArrayList<GVRHybridObject>();
+    private boolean mClosed = false;
+
+    GVRReleaseScope(GVRContext context, GVRReleaseScope parent) {
+        mContext = context;
+        mParent = parent;
+    }
+
+    GVRReleaseScope getParent() {
+        return mParent;
+    }
+
+    /*
+     * Classes of the objects collected from the thread of the scope.
+     */
+    static boolean captures(GVRHybridObject object) {
+        return (object instanceof GVRMesh) || (object instanceof GVRTexture)
+                || (object instanceof GVRMaterial);
+    }
+
+    /**
+     * Adds an object to release when the scope is closed.
+     *
+     * @param object
+     *            object created outside the scope, or by another thread
+     */
+    public synchronized void add(GVRHybridObject object) {
+        if (mClosed) {
+            throw new IllegalStateException("release scope is closed");
+        }
+        mObjects.add(object);
+    }
+
+    /**
+     * Keeps an object created in the scope alive after it is closed. The
+     * object is then freed by the garbage collector as usual. The textures
+     * of a kept material, and the meshes, materials and textures of a kept
+     * render data or scene object hierarchy, are kept too.
+     *
+     * @param object
+     *            object to keep
+     * @return the object
+     */
+    public synchronized <T extends GVRHybridObject> T keep(T object) {
+        remove(object);
+        if (object instanceof GVRSceneObject) {
+            keepHierarchy((GVRSceneObject) object);
+        } else if (object instanceof GVRRenderData) {
+            keepRenderData((GVRRenderData) object);
+        } else if (object instanceof GVRMaterial) {
+            keepMaterial((GVRMaterial) object);
+        }
+        return object;
+    }
+
+    private void remove(GVRHybridObject object) {
+        for (int i = mObjects.size() - 1; i >= 0; --i) {
+            if (mObjects.get(i) == object) {
+                mObjects.remove(i);
+            }
+        }
+    }
+
+    private void keepHierarchy(GVRSceneObject sceneObject) {
+        remove(sceneObject);
+        GVRRenderData renderData = sceneObject.getRenderData();
+        if (renderData != null) {
+            keepRenderData(renderData);
+        }
+        for (GVRSceneObject child : sceneObject.getChildren()) {
+            keepHierarchy(child);
+        }
+    }
+
+    private void keepRenderData(GVRRenderData renderData) {
+        remove(renderData);
+        GVRMesh mesh = renderData.getMesh();
+        if (mesh != null) {
+            remove(mesh);
+        }
+        for (int i = 0; i < renderData.getPassCount(); ++i) {
+            GVRMaterial material = renderData.getMaterial(i);
+            if (material != null) {
+                keepMaterial(material);
+            }
+        }
+    }
+
+    private void keepMaterial(GVRMaterial material) {
+        remove(material);
+        for (String name : material.getTextureNames()) {
+            GVRTexture texture = material.getTexture(name);
+            if (texture != null) {
+                remove(texture);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of objects which will be released.
+     *
+     * @return number of objects in the scope
+     */
+    public synchronized int size() {
+        return mObjects.size();
+    }
+
+    /**
+     * Releases the objects of the scope and restores the enclosing scope
+     * on this thread.
+     */
+    @Override
+    public void close() {
+        List<GVRHybridObject> objects;
+        synchronized (this) {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+            objects = new ArrayList<GVRHybridObject>(mObjects);
+            mObjects.clear();
+        }
+        mContext.closeReleaseScope(this);
+        for (GVRHybridObject object : objects) {
+            object.releaseNative();
+        }
+    }
+}
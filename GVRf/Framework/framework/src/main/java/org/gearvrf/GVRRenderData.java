@@ -54,6 +54,7 @@ public class GVRRenderData extends GVRComponent implements PrettyPrint {
     private boolean isLightEnabled;
     private GVRShaderTemplate mShaderTemplate;
     private HashMap<String, Integer> mShaderFeatures = new HashMap<String, Integer>();
+    GVRShaderTemplate.VariantKey mVariantKey = null;
 
     /**
      * Rendering hints.
@@ -331,6 +332,14 @@ public class GVRRenderData extends GVRComponent implements PrettyPrint {
         }
     }
 
+    int getPassCount() {
+        return mRenderPassList.size();
+    }
+
+    GVRShaderTemplate getShaderTemplate() {
+        return mShaderTemplate;
+    }
+
     /**
      * Set the shader template to use for rendering the mesh.
      * 
@@ -990,6 +999,10 @@ class NativeRenderData {
 
     static native void setMesh(long renderData, long mesh);
 
+    static native void setInstanceBuffer(long renderData, long instanceBuffer);
+
+    static native void instancesChanged(long renderData);
+
     static native void addPass(long renderData, long renderPass);
 
     static native void setLight(long renderData, long light);
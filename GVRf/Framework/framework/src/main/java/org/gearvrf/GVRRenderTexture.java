@@ -32,6 +32,7 @@ public class GVRRenderTexture extends GVRTexture {
 
         mWidth = width;
         mHeight = height;
+        mDataSize = width * height * 4;
     }
 
     /**
@@ -53,6 +54,7 @@ public class GVRRenderTexture extends GVRTexture {
                 sampleCount));
         mWidth = width;
         mHeight = height;
+        mDataSize = width * height * 4 * Math.max(1, sampleCount);
     }
 
     /**
@@ -88,6 +90,7 @@ public class GVRRenderTexture extends GVRTexture {
                 parameters.getCurrentValuesArray()));
         mWidth = width;
         mHeight = height;
+        mDataSize = width * height * 4 * Math.max(1, sampleCount);
     }
 
     GVRRenderTexture(GVRContext gvrContext, long ptr) {
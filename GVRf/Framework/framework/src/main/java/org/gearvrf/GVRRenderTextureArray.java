@@ -41,5 +41,6 @@ public class GVRRenderTextureArray extends GVRRenderTexture
     public GVRRenderTextureArray(GVRContext ctx, int width, int height, int layers)
     {
         super(ctx, NativeRenderTexture.ctorArray(width, height, layers));
+        mDataSize = width * height * 4 * layers;
     }
 }
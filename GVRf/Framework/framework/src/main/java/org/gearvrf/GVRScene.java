@@ -151,7 +151,11 @@ public class GVRScene extends GVRHybridObject implements PrettyPrint, IScriptabl
         {
             mLightList.clear();
         }
+        boolean indexed = (mSceneRoot.getIndex() != null);
         mSceneRoot = new GVRSceneObject(getGVRContext());
+        if (indexed) {
+            mSceneRoot.enableIndex();
+        }
         mSceneRoot.addChildObject(head);
         NativeScene.addSceneObject(getNative(), mSceneRoot.getNative());
 
@@ -242,6 +246,27 @@ public class GVRScene extends GVRHybridObject implements PrettyPrint, IScriptabl
         }
     }
 
+    /**
+     * Indexes the scene objects by name and tag, so that
+     * {@link #getSceneObjectByName(String)} does not visit the whole scene.
+     * The index is kept up to date as objects are added and removed.
+     *
+     * @return index of the scene
+     * @see GVRSceneObject#enableIndex()
+     */
+    public GVRSceneIndex enableIndex() {
+        return mSceneRoot.enableIndex();
+    }
+
+    /**
+     * Gets the index created by {@link #enableIndex()}.
+     *
+     * @return index of the scene, or null if the scene is not indexed
+     */
+    public GVRSceneIndex getIndex() {
+        return mSceneRoot.getIndex();
+    }
+
     /**
      * Performs case-sensitive search
      * 
@@ -281,6 +306,28 @@ public class GVRScene extends GVRHybridObject implements PrettyPrint, IScriptabl
     public void setPickVisible(boolean flag) {
         NativeScene.setPickVisible(getNative(), flag);
     }
+
+    /**
+     * Enable / disable the picking acceleration structure.
+     * When enabled, a bounding volume hierarchy over the world
+     * bounds of the colliders is used to find the colliders a pick
+     * ray may hit, instead of testing the ray against every collider.
+     * Colliders whose transforms change are refitted before the
+     * next pick, and the hierarchy is rebuilt when colliders are
+     * added or removed. If pick visible is enabled, the colliders
+     * found in the hierarchy are filtered by visibility.
+     * <p>
+     * It pays off for scenes with many colliders which mostly
+     * keep still; box colliders are always tested.
+     * {@link org.gearvrf.debug.GVRPickBenchmark} compares both
+     * paths on the device.
+     * @param flag true to enable accelerated picking
+     * @see #setPickVisible(boolean)
+     * @see GVRPicker
+     */
+    public void setPickAccelerated(boolean flag) {
+        NativeScene.setPickAccelerated(getNative(), flag);
+    }
     
     public void inValidateShadowMap(){
         NativeScene.invalidateShadowMap(getNative());
@@ -750,4 +797,6 @@ class NativeScene {
     static native void setMainScene(long scene);
     
     static native void setPickVisible(long scene, boolean flag);
+
+    static native void setPickAccelerated(long scene, boolean flag);
 }
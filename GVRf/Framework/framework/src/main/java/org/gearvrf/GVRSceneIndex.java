@@ -0,0 +1,135 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the scene objects below a root object by name and by tag.
+ * <p>
+ * The index is created with {@link GVRSceneObject#enableIndex()} or
+ * {@link GVRScene#enableIndex()} and is kept up to date as objects are
+ * added, removed, renamed and tagged. While a subtree is indexed,
+ * {@link GVRSceneObject#getSceneObjectByName(String)} and
+ * {@link GVRSceneObject#getSceneObjectsByName(String)} look names up in
+ * the index instead of visiting every descendant.
+ * <p>
+ * Keeping the index costs a visit of the subtree being added or removed,
+ * so it pays off for hierarchies which are searched often, like the
+ * skeleton of a character, rather than ones which change every frame.
+ */
+public final class GVRSceneIndex {
+    private final GVRSceneObject mRoot;
+    private final Map<String, List<GVRSceneObject>> mNames = new HashMap<String, List<GVRSceneObject>>();
+    private final Map<Object, List<GVRSceneObject>> mTags = new HashMap<Object, List<GVRSceneObject>>();
+
+    GVRSceneIndex(GVRSceneObject root) {
+        mRoot = root;
+    }
+
+    /**
+     * Gets the object at the root of the index.
+     *
+     * @return root scene object
+     */
+    public GVRSceneObject getRoot() {
+        return mRoot;
+    }
+
+    /**
+     * Gets the indexed objects with a name.
+     *
+     * @param name
+     *            case-sensitive name to look for
+     * @return objects with this name, in no particular order; empty if none
+     */
+    public synchronized List<GVRSceneObject> getObjectsByName(String name) {
+        List<GVRSceneObject> list = mNames.get(name);
+        return (list != null) ? new ArrayList<GVRSceneObject>(list) : new ArrayList<GVRSceneObject>();
+    }
+
+    /**
+     * Gets the indexed objects with a tag.
+     *
+     * @param tag
+     *            tag to look for, compared with {@link Object#equals(Object)}
+     * @return objects with this tag, in no particular order; empty if none
+     * @see GVRSceneObject#setTag(Object)
+     */
+    public synchronized List<GVRSceneObject> getObjectsByTag(Object tag) {
+        List<GVRSceneObject> list = mTags.get(tag);
+        return (list != null) ? new ArrayList<GVRSceneObject>(list) : new ArrayList<GVRSceneObject>();
+    }
+
+    /*
+     * Number of objects with a name, to choose between the index and
+     * a search of the hierarchy without copying.
+     */
+    synchronized int countName(String name) {
+        List<GVRSceneObject> list = mNames.get(name);
+        return (list != null) ? list.size() : 0;
+    }
+
+    synchronized GVRSceneObject getFirstByName(String name) {
+        List<GVRSceneObject> list = mNames.get(name);
+        return (list != null) ? list.get(0) : null;
+    }
+
+    synchronized void add(GVRSceneObject obj, String name) {
+        put(mNames, name, obj);
+        put(mTags, obj.getTag(), obj);
+    }
+
+    synchronized void remove(GVRSceneObject obj, String name) {
+        take(mNames, name, obj);
+        take(mTags, obj.getTag(), obj);
+    }
+
+    synchronized void rename(GVRSceneObject obj, String oldName, String newName) {
+        take(mNames, oldName, obj);
+        put(mNames, newName, obj);
+    }
+
+    synchronized void retag(GVRSceneObject obj, Object oldTag, Object newTag) {
+        take(mTags, oldTag, obj);
+        put(mTags, newTag, obj);
+    }
+
+    private static <K> void put(Map<K, List<GVRSceneObject>> map, K key, GVRSceneObject obj) {
+        if ((key == null) || "".equals(key)) {
+            return;
+        }
+        List<GVRSceneObject> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<GVRSceneObject>(1);
+            map.put(key, list);
+        }
+        list.add(obj);
+    }
+
+    private static <K> void take(Map<K, List<GVRSceneObject>> map, K key, GVRSceneObject obj) {
+        if ((key == null) || "".equals(key)) {
+            return;
+        }
+        List<GVRSceneObject> list = map.get(key);
+        if ((list != null) && list.remove(obj) && list.isEmpty()) {
+            map.remove(key);
+        }
+    }
+}
@@ -65,9 +65,20 @@ public class GVRSceneObject extends GVRHybridObject implements PrettyPrint, IScr
     private GVRSceneObject mParent;
     private GVRBaseSensor mSensor;
     private Object mTag;
+    private GVRSceneIndex mOwnIndex;
+    private List<GVRSceneIndex> mIndices;
     private final List<GVRSceneObject> mChildren = new CopyOnWriteArrayList<GVRSceneObject>();
     private final GVREventReceiver mEventReceiver = new GVREventReceiver(this);
 
+    /*
+     * Incremented on the root of a hierarchy whenever objects are added to
+     * it, removed from it or given a sensor, so that the sensor manager
+     * knows when to rebuild the pick tree of the scene. Changes to other
+     * hierarchies, like a model being assembled by a loader, leave the
+     * version of the scene alone.
+     */
+    private volatile int mHierarchyVersion = 0;
+
     /**
      * Constructs an empty scene object with a default {@link GVRTransform
      * transform}.
@@ -308,7 +319,15 @@ public class GVRSceneObject extends GVRHybridObject implements PrettyPrint, IScr
      *            Name of the object.
      */
     public void setName(String name) {
-        NativeSceneObject.setName(getNative(), name);
+        if (mIndices != null) {
+            String oldName = getName();
+            NativeSceneObject.setName(getNative(), name);
+            for (GVRSceneIndex index : mIndices) {
+                index.rename(this, oldName, name);
+            }
+        } else {
+            NativeSceneObject.setName(getNative(), name);
+        }
     }
 
     /**
@@ -322,7 +341,13 @@ public class GVRSceneObject extends GVRHybridObject implements PrettyPrint, IScr
      * @see #getTag()
      */
     public void setTag(Object tag) {
+        Object oldTag = mTag;
         mTag = tag;
+        if (mIndices != null) {
+            for (GVRSceneIndex index : mIndices) {
+                index.retag(this, oldTag, tag);
+            }
+        }
     }
 
     /**
@@ -688,6 +713,12 @@ public class GVRSceneObject extends GVRHybridObject implements PrettyPrint, IScr
         mChildren.add(child);
         child.mParent = this;
         NativeSceneObject.addChildObject(getNative(), child.getNative());
+        if (mIndices != null) {
+            for (GVRSceneIndex index : mIndices) {
+                child.addToIndex(index);
+            }
+        }
+        hierarchyChanged();
         child.onNewParentObject(this);
         return true;
     }
@@ -703,9 +734,119 @@ public class GVRSceneObject extends GVRHybridObject implements PrettyPrint, IScr
         mChildren.remove(child);
         child.mParent = null;
         NativeSceneObject.removeChildObject(getNative(), child.getNative());
+        if (mIndices != null) {
+            for (GVRSceneIndex index : mIndices) {
+                child.removeFromIndex(index);
+            }
+        }
+        hierarchyChanged();
         child.onRemoveParentObject(this);
     }
 
+    /*
+     * Version of the hierarchy this object is the root of.
+     */
+    int getHierarchyVersion() {
+        return mHierarchyVersion;
+    }
+
+    private void hierarchyChanged() {
+        GVRSceneObject root = this;
+        while (root.mParent != null) {
+            root = root.mParent;
+        }
+        ++root.mHierarchyVersion;
+    }
+
+    /**
+     * Indexes the names and tags of this object and its descendants.
+     * The index is kept up to date as objects are added, removed, renamed
+     * or tagged, and makes {@link #getSceneObjectByName(String)} and
+     * {@link #getSceneObjectsByName(String)} constant time for names which
+     * are unique in the subtree.
+     *
+     * @return index of this subtree
+     * @see #disableIndex()
+     */
+    public GVRSceneIndex enableIndex() {
+        if (mOwnIndex == null) {
+            mOwnIndex = new GVRSceneIndex(this);
+            addToIndex(mOwnIndex);
+        }
+        return mOwnIndex;
+    }
+
+    /**
+     * Drops the index created by {@link #enableIndex()}.
+     */
+    public void disableIndex() {
+        if (mOwnIndex != null) {
+            removeFromIndex(mOwnIndex);
+            mOwnIndex = null;
+        }
+    }
+
+    /**
+     * Gets the index created by {@link #enableIndex()}.
+     *
+     * @return index of this subtree, or null if it is not indexed
+     */
+    public GVRSceneIndex getIndex() {
+        return mOwnIndex;
+    }
+
+    private void addToIndex(final GVRSceneIndex index) {
+        forAllDescendants(new SceneVisitor() {
+            @Override
+            public boolean visit(GVRSceneObject obj) {
+                if (obj.mIndices == null) {
+                    obj.mIndices = new ArrayList<GVRSceneIndex>(1);
+                }
+                obj.mIndices.add(index);
+                index.add(obj, obj.getName());
+                return true;
+            }
+        });
+    }
+
+    private void removeFromIndex(final GVRSceneIndex index) {
+        forAllDescendants(new SceneVisitor() {
+            @Override
+            public boolean visit(GVRSceneObject obj) {
+                if ((obj.mIndices != null) && obj.mIndices.remove(index)) {
+                    index.remove(obj, obj.getName());
+                    if (obj.mIndices.isEmpty()) {
+                        obj.mIndices = null;
+                    }
+                }
+                return true;
+            }
+        });
+    }
+
+    /*
+     * Gets an index which can answer a lookup of this name. Names which
+     * are not unique are searched in depth first order instead.
+     */
+    private GVRSceneIndex getLookupIndex(String name) {
+        List<GVRSceneIndex> indices = mIndices;
+        if ((indices == null) || indices.isEmpty()) {
+            return null;
+        }
+        GVRSceneIndex index = indices.get(0);
+        return (index.countName(name) <= 1) ? index : null;
+    }
+
+    private GVRSceneObject findIndexed(GVRSceneIndex index, String name) {
+        GVRSceneObject found = index.getFirstByName(name);
+        for (GVRSceneObject obj = found; obj != null; obj = obj.mParent) {
+            if (obj == this) {
+                return found;
+            }
+        }
+        return null;
+    }
+
     /**
      * Called when the scene object gets a new parent.
      *
@@ -859,6 +1000,11 @@ public class GVRSceneObject extends GVRHybridObject implements PrettyPrint, IScr
             return null;
         }
 
+        GVRSceneIndex index = getLookupIndex(name);
+        if (index != null) {
+            GVRSceneObject found = findIndexed(index, name);
+            return (found != null) ? new GVRSceneObject[] { found } : null;
+        }
         final List<GVRSceneObject> matches = new ArrayList<GVRSceneObject>();
         getSceneObjectsByName(name, matches);
         return 0 != matches.size() ? matches.toArray(new GVRSceneObject[matches.size()]) : null;
@@ -875,6 +1021,10 @@ public class GVRSceneObject extends GVRHybridObject implements PrettyPrint, IScr
         if (null == name || name.isEmpty()) {
             return null;
         }
+        GVRSceneIndex index = getLookupIndex(name);
+        if (index != null) {
+            return findIndexed(index, name);
+        }
         if (getName().equals(name)) {
             return this;
         }
@@ -1066,6 +1216,7 @@ public class GVRSceneObject extends GVRHybridObject implements PrettyPrint, IScr
             sensor.setOwner(this);
         }
         mSensor = sensor;
+        hierarchyChanged();
     }
 
     /**
@@ -1283,6 +1434,10 @@ class NativeSceneObject {
 
     static native float[] getBoundingVolume(long sceneObject);
 
+    static native void getBoundingBoxes(long[] sceneObjects, int count, float[] boxes);
+
+    static native void getBoundingSpheres(long[] sceneObjects, int count, float[] spheres);
+
     static native float[] expandBoundingVolumeByPoint(
             long sceneObject, float pointX, float pointY, float pointZ);
 
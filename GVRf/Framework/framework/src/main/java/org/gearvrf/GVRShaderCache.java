@@ -0,0 +1,269 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.Threads;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * On-disk cache of the shader sources generated by shader templates.
+ * <p>
+ * Each variant is stored in a file named after a hash of the template
+ * sources, the variant signature and the version of the application,
+ * so a template whose segments change, or an update of the application,
+ * never reads stale sources. Files are written on a background thread.
+ * <p>
+ * The linked GL programs are cached by the native shader manager in the
+ * "programs" subdirectory, keyed by the generated sources.
+ *
+ * @see GVRMaterialShaderManager#setCacheDirectory(File)
+ */
+final class GVRShaderCache
+{
+    private static final String TAG = Log.tag(GVRShaderCache.class);
+    private static final int MAGIC = 0x47565253; // "GVRS"
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".gvrs";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File mDirectory;
+    private final long mAppVersion;
+
+    /**
+     * Vertex and fragment sources of a cached variant.
+     */
+    static class Sources
+    {
+        final String VertexShaderSource;
+        final String FragmentShaderSource;
+
+        Sources(String vertexShaderSource, String fragmentShaderSource)
+        {
+            VertexShaderSource = vertexShaderSource;
+            FragmentShaderSource = fragmentShaderSource;
+        }
+    }
+
+    /**
+     * @param directory  directory of the cache files
+     * @param appVersion stamp which changes with every install of the
+     *                   application, such as its last update time
+     */
+    GVRShaderCache(File directory, long appVersion)
+    {
+        mDirectory = directory;
+        mAppVersion = appVersion;
+    }
+
+    File getDirectory()
+    {
+        return mDirectory;
+    }
+
+    /**
+     * Hash the sources of a shader template.
+     * @param name        class name of the template
+     * @param glslVersion GLSL version of the generated shaders
+     * @param segments    source code segments of the template
+     * @return hash to pass to {@link #makeKey(byte[], String)}
+     */
+    static byte[] digestTemplate(String name, int glslVersion, Map<String, String> segments)
+    {
+        MessageDigest md = newDigest();
+        md.update(name.getBytes(UTF8));
+        md.update((byte) (glslVersion >> 8));
+        md.update((byte) glslVersion);
+        for (Map.Entry<String, String> entry : new TreeMap<String, String>(segments).entrySet())
+        {
+            md.update(entry.getKey().getBytes(UTF8));
+            md.update((byte) 0);
+            if (entry.getValue() != null)
+            {
+                md.update(entry.getValue().getBytes(UTF8));
+            }
+            md.update((byte) 0);
+        }
+        return md.digest();
+    }
+
+    /**
+     * Make the cache key of a shader variant.
+     * @param templateDigest hash from {@link #digestTemplate}
+     * @param signature      variant signature
+     * @return hexadecimal hash identifying the generated sources
+     */
+    String makeKey(byte[] templateDigest, String signature)
+    {
+        MessageDigest md = newDigest();
+        md.update(templateDigest);
+        md.update(signature.getBytes(UTF8));
+        for (int shift = 56; shift >= 0; shift -= 8)
+        {
+            md.update((byte) (mAppVersion >> shift));
+        }
+        md.update((byte) VERSION);
+        return toHex(md.digest());
+    }
+
+    /**
+     * Read the sources of a variant.
+     * @param key cache key from {@link #makeKey(byte[], String)}
+     * @return cached sources, or null if the variant is not in the cache
+     */
+    Sources load(String key)
+    {
+        File file = new File(mDirectory, key + EXTENSION);
+        if (!file.exists())
+        {
+            return null;
+        }
+        DataInputStream in = null;
+        try
+        {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if ((in.readInt() != MAGIC) || (in.readInt() != VERSION))
+            {
+                return null;
+            }
+            String vertexSource = readString(in);
+            String fragmentSource = readString(in);
+            return new Sources(vertexSource, fragmentSource);
+        }
+        catch (IOException ex)
+        {
+            Log.w(TAG, "cannot read cached shader %s: %s", file, ex.getMessage());
+            return null;
+        }
+        finally
+        {
+            close(in);
+        }
+    }
+
+    /**
+     * Write the sources of a variant on a background thread.
+     * @param key            cache key from {@link #makeKey(byte[], String)}
+     * @param vertexSource   generated vertex shader
+     * @param fragmentSource generated fragment shader
+     */
+    void store(final String key, final String vertexSource, final String fragmentSource)
+    {
+        Threads.spawnLow(new Runnable()
+        {
+            public void run()
+            {
+                write(key, vertexSource, fragmentSource);
+            }
+        });
+    }
+
+    private void write(String key, String vertexSource, String fragmentSource)
+    {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs())
+        {
+            Log.w(TAG, "cannot create shader cache directory %s", mDirectory);
+            return;
+        }
+        File file = new File(mDirectory, key + EXTENSION);
+        File tempFile = new File(mDirectory, key + ".tmp");
+        DataOutputStream out = null;
+        try
+        {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, vertexSource);
+            writeString(out, fragmentSource);
+            out.close();
+            out = null;
+            if (!tempFile.renameTo(file))
+            {
+                throw new IOException("cannot rename " + tempFile);
+            }
+        }
+        catch (IOException ex)
+        {
+            Log.w(TAG, "cannot write shader cache %s: %s", file, ex.getMessage());
+            close(out);
+            tempFile.delete();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException
+    {
+        byte[] bytes = s.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes)
+    {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+        {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
+    }
+
+    private static void close(Closeable closeable)
+    {
+        if (closeable != null)
+        {
+            try
+            {
+                closeable.close();
+            }
+            catch (IOException ex)
+            {
+            }
+        }
+    }
+}
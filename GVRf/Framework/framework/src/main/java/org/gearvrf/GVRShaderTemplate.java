@@ -24,6 +24,7 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -102,6 +103,39 @@ public class GVRShaderTemplate
         public String FragmentShader;
     };
 
+    /*
+     * Variant selected for a render data with the state it depends on.
+     * While the state is unchanged, bindShader reuses the signature and
+     * defines instead of computing them again.
+     */
+    static final class VariantKey
+    {
+        GVRShaderTemplate Template;
+        GVRMaterial Material;
+        int MaterialVersion;
+        GVRMesh Mesh;
+        int MeshVersion;
+        GVRLightBase[] Lights;
+        boolean CastShadow;
+        boolean LightEnabled;
+        boolean LightMapEnabled;
+        GVRInstanceBuffer Instances;
+        HashMap<String, Integer> Defines;
+        String Signature;
+
+        boolean matches(GVRShaderTemplate template, GVRMaterial material, GVRMesh mesh,
+                        GVRLightBase[] lights, boolean castShadow, GVRRenderData rdata)
+        {
+            return (Template == template) && (Material == material) && (Mesh == mesh)
+                && (MaterialVersion == material.getNamesVersion())
+                && ((mesh == null) || (MeshVersion == mesh.getAttributesVersion()))
+                && (CastShadow == castShadow) && (LightEnabled == rdata.isLightEnabled())
+                && (LightMapEnabled == rdata.isLightMapEnabled())
+                && (Instances == getInstanceBuffer(rdata))
+                && Arrays.equals(Lights, lights);
+        }
+    }
+
     /**
      * Construct a shader template for a shader using GLSL version 100.
      * To make a shader for another version use the other form of the constructor.
@@ -113,6 +147,7 @@ public class GVRShaderTemplate
     {
         mUniformDescriptor = descriptor;
         mShaderSegments = new HashMap<String, String>();
+        mCacheVariantKeys = inheritsRenderDefines(GVRShaderTemplate.class);
     }
 
     /**
@@ -128,6 +163,7 @@ public class GVRShaderTemplate
         mUniformDescriptor = descriptor;
         mShaderSegments = new HashMap<String, String>();
         mGLSLVersion = glslVersion;
+        mCacheVariantKeys = inheritsRenderDefines(GVRShaderTemplate.class);
     }
 
     /**
@@ -159,6 +195,7 @@ public class GVRShaderTemplate
     public void setSegment(String segmentName, String shaderSource)
     {
         mShaderSegments.put(segmentName, shaderSource);
+        mSourceDigest = null;
         if (shaderSource == null)
             throw new java.lang.IllegalArgumentException("Shader source is null for segment " + segmentName + " of shader");
         Pattern pattern = Pattern.compile("HAS_([a-zA-Z0-9_]+)");
@@ -425,13 +462,47 @@ public class GVRShaderTemplate
             scene = null;
             lightlist = null;
         }
-        HashMap<String, Integer> variantDefines = getRenderDefines(rdata, scene);
+        HashMap<String, Integer> variantDefines;
+        String signature;
+        VariantKey key = rdata.mVariantKey;
+        boolean castShadow = castsShadow(lightlist);
+
+        if (mCacheVariantKeys && (key != null)
+            && key.matches(this, material, mesh, lightlist, castShadow, rdata))
+        {
+            variantDefines = key.Defines;
+            signature = key.Signature;
+        }
+        else
+        {
+            int materialVersion = material.getNamesVersion();
+            int meshVersion = (mesh != null) ? mesh.getAttributesVersion() : 0;
+
+            variantDefines = getRenderDefines(rdata, scene);
+            generateVariantDefines(variantDefines, mesh, material);
+            signature = generateSignature(variantDefines, lightlist);
+            if (mCacheVariantKeys)
+            {
+                key = new VariantKey();
+                key.Template = this;
+                key.Material = material;
+                key.MaterialVersion = materialVersion;
+                key.Mesh = mesh;
+                key.MeshVersion = meshVersion;
+                key.Lights = lightlist;
+                key.CastShadow = castShadow;
+                key.LightEnabled = rdata.isLightEnabled();
+                key.LightMapEnabled = rdata.isLightMapEnabled();
+                key.Instances = getInstanceBuffer(rdata);
+                key.Defines = variantDefines;
+                key.Signature = signature;
+                rdata.mVariantKey = key;
+            }
+        }
         if (mShaderVariants == null)
         {
             mShaderVariants = new HashMap<String, ShaderVariant>();
         }
-        generateVariantDefines(variantDefines, mesh, material);
-        String signature = generateSignature(variantDefines, lightlist);
         ShaderVariant variant = mShaderVariants.get(signature);
         if (variant != null)
         {
@@ -444,11 +515,27 @@ public class GVRShaderTemplate
         }
         else
         {
-            Map<String, LightClass> lightClasses = scanLights(lightlist);
+            GVRShaderCache cache = context.getMaterialShaderManager().getShaderCache();
+            String cacheKey = (cache != null) ? cache.makeKey(getSourceDigest(), signature) : null;
+            GVRShaderCache.Sources sources = (cacheKey != null) ? cache.load(cacheKey) : null;
 
             variant = new ShaderVariant();
-            variant.VertexShaderSource = generateShaderVariant("Vertex", variantDefines, lightlist, lightClasses, material);
-            variant.FragmentShaderSource = generateShaderVariant("Fragment", variantDefines, lightlist, lightClasses, material);
+            if (sources != null)
+            {
+                variant.VertexShaderSource = sources.VertexShaderSource;
+                variant.FragmentShaderSource = sources.FragmentShaderSource;
+            }
+            else
+            {
+                Map<String, LightClass> lightClasses = scanLights(lightlist);
+
+                variant.VertexShaderSource = generateShaderVariant("Vertex", variantDefines, lightlist, lightClasses, material);
+                variant.FragmentShaderSource = generateShaderVariant("Fragment", variantDefines, lightlist, lightClasses, material);
+                if (cacheKey != null)
+                {
+                    cache.store(cacheKey, variant.VertexShaderSource, variant.FragmentShaderSource);
+                }
+            }
             if (mWriteShadersToDisk)
             {
                 writeShader(context, "V-" + signature + ".glsl", variant.VertexShaderSource);
@@ -473,6 +560,46 @@ public class GVRShaderTemplate
         material.setShaderType(variant.ShaderID);
     }
 
+    private static boolean castsShadow(GVRLightBase[] lightlist)
+    {
+        if (lightlist != null)
+        {
+            for (GVRLightBase light : lightlist)
+            {
+                if (light.getCastShadow())
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Variant keys can only be cached if the defines depend on nothing
+     * but the state compared by VariantKey.matches. A subclass which
+     * overrides getRenderDefines must opt in by setting mCacheVariantKeys.
+     */
+    final boolean inheritsRenderDefines(Class<? extends GVRShaderTemplate> declaringClass)
+    {
+        try
+        {
+            return getClass().getMethod("getRenderDefines", GVRRenderData.class, GVRScene.class)
+                    .getDeclaringClass() == declaringClass;
+        }
+        catch (NoSuchMethodException ex)
+        {
+            return false;
+        }
+    }
+
+    private byte[] getSourceDigest()
+    {
+        if (mSourceDigest == null)
+        {
+            mSourceDigest = GVRShaderCache.digestTemplate(getClass().getName(), mGLSLVersion, mShaderSegments);
+        }
+        return mSourceDigest;
+    }
+
     private void writeShader(GVRContext context, String fileName, String sourceCode)
     {
         try
@@ -614,6 +741,8 @@ public class GVRShaderTemplate
      * 
      * The base implementation LIGHTSOURCES as 0 if lighting is not enabled by the render data,
      * and it defines SHADOWS as 1 if any light source enables shadow casting. 
+     * For a {@link GVRInstancedRenderData} it defines INSTANCING and the name of
+     * every attribute of its {@link GVRInstanceBuffer}.
      * 
      * @param rdata GVRRenderData being used by this shader
      * @param scene scene being rendered
@@ -631,6 +760,13 @@ public class GVRShaderTemplate
         {
             defines.put("MULTIVIEW", 1);
         }
+        GVRInstanceBuffer instances = getInstanceBuffer(rdata);
+        if (instances != null)
+        {
+            defines.put("INSTANCING", 1);
+            for (String name : instances.getAttributeNames())
+                defines.put(name, 1);
+        }
         if (!rdata.isLightEnabled())
         {
             defines.put("LIGHTSOURCES", 0);
@@ -645,6 +781,13 @@ public class GVRShaderTemplate
         return defines;
     }
     
+    static GVRInstanceBuffer getInstanceBuffer(GVRRenderData rdata)
+    {
+        if (rdata instanceof GVRInstancedRenderData)
+            return ((GVRInstancedRenderData) rdata).getInstanceBuffer();
+        return null;
+    }
+
     /**
      * Makes the material map for the shader.
      * The material map does not change any names, just maps
@@ -899,6 +1042,8 @@ public class GVRShaderTemplate
     }
 
     protected boolean mWriteShadersToDisk = false;
+    protected boolean mCacheVariantKeys;
+    private byte[] mSourceDigest;
     protected Map<String, String> mShaderSegments;
     protected Map<String, ShaderVariant> mShaderVariants;
     protected Set<String> mShaderDefines;
@@ -0,0 +1,730 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import android.opengl.GLES20;
+
+import org.gearvrf.GVRRenderPass.GVRCullFaceEnum;
+import org.gearvrf.utility.Log;
+import org.joml.Matrix4f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges the meshes of static scene objects which are drawn the same way,
+ * so they are drawn with one call.
+ * <p>
+ * {@link #batch(GVRSceneObject)} visits the descendants of a root object
+ * and groups the ones whose render data and material match: the same
+ * material, shader template, light and render states. The meshes of each
+ * group are transformed into the space of the root and copied into one
+ * {@link GVRMesh}, which is drawn by a new child of the root. The render
+ * data of the batched objects is disabled; the objects themselves stay in
+ * the scene, so they can still be picked, and {@link #unbatch()} restores
+ * them.
+ * <p>
+ * Objects drawn with the {@linkplain GVRMaterial.GVRShaderType.Texture
+ * texture shader} whose name is in one of the atlases passed to
+ * {@link #addTextureAtlas(GVRTexture)} are grouped by atlas rather than by
+ * material: their texture coordinates are mapped into the atlas, so
+ * objects with different textures, like the quads of a user interface,
+ * are drawn together. Their materials must only differ by texture;
+ * objects with a different color or opacity are put in different groups.
+ * <p>
+ * Only single pass, triangle meshes with positions, normals and texture
+ * coordinates are batched. Objects below a {@link GVRSwitch} or a
+ * {@link GVRLODGroup} are left alone, since these enable and disable their
+ * children. The objects are assumed not to move relative to the root; call
+ * {@link #updateTransform(GVRSceneObject)} after moving one of them.
+ * <p>
+ * The draw calls and triangles counted before and after batching
+ * describe what the scene submits to the renderer. The renderer may merge
+ * some draw calls of its own.
+ */
+public final class GVRStaticBatcher {
+    private static final String TAG = Log.tag(GVRStaticBatcher.class);
+
+    /**
+     * Default maximum number of vertices in a batch, so the indices of
+     * the merged meshes fit in 16 bits.
+     */
+    public static final int DEFAULT_MAX_VERTICES = 65536;
+
+    private static final String POSITION = "a_position";
+    private static final String NORMAL = "a_normal";
+    private static final String TEXCOORD = "a_texcoord";
+
+    private static final int HAS_NORMALS = 0x01;
+    private static final int HAS_TEXCOORDS = 0x02;
+    private static final int ALPHA_BLEND = 0x04;
+    private static final int DEPTH_TEST = 0x08;
+    private static final int LIGHT_ENABLED = 0x10;
+    private static final int CAST_SHADOWS = 0x20;
+    private static final int OFFSET = 0x40;
+
+    private final GVRContext mContext;
+    private final Map<String, AtlasEntry> mAtlasEntries = new HashMap<String, AtlasEntry>();
+    private final List<Batch> mBatches = new ArrayList<Batch>();
+    private final Map<GVRSceneObject, Instance> mInstances = new IdentityHashMap<GVRSceneObject, Instance>();
+    private int mMaxVertices = DEFAULT_MAX_VERTICES;
+    private GVRSceneObject mRoot;
+
+    private int mDrawCallsBefore;
+    private int mDrawCallsAfter;
+    private int mTrianglesBefore;
+    private int mTrianglesAfter;
+
+    private static final class AtlasEntry {
+        final GVRTexture mTexture;
+        final GVRAtlasInformation mInformation;
+
+        AtlasEntry(GVRTexture texture, GVRAtlasInformation information) {
+            mTexture = texture;
+            mInformation = information;
+        }
+    }
+
+    /*
+     * Geometry of a mesh, read once however many objects share it.
+     */
+    private static final class Geometry {
+        final float[] mPositions;
+        final float[] mNormals;
+        final float[] mTexCoords;
+        final int[] mIndices;
+
+        Geometry(float[] positions, float[] normals, float[] texCoords, int[] indices) {
+            mPositions = positions;
+            mNormals = normals;
+            mTexCoords = texCoords;
+            mIndices = indices;
+        }
+
+        int getVertexCount() {
+            return mPositions.length / 3;
+        }
+    }
+
+    private static final class Instance {
+        final GVRSceneObject mObject;
+        final GVRRenderData mRenderData;
+        final Geometry mGeometry;
+        final AtlasEntry mAtlas;
+        Batch mBatch;
+        int mFirstVertex;
+
+        Instance(GVRSceneObject object, GVRRenderData renderData, Geometry geometry, AtlasEntry atlas) {
+            mObject = object;
+            mRenderData = renderData;
+            mGeometry = geometry;
+            mAtlas = atlas;
+        }
+    }
+
+    private static final class Batch {
+        final GVRSceneObject mObject;
+        final GVRMesh mMesh;
+        final float[] mPositions;
+        final float[] mNormals;
+
+        Batch(GVRSceneObject object, GVRMesh mesh, float[] positions, float[] normals) {
+            mObject = object;
+            mMesh = mesh;
+            mPositions = positions;
+            mNormals = normals;
+        }
+    }
+
+    /*
+     * What has to match for two objects to be drawn together.
+     */
+    private static final class Key {
+        final Object mMaterial;
+        final Class<?> mTemplate;
+        final GVRLight mLight;
+        final GVRCullFaceEnum mCullFace;
+        final int mFlags;
+        final int mRenderingOrder;
+        final int mRenderMask;
+        final int mSourceBlend;
+        final int mDestBlend;
+        final float[] mColor;
+        final float mOpacity;
+
+        Key(GVRRenderData rdata, Object material, int flags, float[] color, float opacity) {
+            GVRShaderTemplate template = rdata.getShaderTemplate();
+
+            mMaterial = material;
+            mTemplate = (template != null) ? template.getClass() : null;
+            mLight = rdata.isLightEnabled() ? rdata.getLight() : null;
+            mCullFace = rdata.getCullFace();
+            mFlags = flags;
+            mRenderingOrder = rdata.getRenderingOrder();
+            mRenderMask = rdata.getRenderMask();
+            mSourceBlend = rdata.getSourceAlphaBlendFunc();
+            mDestBlend = rdata.getDestAlphaBlendFunc();
+            mColor = color;
+            mOpacity = opacity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return (mMaterial == other.mMaterial) && (mTemplate == other.mTemplate)
+                    && (mLight == other.mLight) && (mCullFace == other.mCullFace)
+                    && (mFlags == other.mFlags) && (mRenderingOrder == other.mRenderingOrder)
+                    && (mRenderMask == other.mRenderMask) && (mSourceBlend == other.mSourceBlend)
+                    && (mDestBlend == other.mDestBlend) && Arrays.equals(mColor, other.mColor)
+                    && (Float.compare(mOpacity, other.mOpacity) == 0);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = System.identityHashCode(mMaterial);
+            h = 31 * h + mFlags;
+            h = 31 * h + mRenderingOrder;
+            h = 31 * h + mRenderMask;
+            h = 31 * h + Arrays.hashCode(mColor);
+            return h;
+        }
+    }
+
+    /**
+     * Constructs a batcher.
+     *
+     * @param gvrContext
+     *            Current {@link GVRContext}
+     */
+    public GVRStaticBatcher(GVRContext gvrContext) {
+        mContext = gvrContext;
+    }
+
+    /**
+     * Adds a texture atlas for the objects named in its atlas information.
+     *
+     * @param atlas
+     *            Atlas texture, for example from
+     *            {@link GVRTextureAtlasPacker#pack()}
+     * @throws IllegalArgumentException
+     *             if the texture has no atlas information
+     * @see GVRTexture#setAtlasInformation(List)
+     */
+    public void addTextureAtlas(GVRTexture atlas) {
+        if (!atlas.isAtlasedTexture()) {
+            throw new IllegalArgumentException("texture has no atlas information");
+        }
+        for (GVRAtlasInformation information : atlas.getAtlasInformation()) {
+            mAtlasEntries.put(information.getName(), new AtlasEntry(atlas, information));
+        }
+    }
+
+    /**
+     * Sets the maximum number of vertices in a merged mesh. Larger groups
+     * are split into several batches. Meshes with more vertices are not
+     * batched.
+     *
+     * @param maxVertices
+     *            maximum number of vertices, {@link #DEFAULT_MAX_VERTICES} by
+     *            default
+     */
+    public void setMaxVertices(int maxVertices) {
+        if (maxVertices <= 0) {
+            throw new IllegalArgumentException("invalid vertex count " + maxVertices);
+        }
+        mMaxVertices = maxVertices;
+    }
+
+    /**
+     * Merges the meshes of the objects below a root object.
+     *
+     * @param root
+     *            Root of the static objects; it may move, the merged
+     *            meshes are attached to it
+     * @return number of merged meshes created
+     * @throws IllegalStateException
+     *             if the objects are already batched
+     */
+    public int batch(GVRSceneObject root) {
+        if (mRoot != null) {
+            throw new IllegalStateException("objects are already batched, call unbatch() first");
+        }
+        mRoot = root;
+        mDrawCallsBefore = 0;
+        mTrianglesBefore = 0;
+
+        Matrix4f toRoot = root.getTransform().getModelMatrix4f().invertAffine();
+        Map<Key, List<Instance>> groups = collect(root);
+        int batchedObjects = 0;
+        int batchedTriangles = 0;
+
+        for (List<Instance> group : groups.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            int first = 0;
+            int vertices = 0;
+            for (int i = 0; i < group.size(); ++i) {
+                int count = group.get(i).mGeometry.getVertexCount();
+                if ((vertices + count > mMaxVertices) && (i > first)) {
+                    mBatches.add(build(group.subList(first, i), vertices, toRoot));
+                    first = i;
+                    vertices = 0;
+                }
+                vertices += count;
+            }
+            mBatches.add(build(group.subList(first, group.size()), vertices, toRoot));
+
+            for (Instance instance : group) {
+                instance.mRenderData.setEnable(false);
+                mInstances.put(instance.mObject, instance);
+                batchedTriangles += instance.mGeometry.mIndices.length / 3;
+            }
+            batchedObjects += group.size();
+        }
+        mDrawCallsAfter = mDrawCallsBefore - batchedObjects + mBatches.size();
+        mTrianglesAfter = mTrianglesBefore;
+
+        Log.i(TAG, "batched %d objects into %d meshes: %d draw calls -> %d, %d triangles -> %d (%d merged)",
+                batchedObjects, mBatches.size(), mDrawCallsBefore, mDrawCallsAfter,
+                mTrianglesBefore, mTrianglesAfter, batchedTriangles);
+        return mBatches.size();
+    }
+
+    /**
+     * Removes the merged meshes and enables the render data of the batched
+     * objects again.
+     */
+    public void unbatch() {
+        for (Batch batch : mBatches) {
+            GVRSceneObject parent = batch.mObject.getParent();
+            if (parent != null) {
+                parent.removeChildObject(batch.mObject);
+            }
+        }
+        for (Instance instance : mInstances.values()) {
+            instance.mRenderData.setEnable(true);
+        }
+        mBatches.clear();
+        mInstances.clear();
+        mRoot = null;
+        mDrawCallsAfter = mDrawCallsBefore;
+        mTrianglesAfter = mTrianglesBefore;
+    }
+
+    /**
+     * Copies the current transform of a batched object into its merged
+     * mesh. The positions and normals of the whole merged mesh are
+     * uploaded again, so this is meant for occasional changes rather than
+     * animation.
+     *
+     * @param object
+     *            a batched object
+     * @return false if the object is not batched
+     */
+    public boolean updateTransform(GVRSceneObject object) {
+        Instance instance = mInstances.get(object);
+        if (instance == null) {
+            return false;
+        }
+        Matrix4f toRoot = mRoot.getTransform().getModelMatrix4f().invertAffine();
+        Batch batch = instance.mBatch;
+
+        transform(instance, toRoot, batch.mPositions, batch.mNormals, instance.mFirstVertex);
+        batch.mMesh.setVertices(batch.mPositions);
+        if (batch.mNormals != null) {
+            batch.mMesh.setNormals(batch.mNormals);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of merged meshes.
+     *
+     * @return number of draw calls replacing the batched objects
+     */
+    public int getBatchCount() {
+        return mBatches.size();
+    }
+
+    /**
+     * Gets the number of objects drawn by the merged meshes.
+     *
+     * @return number of batched objects
+     */
+    public int getBatchedObjectCount() {
+        return mInstances.size();
+    }
+
+    /**
+     * Gets the number of draw calls of the visited objects before
+     * batching.
+     *
+     * @return number of enabled render data passes below the root
+     */
+    public int getDrawCallsBefore() {
+        return mDrawCallsBefore;
+    }
+
+    /**
+     * Gets the number of draw calls of the visited objects after
+     * batching.
+     *
+     * @return number of enabled render data passes below the root,
+     *         counting each merged mesh once
+     */
+    public int getDrawCallsAfter() {
+        return mDrawCallsAfter;
+    }
+
+    /**
+     * Gets the number of triangles of the visited objects before batching.
+     *
+     * @return number of triangles below the root
+     */
+    public int getTrianglesBefore() {
+        return mTrianglesBefore;
+    }
+
+    /**
+     * Gets the number of triangles of the visited objects after batching.
+     * Batching does not remove triangles, it draws more of them per call.
+     *
+     * @return number of triangles below the root
+     */
+    public int getTrianglesAfter() {
+        return mTrianglesAfter;
+    }
+
+    /*
+     * Visits the objects below the root in scene order, counts their draw
+     * calls and groups the ones which can be batched.
+     */
+    private Map<Key, List<Instance>> collect(GVRSceneObject root) {
+        final Map<Key, List<Instance>> groups = new LinkedHashMap<Key, List<Instance>>();
+        final Map<GVRMesh, Geometry> geometries = new IdentityHashMap<GVRMesh, Geometry>();
+        final long switchType = GVRSwitch.getComponentType();
+        final long lodType = GVRLODGroup.getComponentType();
+
+        root.forAllDescendants(new GVRSceneObject.SceneVisitor() {
+            @Override
+            public boolean visit(GVRSceneObject obj) {
+                if (!obj.isEnabled()) {
+                    return false;
+                }
+                GVRRenderData rdata = obj.getRenderData();
+                if ((rdata != null) && rdata.isEnabled() && (rdata.getMesh() != null)) {
+                    add(groups, geometries, obj, rdata);
+                }
+                return (obj.getComponent(switchType) == null) && (obj.getComponent(lodType) == null);
+            }
+        });
+        return groups;
+    }
+
+    private void add(Map<Key, List<Instance>> groups, Map<GVRMesh, Geometry> geometries,
+            GVRSceneObject obj, GVRRenderData rdata) {
+        GVRMesh mesh = rdata.getMesh();
+        Geometry geometry = geometries.get(mesh);
+        boolean triangles = rdata.getDrawMode() == GLES20.GL_TRIANGLES;
+
+        if (geometry == null) {
+            geometry = read(mesh);
+            geometries.put(mesh, geometry);
+        }
+        int passes = rdata.getPassCount();
+        mDrawCallsBefore += passes;
+        if (triangles) {
+            mTrianglesBefore += passes * (geometry.mIndices.length / 3);
+        }
+        if ((passes > 1) || !triangles || rdata.isLightMapEnabled()
+                || !mesh.getBones().isEmpty() || (geometry.mPositions == null)
+                || (geometry.getVertexCount() == 0) || (geometry.getVertexCount() > mMaxVertices)) {
+            return;
+        }
+        for (String attribute : mesh.getAttributeNames()) {
+            if (!POSITION.equals(attribute) && !NORMAL.equals(attribute)
+                    && !TEXCOORD.equals(attribute)) {
+                return;
+            }
+        }
+
+        GVRMaterial material = rdata.getMaterial();
+        AtlasEntry atlas = getAtlasEntry(obj, rdata, geometry);
+        int flags = getFlags(rdata, geometry);
+        Key key;
+
+        if (atlas != null) {
+            float[] color = material.hasUniform("color") ? material.getColor() : null;
+            float opacity = material.hasUniform("opacity") ? material.getOpacity() : 1.0f;
+            key = new Key(rdata, atlas.mTexture, flags, color, opacity);
+        } else {
+            key = new Key(rdata, material, flags, null, 1.0f);
+        }
+        List<Instance> group = groups.get(key);
+        if (group == null) {
+            group = new ArrayList<Instance>();
+            groups.put(key, group);
+        }
+        group.add(new Instance(obj, rdata, geometry, atlas));
+    }
+
+    /*
+     * The atlas is used for objects drawn with the stock texture shader
+     * whose only texture is the main one.
+     */
+    private AtlasEntry getAtlasEntry(GVRSceneObject obj, GVRRenderData rdata, Geometry geometry) {
+        if (mAtlasEntries.isEmpty() || (geometry.mTexCoords == null)
+                || (rdata.getShaderTemplate() != null)) {
+            return null;
+        }
+        AtlasEntry entry = mAtlasEntries.get(obj.getName());
+        GVRMaterial material = rdata.getMaterial();
+        if ((entry == null) || (material.getShaderType() != GVRMaterial.GVRShaderType.Texture.ID)) {
+            return null;
+        }
+        Set<String> textures = material.getTextureNames();
+        if ((textures.size() != 1) || !textures.contains(GVRShaders.MAIN_TEXTURE)) {
+            return null;
+        }
+        return entry;
+    }
+
+    private static int getFlags(GVRRenderData rdata, Geometry geometry) {
+        int flags = 0;
+        if (geometry.mNormals != null) {
+            flags |= HAS_NORMALS;
+        }
+        if (geometry.mTexCoords != null) {
+            flags |= HAS_TEXCOORDS;
+        }
+        if (rdata.getAlphaBlend()) {
+            flags |= ALPHA_BLEND;
+        }
+        if (rdata.getDepthTest()) {
+            flags |= DEPTH_TEST;
+        }
+        if (rdata.isLightEnabled()) {
+            flags |= LIGHT_ENABLED;
+        }
+        if (rdata.getCastShadows()) {
+            flags |= CAST_SHADOWS;
+        }
+        if (rdata.getOffset()) {
+            flags |= OFFSET;
+        }
+        return flags;
+    }
+
+    private static Geometry read(GVRMesh mesh) {
+        float[] positions = mesh.getVertices();
+        float[] normals = mesh.hasAttribute(NORMAL) ? mesh.getNormals() : null;
+        float[] texCoords = mesh.hasAttribute(TEXCOORD) ? mesh.getTexCoords() : null;
+        int[] indices = mesh.getIntIndices();
+        int count = (positions != null) ? positions.length / 3 : 0;
+
+        if ((normals != null) && (normals.length != count * 3)) {
+            normals = null;
+        }
+        if ((texCoords != null) && (texCoords.length != count * 2)) {
+            texCoords = null;
+        }
+        if ((indices == null) || (indices.length == 0)) {
+            indices = new int[count];
+            for (int i = 0; i < count; ++i) {
+                indices[i] = i;
+            }
+        }
+        return new Geometry(positions, normals, texCoords, indices);
+    }
+
+    private Batch build(List<Instance> group, int vertexCount, Matrix4f toRoot) {
+        Instance first = group.get(0);
+        boolean hasNormals = first.mGeometry.mNormals != null;
+        boolean hasTexCoords = first.mGeometry.mTexCoords != null;
+        int indexCount = 0;
+
+        for (Instance instance : group) {
+            indexCount += instance.mGeometry.mIndices.length;
+        }
+        float[] positions = new float[vertexCount * 3];
+        float[] normals = hasNormals ? new float[vertexCount * 3] : null;
+        float[] texCoords = hasTexCoords ? new float[vertexCount * 2] : null;
+        int[] indices = new int[indexCount];
+        int vertex = 0;
+        int index = 0;
+
+        for (Instance instance : group) {
+            Geometry geometry = instance.mGeometry;
+
+            instance.mFirstVertex = vertex;
+            transform(instance, toRoot, positions, normals, vertex);
+            if (hasTexCoords) {
+                copyTexCoords(geometry.mTexCoords, instance.mAtlas, texCoords, vertex * 2);
+            }
+            for (int i : geometry.mIndices) {
+                indices[index++] = i + vertex;
+            }
+            vertex += geometry.getVertexCount();
+        }
+
+        GVRMesh mesh = new GVRMesh(mContext);
+        mesh.setVertices(positions);
+        if (hasNormals) {
+            mesh.setNormals(normals);
+        }
+        if (hasTexCoords) {
+            mesh.setTexCoords(texCoords);
+        }
+        mesh.setIndices(indices);
+
+        GVRSceneObject object = new GVRSceneObject(mContext);
+        GVRRenderData rdata = createRenderData(first);
+        rdata.setMesh(mesh);
+        object.setName("batch:" + first.mObject.getName());
+        object.attachRenderData(rdata);
+        mRoot.addChildObject(object);
+        if (rdata.getShaderTemplate() != null) {
+            rdata.bindShader(mContext.getMainScene());
+        }
+
+        Batch batch = new Batch(object, mesh, positions, normals);
+        for (Instance instance : group) {
+            instance.mBatch = batch;
+        }
+        return batch;
+    }
+
+    private GVRRenderData createRenderData(Instance first) {
+        GVRRenderData source = first.mRenderData;
+        GVRRenderData rdata = new GVRRenderData(mContext);
+
+        if (first.mAtlas != null) {
+            GVRMaterial sourceMaterial = source.getMaterial();
+            GVRMaterial material = new GVRMaterial(mContext, GVRMaterial.GVRShaderType.Texture.ID);
+            material.setMainTexture(first.mAtlas.mTexture);
+            if (sourceMaterial.hasUniform("color")) {
+                float[] color = sourceMaterial.getColor();
+                material.setColor(color[0], color[1], color[2]);
+            }
+            if (sourceMaterial.hasUniform("opacity")) {
+                material.setOpacity(sourceMaterial.getOpacity());
+            }
+            rdata.setMaterial(material);
+        } else {
+            rdata.setMaterial(source.getMaterial());
+        }
+        GVRShaderTemplate template = source.getShaderTemplate();
+        if (template != null) {
+            rdata.setShaderTemplate(template.getClass());
+        }
+        if (source.isLightEnabled()) {
+            if (source.getLight() != null) {
+                rdata.setLight(source.getLight());
+            }
+            rdata.enableLight();
+        } else {
+            rdata.disableLight();
+        }
+        rdata.setRenderingOrder(source.getRenderingOrder());
+        rdata.setRenderMask(source.getRenderMask());
+        rdata.setCullFace(source.getCullFace());
+        rdata.setAlphaBlend(source.getAlphaBlend());
+        rdata.setAlphaBlendFunc(source.getSourceAlphaBlendFunc(), source.getDestAlphaBlendFunc());
+        rdata.setDepthTest(source.getDepthTest());
+        rdata.setCastShadows(source.getCastShadows());
+        rdata.setOffset(source.getOffset());
+        rdata.setOffsetFactor(source.getOffsetFactor());
+        rdata.setOffsetUnits(source.getOffsetUnits());
+        rdata.setDrawMode(GLES20.GL_TRIANGLES);
+        return rdata;
+    }
+
+    /*
+     * Writes the positions and normals of an instance, in the space of the
+     * root, starting at a vertex of the merged mesh.
+     */
+    private static void transform(Instance instance, Matrix4f toRoot, float[] positions,
+            float[] normals, int firstVertex) {
+        Matrix4f matrix = new Matrix4f(toRoot).mul(instance.mObject.getTransform().getModelMatrix4f());
+        float[] m = matrix.get(new float[16]);
+        Geometry geometry = instance.mGeometry;
+        float[] src = geometry.mPositions;
+        int dst = firstVertex * 3;
+
+        for (int i = 0; i < src.length; i += 3, dst += 3) {
+            float x = src[i];
+            float y = src[i + 1];
+            float z = src[i + 2];
+            positions[dst] = m[0] * x + m[4] * y + m[8] * z + m[12];
+            positions[dst + 1] = m[1] * x + m[5] * y + m[9] * z + m[13];
+            positions[dst + 2] = m[2] * x + m[6] * y + m[10] * z + m[14];
+        }
+        if ((normals == null) || (geometry.mNormals == null)) {
+            return;
+        }
+        float[] n = matrix.normal().get(new float[16]);
+        src = geometry.mNormals;
+        dst = firstVertex * 3;
+        for (int i = 0; i < src.length; i += 3, dst += 3) {
+            float x = src[i];
+            float y = src[i + 1];
+            float z = src[i + 2];
+            float nx = n[0] * x + n[4] * y + n[8] * z;
+            float ny = n[1] * x + n[5] * y + n[9] * z;
+            float nz = n[2] * x + n[6] * y + n[10] * z;
+            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length > 0) {
+                nx /= length;
+                ny /= length;
+                nz /= length;
+            }
+            normals[dst] = nx;
+            normals[dst + 1] = ny;
+            normals[dst + 2] = nz;
+        }
+    }
+
+    /*
+     * Copies texture coordinates, mapping them into the atlas. Atlas
+     * offsets are measured from the bottom of the texture, like the ones
+     * of the light map shader, while mesh coordinates start at the top.
+     */
+    private static void copyTexCoords(float[] src, AtlasEntry atlas, float[] dst, int offset) {
+        if (atlas == null) {
+            System.arraycopy(src, 0, dst, offset, src.length);
+            return;
+        }
+        float[] scale = atlas.mInformation.getScale();
+        float[] origin = atlas.mInformation.getOffset();
+        float u0 = origin[0];
+        float v0 = 1.0f - origin[1] - scale[1];
+
+        for (int i = 0; i < src.length; i += 2) {
+            dst[offset + i] = u0 + src[i] * scale[0];
+            dst[offset + i + 1] = v0 + src[i + 1] * scale[1];
+        }
+    }
+}
@@ -81,6 +81,16 @@ public class GVRTexture extends GVRHybridObject {
         return mFuture;
     }
 
+    /**
+     * Get an estimate of the memory used by the texture image, in bytes.
+     * Used by resource caches to account for the textures they keep alive.
+     *
+     * @return The size of the image data, or 0 if not known.
+     */
+    public int getDataSize() {
+        return mDataSize;
+    }
+
     /**
      * Update the texture parameters {@link GVRTextureParameters} after the
      * texture has been created.
@@ -143,6 +153,7 @@ public class GVRTexture extends GVRHybridObject {
     private volatile FutureBase mFuture;
     protected volatile int mTextureId;
     protected boolean mHasTransparency = false;
+    protected int mDataSize = 0;
 
     protected boolean hasTransparency() {
         return mHasTransparency;
@@ -0,0 +1,232 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Packs bitmaps into texture atlases.
+ * <p>
+ * Each bitmap is added with the name of the scene object which displays
+ * it. {@link #pack()} places the bitmaps in rows on square pages and
+ * returns one {@link GVRBitmapTexture} per page, with the
+ * {@link GVRAtlasInformation} of its bitmaps. The pages can be passed to
+ * {@link GVRScene#applyTextureAtlas(String, GVRTexture, GVRMaterialShaderId)}
+ * or {@link GVRStaticBatcher#addTextureAtlas(GVRTexture)}.
+ * <p>
+ * The edge pixels of every bitmap are repeated in the padding around it,
+ * so filtering does not blend neighbouring bitmaps. Like the atlases read
+ * by {@link GVRAssetLoader#loadTextureAtlasInformation(GVRAndroidResource)},
+ * the offsets are measured from the bottom left corner of the page.
+ */
+public final class GVRTextureAtlasPacker {
+    /**
+     * Default width and height of the pages.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 2048;
+
+    /**
+     * Default number of pixels around each bitmap.
+     */
+    public static final int DEFAULT_PADDING = 2;
+
+    private final GVRContext mContext;
+    private final int mPageSize;
+    private final int mPadding;
+    private final List<Entry> mEntries = new ArrayList<Entry>();
+
+    private static final class Entry {
+        final String mName;
+        final Bitmap mBitmap;
+        int mPage;
+        int mX;
+        int mY;
+
+        Entry(String name, Bitmap bitmap) {
+            mName = name;
+            mBitmap = bitmap;
+        }
+    }
+
+    /**
+     * Constructs a packer with {@link #DEFAULT_PAGE_SIZE 2048} pixel pages.
+     *
+     * @param gvrContext
+     *            Current {@link GVRContext}
+     */
+    public GVRTextureAtlasPacker(GVRContext gvrContext) {
+        this(gvrContext, DEFAULT_PAGE_SIZE, DEFAULT_PADDING);
+    }
+
+    /**
+     * Constructs a packer.
+     *
+     * @param gvrContext
+     *            Current {@link GVRContext}
+     * @param pageSize
+     *            Width and height of the pages in pixels
+     * @param padding
+     *            Number of pixels around each bitmap
+     */
+    public GVRTextureAtlasPacker(GVRContext gvrContext, int pageSize, int padding) {
+        if ((pageSize <= 0) || (padding < 0)) {
+            throw new IllegalArgumentException("invalid page size " + pageSize
+                    + " or padding " + padding);
+        }
+        mContext = gvrContext;
+        mPageSize = pageSize;
+        mPadding = padding;
+    }
+
+    /**
+     * Adds a bitmap to the atlas.
+     *
+     * @param name
+     *            Name of the scene object which displays the bitmap
+     * @param bitmap
+     *            Bitmap to copy into the atlas; it is not recycled
+     * @throws IllegalArgumentException
+     *             if the bitmap and its padding do not fit on a page
+     */
+    public void add(String name, Bitmap bitmap) {
+        int size = 2 * mPadding;
+        if ((bitmap.getWidth() + size > mPageSize) || (bitmap.getHeight() + size > mPageSize)) {
+            throw new IllegalArgumentException("bitmap " + name + " does not fit on a "
+                    + mPageSize + "x" + mPageSize + " page");
+        }
+        mEntries.add(new Entry(name, bitmap));
+    }
+
+    /**
+     * Gets the number of bitmaps added.
+     *
+     * @return number of bitmaps to pack
+     */
+    public int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Copies the bitmaps into atlas pages.
+     * <p>
+     * The bitmaps are placed tallest first, in rows from the top of the
+     * page, and a new page is started when one is full. The packer can be
+     * reused after adding more bitmaps; every call creates new pages.
+     *
+     * @return one texture per page, with its atlas information set
+     */
+    public List<GVRBitmapTexture> pack() {
+        List<Entry> sorted = new ArrayList<Entry>(mEntries);
+        Collections.sort(sorted, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry lhs, Entry rhs) {
+                return rhs.mBitmap.getHeight() - lhs.mBitmap.getHeight();
+            }
+        });
+
+        int page = 0;
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+        for (Entry entry : sorted) {
+            int width = entry.mBitmap.getWidth() + 2 * mPadding;
+            int height = entry.mBitmap.getHeight() + 2 * mPadding;
+
+            if (x + width > mPageSize) {
+                x = 0;
+                y += rowHeight;
+                rowHeight = 0;
+            }
+            if (y + height > mPageSize) {
+                ++page;
+                x = 0;
+                y = 0;
+                rowHeight = 0;
+            }
+            entry.mPage = page;
+            entry.mX = x + mPadding;
+            entry.mY = y + mPadding;
+            x += width;
+            rowHeight = Math.max(rowHeight, height);
+        }
+
+        List<GVRBitmapTexture> textures = new ArrayList<GVRBitmapTexture>();
+        if (sorted.isEmpty()) {
+            return textures;
+        }
+        for (int i = 0; i <= page; ++i) {
+            Bitmap atlas = Bitmap.createBitmap(mPageSize, mPageSize, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(atlas);
+            List<GVRAtlasInformation> information = new ArrayList<GVRAtlasInformation>();
+
+            for (Entry entry : sorted) {
+                if (entry.mPage == i) {
+                    draw(canvas, entry);
+                    information.add(getInformation(entry));
+                }
+            }
+            GVRBitmapTexture texture = new GVRBitmapTexture(mContext, atlas);
+            texture.setAtlasInformation(information);
+            textures.add(texture);
+        }
+        return textures;
+    }
+
+    private GVRAtlasInformation getInformation(Entry entry) {
+        float width = entry.mBitmap.getWidth();
+        float height = entry.mBitmap.getHeight();
+        float[] offset = { entry.mX / (float) mPageSize,
+                1.0f - (entry.mY + height) / mPageSize };
+        float[] scale = { width / mPageSize, height / mPageSize };
+
+        return new GVRAtlasInformation(entry.mName, offset, scale);
+    }
+
+    /*
+     * Draws the bitmap, then stretches its edge rows and columns over
+     * the padding.
+     */
+    private void draw(Canvas canvas, Entry entry) {
+        Bitmap bitmap = entry.mBitmap;
+        int w = bitmap.getWidth();
+        int h = bitmap.getHeight();
+        int x = entry.mX;
+        int y = entry.mY;
+        int p = mPadding;
+
+        canvas.drawBitmap(bitmap, x, y, null);
+        if (p == 0) {
+            return;
+        }
+        canvas.drawBitmap(bitmap, new Rect(0, 0, w, 1), new Rect(x, y - p, x + w, y), null);
+        canvas.drawBitmap(bitmap, new Rect(0, h - 1, w, h), new Rect(x, y + h, x + w, y + h + p), null);
+        canvas.drawBitmap(bitmap, new Rect(0, 0, 1, h), new Rect(x - p, y, x, y + h), null);
+        canvas.drawBitmap(bitmap, new Rect(w - 1, 0, w, h), new Rect(x + w, y, x + w + p, y + h), null);
+
+        canvas.drawBitmap(bitmap, new Rect(0, 0, 1, 1), new Rect(x - p, y - p, x, y), null);
+        canvas.drawBitmap(bitmap, new Rect(w - 1, 0, w, 1), new Rect(x + w, y - p, x + w + p, y), null);
+        canvas.drawBitmap(bitmap, new Rect(0, h - 1, 1, h), new Rect(x - p, y + h, x, y + h + p), null);
+        canvas.drawBitmap(bitmap, new Rect(w - 1, h - 1, w, h),
+                new Rect(x + w, y + h, x + w + p, y + h + p), null);
+    }
+}
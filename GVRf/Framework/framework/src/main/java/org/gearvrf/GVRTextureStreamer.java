@@ -0,0 +1,612 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.gearvrf.GVRAndroidResource.TextureCallback;
+import org.gearvrf.GVRAssetLoader.AssetRequest;
+import org.gearvrf.GVRAssetLoader.TextureRequest;
+import org.gearvrf.GVRAssetLoader.MaterialTextureRequest;
+import org.gearvrf.asynchronous.GVRAsynchronousResourceLoader;
+import org.gearvrf.asynchronous.GVRCompressedTexture;
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.Threads;
+
+import android.graphics.Bitmap;
+
+/**
+ * Loads the textures of an asset progressively, as requested by
+ * {@link GVRImportSettings#STREAM_TEXTURES}.
+ * <p>
+ * Each texture file is first decoded at a small size and bound to its
+ * material as a placeholder, so the asset can be shown as soon as its
+ * meshes are loaded. The full resolution textures are then loaded a few
+ * at a time, largest on screen first. Every frame the streamer measures
+ * how large each object using a pending texture appears from the main
+ * camera rig and updates the load priorities. Loads for textures whose
+ * objects are out of view are cancelled, and issued again when the objects
+ * come back into view. Because only {@link #setMaxLoads(int)} full size
+ * bitmaps are decoded at once, streaming also bounds the memory used
+ * while a large scene loads.
+ * <p>
+ * Compressed and embedded textures have no placeholder: they are loaded
+ * at full resolution and are never cancelled.
+ */
+public final class GVRTextureStreamer implements GVRDrawFrameListener
+{
+    private static final String TAG = Log.tag(GVRTextureStreamer.class);
+
+    /**
+     * Default width and height of the placeholder bitmaps.
+     */
+    public static final int DEFAULT_PLACEHOLDER_SIZE = 64;
+
+    /**
+     * Objects this much outside the field of view still count as visible,
+     * so their textures are ready when the user turns towards them.
+     */
+    private static final float VIEW_MARGIN = 1.25f;
+
+    /**
+     * Priority of a texture covering the whole view.
+     */
+    private static final int PRIORITY_SCALE = 1000;
+
+    private enum State
+    {
+        /** Decoding or waiting to decode the placeholder */
+        WAITING,
+        /** Waiting to load at full resolution */
+        READY,
+        /** Full resolution load issued */
+        LOADING,
+        /** Full resolution texture delivered, or failed */
+        DONE
+    }
+
+    private final GVRContext mContext;
+    private final List<Entry> mEntries = new ArrayList<Entry>();
+    private final LinkedList<Entry> mPlaceholderQueue = new LinkedList<Entry>();
+    private final float[] mHeadMatrix = new float[16];
+    // owners of the pending textures and their bounding spheres,
+    // read with one native call per frame
+    private long[] mOwnerNatives = new long[64];
+    private float[] mOwnerSpheres = new float[64 * 4];
+    /*
+     * Entries whose priority changed and entries to load, collected with
+     * the entry list locked and passed to the loader after unlocking it:
+     * the loader calls back into the entries with its own locks held.
+     */
+    private final List<Entry> mReprioritized = new ArrayList<Entry>();
+    private final List<Entry> mIssued = new ArrayList<Entry>();
+    private int mPlaceholderThreads = 0;
+    private int mNumLoading = 0;
+    private int mMaxLoads;
+    private int mPlaceholderSize = DEFAULT_PLACEHOLDER_SIZE;
+    private boolean mListening = false;
+
+    /**
+     * Pending texture load. The entry is the callback for the full
+     * resolution load and forwards the result to the asset's texture request.
+     */
+    private final class Entry implements TextureCallback
+    {
+        final AssetRequest mAssetRequest;
+        final TextureRequest mRequest;
+        final GVRAndroidResource mResource;
+        final List<GVRSceneObject> mOwners = new ArrayList<GVRSceneObject>();
+        State mState = State.WAITING;
+        boolean mOwnersBound;
+        boolean mHasPlaceholder = false;
+        boolean mVisible = true;
+        int mPriority = GVRAssetLoader.DEFAULT_PRIORITY;
+        volatile boolean mWanted = true;
+
+        Entry(AssetRequest assetRequest, TextureRequest request, GVRAndroidResource resource)
+        {
+            mAssetRequest = assetRequest;
+            mRequest = request;
+            mResource = resource;
+            mOwnersBound = (assetRequest.mModel != null);
+        }
+
+        @Override
+        public void loaded(GVRTexture texture, GVRAndroidResource resource)
+        {
+            if (!finish())
+            {
+                return;
+            }
+            mRequest.loaded(texture, resource);
+        }
+
+        @Override
+        public void failed(Throwable t, GVRAndroidResource resource)
+        {
+            if (!finish())
+            {
+                return;
+            }
+            if (mHasPlaceholder)
+            {
+                Log.w(TAG, "%s: keeping placeholder, %s", mRequest.TextureFile, t.getMessage());
+            }
+            mRequest.failed(t, resource);
+        }
+
+        @Override
+        public boolean stillWanted(GVRAndroidResource resource)
+        {
+            return mWanted;
+        }
+
+        /**
+         * Marks the entry done.
+         * @return false if the full texture was already delivered
+         */
+        private boolean finish()
+        {
+            synchronized (mEntries)
+            {
+                if (mState == State.DONE)
+                {
+                    return false;
+                }
+                if (mState == State.LOADING)
+                {
+                    --mNumLoading;
+                }
+                mState = State.DONE;
+                mEntries.remove(this);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Constructs a texture streamer.
+     * Use {@link GVRAssetLoader#getTextureStreamer()} instead of calling
+     * this directly.
+     * @param context GVRContext the textures belong to
+     */
+    GVRTextureStreamer(GVRContext context)
+    {
+        mContext = context;
+        mMaxLoads = Math.max(Runtime.getRuntime().availableProcessors() - 1, 1);
+    }
+
+    /**
+     * Sets how many full resolution textures may be loading at once.
+     * This bounds the memory used by the decoded bitmaps.
+     * @param maxLoads number of concurrent loads, at least 1
+     */
+    public void setMaxLoads(int maxLoads)
+    {
+        if (maxLoads < 1)
+        {
+            throw new IllegalArgumentException("maxLoads must be at least 1");
+        }
+        synchronized (mEntries)
+        {
+            mMaxLoads = maxLoads;
+        }
+    }
+
+    /**
+     * Gets how many full resolution textures may be loading at once.
+     * @return maximum number of concurrent loads
+     */
+    public int getMaxLoads()
+    {
+        return mMaxLoads;
+    }
+
+    /**
+     * Sets the size of the placeholder textures. Bitmaps are subsampled
+     * by a power of two, so placeholders may be smaller than this.
+     * @param size width and height in pixels
+     */
+    public void setPlaceholderSize(int size)
+    {
+        if (size < 1)
+        {
+            throw new IllegalArgumentException("size must be at least 1");
+        }
+        mPlaceholderSize = size;
+    }
+
+    /**
+     * Gets the number of textures which have not been loaded at
+     * full resolution yet.
+     * @return number of pending textures
+     */
+    public int getPendingCount()
+    {
+        synchronized (mEntries)
+        {
+            return mEntries.size();
+        }
+    }
+
+    /**
+     * Streams a texture of an asset.
+     * A texture which is in the texture cache is delivered directly.
+     * @param assetRequest asset being loaded
+     * @param request      texture request to deliver the textures to
+     * @param resource     texture file
+     */
+    void stream(AssetRequest assetRequest, TextureRequest request, GVRAndroidResource resource)
+    {
+        if (assetRequest.mUseTextureCache)
+        {
+            GVRTexture texture = GVRAssetLoader.getTextureCache().get(resource);
+            if (texture != null)
+            {
+                request.loaded(texture, resource);
+                return;
+            }
+        }
+        Entry entry = new Entry(assetRequest, request, resource);
+        synchronized (mEntries)
+        {
+            mEntries.add(entry);
+            mPlaceholderQueue.add(entry);
+            if (!mListening)
+            {
+                mListening = true;
+                mContext.registerDrawFrameListener(this);
+            }
+            if (mPlaceholderThreads >= mMaxLoads)
+            {
+                return;
+            }
+            ++mPlaceholderThreads;
+        }
+        Threads.spawn(new Runnable()
+        {
+            public void run()
+            {
+                decodePlaceholders();
+            }
+        });
+    }
+
+    /**
+     * Finds the scene objects which use the materials of the pending
+     * textures of an asset, so they can be prioritized by their size on
+     * screen. Full resolution textures of an asset are not loaded until
+     * this is called.
+     * @param assetRequest asset which has been loaded
+     * @param model        root of the asset, null if it did not load
+     */
+    void bindOwners(AssetRequest assetRequest, GVRSceneObject model)
+    {
+        final Map<GVRMaterial, List<GVRSceneObject>> owners = new HashMap<GVRMaterial, List<GVRSceneObject>>();
+
+        if (model != null)
+        {
+            model.forAllDescendants(new GVRSceneObject.SceneVisitor()
+            {
+                public boolean visit(GVRSceneObject obj)
+                {
+                    GVRRenderData rdata = obj.getRenderData();
+                    GVRMaterial material = (rdata != null) ? rdata.getMaterial() : null;
+
+                    if (material != null)
+                    {
+                        List<GVRSceneObject> list = owners.get(material);
+                        if (list == null)
+                        {
+                            list = new ArrayList<GVRSceneObject>();
+                            owners.put(material, list);
+                        }
+                        list.add(obj);
+                    }
+                    return true;
+                }
+            });
+        }
+        synchronized (mEntries)
+        {
+            for (Entry entry : mEntries)
+            {
+                if ((entry.mAssetRequest != assetRequest) || entry.mOwnersBound)
+                {
+                    continue;
+                }
+                if (entry.mRequest instanceof MaterialTextureRequest)
+                {
+                    List<GVRSceneObject> list = owners.get(((MaterialTextureRequest) entry.mRequest).Material);
+                    if (list != null)
+                    {
+                        entry.mOwners.addAll(list);
+                    }
+                }
+                entry.mOwnersBound = true;
+            }
+        }
+    }
+
+    /**
+     * Updates the priorities of the pending textures from the main camera
+     * rig, cancels the loads of textures which are out of view and issues
+     * the most important loads.
+     */
+    @Override
+    public void onDrawFrame(float frameTime)
+    {
+        GVRScene scene = mContext.getMainScene();
+        GVRCameraRig rig = (scene != null) ? scene.getMainCameraRig() : null;
+        float halfFov = 0;
+
+        if (rig != null)
+        {
+            rig.getHeadTransform().getModelMatrix(mHeadMatrix, 0);
+            halfFov = (float) Math.toRadians(rig.getCenterCamera().getFovY() / 2) * VIEW_MARGIN;
+        }
+        synchronized (mEntries)
+        {
+            if (mEntries.isEmpty())
+            {
+                mListening = false;
+                mContext.unregisterDrawFrameListener(this);
+                return;
+            }
+            if (rig != null)
+            {
+                getOwnerSpheres();
+            }
+            int sphere = 0;
+            for (int i = 0; i < mEntries.size(); ++i)
+            {
+                Entry entry = mEntries.get(i);
+
+                if ((entry.mState == State.READY) || (entry.mState == State.LOADING))
+                {
+                    prioritize(entry, rig != null, halfFov, sphere);
+                    sphere += entry.mOwners.size();
+                }
+            }
+            while (mNumLoading < mMaxLoads)
+            {
+                Entry best = null;
+
+                for (int i = 0; i < mEntries.size(); ++i)
+                {
+                    Entry entry = mEntries.get(i);
+
+                    if ((entry.mState == State.READY) && entry.mOwnersBound && entry.mVisible
+                        && ((best == null) || (entry.mPriority > best.mPriority)))
+                    {
+                        best = entry;
+                    }
+                }
+                if (best == null)
+                {
+                    break;
+                }
+                best.mState = State.LOADING;
+                best.mWanted = true;
+                ++mNumLoading;
+                mIssued.add(best);
+            }
+        }
+        for (int i = 0; i < mReprioritized.size(); ++i)
+        {
+            Entry entry = mReprioritized.get(i);
+            GVRAsynchronousResourceLoader.updatePriority(entry.mResource, entry.mPriority);
+        }
+        for (int i = 0; i < mIssued.size(); ++i)
+        {
+            issue(mIssued.get(i));
+        }
+        mReprioritized.clear();
+        mIssued.clear();
+    }
+
+    /**
+     * Reads the bounding spheres of the owners of the pending textures,
+     * in the order of the entries, into {@link #mOwnerSpheres}.
+     * Called with the entry list locked.
+     */
+    private void getOwnerSpheres()
+    {
+        int count = 0;
+
+        for (int i = 0; i < mEntries.size(); ++i)
+        {
+            Entry entry = mEntries.get(i);
+
+            if ((entry.mState == State.READY) || (entry.mState == State.LOADING))
+            {
+                count += entry.mOwners.size();
+            }
+        }
+        if (mOwnerNatives.length < count)
+        {
+            mOwnerNatives = new long[count * 2];
+            mOwnerSpheres = new float[count * 2 * 4];
+        }
+        int n = 0;
+        for (int i = 0; i < mEntries.size(); ++i)
+        {
+            Entry entry = mEntries.get(i);
+
+            if ((entry.mState == State.READY) || (entry.mState == State.LOADING))
+            {
+                for (int j = 0; j < entry.mOwners.size(); ++j)
+                {
+                    mOwnerNatives[n++] = entry.mOwners.get(j).getNative();
+                }
+            }
+        }
+        NativeSceneObject.getBoundingSpheres(mOwnerNatives, n, mOwnerSpheres);
+    }
+
+    /**
+     * Computes the priority of an entry from the largest of its owners
+     * on screen and cancels its load if none of them is in view.
+     * Called with the entry list locked.
+     * @param firstSphere index of the bounding sphere of the first owner
+     */
+    private void prioritize(Entry entry, boolean haveCamera, float halfFov, int firstSphere)
+    {
+        if (!haveCamera || entry.mOwners.isEmpty())
+        {
+            return;
+        }
+        float coverage = -1;
+
+        for (int i = 0; i < entry.mOwners.size(); ++i)
+        {
+            float c = getCoverage(firstSphere + i, halfFov);
+            if (c > coverage)
+            {
+                coverage = c;
+            }
+        }
+        entry.mVisible = (coverage >= 0);
+        if (!entry.mVisible)
+        {
+            // only cancel when the placeholder keeps the object textured
+            if ((entry.mState == State.LOADING) && entry.mHasPlaceholder)
+            {
+                entry.mWanted = false;
+                entry.mState = State.READY;
+                --mNumLoading;
+            }
+            return;
+        }
+        int priority = (int) (coverage * PRIORITY_SCALE);
+        if (priority != entry.mPriority)
+        {
+            entry.mPriority = priority;
+            if (entry.mState == State.LOADING)
+            {
+                mReprioritized.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Estimates how much of the view a scene object covers.
+     * @param sphere index of the bounding sphere of the object
+     * @return ratio of the bounding sphere radius to its distance from the
+     *         camera, clamped to 1, or -1 if the sphere is out of view
+     */
+    private float getCoverage(int sphere, float halfFov)
+    {
+        int s = sphere * 4;
+        float radius = mOwnerSpheres[s + 3];
+        float dx = mOwnerSpheres[s] - mHeadMatrix[12];
+        float dy = mOwnerSpheres[s + 1] - mHeadMatrix[13];
+        float dz = mOwnerSpheres[s + 2] - mHeadMatrix[14];
+        float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+        if (distance <= radius)
+        {
+            return 1;
+        }
+        // the camera looks down its negative Z axis
+        float fx = -mHeadMatrix[8];
+        float fy = -mHeadMatrix[9];
+        float fz = -mHeadMatrix[10];
+        float flen = (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+        float cos = (fx * dx + fy * dy + fz * dz) / (flen * distance);
+        float angle = (float) Math.acos(Math.max(-1, Math.min(cos, 1)));
+        float angularRadius = (float) Math.asin(radius / distance);
+
+        if (angle > halfFov + angularRadius)
+        {
+            return -1;
+        }
+        return Math.min(radius / distance, 1);
+    }
+
+    /**
+     * Starts the full resolution load of an entry already marked as loading.
+     * Called with the entry list unlocked.
+     */
+    private void issue(Entry entry)
+    {
+        GVRAssetLoader loader = mContext.getAssetLoader();
+
+        loader.loadTexture(entry.mResource, entry, loader.getDefaultTextureParameters(),
+                           entry.mPriority, GVRCompressedTexture.BALANCED,
+                           entry.mAssetRequest.mUseTextureCache);
+    }
+
+    /**
+     * Decodes placeholders until the queue is empty.
+     * Runs on a background thread.
+     */
+    private void decodePlaceholders()
+    {
+        while (true)
+        {
+            Entry entry;
+            synchronized (mEntries)
+            {
+                entry = mPlaceholderQueue.poll();
+                if (entry == null)
+                {
+                    --mPlaceholderThreads;
+                    return;
+                }
+            }
+            GVRTexture placeholder = decodePlaceholder(entry.mResource);
+
+            synchronized (mEntries)
+            {
+                entry.mHasPlaceholder = (placeholder != null);
+                entry.mState = State.READY;
+            }
+            if (placeholder != null)
+            {
+                entry.mRequest.loaded(placeholder, entry.mResource);
+            }
+        }
+    }
+
+    private GVRTexture decodePlaceholder(GVRAndroidResource resource)
+    {
+        try
+        {
+            if (resource.getCompressedLoader() != null)
+            {
+                return null;
+            }
+            Bitmap bitmap = GVRAsynchronousResourceLoader.decodeStream(resource.getStream(),
+                                                                       mPlaceholderSize, false);
+            resource.closeStream();
+            if (bitmap != null)
+            {
+                return new GVRBitmapTexture(mContext, bitmap);
+            }
+        }
+        catch (Exception ex)
+        {
+            resource.closeStream();
+            Log.w(TAG, "%s: cannot decode placeholder, %s", resource, ex.getMessage());
+        }
+        return null;
+    }
+}
@@ -318,6 +318,32 @@ public class GVRTransform extends GVRComponent {
         return NativeTransform.getLocalModelMatrix(getNative());
     }
 
+    /**
+     * Get the 4x4 single matrix without allocating.
+     *
+     * @param matrix
+     *            Array to receive 16 {@code float}s representing a 4x4 matrix
+     *            in OpenGL-compatible column-major format.
+     * @param offset
+     *            Index in {@code matrix} of the first element to write.
+     */
+    public void getModelMatrix(float[] matrix, int offset) {
+        NativeTransform.getModelMatrixInto(getNative(), matrix, offset);
+    }
+
+    /**
+     * Get the 4x4 single local transform matrix without allocating.
+     *
+     * @param matrix
+     *            Array to receive 16 {@code float}s representing a 4x4 matrix
+     *            in OpenGL-compatible column-major format.
+     * @param offset
+     *            Index in {@code matrix} of the first element to write.
+     */
+    public void getLocalModelMatrix(float[] matrix, int offset) {
+        NativeTransform.getLocalModelMatrixInto(getNative(), matrix, offset);
+    }
+
     /**
      * Get the 4x4 single matrix.
      *
@@ -574,6 +600,10 @@ class NativeTransform {
 
     static native float[] getLocalModelMatrix(long transform);
 
+    static native void getModelMatrixInto(long transform, float[] matrix, int offset);
+
+    static native void getLocalModelMatrixInto(long transform, float[] matrix, int offset);
+
     static native void setModelMatrix(long tranform, float[] mat);
 
     static native void translate(long transform, float x, float y, float z);
@@ -594,4 +624,6 @@ class NativeTransform {
             float quatX, float quatY, float quatZ, float pivotX, float pivotY,
             float pivotZ);
 
+    static native void setTransforms(long[] transforms, int[] kinds, float[] values, int count);
+
 }
@@ -0,0 +1,149 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.Arrays;
+
+/**
+ * Writes the position, rotation and scale of many transforms with one
+ * native call.
+ * <p>
+ * The changes are recorded in arrays which are reused from one
+ * {@link #apply()} to the next, so filling the batch every frame does not
+ * allocate once it has grown to its working size. The changes are applied
+ * in the order they were recorded. Until then, reading the transforms
+ * returns their previous values. Writes to a transform whose native object
+ * was released before {@link #apply()} are skipped.
+ * <p>
+ * A batch is not thread safe: each thread recording changes needs its own.
+ * Call {@link #apply()} from the thread which owns the scene, typically the
+ * GL thread.
+ */
+public final class GVRTransformBatch {
+    /*
+     * Kinds of writes, matching the switch in
+     * Java_org_gearvrf_NativeTransform_setTransforms.
+     */
+    private static final int SET_POSITION = 0;
+    private static final int SET_ROTATION = 1;
+    private static final int SET_SCALE = 2;
+    private static final int VALUES_PER_WRITE = 4;
+
+    private GVRTransform[] mTransforms;
+    private long[] mNatives;
+    private int[] mKinds;
+    private float[] mValues;
+    private int mSize = 0;
+
+    /**
+     * Constructs an empty batch.
+     *
+     * @param capacity
+     *            Number of writes the batch holds before it grows
+     */
+    public GVRTransformBatch(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    /**
+     * Records a change of position.
+     *
+     * @see GVRTransform#setPosition(float, float, float)
+     */
+    public void setPosition(GVRTransform transform, float x, float y, float z) {
+        add(transform, SET_POSITION, x, y, z, 0);
+    }
+
+    /**
+     * Records a change of rotation.
+     *
+     * @see GVRTransform#setRotation(float, float, float, float)
+     */
+    public void setRotation(GVRTransform transform, float w, float x, float y, float z) {
+        add(transform, SET_ROTATION, w, x, y, z);
+    }
+
+    /**
+     * Records a change of scale.
+     *
+     * @see GVRTransform#setScale(float, float, float)
+     */
+    public void setScale(GVRTransform transform, float x, float y, float z) {
+        add(transform, SET_SCALE, x, y, z, 0);
+    }
+
+    /**
+     * Gets the number of changes waiting to be applied.
+     *
+     * @return number of writes recorded since the last {@link #apply()}
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Applies the recorded changes to the transforms and empties the batch.
+     */
+    public void apply() {
+        if (mSize == 0) {
+            return;
+        }
+        // Native objects are read now: a released transform has none
+        for (int i = 0; i < mSize; ++i) {
+            mNatives[i] = mTransforms[i].getNative();
+        }
+        NativeTransform.setTransforms(mNatives, mKinds, mValues, mSize);
+        clear();
+    }
+
+    /**
+     * Discards the recorded changes.
+     */
+    public void clear() {
+        Arrays.fill(mTransforms, 0, mSize, null);
+        mSize = 0;
+    }
+
+    private void add(GVRTransform transform, int kind, float a, float b, float c, float d) {
+        if (mSize == mNatives.length) {
+            allocate(mSize * 2);
+        }
+        int offset = mSize * VALUES_PER_WRITE;
+
+        // Keeps the transform reachable until its native object is written
+        mTransforms[mSize] = transform;
+        mKinds[mSize] = kind;
+        mValues[offset] = a;
+        mValues[offset + 1] = b;
+        mValues[offset + 2] = c;
+        mValues[offset + 3] = d;
+        ++mSize;
+    }
+
+    private void allocate(int capacity) {
+        if (mNatives == null) {
+            mTransforms = new GVRTransform[capacity];
+            mNatives = new long[capacity];
+            mKinds = new int[capacity];
+            mValues = new float[capacity * VALUES_PER_WRITE];
+        } else {
+            mTransforms = Arrays.copyOf(mTransforms, capacity);
+            mNatives = Arrays.copyOf(mNatives, capacity);
+            mKinds = Arrays.copyOf(mKinds, capacity);
+            mValues = Arrays.copyOf(mValues, capacity * VALUES_PER_WRITE);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Reads the world matrices of many transforms with one native call.
+ * <p>
+ * Transforms are added to the buffer once and keep their index.
+ * {@link #update()} resolves the world matrices which changed since
+ * the last update and copies them into a direct buffer shared with the
+ * native code. Only dirty subtrees of the scene are recomputed. The
+ * matrices are then read from {@link #getMatrices()} or
+ * {@link #getModelMatrix(int, float[], int)} without crossing JNI or
+ * allocating, which matters when thousands of objects are read every
+ * frame.
+ * <p>
+ * Call {@link #update()} from the thread which changes the transforms,
+ * typically from {@link GVRMain#onStep()} or a
+ * {@link GVRDrawFrameListener}.
+ * <p>
+ * A transform whose native object is released, with
+ * {@link GVRHybridObject#releaseNative()} or a {@link GVRReleaseScope},
+ * is removed from the buffer when the native object is deleted. Its index
+ * keeps the last matrix copied.
+ */
+public final class GVRTransformBuffer extends GVRHybridObject {
+    private static final int MATRIX_SIZE = 16;
+    private static final int FLOAT_SIZE = 4;
+    private static final int INT_SIZE = 4;
+
+    private GVRTransform[] mTransforms;
+    private FloatBuffer mMatrices;
+    private IntBuffer mVersions;
+    private int mSize = 0;
+
+    /**
+     * Constructs an empty transform buffer.
+     *
+     * @param gvrContext
+     *            Current {@link GVRContext}
+     * @param capacity
+     *            Number of transforms the buffer holds before it grows
+     */
+    public GVRTransformBuffer(GVRContext gvrContext, int capacity) {
+        super(gvrContext, NativeTransformBuffer.ctor());
+        allocate(Math.max(capacity, 1));
+    }
+
+    /**
+     * Adds a transform at the end of the buffer.
+     *
+     * @param transform
+     *            Transform whose world matrix is read
+     * @return index of the transform in the buffer
+     */
+    public int add(GVRTransform transform) {
+        if (mSize == mTransforms.length) {
+            allocate(mSize * 2);
+        }
+        int index = mSize++;
+        set(index, transform);
+        return index;
+    }
+
+    /**
+     * Replaces the transform at an index.
+     *
+     * @param index
+     *            Index returned by {@link #add(GVRTransform)}
+     * @param transform
+     *            New transform, or null to stop reading this index
+     */
+    public void set(int index, GVRTransform transform) {
+        if ((index < 0) || (index >= mSize)) {
+            throw new IndexOutOfBoundsException("index " + index + " size " + mSize);
+        }
+        mTransforms[index] = transform;
+        NativeTransformBuffer.setTransform(getNative(), index,
+                (transform != null) ? transform.getNative() : 0);
+    }
+
+    /**
+     * Gets the transform at an index.
+     *
+     * @param index
+     *            Index returned by {@link #add(GVRTransform)}
+     * @return transform, or null if it was removed or released
+     */
+    public GVRTransform get(int index) {
+        GVRTransform transform = mTransforms[index];
+        return ((transform != null) && (transform.getNative() != 0)) ? transform : null;
+    }
+
+    /**
+     * Gets the number of transforms in the buffer.
+     *
+     * @return number of indices in use
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Copies the world matrices which changed since the last update.
+     *
+     * @return number of matrices which changed
+     */
+    public int update() {
+        return NativeTransformBuffer.update(getNative());
+    }
+
+    /**
+     * Gets the world matrices. The matrix of index {@code i} is stored in
+     * column major order at {@code i * 16}. The buffer is only valid until
+     * the next {@link #add(GVRTransform)}, which may reallocate it.
+     *
+     * @return read only view of the matrices
+     */
+    public FloatBuffer getMatrices() {
+        return mMatrices.asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies the world matrix of one transform, as of the last
+     * {@link #update()}.
+     *
+     * @param index
+     *            Index returned by {@link #add(GVRTransform)}
+     * @param matrix
+     *            Array to receive the 16 floats in column major order
+     * @param offset
+     *            Offset of the matrix in the array
+     */
+    public void getModelMatrix(int index, float[] matrix, int offset) {
+        for (int i = 0; i < MATRIX_SIZE; ++i) {
+            matrix[offset + i] = mMatrices.get(index * MATRIX_SIZE + i);
+        }
+    }
+
+    /**
+     * Gets the number of times the world matrix at an index has been
+     * copied, to skip work on objects which did not move. It is 0 until
+     * the first {@link #update()} after the transform was added.
+     *
+     * @param index
+     *            Index returned by {@link #add(GVRTransform)}
+     * @return version of the matrix copied by the last {@link #update()}
+     */
+    public int getVersion(int index) {
+        return mVersions.get(index);
+    }
+
+    private void allocate(int capacity) {
+        FloatBuffer matrices = ByteBuffer.allocateDirect(capacity * MATRIX_SIZE * FLOAT_SIZE)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        IntBuffer versions = ByteBuffer.allocateDirect(capacity * INT_SIZE)
+                .order(ByteOrder.nativeOrder()).asIntBuffer();
+        GVRTransform[] transforms = new GVRTransform[capacity];
+
+        if (mTransforms != null) {
+            mMatrices.rewind();
+            mVersions.rewind();
+            matrices.put(mMatrices);
+            versions.put(mVersions);
+            matrices.rewind();
+            versions.rewind();
+            System.arraycopy(mTransforms, 0, transforms, 0, mTransforms.length);
+        }
+        mMatrices = matrices;
+        mVersions = versions;
+        mTransforms = transforms;
+        NativeTransformBuffer.setStorage(getNative(), matrices, versions, capacity);
+    }
+}
+
+class NativeTransformBuffer {
+    static native long ctor();
+
+    static native void setStorage(long buffer, FloatBuffer matrices, IntBuffer versions, int capacity);
+
+    static native void setTransform(long buffer, int index, long transform);
+
+    static native int update(long buffer);
+}
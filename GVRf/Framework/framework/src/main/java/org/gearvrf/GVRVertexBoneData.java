@@ -25,6 +25,38 @@ public final class GVRVertexBoneData implements PrettyPrint {
         NativeVertexBoneData.normalizeWeights(getNative());
     }
 
+    /**
+     * Sets the bone indices and weights of all the vertices at once and
+     * normalizes the weights. Each vertex has four consecutive entries
+     * in both arrays; unused entries have a weight of zero.
+     *
+     * @param boneIndices index of the bone in the mesh bone list, 4 per vertex
+     * @param boneWeights weight of the bone, 4 per vertex
+     */
+    public void setBoneWeights(int[] boneIndices, float[] boneWeights) {
+        NativeVertexBoneData.setBoneWeights(getNative(), boneIndices, boneWeights);
+    }
+
+    /**
+     * Gets the bone indices of all the vertices, laid out like the
+     * array passed to {@link #setBoneWeights(int[], float[])}.
+     *
+     * @return index of the bone in the mesh bone list, 4 per vertex
+     */
+    public int[] getBoneIndices() {
+        return NativeVertexBoneData.getBoneIndices(getNative());
+    }
+
+    /**
+     * Gets the normalized bone weights of all the vertices, laid out like
+     * the array passed to {@link #setBoneWeights(int[], float[])}.
+     *
+     * @return weight of the bone, 4 per vertex
+     */
+    public float[] getBoneWeights() {
+        return NativeVertexBoneData.getBoneWeights(getNative());
+    }
+
     @Override
     public void prettyPrint(StringBuffer sb, int indent) {        
     }
@@ -39,4 +71,7 @@ class NativeVertexBoneData {
     static native int getFreeBoneSlot(long nativePtr, int vertexId);
     static native void setVertexBoneWeight(long nativePtr, int vertexId, int boneSlot, int boneId, float boneWeight);
     static native void normalizeWeights(long nativePtr);
+    static native void setBoneWeights(long nativePtr, int[] boneIndices, float[] boneWeights);
+    static native int[] getBoneIndices(long nativePtr);
+    static native float[] getBoneWeights(long nativePtr);
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ import org.gearvrf.animation.GVRAnimation;
 import org.gearvrf.animation.GVROnFinish;
 import org.gearvrf.animation.GVROpacityAnimation;
 import org.gearvrf.asynchronous.GVRAsynchronousResourceLoader;
+import org.gearvrf.debug.GVRProfiler;
 import org.gearvrf.io.GVRInputManager;
 import org.gearvrf.script.GVRScriptManager;
 import org.gearvrf.utility.ImageUtils;
@@ -34,13 +35,8 @@ import org.gearvrf.utility.VrAppSettings.EyeBufferParams.DepthFormat;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.locks.ReentrantLock;
 
 abstract class GVRViewManager extends GVRContext {
@@ -74,8 +70,7 @@ abstract class GVRViewManager extends GVRContext {
         mScriptManager.destroy();
 
         mFrameListeners.clear();
-        mRunnables.clear();
-        mRunnablesPostRender.clear();
+        mGlTasks.clear();
         super.onDestroy();
     }
 
@@ -244,16 +239,11 @@ abstract class GVRViewManager extends GVRContext {
          * Without the sensor data, can't draw a scene properly.
          */
         if (!(mSensoredScene == null || !mMainScene.equals(mSensoredScene))) {
-            Runnable runnable;
-            while ((runnable = mRunnables.poll()) != null) {
-                try {
-                    runnable.run();
-                } catch (final Exception exc) {
-                    Log.e(TAG, "Runnable-on-GL %s threw %s", runnable, exc.toString());
-                    exc.printStackTrace();
-                }
-            }
+            long startTime = GVRProfiler.GL_RUNNABLES.begin();
+            mGlTasks.runFrame();
+            GVRProfiler.GL_RUNNABLES.end(startTime);
 
+            startTime = GVRProfiler.FRAME_LISTENERS.begin();
             final List<GVRDrawFrameListener> frameListeners = mFrameListeners;
             for (GVRDrawFrameListener listener : frameListeners) {
                 try {
@@ -263,6 +253,7 @@ abstract class GVRViewManager extends GVRContext {
                     exc.printStackTrace();
                 }
             }
+            GVRProfiler.FRAME_LISTENERS.end(startTime);
         }
 
         return currentTime;
@@ -312,17 +303,7 @@ abstract class GVRViewManager extends GVRContext {
             // execute pending runnables now so any necessary gl calls
             // are done before onInit().  As an example the request to
             // get the GL_MAX_TEXTURE_SIZE needs to be fulfilled.
-            synchronized (mRunnables) {
-                Runnable runnable = null;
-                while ((runnable = mRunnables.poll()) != null) {
-                    try {
-                        runnable.run();
-                    } catch (final Exception exc) {
-                        Log.e(TAG, "Runnable-on-GL %s threw %s", runnable, exc.toString());
-                        exc.printStackTrace();
-                    }
-                }
-            }
+            mGlTasks.runAll();
 
             runOnTheFrameworkThread(new Runnable() {
                 @Override
@@ -473,21 +454,30 @@ abstract class GVRViewManager extends GVRContext {
 
     @Override
     public void runOnGlThread(Runnable runnable) {
+        runOnGlThread(runnable, GL_TASK_NORMAL);
+    }
+
+    @Override
+    public void runOnGlThread(Runnable runnable, int priority) {
         if (mGLThreadID == Thread.currentThread().getId()) {
             runnable.run();
         } else {
-            mRunnables.add(runnable);
+            mGlTasks.add(runnable, priority);
         }
     }
 
+    @Override
+    public GVRGLTaskQueue getGlTaskQueue() {
+        return mGlTasks;
+    }
+
     @Override
     public void runOnGlThreadPostRender(int delayFrames, Runnable runnable) {
-        synchronized (mRunnablesPostRender) {
-            mRunnablesPostRender.put(runnable, delayFrames);
-        }
+        mGlTasks.addPostRender(runnable, delayFrames);
     }
 
     protected void beforeDrawEyes() {
+        mFrameStartTime = GVRProfiler.FRAME.begin();
         GVRNotifications.notifyBeforeStep();
         mFrameHandler.beforeDrawEyes();
 
@@ -495,28 +485,20 @@ abstract class GVRViewManager extends GVRContext {
         makeShadowMaps(mMainScene.getNative(), mRenderBundle.getMaterialShaderManager().getNative(),
                 mRenderBundle.getPostEffectRenderTextureA().getWidth(),
                 mRenderBundle.getPostEffectRenderTextureA().getHeight());
+        long startTime = GVRProfiler.CULL.begin();
         cull(mMainScene.getNative(), centerCamera.getNative(), mRenderBundle.getMaterialShaderManager().getNative());
+        GVRProfiler.CULL.end(startTime);
     }
 
     protected void afterDrawEyes() {
         // Execute post-rendering tasks (after drawing eyes, but
         // before afterDrawEyes handlers)
-        synchronized (mRunnablesPostRender) {
-            for (Iterator<Map.Entry<Runnable, Integer>> it = mRunnablesPostRender.entrySet().iterator(); it
-                    .hasNext();) {
-                Map.Entry<Runnable, Integer> entry = it.next();
-                if (entry.getValue() <= 0) {
-                    entry.getKey().run();
-                    it.remove();
-                } else {
-                    entry.setValue(entry.getValue() - 1);
-                }
-            }
-        }
+        mGlTasks.runPostRender();
 
         mFrameHandler.afterDrawEyes();
         finalizeUnreachableObjects();
         GVRNotifications.notifyAfterStep();
+        GVRProfiler.FRAME.end(mFrameStartTime);
     }
 
     protected void renderCamera(GVRScene scene, GVRCamera camera, IRenderBundle
@@ -774,12 +756,12 @@ abstract class GVRViewManager extends GVRContext {
     protected final GVRActivity mActivity;
     protected float mFrameTime;
     protected long mPreviousTimeNanos;
+    private long mFrameStartTime;
 
     protected FrameHandler mFrameHandler = firstFrame;
 
     protected List<GVRDrawFrameListener> mFrameListeners = new CopyOnWriteArrayList<GVRDrawFrameListener>();
-    protected final Queue<Runnable> mRunnables = new LinkedBlockingQueue<Runnable>();
-    protected final Map<Runnable, Integer> mRunnablesPostRender = new HashMap<Runnable, Integer>();
+    protected final GVRGLTaskQueue mGlTasks = new GVRGLTaskQueue();
 
     protected GVRScene mMainScene;
     protected GVRScene mPendingMainScene;
@@ -18,6 +18,9 @@ package org.gearvrf;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -56,14 +59,23 @@ class SensorManager {
         return instance;
     }
 
+    /**
+     * Signals the start of a frame. The bounding boxes of the pick tree
+     * are read again by the first pick of the frame and shared by all the
+     * controllers picking during that frame.
+     */
+    synchronized void nextFrame() {
+        ++frame;
+    }
+
     /**
      * Uses the GVR Picker for now .. but would need help from the renderer
      * later for efficiency.
      * 
-     * We could possibly push this functionality to the native layer. But for
-     * now we keep it here.
+     * Only the subtrees containing a sensor are visited, and the ray is
+     * tested against bounding boxes read for the whole pick tree at once.
      */
-    boolean processPick(GVRScene scene, GVRCursorController controller) {
+    synchronized boolean processPick(GVRScene scene, GVRCursorController controller) {
         if (scene != null && !sensors.isEmpty()) {
             boolean markActiveNodes = false;
             if (controller.getActiveState() == ActiveState.ACTIVE_PRESSED) {
@@ -77,8 +89,11 @@ class SensorManager {
             }
 
             if(isValidRay(controller.getRay())) {
-                for (GVRSceneObject object : scene.getSceneObjects()) {
-                    recurseSceneObject(controller, object, null, markActiveNodes);
+                updatePickTree(scene.getRoot());
+                Vector3f ray = controller.getRay();
+                Vector3f origin = controller.getOrigin();
+                for (PickNode node : pickRoots) {
+                    recursePickNode(controller, node, origin, ray, markActiveNodes);
                 }
             }
             boolean eventHandled = false;
@@ -99,26 +114,104 @@ class SensorManager {
         }
     }
 
-    private void recurseSceneObject(GVRCursorController controller,
-                                    GVRSceneObject object, GVRBaseSensor sensor,
-                                    boolean markActiveNodes) {
-        GVRBaseSensor objectSensor = object.getSensor();
+    /*
+     * Objects of the pick tree: those with a sensor, those below an object
+     * with a sensor and those above one. Other subtrees cannot generate
+     * sensor events and are left out.
+     */
+    private static final class PickNode {
+        final GVRSceneObject object;
+        final GVRBaseSensor sensor;
+        final int index;
+        PickNode[] children;
+
+        PickNode(GVRSceneObject object, GVRBaseSensor sensor, int index) {
+            this.object = object;
+            this.sensor = sensor;
+            this.index = index;
+        }
+    }
+
+    private static final PickNode[] NO_NODES = new PickNode[0];
+    private static final int BOX_SIZE = 7;
+
+    private PickNode[] pickRoots = NO_NODES;
+    private GVRSceneObject pickTreeRoot;
+    private int pickTreeVersion;
+    private long[] pickNatives = new long[64];
+    private int pickTreeSize;
+    private float[] boxes = new float[64 * BOX_SIZE];
+    private int frame = 0;
+    private int boxesFrame = -1;
+
+    private void updatePickTree(GVRSceneObject root) {
+        int version = root.getHierarchyVersion();
+        if ((root != pickTreeRoot) || (version != pickTreeVersion)) {
+            pickTreeRoot = root;
+            pickTreeVersion = version;
+            pickTreeSize = 0;
+            pickRoots = buildChildren(root, null);
+            if (boxes.length < pickNatives.length * BOX_SIZE) {
+                boxes = new float[pickNatives.length * BOX_SIZE];
+            }
+            boxesFrame = -1;
+        }
+        // frame stays at 0 if nobody calls nextFrame(): read the boxes every time
+        if ((boxesFrame != frame) || (frame == 0)) {
+            NativeSceneObject.getBoundingBoxes(pickNatives, pickTreeSize, boxes);
+            boxesFrame = frame;
+        }
+    }
+
+    private PickNode[] buildChildren(GVRSceneObject parent, GVRBaseSensor sensor) {
+        List<PickNode> nodes = null;
+        for (GVRSceneObject child : parent.getChildren()) {
+            PickNode node = buildNode(child, sensor);
+            if (node == null) {
+                continue;
+            }
+            if (nodes == null) {
+                nodes = new ArrayList<PickNode>();
+            }
+            nodes.add(node);
+        }
+        return (nodes != null) ? nodes.toArray(new PickNode[nodes.size()]) : NO_NODES;
+    }
 
+    private PickNode buildNode(GVRSceneObject object, GVRBaseSensor sensor) {
+        GVRBaseSensor objectSensor = object.getSensor();
         if (objectSensor == null) {
             objectSensor = sensor;
         }
+        int index = pickTreeSize++;
+        PickNode[] children = buildChildren(object, objectSensor);
+        if ((objectSensor == null) && (children.length == 0)) {
+            pickTreeSize = index;   // nothing to pick in this subtree
+            return null;
+        }
+        if (pickTreeSize > pickNatives.length) {
+            pickNatives = Arrays.copyOf(pickNatives, Math.max(pickTreeSize, pickNatives.length * 2));
+        }
+        pickNatives[index] = object.getNative();
+        PickNode node = new PickNode(object, objectSensor, index);
+        node.children = children;
+        return node;
+    }
+
+    private void recursePickNode(GVRCursorController controller, PickNode node,
+                                 Vector3f origin, Vector3f ray, boolean markActiveNodes) {
         /**
          * Compare ray against the hierarchical bounding volume and then add
          * the children accordingly.
          */
-        Vector3f ray = controller.getRay();
-        Vector3f origin = controller.getOrigin();
-        if (!object.intersectsBoundingVolume(origin.x, origin.y, origin.z, ray.x, ray.y, ray.z)) {
+        int box = node.index * BOX_SIZE;
+        if (!intersectsBox(box, origin, ray)) {
             return;
         }
 
-        // Well at least we are not comparing against all scene objects.
-        if (objectSensor != null && objectSensor.isEnabled() && object.isEnabled()
+        GVRBaseSensor objectSensor = node.sensor;
+        GVRSceneObject object = node.object;
+        if (objectSensor != null && objectSensor.isEnabled() && (boxes[box] != 0)
                 && object.hasMesh()) {
             GVRPicker.GVRPickedObject pickedObject;
             if(object.getCollider() != null)
@@ -137,12 +230,46 @@ class SensorManager {
                 }
             }
         }
-        for (GVRSceneObject child : object.getChildren()) {
-            recurseSceneObject(controller, child, objectSensor,
-                    markActiveNodes);
+        for (PickNode child : node.children) {
+            recursePickNode(controller, child, origin, ray, markActiveNodes);
         }
     }
 
+    /*
+     * Slab test of a ray against a bounding box of the pick tree, the same
+     * as SceneObject::intersectsBoundingVolume in the native code.
+     */
+    private boolean intersectsBox(int box, Vector3f origin, Vector3f ray) {
+        float invx = 1 / ray.x;
+        float invy = 1 / ray.y;
+        float invz = 1 / ray.z;
+        int minx = box + 1, maxx = box + 4;
+
+        float tmin = (boxes[(invx < 0) ? maxx : minx] - origin.x) * invx;
+        float tmax = (boxes[(invx < 0) ? minx : maxx] - origin.x) * invx;
+        float tymin = (boxes[(invy < 0) ? maxx + 1 : minx + 1] - origin.y) * invy;
+        float tymax = (boxes[(invy < 0) ? minx + 1 : maxx + 1] - origin.y) * invy;
+
+        if ((tmin > tymax) || (tymin > tmax))
+            return false;
+        if (tymin > tmin)
+            tmin = tymin;
+        if (tymax < tmax)
+            tmax = tymax;
+
+        float tzmin = (boxes[(invz < 0) ? maxx + 2 : minx + 2] - origin.z) * invz;
+        float tzmax = (boxes[(invz < 0) ? minx + 2 : maxx + 2] - origin.z) * invz;
+
+        if ((tmin > tzmax) || (tzmin > tmax))
+            return false;
+        if (tzmin > tmin)
+            tmin = tzmin;
+        if (tzmax < tmax)
+            tmax = tzmax;
+
+        return !(tmin < 0 && tmax < 0);
+    }
+
     void addSensor(GVRBaseSensor sensor) {
         Integer count = sensors.get(sensor);
         if (count == null) {
@@ -155,8 +282,10 @@ class SensorManager {
         }
     }
 
-    void clear() {
+    synchronized void clear() {
         sensors.clear();
+        pickRoots = NO_NODES;
+        pickTreeRoot = null;
     }
 
     void removeSensor(GVRBaseSensor sensor) {
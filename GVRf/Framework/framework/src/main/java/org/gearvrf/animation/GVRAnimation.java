@@ -22,6 +22,9 @@ import org.gearvrf.GVRMaterial;
 import org.gearvrf.GVRPostEffect;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRTransform;
+import org.gearvrf.GVRTransformBatch;
+
+import java.util.List;
 
 import android.graphics.Color;
 
@@ -118,6 +121,11 @@ public abstract class GVRAnimation {
     
     private boolean isFinished = false;
 
+    // Engine state, only touched by the thread running the engine
+    int mSlot = -1;
+    GVRTransformBatch mBatch = null;
+    List<Runnable> mDeferred = null;
+
     /**
      * Base constructor.
      * 
@@ -341,6 +349,7 @@ public abstract class GVRAnimation {
             // End of a cycle - see if we should continue
             mIterations += 1;
             if (mOnFinish != null && mOnRepeat == null) {
+                applyTransforms();
                 mOnFinish.finished(this);
             }
             if (mRepeatCount == 0) {
@@ -350,6 +359,7 @@ public abstract class GVRAnimation {
             } else {
                 // Negative repeat count - call mOnRepeat, if we can
                 if (mOnRepeat != null) {
+                    applyTransforms();
                     stillRunning = mOnRepeat.iteration(this, mIterations);
                 } else {
                     stillRunning = true; // repeat indefinitely
@@ -373,6 +383,7 @@ public abstract class GVRAnimation {
             animate(mTarget, endRatio);
 
             if (mOnFinish != null) {
+                applyTransforms();
                 mOnFinish.finished(this);
             }
             
@@ -382,6 +393,51 @@ public abstract class GVRAnimation {
         return stillRunning;
     }
 
+    /**
+     * Runs work which only touches state owned by this animation, such as
+     * the bone matrices of the skeleton it poses. When the engine
+     * {@linkplain GVRAnimationEngine#setParallel(boolean) evaluates
+     * animations in parallel}, the task is queued and run on a worker thread
+     * once all the animations of the frame have been evaluated; otherwise it
+     * runs now. The task must not change transforms or the scene graph.
+     * 
+     * @param task
+     *            work to run, reused from one frame to the next
+     */
+    protected final void runIndependent(Runnable task) {
+        if (mDeferred != null) {
+            mDeferred.add(task);
+        } else {
+            task.run();
+        }
+    }
+
+    /*
+     * Callbacks expect to see the transforms as animated so far, so the
+     * writes batched by the engine are applied, and the deferred work is
+     * done, before calling them.
+     */
+    private void applyTransforms() {
+        if (mBatch != null) {
+            mBatch.apply();
+        }
+        if (mDeferred != null) {
+            for (int i = 0; i < mDeferred.size(); ++i) {
+                mDeferred.get(i).run();
+            }
+            mDeferred.clear();
+        }
+    }
+
+    /*
+     * Whether the engine may evaluate this animation on a worker thread:
+     * transform animations without callbacks only write their own transform,
+     * through the engine's batch.
+     */
+    final boolean isParallelSafe() {
+        return (mOnFinish == null) && (this instanceof GVRTransformAnimation);
+    }
+
     private float interpolate(float cycleTime, float duration) {
         float ratio = cycleTime / duration;
         return mInterpolator == null ? ratio : mInterpolator.mapRatio(ratio);
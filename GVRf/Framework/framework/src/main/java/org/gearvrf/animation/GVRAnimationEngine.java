@@ -15,12 +15,21 @@
 
 package org.gearvrf.animation;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
 import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRTransformBatch;
+import org.gearvrf.animation.keyframe.GVRKeyFrameAnimation;
+import org.gearvrf.debug.GVRProfiler;
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.Threads;
 
 /**
  * This class runs {@linkplain GVRAnimation animations}.
@@ -44,8 +53,29 @@ import org.gearvrf.GVRSceneObject;
  * {@linkplain GVROnRepeat callback,} which allows you to terminate the
  * animation before the next loop.
  * </ul>
+ * 
+ * <p>
+ * Animations started or stopped from any thread, or from an animation
+ * callback, take effect at the beginning of the next frame. Running
+ * animations are kept in an array in which a finished animation is replaced
+ * by the last one, so starting and finishing do not copy the list and the
+ * frame loop does not allocate. The built-in {@linkplain GVRTransformAnimation
+ * transform animations} write their transforms through a
+ * {@link GVRTransformBatch}, applied with a single native call per frame.
+ * When {@linkplain #setParallel(boolean) parallel evaluation} is enabled,
+ * independent work such as posing the skeletons of
+ * {@linkplain GVRKeyFrameAnimation key frame animations} is spread over
+ * the {@link Threads} pool.
  */
 public class GVRAnimationEngine {
+    private static final String TAG = Log.tag(GVRAnimationEngine.class);
+
+    /**
+     * Minimum number of animations evaluated per worker when
+     * {@linkplain #setParallel(boolean) parallel evaluation} is enabled:
+     * below that, waking up the workers costs more than it saves.
+     */
+    public static final int PARALLEL_CHUNK = 64;
 
     private static GVRAnimationEngine sInstance = null;
 
@@ -59,7 +89,36 @@ public class GVRAnimationEngine {
         });
     }
 
-    private final List<GVRAnimation> mAnimations = new CopyOnWriteArrayList<GVRAnimation>();
+    // Running animations, only touched by the GL thread
+    private GVRAnimation[] mAnimations = new GVRAnimation[16];
+    private boolean[] mFinished = new boolean[16];
+    private boolean[] mInParallel = new boolean[16];
+    private int mCount = 0;
+    private final GVRTransformBatch mBatch = new GVRTransformBatch(64);
+
+    /*
+     * Starts and stops waiting for the next frame. The GL thread swaps the
+     * lists with the second pair, so that neither side allocates.
+     */
+    private final Object mPendingLock = new Object();
+    private List<GVRAnimation> mPending = new ArrayList<GVRAnimation>();
+    private List<Boolean> mPendingStarts = new ArrayList<Boolean>();
+    private List<GVRAnimation> mApplying = new ArrayList<GVRAnimation>();
+    private List<Boolean> mApplyingStarts = new ArrayList<Boolean>();
+
+    // Parallel evaluation of the transform animations without callbacks
+    private volatile boolean mParallel = false;
+    private Worker[] mWorkers = new Worker[0];
+    private final List<Future<?>> mWorkerFutures = new ArrayList<Future<?>>();
+    private final AtomicInteger mNextChunk = new AtomicInteger();
+    private int mChunkSize;
+    private float mFrameTime;
+
+    // Work deferred with GVRAnimation.runIndependent, run after the frame's animations
+    private final List<Runnable> mDeferred = new ArrayList<Runnable>();
+    private final AtomicInteger mNextDeferred = new AtomicInteger();
+    private final Runnable mDeferredWorker = new DeferredWorker();
+
     private final GVRDrawFrameListener mOnDrawFrame = new DrawFrame();
 
     protected GVRAnimationEngine(GVRContext gvrContext) {
@@ -112,7 +171,7 @@ public class GVRAnimationEngine {
     public GVRAnimation start(GVRAnimation animation) {
         if (animation.getRepeatCount() != 0) {
             animation.reset();
-            mAnimations.add(animation);
+            post(animation, true);
         }
         return animation;
     }
@@ -138,18 +197,271 @@ public class GVRAnimationEngine {
      *            an animation
      */
     public void stop(GVRAnimation animation) {
-        mAnimations.remove(animation);
+        post(animation, false);
     }
 
-    private final class DrawFrame implements GVRDrawFrameListener {
+    /**
+     * Enables the evaluation of animations on several threads.
+     * 
+     * When enabled, and when there are enough of them, the
+     * {@linkplain GVRTransformAnimation transform animations} without a
+     * {@linkplain GVRAnimation#setOnFinish(GVROnFinish) callback} are
+     * evaluated on the {@link Threads} pool, with the help of the GL thread,
+     * before it evaluates the others. This is only correct if these animations are independent:
+     * they must animate different transforms, their interpolators must not
+     * change shared state, and they must write their transforms through
+     * {@link GVRTransformAnimation#setPosition(float, float, float)},
+     * {@link GVRTransformAnimation#setRotation(float, float, float, float)
+     * setRotation()} and
+     * {@link GVRTransformAnimation#setScale(float, float, float) setScale()}
+     * like the built-in animations do.
+     * 
+     * The skeletons posed by {@linkplain GVRKeyFrameAnimation key frame
+     * animations}, and other work deferred with
+     * {@link GVRAnimation#runIndependent(Runnable)}, are also evaluated on
+     * the {@link Threads} pool once all the animations have been evaluated.
+     * It is disabled by default.
+     * 
+     * @param parallel
+     *            {@code true} to evaluate independent animations in parallel
+     */
+    public void setParallel(boolean parallel) {
+        mParallel = parallel;
+    }
+
+    /**
+     * Gets the number of animations running, as of the last frame.
+     * 
+     * @return number of animations the engine evaluates each frame
+     */
+    public int getAnimationCount() {
+        return mCount;
+    }
+
+    private void post(GVRAnimation animation, boolean start) {
+        synchronized (mPendingLock) {
+            mPending.add(animation);
+            mPendingStarts.add(start);
+        }
+    }
+
+    private void applyPending() {
+        synchronized (mPendingLock) {
+            List<GVRAnimation> animations = mPending;
+            List<Boolean> starts = mPendingStarts;
+            mPending = mApplying;
+            mPendingStarts = mApplyingStarts;
+            mApplying = animations;
+            mApplyingStarts = starts;
+        }
+        for (int i = 0; i < mApplying.size(); ++i) {
+            GVRAnimation animation = mApplying.get(i);
+            if (mApplyingStarts.get(i)) {
+                add(animation);
+            } else if (owns(animation)) {
+                remove(animation.mSlot);
+            }
+        }
+        mApplying.clear();
+        mApplyingStarts.clear();
+    }
+
+    private void add(GVRAnimation animation) {
+        if (owns(animation)) {
+            return; // restarted while running
+        }
+        if (mCount == mAnimations.length) {
+            mAnimations = Arrays.copyOf(mAnimations, mCount * 2);
+            mFinished = new boolean[mCount * 2];
+            mInParallel = new boolean[mCount * 2];
+        }
+        animation.mSlot = mCount;
+        animation.mBatch = mBatch;
+        mAnimations[mCount++] = animation;
+    }
+
+    /*
+     * The slot is only trusted if it is one of ours: an animation may have
+     * been left running by the engine of a previous context.
+     */
+    private boolean owns(GVRAnimation animation) {
+        int slot = animation.mSlot;
+        return (slot >= 0) && (slot < mCount) && (mAnimations[slot] == animation);
+    }
+
+    /*
+     * Moves the last animation into the slot, so removing does not shift
+     * the others.
+     */
+    private void remove(int slot) {
+        GVRAnimation animation = mAnimations[slot];
+        GVRAnimation last = mAnimations[--mCount];
+
+        mAnimations[slot] = last;
+        last.mSlot = slot;
+        mAnimations[mCount] = null;
+        animation.mSlot = -1;
+        animation.mBatch = null;
+        animation.mDeferred = null;
+    }
+
+    private void evaluate(float frameTime) {
+        int parallel = 0;
+
+        if (mParallel) {
+            for (int i = 0; i < mCount; ++i) {
+                mInParallel[i] = mAnimations[i].isParallelSafe();
+                if (mInParallel[i]) {
+                    ++parallel;
+                }
+            }
+        }
+        if (parallel >= 2 * PARALLEL_CHUNK) {
+            evaluateParallel(frameTime, parallel);
+        } else if (parallel > 0) {
+            Arrays.fill(mInParallel, 0, mCount, false);
+        }
+
+        // Callbacks may call start() or stop(): both wait for the next frame
+        for (int i = 0; i < mCount; ++i) {
+            if (!mInParallel[i]) {
+                GVRAnimation animation = mAnimations[i];
+
+                animation.mBatch = mBatch;
+                animation.mDeferred = mParallel ? mDeferred : null;
+                mFinished[i] = !animation.onDrawFrame(frameTime);
+            }
+        }
+        mBatch.apply();
+        runDeferred();
+
+        // Backwards, so the animation moved into a slot was already checked
+        for (int i = mCount - 1; i >= 0; --i) {
+            mInParallel[i] = false;
+            if (mFinished[i]) {
+                mFinished[i] = false;
+                remove(i);
+            }
+        }
+    }
+
+    /*
+     * Evaluates the animations which are safe to run in parallel on the
+     * Threads pool, the GL thread being one of the workers. Each worker
+     * takes the next chunk of slots nobody has started yet and writes the
+     * transforms into its own batch; the batches are applied once all the
+     * workers are done.
+     */
+    private void evaluateParallel(float frameTime, int parallel) {
+        int numWorkers = Math.min(parallel / PARALLEL_CHUNK,
+                Runtime.getRuntime().availableProcessors());
+
+        if (mWorkers.length < numWorkers) {
+            Worker[] workers = Arrays.copyOf(mWorkers, numWorkers);
+            for (int i = mWorkers.length; i < numWorkers; ++i) {
+                workers[i] = new Worker();
+            }
+            mWorkers = workers;
+        }
+        mFrameTime = frameTime;
+        mChunkSize = Math.max(PARALLEL_CHUNK, mCount / (numWorkers * 4));
+        mNextChunk.set(0);
+        for (int i = 1; i < numWorkers; ++i) {
+            mWorkerFutures.add(Threads.spawnHigh(mWorkers[i]));
+        }
+        try {
+            mWorkers[0].run();
+        } finally {
+            awaitWorkers();
+        }
+        for (int i = 0; i < numWorkers; ++i) {
+            mWorkers[i].mBatch.apply();
+        }
+    }
+
+    /*
+     * Runs the deferred work, one task at a time per worker: a task such as
+     * posing a skeleton is already big enough to be worth a thread. The
+     * transforms have all been written, so the tasks only read them.
+     */
+    private void runDeferred() {
+        int count = mDeferred.size();
+
+        if (count == 0) {
+            return;
+        }
+        int numWorkers = Math.min(count, Runtime.getRuntime().availableProcessors());
+
+        mNextDeferred.set(0);
+        for (int i = 1; i < numWorkers; ++i) {
+            mWorkerFutures.add(Threads.spawnHigh(mDeferredWorker));
+        }
+        try {
+            mDeferredWorker.run();
+        } finally {
+            awaitWorkers();
+            mDeferred.clear();
+        }
+    }
+
+    private void awaitWorkers() {
+        try {
+            for (int i = 0; i < mWorkerFutures.size(); ++i) {
+                mWorkerFutures.get(i).get();
+            }
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Parallel animation threw %s", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mWorkerFutures.clear();
+    }
+
+    private final class Worker implements Runnable {
+        final GVRTransformBatch mBatch = new GVRTransformBatch(PARALLEL_CHUNK);
 
         @Override
-        public void onDrawFrame(float frameTime) {
-            for (GVRAnimation animation : mAnimations) {
-                if (animation.onDrawFrame(frameTime) == false) {
-                    mAnimations.remove(animation);
+        public void run() {
+            final int count = mCount;
+            final int chunkSize = mChunkSize;
+            int start;
+
+            while ((start = mNextChunk.getAndAdd(chunkSize)) < count) {
+                int end = Math.min(start + chunkSize, count);
+
+                for (int i = start; i < end; ++i) {
+                    if (mInParallel[i]) {
+                        GVRAnimation animation = mAnimations[i];
+
+                        animation.mBatch = mBatch;
+                        mFinished[i] = !animation.onDrawFrame(mFrameTime);
+                    }
                 }
             }
         }
     }
+
+    private final class DeferredWorker implements Runnable {
+
+        @Override
+        public void run() {
+            final int count = mDeferred.size();
+            int i;
+
+            while ((i = mNextDeferred.getAndIncrement()) < count) {
+                mDeferred.get(i).run();
+            }
+        }
+    }
+
+    private final class DrawFrame implements GVRDrawFrameListener {
+
+        @Override
+        public void onDrawFrame(float frameTime) {
+            long startTime = GVRProfiler.ANIMATION.begin();
+            applyPending();
+            evaluate(frameTime);
+            GVRProfiler.ANIMATION.end(startTime);
+        }
+    }
 }
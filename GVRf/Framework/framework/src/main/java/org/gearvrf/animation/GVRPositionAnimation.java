@@ -73,7 +73,7 @@ public class GVRPositionAnimation extends GVRTransformAnimation {
 
     @Override
     protected void animate(GVRHybridObject target, float ratio) {
-        mTransform.setPosition(mStartX + ratio * mDeltaX, mStartY + ratio
+        setPosition(mStartX + ratio * mDeltaX, mStartY + ratio
                 * mDeltaY, mStartZ + ratio * mDeltaZ);
     }
 }
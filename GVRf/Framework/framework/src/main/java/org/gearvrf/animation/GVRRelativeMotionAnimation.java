@@ -72,7 +72,7 @@ public class GVRRelativeMotionAnimation extends GVRTransformAnimation {
 
     @Override
     protected void animate(GVRHybridObject target, float ratio) {
-        mTransform.setPosition(mStartX + mDeltaX * ratio, //
+        setPosition(mStartX + mDeltaX * ratio, //
                 mStartY + mDeltaY * ratio, //
                 mStartZ + mDeltaZ * ratio);
     }
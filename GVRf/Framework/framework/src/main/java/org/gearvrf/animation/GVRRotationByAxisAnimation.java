@@ -78,13 +78,8 @@ public class GVRRotationByAxisAnimation extends GVRTransformAnimation {
 
     @Override
     protected void animate(GVRHybridObject target, float ratio) {
-        // Reset rotation (this is pretty cheap - GVRF uses a 'lazy update'
-        // policy on the matrix, so two changes don't cost all that much more
-        // than one)
-        mOrientation.setOrientation();
-
         // Rotate from start
         float angle = ratio * mAngle;
-        mTransform.rotateByAxis(angle, mX, mY, mZ);
+        mOrientation.rotateByAxis(angle, mX, mY, mZ);
     }
 }
@@ -107,15 +107,10 @@ public class GVRRotationByAxisWithPivotAnimation extends GVRTransformAnimation {
 
     @Override
     protected void animate(GVRHybridObject target, float ratio) {
-        // Reset rotation and position (this is pretty cheap - GVRF uses a 'lazy
-        // update' policy on the matrix, so three changes don't cost all that
-        // much more than one)
-        mOrientation.setOrientation();
-        mPosition.setPosition();
-
         // Rotate with pivot, from start orientation & position
         float angle = ratio * mAngle;
-        mTransform.rotateByAxisWithPivot(angle, mAxisX, mAxisY, mAxisZ,
+        mOrientation.rotateByAxis(angle, mAxisX, mAxisY, mAxisZ);
+        mPosition.rotateByAxisWithPivot(angle, mAxisX, mAxisY, mAxisZ,
                 mPivotX, mPivotY, mPivotZ);
     }
 }
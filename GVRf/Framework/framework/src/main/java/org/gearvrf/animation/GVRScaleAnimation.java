@@ -121,7 +121,7 @@ public class GVRScaleAnimation extends GVRTransformAnimation {
 
     @Override
     protected void animate(GVRHybridObject target, float ratio) {
-        mTransform.setScale(mStartX + ratio * mDeltaX, mStartY + ratio
+        setScale(mStartX + ratio * mDeltaX, mStartY + ratio
                 * mDeltaY, mStartZ + ratio * mDeltaZ);
     }
 }
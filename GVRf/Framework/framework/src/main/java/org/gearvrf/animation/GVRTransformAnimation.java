@@ -106,6 +106,43 @@ public abstract class GVRTransformAnimation extends GVRAnimation {
         mTransform = getTransform(target);
     }
 
+    /**
+     * Sets {@link #mTransform}'s position. While the animation engine runs
+     * this animation, the change is batched with the other animations' and
+     * written in a single native call at the end of the frame.
+     */
+    protected void setPosition(float x, float y, float z) {
+        if (mBatch != null) {
+            mBatch.setPosition(mTransform, x, y, z);
+        } else {
+            mTransform.setPosition(x, y, z);
+        }
+    }
+
+    /**
+     * Sets {@link #mTransform}'s rotation, batched like
+     * {@link #setPosition(float, float, float)}.
+     */
+    protected void setRotation(float w, float x, float y, float z) {
+        if (mBatch != null) {
+            mBatch.setRotation(mTransform, w, x, y, z);
+        } else {
+            mTransform.setRotation(w, x, y, z);
+        }
+    }
+
+    /**
+     * Sets {@link #mTransform}'s scale, batched like
+     * {@link #setPosition(float, float, float)}.
+     */
+    protected void setScale(float x, float y, float z) {
+        if (mBatch != null) {
+            mBatch.setScale(mTransform, x, y, z);
+        } else {
+            mTransform.setScale(x, y, z);
+        }
+    }
+
     /** Latch/restore starting orientation */
     protected class Orientation {
         private final float w, x, y, z;
@@ -128,7 +165,29 @@ public abstract class GVRTransformAnimation extends GVRAnimation {
 
         /** Restores {@link #mTransform}'s starting orientation */
         protected void setOrientation() {
-            mTransform.setRotation(w, x, y, z);
+            setRotation(w, x, y, z);
+        }
+
+        /**
+         * Sets {@link #mTransform}'s orientation to the starting orientation
+         * rotated around an axis: the same as {@link #setOrientation()}
+         * followed by {@link GVRTransform#rotateByAxis(float, float, float, float)},
+         * in one write.
+         * 
+         * @param angle
+         *            Angle of the rotation, in degrees
+         */
+        protected void rotateByAxis(float angle, float axisX, float axisY,
+                float axisZ) {
+            double halfAngle = Math.toRadians(angle) / 2;
+            float qw = (float) Math.cos(halfAngle);
+            float s = (float) Math.sin(halfAngle);
+            float qx = axisX * s, qy = axisY * s, qz = axisZ * s;
+
+            setRotation(qw * w - qx * x - qy * y - qz * z, //
+                    qw * x + qx * w + qy * z - qz * y, //
+                    qw * y - qx * z + qy * w + qz * x, //
+                    qw * z + qx * y - qy * x + qz * w);
         }
     }
 
@@ -153,7 +212,39 @@ public abstract class GVRTransformAnimation extends GVRAnimation {
 
         /** Restores {@link #mTransform}'s starting position */
         protected void setPosition() {
-            mTransform.setPosition(x, y, z);
+            GVRTransformAnimation.this.setPosition(x, y, z);
+        }
+
+        /**
+         * Sets {@link #mTransform}'s position to the starting position
+         * rotated around an axis going through a pivot, as
+         * {@link GVRTransform#rotateByAxisWithPivot(float, float, float, float, float, float, float)}
+         * moves it.
+         * 
+         * @param angle
+         *            Angle of the rotation, in degrees
+         */
+        protected void rotateByAxisWithPivot(float angle, float axisX,
+                float axisY, float axisZ, float pivotX, float pivotY,
+                float pivotZ) {
+            double halfAngle = Math.toRadians(angle) / 2;
+            float qw = (float) Math.cos(halfAngle);
+            float s = (float) Math.sin(halfAngle);
+            float qx = axisX * s, qy = axisY * s, qz = axisZ * s;
+            float vx = x - pivotX, vy = y - pivotY, vz = z - pivotZ;
+
+            // v + 2 * (qw * (q x v) + q x (q x v)), as glm::rotate does
+            float ux = qy * vz - qz * vy;
+            float uy = qz * vx - qx * vz;
+            float uz = qx * vy - qy * vx;
+            float uux = qy * uz - qz * uy;
+            float uuy = qz * ux - qx * uz;
+            float uuz = qx * uy - qy * ux;
+
+            GVRTransformAnimation.this.setPosition(
+                    pivotX + vx + 2 * (qw * ux + uux), //
+                    pivotY + vy + 2 * (qw * uy + uuy), //
+                    pivotZ + vz + 2 * (qw * uz + uuz));
         }
     }
 }
@@ -21,94 +21,115 @@ import org.joml.Vector3f;
  */
 public final class GVRAnimationChannel implements PrettyPrint {
     private static final String TAG = GVRAnimationChannel.class.getSimpleName();
-    protected static interface ValueInterpolator<T> {
-        T interpolate(T begin, T end, float factor);
-    }
 
-    protected static ValueInterpolator<Vector3f> sInterpolatorVector3f = new ValueInterpolator<Vector3f>() {
-        public Vector3f interpolate(Vector3f begin, Vector3f end, float factor) {
-            return new Vector3f().set(end).sub(begin).mul(factor).add(begin);
-        }
-    };
+    private static final int POSITION_SIZE = 3;
+    private static final int ROTATION_SIZE = 4;
+    private static final int SCALE_SIZE = 3;
 
-    protected static ValueInterpolator<Quaternionf> sInterpolatorQuaternion = new ValueInterpolator<Quaternionf>() {
-        public Quaternionf interpolate(Quaternionf begin, Quaternionf end, float factor) {
-            return new Quaternionf().set(begin).slerp(end, factor);
-        }
-    };
+    /* Layout of one resampled frame: position, rotation, scale */
+    private static final int SAMPLE_POSITION = 0;
+    private static final int SAMPLE_ROTATION = SAMPLE_POSITION + POSITION_SIZE;
+    private static final int SAMPLE_SCALE = SAMPLE_ROTATION + ROTATION_SIZE;
+    private static final int SAMPLE_SIZE = SAMPLE_SCALE + SCALE_SIZE;
 
-    protected class KeyFrameInterplator<T> {
-        GVRKeyFrame<T>[] keys;
-        ValueInterpolator<T> interpolator;
+    private static final float[] sDefaultPosition = { 0, 0, 0 };
+    private static final float[] sDefaultRotation = { 0, 0, 0, 1 };
+    private static final float[] sDefaultScale = { 1, 1, 1 };
+
+    /**
+     * A series of keys packed into primitive arrays. Key {@code i} has
+     * the time {@code times[i]} and its value starts at
+     * {@code values[i * stride]}.
+     */
+    protected static final class KeyTrack {
+        final float[] times;
+        final float[] values;
+        final int stride;
 
         private int lastKeyIndex;
 
-        KeyFrameInterplator(GVRKeyFrame<T>[] keys, ValueInterpolator<T> interpolator) {
-            this.keys = keys;
-            this.interpolator = interpolator;
+        KeyTrack(int numKeys, int stride) {
+            this.times = new float[numKeys];
+            this.values = new float[numKeys * stride];
+            this.stride = stride;
             lastKeyIndex = -1;
         }
 
-        protected T interpolate(float time) {
+        int size() {
+            return times.length;
+        }
+
+        void setKey(int keyIndex, float time, float x, float y, float z) {
+            int offset = keyIndex * stride;
+            times[keyIndex] = time;
+            values[offset] = x;
+            values[offset + 1] = y;
+            values[offset + 2] = z;
+        }
+
+        void setKey(int keyIndex, float time, float x, float y, float z, float w) {
+            setKey(keyIndex, time, x, y, z);
+            values[keyIndex * stride + 3] = w;
+        }
+
+        /**
+         * Finds the pair of keys around {@code time}.
+         * @return the index of the first key of the interval
+         *         {@code [times[i], times[i + 1])} containing {@code time},
+         *         or the index of the first or last key if {@code time} is
+         *         outside the track. {@link #getFactor(int, float)} tells
+         *         the two cases apart.
+         */
+        int findKey(float time) {
+            if (time <= times[0]) {
+                return 0;
+            } else if (time >= times[times.length - 1]) {
+                return times.length - 1;
+            }
             int index = getKeyIndex(time);
-            int nextIndex = index + 1;
-
-            if (index != -1 && keys[index].getTime() <= time && time < keys[nextIndex].getTime()) {
-                // interpolate
-                float deltaTime = (float)(keys[nextIndex].getTime() - keys[index].getTime());
-                float factor = (float)((time - keys[index].getTime()) / deltaTime);
-
-                T start = keys[index].getValue();
-                T end = keys[nextIndex].getValue();
-
-                return interpolator.interpolate(start, end, factor);
-            } else {
-                // time is out of range of animation time frame
-                float firstFrameTime = keys[0].getTime();
-                float lastFrameTime = keys[keys.length - 1].getTime();
-                T firstFrameValue = keys[0].getValue();
-                T lastFrameValue = keys[keys.length - 1].getValue();
-
-                if (time <= firstFrameTime) {
-                    return firstFrameValue;
-                } else if (time >= lastFrameTime) {
-                    return lastFrameValue;
-                } else {
-                    // Shouldn't happen
-                    return lastFrameValue;
-                }
+            return (index == -1) ? times.length - 1 : index;
+        }
+
+        /**
+         * Returns the interpolation factor between key {@code index} and
+         * the next key, or 0 if {@code index} is the last key.
+         */
+        float getFactor(int index, float time) {
+            if (index + 1 >= times.length || time <= times[index]) {
+                return 0f;
             }
+            return (time - times[index]) / (times[index + 1] - times[index]);
         }
 
         protected int getKeyIndex(float time) {
             // Try cached key first
             if (lastKeyIndex != -1) {
-                if (keys[lastKeyIndex].getTime() <= time && time < keys[lastKeyIndex + 1].getTime()) {
+                if (times[lastKeyIndex] <= time && time < times[lastKeyIndex + 1]) {
                     return lastKeyIndex;
                 }
 
                 // Try neighboring keys
-                if (lastKeyIndex + 2 < keys.length &&
-                        keys[lastKeyIndex + 1].getTime() <= time && time < keys[lastKeyIndex + 2].getTime()) {
+                if (lastKeyIndex + 2 < times.length &&
+                        times[lastKeyIndex + 1] <= time && time < times[lastKeyIndex + 2]) {
                     return ++lastKeyIndex;
                 }
 
                 if (lastKeyIndex >= 1 &&
-                        keys[lastKeyIndex - 1].getTime() <= time && time < keys[lastKeyIndex].getTime()) {
+                        times[lastKeyIndex - 1] <= time && time < times[lastKeyIndex]) {
                     return --lastKeyIndex;
                 }
             }
 
             // Binary search for the interval
             // Each of the index i represents an interval I(i) = [time(i), time(i + 1)).
-            int low = 0, high = keys.length - 2;
+            int low = 0, high = times.length - 2;
             // invariant: I(low)...I(high) contains time if time can be found
             // post-condition: |high - low| <= 1, only need to check I(low) and I(low + 1)
             while (high - low > 1) {
                 int mid = (low + high) / 2;
-                if (time < keys[mid].getTime()) {
+                if (time < times[mid]) {
                     high = mid;
-                } else if (time >= keys[mid + 1].getTime()) {
+                } else if (time >= times[mid + 1]) {
                     low = mid + 1;
                 } else {
                     // time in I(mid) by definition
@@ -116,12 +137,12 @@ public final class GVRAnimationChannel implements PrettyPrint {
                 }
             }
 
-            if (keys[low].getTime() <= time && time < keys[low + 1].getTime()) {
+            if (times[low] <= time && time < times[low + 1]) {
                 return lastKeyIndex = low;
             }
 
-            if (low + 2 < keys.length &&
-                    keys[low + 1].getTime() <= time && time < keys[low + 2].getTime()) {
+            if (low + 2 < times.length &&
+                    times[low + 1] <= time && time < times[low + 2]) {
                 return lastKeyIndex = low + 1;
             }
 
@@ -144,16 +165,12 @@ public final class GVRAnimationChannel implements PrettyPrint {
             int numScaleKeys, GVRAnimationBehavior preBehavior, GVRAnimationBehavior postBehavior) {
 
         m_nodeName = nodeName;
-        mPositionKeys = new GVRPositionKey[numPosKeys];
-        mRotationKeys = new GVRRotationKey[numRotKeys];
-        mScaleKeys = new GVRScaleKey[numScaleKeys];
+        mPositionKeys = new KeyTrack(numPosKeys, POSITION_SIZE);
+        mRotationKeys = new KeyTrack(numRotKeys, ROTATION_SIZE);
+        mScaleKeys = new KeyTrack(numScaleKeys, SCALE_SIZE);
         mPreState = preBehavior;
         mPostState = postBehavior;
 
-        mPositionInterpolator = new KeyFrameInterplator<Vector3f>(mPositionKeys, sInterpolatorVector3f);
-        mRotationInterpolator = new KeyFrameInterplator<Quaternionf>(mRotationKeys, sInterpolatorQuaternion);
-        mScaleInterpolator = new KeyFrameInterplator<Vector3f>(mScaleKeys, sInterpolatorVector3f);
-
         mCurrentTransform = new Matrix4f();
     }
 
@@ -176,7 +193,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the number of position keys
      */
     public int getNumPosKeys() {
-        return mPositionKeys.length;
+        return mPositionKeys.size();
     }
     
     /**
@@ -186,7 +203,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the time component
      */
     public double getPosKeyTime(int keyIndex) {
-        return mPositionKeys[keyIndex].getTime();
+        return mPositionKeys.times[keyIndex];
     }
 
     /**
@@ -197,11 +214,14 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the position as vector
      */
     public Vector3f getPosKeyVector(int keyIndex) {
-        return mPositionKeys[keyIndex].getValue();
+        int offset = keyIndex * POSITION_SIZE;
+        float[] values = mPositionKeys.values;
+        return new Vector3f(values[offset], values[offset + 1], values[offset + 2]);
     }
 
     public void setPosKeyVector(int keyIndex, float time, final float x, final float y, final float z) {
-        mPositionKeys[keyIndex] = new GVRPositionKey(time, x, y, z);
+        mPositionKeys.setKey(keyIndex, time, x, y, z);
+        mSamples = null;
     }
 
     /** 
@@ -210,7 +230,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the number of rotation keys
      */
     public int getNumRotKeys() {
-       return mRotationKeys.length;
+       return mRotationKeys.size();
     }
 
 
@@ -221,7 +241,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the time component
      */
     public double getRotKeyTime(int keyIndex) {
-        return mRotationKeys[keyIndex].getTime();
+        return mRotationKeys.times[keyIndex];
     }
 
 
@@ -234,11 +254,14 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the rotation as quaternion
      */
     public Quaternionf getRotKeyQuaternion(int keyIndex) {
-        return mRotationKeys[keyIndex].getValue();
+        int offset = keyIndex * ROTATION_SIZE;
+        float[] values = mRotationKeys.values;
+        return new Quaternionf(values[offset], values[offset + 1], values[offset + 2], values[offset + 3]);
     } 
 
     public void setRotKeyQuaternion(int keyIndex, float time, Quaternionf rot) {
-        mRotationKeys[keyIndex] = new GVRRotationKey(time, rot.x, rot.y, rot.z, rot.w);
+        mRotationKeys.setKey(keyIndex, time, rot.x, rot.y, rot.z, rot.w);
+        mSamples = null;
     }
 
     /** 
@@ -247,7 +270,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the number of scaling keys
      */
     public int getNumScaleKeys() {
-        return mScaleKeys.length;
+        return mScaleKeys.size();
     }
 
 
@@ -258,7 +281,7 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the time component
      */
     public double getScaleKeyTime(int keyIndex) {
-        return mRotationKeys[keyIndex].getTime();
+        return mScaleKeys.times[keyIndex];
     }
 
 
@@ -270,11 +293,14 @@ public final class GVRAnimationChannel implements PrettyPrint {
      * @return the scaling factor as vector
      */
     public Vector3f getScaleKeyVector(int keyIndex) {
-        return mScaleKeys[keyIndex].getValue();
+        int offset = keyIndex * SCALE_SIZE;
+        float[] values = mScaleKeys.values;
+        return new Vector3f(values[offset], values[offset + 1], values[offset + 2]);
     }
 
     public void setScaleKeyVector(int keyIndex, float time, final float x, final float y, final float z) {
-        mScaleKeys[keyIndex] = new GVRScaleKey(time, x, y, z);
+        mScaleKeys.setKey(keyIndex, time, x, y, z);
+        mSamples = null;
     }
 
     /** 
@@ -304,59 +330,296 @@ public final class GVRAnimationChannel implements PrettyPrint {
     }
 
     /**
-     * Obtains the transform for a specific time in animation.
+     * Resamples the keys of this channel at a fixed rate.<p>
+     *
+     * After resampling, {@link #animate(float)} finds the keys for a time
+     * with a single division instead of searching the key tracks, which
+     * makes sampling cost independent of the number of keys. Rotations
+     * between two samples are normalized-linearly interpolated, so the
+     * sample rate should be high enough for adjacent samples to be close.
+     * The samples are discarded when a key is changed.
+     *
+     * @param sampleRate number of samples per animation tick.
+     *                   Use 0 to discard the samples and go back to
+     *                   searching the key tracks.
+     */
+    public void resample(float sampleRate) {
+        mSamples = null;
+        if (sampleRate <= 0) {
+            return;
+        }
+        float startTime = Float.MAX_VALUE;
+        float endTime = -Float.MAX_VALUE;
+        for (KeyTrack track : new KeyTrack[] { mPositionKeys, mRotationKeys, mScaleKeys }) {
+            if (track.size() > 0) {
+                startTime = Math.min(startTime, track.times[0]);
+                endTime = Math.max(endTime, track.times[track.size() - 1]);
+            }
+        }
+        if (startTime > endTime) {
+            return;
+        }
+
+        int numSamples = (int) Math.ceil((endTime - startTime) * sampleRate) + 1;
+        float[] samples = new float[numSamples * SAMPLE_SIZE];
+        for (int i = 0; i < numSamples; ++i) {
+            float time = Math.min(startTime + i / sampleRate, endTime);
+            sampleTracks(time, samples, i * SAMPLE_SIZE);
+        }
+        mSampleStart = startTime;
+        mSampleRate = sampleRate;
+        mSamples = samples;
+    }
+
+    /**
+     * Tells whether the channel has been resampled by {@link #resample(float)}.
+     *
+     * @return true if a fixed rate sampling of the keys is used
+     */
+    public boolean isResampled() {
+        return mSamples != null;
+    }
+
+    /**
+     * Obtains the transform for a specific time in animation.<p>
+     *
+     * The returned matrix is owned by the channel and is overwritten
+     * by the next call.
      * 
      * @param animationTime The time in animation.
      * 
      * @return The transform.
      */
     public Matrix4f animate(float animationTime) {
-        Vector3f scale = getScale(animationTime);
-        Vector3f pos = getPosition(animationTime);
-        Quaternionf rot = getRotation(animationTime);
-
-        // Allocation-free
-        Matrix4f mat = mCurrentTransform.set(rot);
+        return animate(animationTime, mCurrentTransform);
+    }
 
-        mat.scale(scale).setTranslation(pos);
+    /**
+     * Obtains the transform for a specific time in animation
+     * without allocating memory.
+     *
+     * @param animationTime The time in animation.
+     * @param dest          Matrix to receive the transform.
+     *
+     * @return {@code dest}
+     */
+    public Matrix4f animate(float animationTime, Matrix4f dest) {
+        animate(animationTime, mMatrix, 0);
+        return dest.set(mMatrix);
+    }
 
-        return mat;
+    /**
+     * Obtains the transform for a specific time in animation
+     * without allocating memory.
+     *
+     * @param animationTime The time in animation.
+     * @param dest          Array to receive the transform as
+     *                      a column-major 4x4 matrix.
+     * @param offset        Index of the first matrix element in {@code dest}.
+     */
+    public void animate(float animationTime, float[] dest, int offset) {
+        float[] sample = mSample;
+        if (mSamples != null) {
+            interpolateSamples(animationTime, sample);
+        } else {
+            sampleTracks(animationTime, sample, 0);
+        }
+        composeMatrix(sample, dest, offset);
     }
 
     protected Vector3f getPosition(float time) {
-        Vector3f defaultPosition = new Vector3f();
-        
-        if (mPositionKeys.length == 0) {
-            return defaultPosition;
-        } else if (mPositionKeys.length == 1) {
-            return mPositionKeys[0].getValue();
+        if (mPositionKeys.size() == 0) {
+            return new Vector3f();
         }
-
-        return mPositionInterpolator.interpolate(time);
+        interpolateVector(mPositionKeys, time, mSample, SAMPLE_POSITION);
+        return new Vector3f(mSample[SAMPLE_POSITION], mSample[SAMPLE_POSITION + 1], mSample[SAMPLE_POSITION + 2]);
     }
 
     protected Vector3f getScale(float time) {
-        Vector3f defaultScale = new Vector3f(1f, 1f, 1f);
-        
-        if (mScaleKeys.length == 0) {
-            return defaultScale;
-        } else if (mScaleKeys.length == 1) {
-            return mScaleKeys[0].getValue();
+        if (mScaleKeys.size() == 0) {
+            return new Vector3f(1f, 1f, 1f);
         }
-
-        return mScaleInterpolator.interpolate(time);
+        interpolateVector(mScaleKeys, time, mSample, SAMPLE_SCALE);
+        return new Vector3f(mSample[SAMPLE_SCALE], mSample[SAMPLE_SCALE + 1], mSample[SAMPLE_SCALE + 2]);
     }
 
     protected Quaternionf getRotation(float time) {
-        Quaternionf defaultRotation = new Quaternionf();
+        if (mRotationKeys.size() == 0) {
+            return new Quaternionf();
+        }
+        interpolateRotation(mRotationKeys, time, mSample, SAMPLE_ROTATION);
+        return new Quaternionf(mSample[SAMPLE_ROTATION], mSample[SAMPLE_ROTATION + 1],
+                mSample[SAMPLE_ROTATION + 2], mSample[SAMPLE_ROTATION + 3]);
+    }
+
+    /*
+     * Evaluates position, rotation and scale at a time into one sample.
+     */
+    private void sampleTracks(float time, float[] dest, int offset) {
+        if (mPositionKeys.size() == 0) {
+            System.arraycopy(sDefaultPosition, 0, dest, offset + SAMPLE_POSITION, POSITION_SIZE);
+        } else {
+            interpolateVector(mPositionKeys, time, dest, offset + SAMPLE_POSITION);
+        }
+        if (mRotationKeys.size() == 0) {
+            System.arraycopy(sDefaultRotation, 0, dest, offset + SAMPLE_ROTATION, ROTATION_SIZE);
+        } else {
+            interpolateRotation(mRotationKeys, time, dest, offset + SAMPLE_ROTATION);
+        }
+        if (mScaleKeys.size() == 0) {
+            System.arraycopy(sDefaultScale, 0, dest, offset + SAMPLE_SCALE, SCALE_SIZE);
+        } else {
+            interpolateVector(mScaleKeys, time, dest, offset + SAMPLE_SCALE);
+        }
+    }
+
+    /*
+     * Looks up the two resampled frames around a time and blends them.
+     */
+    private void interpolateSamples(float time, float[] dest) {
+        float[] samples = mSamples;
+        int lastSample = samples.length / SAMPLE_SIZE - 1;
+        float position = (time - mSampleStart) * mSampleRate;
+        int index;
+        float factor;
+
+        if (position <= 0) {
+            index = 0;
+            factor = 0;
+        } else if (position >= lastSample) {
+            index = lastSample;
+            factor = 0;
+        } else {
+            index = (int) position;
+            factor = position - index;
+        }
+
+        int begin = index * SAMPLE_SIZE;
+        if (factor == 0) {
+            System.arraycopy(samples, begin, dest, 0, SAMPLE_SIZE);
+            return;
+        }
+        int end = begin + SAMPLE_SIZE;
+        for (int i = 0; i < POSITION_SIZE; ++i) {
+            dest[SAMPLE_POSITION + i] = lerp(samples[begin + SAMPLE_POSITION + i], samples[end + SAMPLE_POSITION + i], factor);
+        }
+        for (int i = 0; i < SCALE_SIZE; ++i) {
+            dest[SAMPLE_SCALE + i] = lerp(samples[begin + SAMPLE_SCALE + i], samples[end + SAMPLE_SCALE + i], factor);
+        }
+        nlerp(samples, begin + SAMPLE_ROTATION, end + SAMPLE_ROTATION, factor, dest, SAMPLE_ROTATION);
+    }
 
-        if (mRotationKeys.length == 0) {
-            return defaultRotation;
-        } else if (mRotationKeys.length == 1) {
-            return mRotationKeys[0].getValue();
+    private static void interpolateVector(KeyTrack track, float time, float[] dest, int offset) {
+        int index = track.findKey(time);
+        float factor = track.getFactor(index, time);
+        float[] values = track.values;
+        int begin = index * track.stride;
+
+        if (factor == 0) {
+            System.arraycopy(values, begin, dest, offset, track.stride);
+            return;
+        }
+        int end = begin + track.stride;
+        dest[offset] = lerp(values[begin], values[end], factor);
+        dest[offset + 1] = lerp(values[begin + 1], values[end + 1], factor);
+        dest[offset + 2] = lerp(values[begin + 2], values[end + 2], factor);
+    }
+
+    private static void interpolateRotation(KeyTrack track, float time, float[] dest, int offset) {
+        int index = track.findKey(time);
+        float factor = track.getFactor(index, time);
+        int begin = index * ROTATION_SIZE;
+
+        if (factor == 0) {
+            System.arraycopy(track.values, begin, dest, offset, ROTATION_SIZE);
+            return;
+        }
+        slerp(track.values, begin, begin + ROTATION_SIZE, factor, dest, offset);
+    }
+
+    private static float lerp(float begin, float end, float factor) {
+        return begin + (end - begin) * factor;
+    }
+
+    /*
+     * Spherical interpolation of two packed quaternions,
+     * same as Quaternionf.slerp.
+     */
+    private static void slerp(float[] q, int begin, int end, float factor, float[] dest, int offset) {
+        float cosom = q[begin] * q[end] + q[begin + 1] * q[end + 1]
+                + q[begin + 2] * q[end + 2] + q[begin + 3] * q[end + 3];
+        float absCosom = Math.abs(cosom);
+        float scale0, scale1;
+
+        if (1.0f - absCosom > 1E-6f) {
+            float sinSqr = 1.0f - absCosom * absCosom;
+            float sinom = (float) (1.0 / Math.sqrt(sinSqr));
+            float omega = (float) Math.atan2(sinSqr * sinom, absCosom);
+            scale0 = (float) (Math.sin((1.0 - factor) * omega) * sinom);
+            scale1 = (float) (Math.sin(factor * omega) * sinom);
+        } else {
+            scale0 = 1.0f - factor;
+            scale1 = factor;
         }
+        scale1 = cosom >= 0.0f ? scale1 : -scale1;
+        for (int i = 0; i < ROTATION_SIZE; ++i) {
+            dest[offset + i] = scale0 * q[begin + i] + scale1 * q[end + i];
+        }
+    }
 
-        return mRotationInterpolator.interpolate(time);
+    /*
+     * Normalized linear interpolation of two packed quaternions.
+     */
+    private static void nlerp(float[] q, int begin, int end, float factor, float[] dest, int offset) {
+        float cosom = q[begin] * q[end] + q[begin + 1] * q[end + 1]
+                + q[begin + 2] * q[end + 2] + q[begin + 3] * q[end + 3];
+        float scale0 = 1.0f - factor;
+        float scale1 = cosom >= 0.0f ? factor : -factor;
+        float lengthSqr = 0;
+
+        for (int i = 0; i < ROTATION_SIZE; ++i) {
+            float v = scale0 * q[begin + i] + scale1 * q[end + i];
+            dest[offset + i] = v;
+            lengthSqr += v * v;
+        }
+        float invLength = (float) (1.0 / Math.sqrt(lengthSqr));
+        for (int i = 0; i < ROTATION_SIZE; ++i) {
+            dest[offset + i] *= invLength;
+        }
+    }
+
+    /*
+     * Builds translation * rotation * scale as a column-major matrix,
+     * the same as Matrix4f.set(rot).scale(scale).setTranslation(pos).
+     */
+    private static void composeMatrix(float[] sample, float[] dest, int offset) {
+        float x = sample[SAMPLE_ROTATION];
+        float y = sample[SAMPLE_ROTATION + 1];
+        float z = sample[SAMPLE_ROTATION + 2];
+        float w = sample[SAMPLE_ROTATION + 3];
+        float sx = sample[SAMPLE_SCALE];
+        float sy = sample[SAMPLE_SCALE + 1];
+        float sz = sample[SAMPLE_SCALE + 2];
+        float x2 = x * x, y2 = y * y, z2 = z * z, w2 = w * w;
+        float xy = x * y, xz = x * z, yz = y * z;
+        float xw = x * w, yw = y * w, zw = z * w;
+
+        dest[offset] = (w2 + x2 - z2 - y2) * sx;
+        dest[offset + 1] = (xy + zw + zw + xy) * sx;
+        dest[offset + 2] = (xz - yw + xz - yw) * sx;
+        dest[offset + 3] = 0;
+        dest[offset + 4] = (-zw + xy - zw + xy) * sy;
+        dest[offset + 5] = (y2 - z2 + w2 - x2) * sy;
+        dest[offset + 6] = (yz + yz + xw + xw) * sy;
+        dest[offset + 7] = 0;
+        dest[offset + 8] = (yw + xz + xz + yw) * sz;
+        dest[offset + 9] = (yz + yz - xw - xw) * sz;
+        dest[offset + 10] = (z2 - y2 - x2 + w2) * sz;
+        dest[offset + 11] = 0;
+        dest[offset + 12] = sample[SAMPLE_POSITION];
+        dest[offset + 13] = sample[SAMPLE_POSITION + 1];
+        dest[offset + 14] = sample[SAMPLE_POSITION + 2];
+        dest[offset + 15] = 1;
     }
 
     @Override
@@ -364,9 +627,9 @@ public final class GVRAnimationChannel implements PrettyPrint {
         sb.append(Log.getSpaces(indent));
         sb.append(GVRAnimationChannel.class.getSimpleName());
         sb.append(" [nodeName=" + m_nodeName + ", positionKeys="
-                + mPositionKeys.length + ", rotationKeys="
-                + mRotationKeys.length + ", scaleKeys="
-                + mScaleKeys.length + ", m_preState=" + mPreState
+                + mPositionKeys.size() + ", rotationKeys="
+                + mRotationKeys.size() + ", scaleKeys="
+                + mScaleKeys.size() + ", m_preState=" + mPreState
                 + ", m_postState=" + mPostState + "]");
         sb.append(System.lineSeparator());
     }
@@ -383,13 +646,20 @@ public final class GVRAnimationChannel implements PrettyPrint {
      */
     private final String m_nodeName;
 
-    private final GVRPositionKey[] mPositionKeys;
-    private final GVRRotationKey[] mRotationKeys;
-    private final GVRScaleKey[] mScaleKeys;
+    private final KeyTrack mPositionKeys;
+    private final KeyTrack mRotationKeys;
+    private final KeyTrack mScaleKeys;
 
-    private final KeyFrameInterplator<Vector3f> mPositionInterpolator;
-    private final KeyFrameInterplator<Quaternionf> mRotationInterpolator;
-    private final KeyFrameInterplator<Vector3f> mScaleInterpolator;
+    /*
+     * Fixed rate samples from resample(), SAMPLE_SIZE floats per sample,
+     * or null to interpolate the key tracks directly.
+     */
+    private float[] mSamples;
+    private float mSampleStart;
+    private float mSampleRate;
+
+    private final float[] mSample = new float[SAMPLE_SIZE];
+    private final float[] mMatrix = new float[16];
 
     protected Matrix4f mCurrentTransform;
 
@@ -403,4 +673,3 @@ public final class GVRAnimationChannel implements PrettyPrint {
      */
     private final GVRAnimationBehavior mPostState;
 }
-
@@ -108,6 +108,20 @@ public class GVRKeyFrameAnimation extends GVRAnimation implements PrettyPrint {
         return -1;
     }
 
+    /**
+     * Resamples all channels at a fixed rate so key lookups take
+     * constant time.
+     *
+     * @param sampleRate number of samples per animation tick,
+     *                   or 0 to go back to interpolating the keys directly.
+     * @see GVRAnimationChannel#resample(float)
+     */
+    public void resample(float sampleRate) {
+        for (GVRAnimationChannel channel : mChannels) {
+            channel.resample(sampleRate);
+        }
+    }
+
     @Override
     protected void animate(GVRHybridObject target, float ratio) {
         if (mTarget != target) {
@@ -123,10 +137,17 @@ public class GVRKeyFrameAnimation extends GVRAnimation implements PrettyPrint {
         mSkinningController.animate(getDuration() * ratio);
     }
 
+    /*
+     * Lets the skinning controller pose the skeleton on a worker thread.
+     */
+    void runSkinning(Runnable task) {
+        runIndependent(task);
+    }
+
     protected Matrix4f[] getTransforms(float animationTime) {
         int i = 0;
         for (GVRAnimationChannel channel : mChannels) {
-            mTransforms[i++].set(channel.animate(animationTime));
+            channel.animate(animationTime, mTransforms[i++]);
         }
         return mTransforms;
     }
@@ -12,14 +12,26 @@ import org.gearvrf.GVRBone;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRMesh;
 import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRTransformBuffer;
 import org.gearvrf.utility.Log;
 import org.joml.Matrix4f;
 
+import android.opengl.Matrix;
+
 /**
- * Controls skeletal animation (skinning). 
+ * Controls skeletal animation (skinning).
+ * <p>
+ * The skeleton is built once as a tree of scene objects. It is then
+ * flattened into arrays of parent indices with parents stored before
+ * their children, and a contiguous array of matrices. Each frame the
+ * skeleton is evaluated with a single linear pass over these arrays,
+ * without allocating. Skeletons only write their own arrays and bones, so
+ * the animation engine may pose them in parallel once the model matrices
+ * of the skinned meshes have been read on the GL thread.
  */
 public class GVRSkinningController extends GVRAnimationController {
     private static final String TAG = GVRSkinningController.class.getSimpleName();
+    private static final int MATRIX_SIZE = 16;
 
     protected GVRContext gvrContext;
     protected GVRSceneObject sceneRoot;
@@ -28,6 +40,41 @@ public class GVRSkinningController extends GVRAnimationController {
     protected Map<String, SceneAnimNode> nodeByName;
     protected Map<GVRSceneObject, List<GVRBone>> boneMap;
 
+    /*
+     * Flattened skeleton. Node i has parent mNodeParents[i] < i,
+     * or -1 for the root. Its local and global matrices are
+     * stored at i * MATRIX_SIZE in mLocalMatrices and mGlobalMatrices.
+     */
+    private GVRSceneObject[] mNodeObjects;
+    private int[] mNodeParents;
+    private int[] mNodeChannels;
+    private float[] mLocalMatrices;
+    private float[] mGlobalMatrices;
+
+    /*
+     * Flattened bones. Bone i is attached to node mBoneNodes[i],
+     * or -1 if its node is not animated in which case its bind
+     * pose global matrix is used. It deforms the mesh owned by
+     * mMeshObjects[mBoneMeshes[i]].
+     */
+    private GVRBone[] mBones;
+    private int[] mBoneNodes;
+    private int[] mBoneMeshes;
+    private float[] mBoneMatrices;
+    private GVRSceneObject[] mMeshObjects;
+    private GVRTransformBuffer mMeshTransforms;
+    private int[] mMeshVersions;
+    private float[] mMeshInverses;
+    private final float[] mScratch = new float[MATRIX_SIZE * 2];
+    private float mTick;
+    private final Runnable mPoseSkeleton = new Runnable() {
+        @Override
+        public void run() {
+            updateTransforms(animation.getTransforms(mTick));
+            updateBoneMatrices();
+        }
+    };
+
     protected class SceneAnimNode {
         GVRSceneObject sceneObject;
         SceneAnimNode parent;
@@ -35,6 +82,7 @@ public class GVRSkinningController extends GVRAnimationController {
         Matrix4f localTransform;
         Matrix4f globalTransform;
         int channelId;
+        int index;
 
         SceneAnimNode(GVRSceneObject sceneObject, SceneAnimNode parent) {
             this.sceneObject = sceneObject;
@@ -43,6 +91,7 @@ public class GVRSkinningController extends GVRAnimationController {
             localTransform = new Matrix4f();
             globalTransform = new Matrix4f();
             channelId = -1;
+            index = -1;
         }
     }
 
@@ -59,10 +108,19 @@ public class GVRSkinningController extends GVRAnimationController {
         nodeByName = new TreeMap<String, SceneAnimNode>();
         boneMap = new HashMap<GVRSceneObject, List<GVRBone>>();
 
-        animRoot = createAnimationTree(sceneRoot, null);
+        // Index the bone names while the skeleton is built
+        boolean indexed = (sceneRoot.getIndex() != null);
+        sceneRoot.enableIndex();
+        try {
+            animRoot = createAnimationTree(sceneRoot, null);
+        } finally {
+            if (!indexed) {
+                sceneRoot.disableIndex();
+            }
+        }
         pruneTree(animRoot);
+        flattenSkeleton();
     }
-
     protected SceneAnimNode createAnimationTree(GVRSceneObject node, SceneAnimNode parent) {
         SceneAnimNode internalNode = new SceneAnimNode(node, parent);
         nodeByName.put(node.getName(), internalNode);
@@ -116,48 +174,157 @@ public class GVRSkinningController extends GVRAnimationController {
     }
 
     /**
-     * Update bone transforms for the specified tick.
+     * Flattens the pruned animation tree and the bone lists into arrays.
+     * The bone offset matrices are read once here, so they must be set
+     * before the controller is constructed.
      */
-    @Override
-    protected void animateImpl(float animationTick) {
-        Matrix4f[] animationTransform = animation.getTransforms(animationTick);
-
-        updateTransforms(animRoot, new Matrix4f(), animationTransform);
+    protected void flattenSkeleton() {
+        List<SceneAnimNode> nodes = new ArrayList<SceneAnimNode>();
+        flattenTree(animRoot, nodes);
+
+        int numNodes = nodes.size();
+        mNodeObjects = new GVRSceneObject[numNodes];
+        mNodeParents = new int[numNodes];
+        mNodeChannels = new int[numNodes];
+        mLocalMatrices = new float[numNodes * MATRIX_SIZE];
+        mGlobalMatrices = new float[numNodes * MATRIX_SIZE];
+        for (int i = 0; i < numNodes; ++i) {
+            SceneAnimNode node = nodes.get(i);
+            mNodeObjects[i] = node.sceneObject;
+            mNodeParents[i] = (node.parent != null) ? node.parent.index : -1;
+            mNodeChannels[i] = node.channelId;
+        }
 
+        List<GVRBone> bones = new ArrayList<GVRBone>();
+        List<SceneAnimNode> boneNodes = new ArrayList<SceneAnimNode>();
         for (Entry<GVRSceneObject, List<GVRBone>> ent : boneMap.entrySet()) {
-            // Transform all bone splits (a bone can be split into multiple instances if they influence
-            // different meshes)
+            // A bone can be split into multiple instances if they influence different meshes
             SceneAnimNode node = nodeByName.get(ent.getKey().getName());
             for (GVRBone bone : ent.getValue()) {
-                updateBoneMatrices(bone, node);
+                bones.add(bone);
+                boneNodes.add(node);
+            }
+        }
+
+        int numBones = bones.size();
+        Map<GVRSceneObject, Integer> meshIndices = new HashMap<GVRSceneObject, Integer>();
+        List<GVRSceneObject> meshObjects = new ArrayList<GVRSceneObject>();
+        mBones = bones.toArray(new GVRBone[numBones]);
+        mBoneNodes = new int[numBones];
+        mBoneMeshes = new int[numBones];
+        mBoneMatrices = new float[numBones * MATRIX_SIZE * 2];
+        for (int i = 0; i < numBones; ++i) {
+            SceneAnimNode node = boneNodes.get(i);
+            GVRSceneObject meshObject = mBones[i].getSceneObject();
+            Integer meshIndex = meshIndices.get(meshObject);
+
+            if (meshIndex == null) {
+                meshIndex = meshObjects.size();
+                meshIndices.put(meshObject, meshIndex);
+                meshObjects.add(meshObject);
             }
+            mBoneMeshes[i] = meshIndex;
+            mBoneNodes[i] = node.index;
+
+            // The first matrix is the bone offset, the second the
+            // bind pose global matrix used if the node is not animated
+            mBones[i].getOffsetMatrix().get(mBoneMatrices, i * MATRIX_SIZE * 2);
+            node.globalTransform.get(mBoneMatrices, i * MATRIX_SIZE * 2 + MATRIX_SIZE);
+        }
+        mMeshObjects = meshObjects.toArray(new GVRSceneObject[meshObjects.size()]);
+        mMeshInverses = new float[mMeshObjects.length * MATRIX_SIZE];
+        mMeshVersions = new int[mMeshObjects.length];
+        mMeshTransforms = new GVRTransformBuffer(sceneRoot.getGVRContext(), mMeshObjects.length);
+        for (GVRSceneObject meshObject : mMeshObjects) {
+            mMeshTransforms.add(meshObject.getTransform());
         }
     }
 
-    protected void updateTransforms(SceneAnimNode node, Matrix4f parentTransform, Matrix4f[] animationTransform) {
-        if (node.channelId != -1) {
-            node.localTransform.set(animationTransform[node.channelId]);
-        } else {
-            // Default local transform
-            node.localTransform.set(node.sceneObject.getTransform().getLocalModelMatrix4f());
+    private void flattenTree(SceneAnimNode node, List<SceneAnimNode> nodes) {
+        node.index = nodes.size();
+        nodes.add(node);
+        for (SceneAnimNode child : node.children) {
+            flattenTree(child, nodes);
         }
+    }
 
-        parentTransform.mul(node.localTransform, node.globalTransform);
+    /**
+     * Update bone transforms for the specified tick.
+     */
+    @Override
+    protected void animateImpl(float animationTick) {
+        updateMeshInverses();
+        mTick = animationTick;
+        animation.runSkinning(mPoseSkeleton);
+    }
 
-        for (SceneAnimNode child : node.children) {
-            updateTransforms(child, node.globalTransform, animationTransform);
+    /**
+     * Computes the global matrices of all nodes in one pass.
+     * Parents come before their children so their global
+     * matrix is always up to date.
+     */
+    protected void updateTransforms(Matrix4f[] animationTransform) {
+        float[] local = mLocalMatrices;
+        float[] global = mGlobalMatrices;
+
+        for (int i = 0; i < mNodeParents.length; ++i) {
+            int offset = i * MATRIX_SIZE;
+            int channel = mNodeChannels[i];
+            int parent = mNodeParents[i];
+
+            if (channel != -1) {
+                animationTransform[channel].get(local, offset);
+            } else {
+                // Default local transform
+                mNodeObjects[i].getTransform().getLocalModelMatrix(local, offset);
+            }
+            if (parent < 0) {
+                System.arraycopy(local, offset, global, offset, MATRIX_SIZE);
+            } else {
+                Matrix.multiplyMM(global, offset, global, parent * MATRIX_SIZE, local, offset);
+            }
         }
     }
 
-    protected void updateBoneMatrices(GVRBone bone, SceneAnimNode node) {
-        Matrix4f finalMatrix = new Matrix4f().set(bone.getOffsetMatrix());
+    /**
+     * Computes the inverse model matrix of every skinned mesh once,
+     * rather than once for each of its bones. The model matrices are
+     * read in one batch and only the meshes which moved are inverted.
+     */
+    protected void updateMeshInverses() {
+        if (mMeshTransforms.update() == 0) {
+            return;
+        }
+        for (int i = 0; i < mMeshObjects.length; ++i) {
+            int version = mMeshTransforms.getVersion(i);
+
+            if (version != mMeshVersions[i]) {
+                mMeshVersions[i] = version;
+                mMeshTransforms.getModelMatrix(i, mScratch, 0);
+                Matrix.invertM(mMeshInverses, i * MATRIX_SIZE, mScratch, 0);
+            }
+        }
+    }
 
-        node.globalTransform.mul(finalMatrix, finalMatrix);
+    /**
+     * Computes the final matrix of every bone and passes it to the bone:
+     * mesh inverse * node global * bone offset.
+     */
+    protected void updateBoneMatrices() {
+        float[] scratch = mScratch;
 
-        Matrix4f globalInverse = new Matrix4f().set(bone.getSceneObject().getTransform().getModelMatrix4f()).invert();
-        globalInverse.mul(finalMatrix, finalMatrix);
+        for (int i = 0; i < mBones.length; ++i) {
+            int offset = i * MATRIX_SIZE * 2;
+            int node = mBoneNodes[i];
 
-        bone.setFinalTransformMatrix(finalMatrix);
+            if (node >= 0) {
+                Matrix.multiplyMM(scratch, MATRIX_SIZE, mGlobalMatrices, node * MATRIX_SIZE, mBoneMatrices, offset);
+            } else {
+                Matrix.multiplyMM(scratch, MATRIX_SIZE, mBoneMatrices, offset + MATRIX_SIZE, mBoneMatrices, offset);
+            }
+            Matrix.multiplyMM(scratch, 0, mMeshInverses, mBoneMeshes[i] * MATRIX_SIZE, scratch, MATRIX_SIZE);
+            mBones[i].setFinalTransformMatrix(scratch);
+        }
     }
 
     /* Returns true if the subtree should be kept */
@@ -168,7 +168,7 @@ public class GVRAsynchronousResourceLoader {
                                 }
                                 callback.loaded(texture, resource);
                             }
-                        });
+                        }, GVRContext.GL_TASK_UPLOAD);
                     } catch (Exception e) {
                         callback.failed(e, resource);
                     } finally {
@@ -656,6 +656,43 @@ public class GVRAsynchronousResourceLoader {
                 AsyncBitmapTexture.glMaxTextureSize, true, null, closeStream);
     }
 
+    /**
+     * Decodes a bitmap no larger than {@code maxSize} in either dimension,
+     * for a quick preview of a large texture. The image is subsampled by a
+     * power of two, so it may be smaller than requested.
+     *
+     * @param stream
+     *            Bitmap stream
+     * @param maxSize
+     *            Requested width and height
+     * @param closeStream
+     *            If {@code true}, closes {@code stream}
+     * @return Bitmap, or null if cannot be decoded into a bitmap
+     */
+    public static Bitmap decodeStream(InputStream stream, int maxSize, boolean closeStream) {
+        return AsyncBitmapTexture.decodeStream(stream, maxSize, maxSize, true,
+                null, closeStream);
+    }
+
+    /**
+     * Changes the priority of a texture or mesh load which is waiting for a
+     * loader thread, for example as the viewer moves around. Loads which
+     * have started, compressed textures and loads made through a custom
+     * {@link Scheduler} are not affected.
+     *
+     * @param resource
+     *            The resource passed to the load method
+     * @param priority
+     *            The new priority, between {@link GVRContext#LOWEST_PRIORITY}
+     *            and {@link GVRContext#HIGHEST_PRIORITY}
+     */
+    public static void updatePriority(GVRAndroidResource resource, int priority) {
+        Scheduler scheduler = AsyncManager.get().getScheduler();
+        if (scheduler instanceof Throttler) {
+            ((Throttler) scheduler).updatePriority(resource, priority);
+        }
+    }
+
     /**
      * Load a atlas map information asynchronously.
      *
@@ -79,6 +79,7 @@ public class GVRCompressedTexture extends GVRTexture {
                 textureParameters.getCurrentValuesArray()));
         mLevels = levels;
         mQuality = GVRCompressedTexture.clamp(quality);
+        mDataSize = imageSize;
 
         mHasTransparency = hasAlpha(internalFormat);
         NativeCompressedTexture.setTransparency(getNative(), mHasTransparency);
@@ -250,6 +250,15 @@ class Throttler implements Scheduler {
                 CancelableCallback<OUTPUT> cancelableCallback, int priority);
     }
 
+    /**
+     * Changes the priority of a pending request. A request which is waiting
+     * for a thread is moved to its new place in the queue; a request which
+     * is already running, or is not pending at all, is not affected.
+     */
+    void updatePriority(GVRAndroidResource request, int priority) {
+        requests.updatePriority(request, priority);
+    }
+
     /*
      * Pending requests
      */
@@ -345,6 +354,16 @@ class Throttler implements Scheduler {
             }
         }
 
+        void updatePriority(GVRAndroidResource request, int priority) {
+            synchronized (pendingRequests) {
+                PendingRequest<?, ?> pending = pendingRequests.get(request);
+                if ((pending != null) && (pending.getPriority() != priority)) {
+                    pending.setPriority(priority);
+                    deviceThreadLimiter.reschedule(pending);
+                }
+            }
+        }
+
         private class PendingRequest<OUTPUT extends GVRHybridObject, INTER> implements
                 CancelableCallback<OUTPUT>, PriorityCancelable {
 
@@ -546,6 +565,14 @@ class Throttler implements Scheduler {
             public void updatePriority() {
                 priority = highestPriority;
             }
+
+            /**
+             * Replaces the priority, even by a lower one. Takes effect
+             * when the request is rescheduled.
+             */
+            void setPriority(int priority) {
+                highestPriority = priority;
+            }
         }
     }
 
@@ -39,7 +39,8 @@ import android.util.Log;
  * you can use the command 'lua' to enter lua mode, and the command 'js'
  * to enter Javascript mode. While in the script mode, you can access the
  * GVRContext object using the variable 'gvrf'. Type 'exit' to exit from
- * the script shell, or the top-level shell. <p>
+ * the script shell, or the top-level shell. The 'profile-*' commands
+ * control the {@link GVRProfiler} frame timeline. <p>
  *
  * To connect to the debug server, you can use telnet from Linux, or
  * putty from Windows. If Windows environment, you would need to configure
@@ -0,0 +1,117 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.debug;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.utility.Log;
+
+/**
+ * On-device benchmark of ray picking. It compares testing the ray against
+ * every collider, which is what {@link org.gearvrf.GVRScene} does by default,
+ * with picking through the bounding volume hierarchy enabled by
+ * {@link org.gearvrf.GVRScene#setPickAccelerated(boolean)}.
+ * <p>
+ * The benchmark runs natively on sphere colliders which are not part of any
+ * scene, so it can be started from a running application:
+ * <pre>
+ * {@code
+ * GVRPickBenchmark.runOnGlThread(gvrContext);
+ * }
+ * </pre>
+ * Results are written to the log with the tag {@code GVRPickBenchmark}.
+ */
+public final class GVRPickBenchmark {
+    private static final String TAG = Log.tag(GVRPickBenchmark.class);
+
+    /** Collider counts the benchmark is run with by default. */
+    public static final int[] DEFAULT_COLLIDER_COUNTS = { 1000, 10000, 100000 };
+
+    private static final int NUM_RAYS = 100;
+    private static final int MOVED_FRACTION = 100;
+
+    /**
+     * Timings of one benchmark run.
+     */
+    public static final class Result {
+        /** Number of colliders in the run. */
+        public final int colliderCount;
+        /** Milliseconds to build the hierarchy from scratch. */
+        public final float buildTime;
+        /** Milliseconds per ray when testing every collider. */
+        public final float linearTimePerRay;
+        /** Milliseconds per ray when picking through the hierarchy. */
+        public final float bvhTimePerRay;
+        /** Milliseconds to refit the hierarchy after moving 1% of the colliders. */
+        public final float refitTime;
+        /** True if both paths found the same number of hits. */
+        public final boolean hitsMatch;
+
+        Result(int colliderCount, int numRays, float[] values) {
+            this.colliderCount = colliderCount;
+            buildTime = values[0];
+            linearTimePerRay = values[1] / numRays;
+            bvhTimePerRay = values[2] / numRays;
+            refitTime = values[3];
+            hitsMatch = values[4] == values[5];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d colliders: linear %.4f ms/ray, bvh %.4f ms/ray, "
+                    + "build %.2f ms, refit %.3f ms%s", colliderCount, linearTimePerRay,
+                    bvhTimePerRay, buildTime, refitTime, hitsMatch ? "" : ", HITS DIFFER");
+        }
+    }
+
+    private GVRPickBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark for one collider count.
+     * Must be called on the GL thread, because the native scene objects
+     * allocate GL queries.
+     * @param colliderCount number of sphere colliders
+     * @param numRays       number of rays cast on each path
+     * @return timings of the run
+     */
+    public static Result run(int colliderCount, int numRays) {
+        float[] values = NativePickBenchmark.run(colliderCount, numRays,
+                colliderCount / MOVED_FRACTION);
+        Result result = new Result(colliderCount, numRays, values);
+        Log.i(TAG, "%s", result);
+        return result;
+    }
+
+    /**
+     * Runs the benchmark for the {@link #DEFAULT_COLLIDER_COUNTS} on the GL
+     * thread and logs the results.
+     * @param gvrContext context whose GL thread runs the benchmark
+     */
+    public static void runOnGlThread(GVRContext gvrContext) {
+        gvrContext.runOnGlThread(new Runnable() {
+            @Override
+            public void run() {
+                for (int count : DEFAULT_COLLIDER_COUNTS) {
+                    GVRPickBenchmark.run(count, NUM_RAYS);
+                }
+            }
+        });
+    }
+}
+
+final class NativePickBenchmark {
+    static native float[] run(int numColliders, int numRays, int numMoved);
+}
@@ -0,0 +1,353 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.debug;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.os.Process;
+
+/**
+ * Low overhead timeline profiler for the phases of a frame.
+ * <p>
+ * Each {@link Scope} names a phase, like the draw frame listeners or the
+ * animation engine. Timing a phase does not allocate:
+ * <pre>
+ *     long start = scope.begin();
+ *     ... work ...
+ *     scope.end(start);
+ * </pre>
+ * Every sample is stored in a preallocated ring buffer of primitive arrays,
+ * which keeps the most recent events for a timeline, and in a histogram per
+ * scope from which percentiles are computed. When profiling is disabled,
+ * which is the default, {@link Scope#begin()} and {@link Scope#end(long)}
+ * only test a flag.
+ * <p>
+ * The timeline can be written in the Chrome trace event format with
+ * {@link #writeChromeTrace(Writer)} and loaded into chrome://tracing.
+ * The {@link DebugServer} console exposes this with the
+ * {@code profile-start}, {@code profile-stop}, {@code profile-stats}
+ * and {@code profile-trace} commands.
+ */
+public final class GVRProfiler {
+    /**
+     * Default number of events kept in the timeline.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final List<Scope> sScopes = new ArrayList<Scope>();
+    private static volatile boolean sEnabled = false;
+
+    private static final Object sBufferLock = new Object();
+    private static long sNextEvent;
+    private static int sMask;
+    private static long[] sStartTimes;
+    private static long[] sDurations;
+    private static int[] sScopeIds;
+    private static int[] sThreadIds;
+
+    /** Time spent drawing one frame, from before the eyes to after */
+    public static final Scope FRAME = getScope("frame");
+    /** Runnables queued to the GL thread */
+    public static final Scope GL_RUNNABLES = getScope("gl runnables");
+    /** All the draw frame listeners, including the ones below */
+    public static final Scope FRAME_LISTENERS = getScope("draw frame listeners");
+    /** Animations stepped by the animation engine */
+    public static final Scope ANIMATION = getScope("animation engine");
+    /** Levels of detail selected by the LOD manager */
+    public static final Scope LOD = getScope("lod manager");
+    /** Picking done by the pickers every frame */
+    public static final Scope PICKER = getScope("picker");
+    /** Script functions called by the event manager */
+    public static final Scope SCRIPT = getScope("script callbacks");
+    /** Culling the scene from the main camera */
+    public static final Scope CULL = getScope("cull");
+
+    static {
+        setCapacity(DEFAULT_CAPACITY);
+    }
+
+    private GVRProfiler() {
+    }
+
+    /**
+     * A named phase which is timed by the profiler.
+     * Durations between 0 and 100 milliseconds are kept in a histogram
+     * with 0.1 millisecond buckets, longer ones go into the last bucket.
+     */
+    public static final class Scope {
+        private static final int BUCKETS = 1001;
+        private static final long NANOS_PER_BUCKET = 100000;
+
+        private final String mName;
+        private final int mId;
+        private final AtomicIntegerArray mHistogram = new AtomicIntegerArray(BUCKETS);
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mTotal = new AtomicLong();
+
+        private Scope(String name, int id) {
+            mName = name;
+            mId = id;
+        }
+
+        /**
+         * Gets the name of the scope.
+         * @return name shown in the timeline and the statistics
+         */
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * Marks the start of the phase.
+         * @return start time to pass to {@link #end(long)},
+         *         0 if profiling is disabled
+         */
+        public long begin() {
+            return sEnabled ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Marks the end of the phase and records its duration.
+         * @param startTime value returned by {@link #begin()}
+         */
+        public void end(long startTime) {
+            if ((startTime == 0) || !sEnabled) {
+                return;
+            }
+            long duration = System.nanoTime() - startTime;
+            int bucket = (int) Math.min(duration / NANOS_PER_BUCKET, BUCKETS - 1);
+
+            mHistogram.incrementAndGet(bucket);
+            mCount.incrementAndGet();
+            mTotal.addAndGet(duration);
+            record(mId, startTime, duration);
+        }
+
+        /**
+         * Gets the number of samples recorded since the last reset.
+         * @return sample count
+         */
+        public long getCount() {
+            return mCount.get();
+        }
+
+        /**
+         * Gets the average duration of the samples.
+         * @return mean in milliseconds
+         */
+        public float getMean() {
+            long count = mCount.get();
+            return (count > 0) ? (mTotal.get() / (float) count) / 1000000.0f : 0;
+        }
+
+        /**
+         * Gets a percentile of the recorded durations.
+         * @param percentile between 0 and 100
+         * @return upper bound of the histogram bucket containing the
+         *         percentile, in milliseconds
+         */
+        public float getPercentile(float percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                total += mHistogram.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100.0f);
+            long seen = 0;
+            int i = 0;
+            for (; i < BUCKETS - 1; ++i) {
+                seen += mHistogram.get(i);
+                if (seen >= rank) {
+                    break;
+                }
+            }
+            return ((i + 1) * NANOS_PER_BUCKET) / 1000000.0f;
+        }
+
+        /**
+         * Clears the histogram of this scope.
+         */
+        public void reset() {
+            for (int i = 0; i < BUCKETS; ++i) {
+                mHistogram.set(i, 0);
+            }
+            mCount.set(0);
+            mTotal.set(0);
+        }
+    }
+
+    /**
+     * Gets the scope with the given name, creating it if necessary.
+     * Scopes are meant to be looked up once and kept in a field.
+     * @param name name of the phase
+     * @return scope for the phase
+     */
+    public static Scope getScope(String name) {
+        synchronized (sScopes) {
+            for (Scope scope : sScopes) {
+                if (scope.mName.equals(name)) {
+                    return scope;
+                }
+            }
+            Scope scope = new Scope(name, sScopes.size());
+            sScopes.add(scope);
+            return scope;
+        }
+    }
+
+    /**
+     * Starts or stops recording.
+     * @param enable true to record samples
+     */
+    public static void setEnabled(boolean enable) {
+        sEnabled = enable;
+    }
+
+    /**
+     * Tells whether samples are being recorded.
+     * @return true if profiling is enabled
+     */
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Sets how many events the timeline keeps. The timeline is cleared.
+     * @param capacity number of events, rounded up to a power of two
+     */
+    public static void setCapacity(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+
+        synchronized (sBufferLock) {
+            sStartTimes = new long[size];
+            sDurations = new long[size];
+            sScopeIds = new int[size];
+            sThreadIds = new int[size];
+            sMask = size - 1;
+            sNextEvent = 0;
+        }
+    }
+
+    /**
+     * Clears the timeline and the statistics of all scopes.
+     */
+    public static void reset() {
+        synchronized (sBufferLock) {
+            sNextEvent = 0;
+        }
+        synchronized (sScopes) {
+            for (Scope scope : sScopes) {
+                scope.reset();
+            }
+        }
+    }
+
+    private static void record(int scopeId, long startTime, long duration) {
+        synchronized (sBufferLock) {
+            int i = (int) (sNextEvent++ & sMask);
+            sStartTimes[i] = startTime;
+            sDurations[i] = duration;
+            sScopeIds[i] = scopeId;
+            sThreadIds[i] = Process.myTid();
+        }
+    }
+
+    /**
+     * Gets a table with the count, mean and percentiles of every scope
+     * which has samples.
+     * @return one line per scope, times in milliseconds
+     */
+    public static String getStatistics() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-24s %8s %8s %8s %8s %8s\n",
+                "scope", "count", "mean", "p50", "p90", "p99"));
+        synchronized (sScopes) {
+            for (Scope scope : sScopes) {
+                if (scope.getCount() == 0) {
+                    continue;
+                }
+                sb.append(String.format("%-24s %8d %8.2f %8.1f %8.1f %8.1f\n",
+                        scope.getName(), scope.getCount(), scope.getMean(),
+                        scope.getPercentile(50), scope.getPercentile(90),
+                        scope.getPercentile(99)));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the events in the timeline as Chrome trace JSON, oldest first.
+     * @param writer where to write the trace
+     * @return number of events written
+     * @throws IOException if the writer fails
+     */
+    public static int writeChromeTrace(Writer writer) throws IOException {
+        String[] names;
+        synchronized (sScopes) {
+            names = new String[sScopes.size()];
+            for (int i = 0; i < names.length; ++i) {
+                names[i] = sScopes.get(i).mName.replace("\\", "\\\\").replace("\"", "\\\"");
+            }
+        }
+
+        long[] startTimes;
+        long[] durations;
+        int[] scopeIds;
+        int[] threadIds;
+        long first;
+        int count;
+        synchronized (sBufferLock) {
+            long next = sNextEvent;
+            int size = sMask + 1;
+            count = (int) Math.min(next, size);
+            first = next - count;
+            startTimes = sStartTimes.clone();
+            durations = sDurations.clone();
+            scopeIds = sScopeIds.clone();
+            threadIds = sThreadIds.clone();
+        }
+
+        int pid = Process.myPid();
+        writer.write("{\"traceEvents\":[");
+        for (int n = 0; n < count; ++n) {
+            int i = (int) ((first + n) & (startTimes.length - 1));
+            if (n > 0) {
+                writer.write(",");
+            }
+            writer.write("\n{\"name\":\"");
+            writer.write(names[scopeIds[i]]);
+            writer.write("\",\"cat\":\"gvrf\",\"ph\":\"X\",\"ts\":");
+            writer.write(String.valueOf(startTimes[i] / 1000.0));
+            writer.write(",\"dur\":");
+            writer.write(String.valueOf(durations[i] / 1000.0));
+            writer.write(",\"pid\":");
+            writer.write(String.valueOf(pid));
+            writer.write(",\"tid\":");
+            writer.write(String.valueOf(threadIds[i]));
+            writer.write("}");
+        }
+        writer.write("\n],\"displayTimeUnit\":\"ms\"}\n");
+        writer.flush();
+        return count;
+    }
+}
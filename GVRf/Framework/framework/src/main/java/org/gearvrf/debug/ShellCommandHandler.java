@@ -15,6 +15,10 @@
 
 package org.gearvrf.debug;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 import javax.script.ScriptEngine;
@@ -23,6 +27,7 @@ import org.gearvrf.GVRContext;
 import org.gearvrf.GVRVersion;
 import org.gearvrf.debug.cli.Command;
 import org.gearvrf.debug.cli.HelpCommandHandler;
+import org.gearvrf.debug.cli.Param;
 import org.gearvrf.debug.cli.Shell;
 import org.gearvrf.debug.cli.ShellDependent;
 import org.gearvrf.script.GVRScriptManager;
@@ -70,6 +75,41 @@ public class ShellCommandHandler implements ShellDependent {
         return GVRVersion.CURRENT;
     }
 
+    @Command(description="Starts recording the frame timeline")
+    public String profileStart() {
+        GVRProfiler.reset();
+        GVRProfiler.setEnabled(true);
+        return null;
+    }
+
+    @Command(description="Stops recording the frame timeline")
+    public String profileStop() {
+        GVRProfiler.setEnabled(false);
+        return null;
+    }
+
+    @Command(description="Shows the count, mean and percentiles of each profiled scope")
+    public String profileStats() {
+        return GVRProfiler.getStatistics();
+    }
+
+    @Command(description="Writes the frame timeline as Chrome trace JSON")
+    public String profileTrace(
+            @Param(name="file-name", description="Trace file, relative names are in the app's external files directory")
+            String fileName) throws IOException {
+        File file = new File(fileName);
+        if (!file.isAbsolute()) {
+            file = new File(mGVRContext.getContext().getExternalFilesDir(null), fileName);
+        }
+        Writer writer = new FileWriter(file);
+        try {
+            int count = GVRProfiler.writeChromeTrace(writer);
+            return count + " events written to " + file.getAbsolutePath();
+        } finally {
+            writer.close();
+        }
+    }
+
     @Command
     public Object help() {
         return mHelpHandler.help();
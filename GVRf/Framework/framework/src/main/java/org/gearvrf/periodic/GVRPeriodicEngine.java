@@ -15,10 +15,13 @@
 
 package org.gearvrf.periodic;
 
-import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
+import org.gearvrf.utility.Log;
 
 /**
  * Schedule {@linkplain Runnable runnables} to run on the GL thread at a future
@@ -54,21 +57,27 @@ import org.gearvrf.GVRDrawFrameListener;
  * something like a notification.
  * 
  * <p>
- * The engine maintains a priority queue of events, which it checks in a
- * {@linkplain GVRDrawFrameListener frame listener}; events run as
- * {@linkplain GVRContext#runOnGlThread(Runnable) run-once events.} Every frame,
- * GVRF runs any run-once events; then any frame listeners (including
- * animations); then your {@linkplain org.gearvrf.GVRMain#onStep() method;} and
- * then it renders the scene. This means that any periodic events that run on a
- * given frame will run before any animations. It also means that there is
- * always a one frame delay between the time an event is dequeued and the time
- * it actually runs. Scheduling an event from a point in the render pipeline
- * after the periodic engine will add an additional one frame delay. (The
- * periodic engine may run before the animation engine or after it - try not to
- * write code that depends on one running before the other.) Running at 60 fps,
- * each frame is normally 17 milliseconds apart, unless you add too many
- * callbacks or put too much code into your {@code onStep()}; Android garbage
- * collection can introduce additional delays.
+ * The engine keeps the events in a timing wheel, which it checks in a
+ * {@linkplain GVRDrawFrameListener frame listener.} Scheduling, rescheduling
+ * and canceling an event take constant time and never wait for a lock, so
+ * you can call them from any thread, however many events are scheduled. They
+ * take effect at the beginning of the next frame. The events which are due
+ * then run on the GL thread, in the frame listener, until the
+ * {@linkplain #setFrameBudget(float) frame budget} is used up; the others run
+ * first in the next frame, and are counted as {@linkplain #getLateCount()
+ * late.} Every frame, GVRF runs any run-once events; then any frame listeners
+ * (including animations); then your {@linkplain org.gearvrf.GVRMain#onStep()
+ * method;} and then it renders the scene. This means that any periodic events
+ * that run on a given frame will run before your {@code onStep()}. (The
+ * periodic engine may run before the animation engine or after it - try not
+ * to write code that depends on one running before the other.) Events run on
+ * the first frame after their scheduled time, rounded up to the wheel's 8
+ * millisecond tick. Running at 60 fps, each frame is normally 17 milliseconds
+ * apart, unless you add too many callbacks or put too much code into your
+ * {@code onStep()}; Android garbage collection can introduce additional
+ * delays. A periodic event which falls more than a period behind skips the
+ * executions it missed, which are counted as {@linkplain #getSkippedCount()
+ * skipped.}
  */
 public class GVRPeriodicEngine {
     private static GVRPeriodicEngine sInstance = null;
@@ -83,12 +92,57 @@ public class GVRPeriodicEngine {
         });
     }
 
-    private final GVRContext mContext;
+    private static final String TAG = Log.tag(GVRPeriodicEngine.class);
+
+    /**
+     * Default time the due events may run each frame, in milliseconds.
+     */
+    public static final float DEFAULT_FRAME_BUDGET = 2.0f;
+
+    /*
+     * Hierarchical timing wheel. Level 0 has a bucket per tick for the next
+     * 256 ticks, about two seconds; each of the three other levels has 64
+     * buckets, which each span a whole turn of the level below. An event is
+     * filed in the bucket of its due tick, at the lowest level which reaches
+     * that far, and moves down a level whenever the wheel reaches its
+     * bucket. Events due in more than the span of the wheel, about six days,
+     * are filed at its far end and filed again when they get there.
+     */
+    private static final long TICK_NANOS = 8000000L;
+    private static final int LEVELS = 4;
+    private static final int LEVEL0_BITS = 8;
+    private static final int LEVEL_BITS = 6;
+    private static final long WHEEL_SPAN = 1L << (LEVEL0_BITS + (LEVELS - 1)
+            * LEVEL_BITS);
+
     private final DrawFrameListener mDrawFrameListener = new DrawFrameListener();
-    private final PriorityQueue<EventImplementation> mQueue = new PriorityQueue<EventImplementation>();
+
+    /*
+     * Events whose schedule changed, from any thread. Everything else is
+     * only touched by the GL thread.
+     */
+    private final Queue<Event> mIncoming = new ConcurrentLinkedQueue<Event>();
+
+    private final Node[][] mWheel = new Node[LEVELS][];
+    private final Node mReady = Node.newList();
+    private final Node mCascade = Node.newList();
+    private final long mStartNanos = now();
+    private long mCurrentTick = 0;
+    private int mFiledCount = 0;
+    private long mFrame = 0;
+
+    private volatile long mBudgetNanos = (long) (DEFAULT_FRAME_BUDGET * 1000000);
+    private volatile long mLateCount = 0;
+    private volatile long mSkippedCount = 0;
 
     protected GVRPeriodicEngine(GVRContext context) {
-        mContext = context;
+        for (int level = 0; level < LEVELS; ++level) {
+            Node[] buckets = new Node[1 << bits(level)];
+            for (int i = 0; i < buckets.length; ++i) {
+                buckets[i] = Node.newList();
+            }
+            mWheel[level] = buckets;
+        }
         context.registerDrawFrameListener(mDrawFrameListener);
     }
 
@@ -190,6 +244,49 @@ public class GVRPeriodicEngine {
         return new Event(task, delay, period, callback);
     }
 
+    /**
+     * Sets how long the due events may run each frame. At least one event
+     * runs every frame, however long it takes.
+     * 
+     * @param milliseconds
+     *            time budget, 0 or less to run every due event in the frame
+     *            it became due
+     */
+    public void setFrameBudget(float milliseconds) {
+        mBudgetNanos = (milliseconds > 0) ? (long) (milliseconds * 1000000)
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets how long the due events may run each frame.
+     * 
+     * @return time budget in milliseconds, 0 if unlimited
+     */
+    public float getFrameBudget() {
+        long budget = mBudgetNanos;
+        return (budget == Long.MAX_VALUE) ? 0 : budget / 1000000.0f;
+    }
+
+    /**
+     * Gets the number of executions which had to wait for a later frame than
+     * the one they were due in, because the frame budget was used up.
+     * 
+     * @return number of late executions since the engine was created
+     */
+    public long getLateCount() {
+        return mLateCount;
+    }
+
+    /**
+     * Gets the number of executions of periodic events which were skipped
+     * because the event was running more than a period behind.
+     * 
+     * @return number of skipped executions since the engine was created
+     */
+    public long getSkippedCount() {
+        return mSkippedCount;
+    }
+
     /**
      * Optional callback that you can supply to
      * {@link GVRPeriodicEngine#runEvery(Runnable, float, float, KeepRunning)}.
@@ -328,157 +425,284 @@ public class GVRPeriodicEngine {
         void runEvery(float delay, float period, KeepRunning callback);
     }
 
-    private interface EventImplementation extends PeriodicEvent,
-            Comparable<EventImplementation>, Runnable {
-        float getScheduledTime();
-    }
-
     /**
      * The periodic engine's time base.
      * 
-     * Unit is seconds.
+     * Unit is nanoseconds.
      */
-    private static float now() {
-        return System.nanoTime() / 1e9f;
+    private static long now() {
+        return System.nanoTime();
     }
 
-    private class DrawFrameListener implements GVRDrawFrameListener {
+    private static long toNanos(float seconds) {
+        return (long) (seconds * 1e9);
+    }
 
-        @Override
-        public void onDrawFrame(float frameTime) {
-            float now = GVRPeriodicEngine.now();
-            synchronized (mQueue) {
-                for (EventImplementation //
-                first = mQueue.peek(); //
-                first != null && first.getScheduledTime() <= now; //
-                first = mQueue.peek() //
-                ) {
+    private static int bits(int level) {
+        return level == 0 ? LEVEL0_BITS : LEVEL_BITS;
+    }
 
-                    mContext.runOnGlThread(mQueue.poll());
+    /** First tick at which an event scheduled at {@code time} is due */
+    private long dueTick(long time) {
+        long elapsed = time - mStartNanos;
+        return elapsed <= 0 ? 0 : (elapsed + TICK_NANOS - 1) / TICK_NANOS;
+    }
 
-                }
-            }
+    /*
+     * Wheel management, on the GL thread
+     */
+
+    private void file(Event event) {
+        long tick = dueTick(event.mDue);
+        long delta = tick - mCurrentTick;
+
+        if (delta < 0) {
+            event.mReadyFrame = mFrame;
+            mReady.append(event);
+            return;
+        }
+        if (delta >= WHEEL_SPAN) {
+            delta = WHEEL_SPAN - 1;
+            tick = mCurrentTick + delta;
         }
-    }
 
-    private class Event implements EventImplementation {
+        int level = 0;
+        int shift = 0;
+        while (delta >= 1L << (shift + bits(level))) {
+            shift += bits(level);
+            level += 1;
+        }
+        int bucket = (int) (tick >>> shift) & ((1 << bits(level)) - 1);
+        mWheel[level][bucket].append(event);
+    }
 
-        /*
-         * Task, and run-count
-         */
+    private void unfile(Event event) {
+        if (event.isLinked()) {
+            event.unlink();
+            mFiledCount -= 1;
+        }
+    }
 
-        private final Runnable mTask;
-        private int mRunCount = 0;
+    /**
+     * Files an event which was scheduled, rescheduled or canceled since it
+     * was last filed.
+     */
+    private void refile(Event event) {
+        Schedule schedule = event.mSchedule.get();
+        if (schedule == event.mFiled) {
+            return; // Already up to date
+        }
 
-        /**
-         * Special flag, used to adjust {@link #mRunCount} if
-         * {@link PeriodicEvent#runEvery(float, float, int)} is called from
-         * within {@link #mTask}.
-         */
-        private boolean mRunning = false;
+        unfile(event);
+        if (schedule != null) {
+            event.mDue = schedule.mFirst;
+            file(event);
+            mFiledCount += 1;
+        }
+        event.mFiled = schedule;
+    }
 
-        /*
-         * Queue management
-         */
+    /** Moves the events of a bucket down the wheel, or to the ready list */
+    private void cascade(Node bucket) {
+        bucket.moveTo(mCascade);
+        while (mCascade.isEmpty() != true) {
+            Event event = (Event) mCascade.mNext;
+            event.unlink();
+            if (dueTick(event.mDue) <= mCurrentTick) {
+                event.mReadyFrame = mFrame;
+                mReady.append(event);
+            } else {
+                file(event);
+            }
+        }
+    }
 
-        /**
-         * Set by {@link #cancel()} to assure that events canceled from non-GL
-         * thread during execution are not rescheduled.
-         */
-        private boolean mCanceled = false;
+    private void advance(long now) {
+        final long nowTick = (now - mStartNanos) / TICK_NANOS;
 
-        private void lockedEnqueue() {
-            if (mCanceled != true) {
-                mQueue.add(this);
+        if (mFiledCount == 0) {
+            mCurrentTick = Math.max(mCurrentTick, nowTick + 1);
+            return;
+        }
+        for (; mCurrentTick <= nowTick; ++mCurrentTick) {
+            // At the end of a turn, bring the next bucket of the level above
+            int shift = 0;
+            for (int level = 1; level < LEVELS; ++level) {
+                shift += bits(level - 1);
+                if ((mCurrentTick & ((1L << shift) - 1)) != 0) {
+                    break;
+                }
+                int bucket = (int) (mCurrentTick >>> shift)
+                        & ((1 << bits(level)) - 1);
+                cascade(mWheel[level][bucket]);
             }
+            cascade(mWheel[0][(int) mCurrentTick & ((1 << LEVEL0_BITS) - 1)]);
         }
+    }
 
-        private void lockedDequeue() {
-            mQueue.remove(this);
+    private void runReady(long start) {
+        long deadline = start + mBudgetNanos;
+        if (deadline < start) {
+            deadline = Long.MAX_VALUE; // overflow of an unlimited budget
         }
 
-        private void enqueue() {
-            synchronized (mQueue) {
-                lockedEnqueue();
+        while (mReady.isEmpty() != true) {
+            Event event = (Event) mReady.mNext;
+            unfile(event);
+            if (event.mSchedule.get() != event.mFiled) {
+                continue; // Changed since it was filed: refiled next frame
             }
-        }
 
-        @SuppressWarnings("unused")
-        private void dequeue() {
-            synchronized (mQueue) {
-                lockedDequeue();
+            if (event.mReadyFrame != mFrame) {
+                mLateCount += 1;
+            }
+            try {
+                event.run();
+            } catch (Exception e) {
+                Log.e(TAG, "Periodic event %s threw %s", event.mTask, e.toString());
+                e.printStackTrace();
+                event.stop(event.mFiled);
+            }
+            if (now() >= deadline) {
+                break;
             }
         }
+    }
 
-        /*
-         * Scheduling fields.
-         * 
-         * A run-once event has an mPeriod == UNSCHEDULED.
-         * 
-         * We allow the user to change the scheduling at any time. To assure
-         * consistency, neither constructors nor the rescheduling methods set
-         * these fields directly: both go through setDelay() or setRepeat().
-         */
+    private class DrawFrameListener implements GVRDrawFrameListener {
 
-        private float mTimeBase;
-        private float mScheduledTime;
-        private float mPeriod;
-        private KeepRunning mCallback;
+        @Override
+        public void onDrawFrame(float frameTime) {
+            mFrame += 1;
+            for (Event event = mIncoming.poll(); event != null; event = mIncoming
+                    .poll()) {
+                refile(event);
+            }
 
-        private void setDelay(float delay) {
-            mTimeBase = now();
-            schedule(mTimeBase + delay);
-            mPeriod = UNSCHEDULED;
-            mCallback = null;
+            long now = now();
+            advance(now);
+            runReady(now);
         }
+    }
 
-        private void setRepeat(float delay, float period, KeepRunning callback) {
-            mTimeBase = now();
-            schedule(mTimeBase + delay);
-            mPeriod = period;
-            mCallback = callback;
+    /**
+     * Links of the lists of events. A bucket, or the ready list, is a node
+     * linked to itself; an event which is in no list has null links.
+     */
+    private static class Node {
+        Node mPrev = null;
+        Node mNext = null;
+
+        static Node newList() {
+            Node list = new Node();
+            list.mPrev = list;
+            list.mNext = list;
+            return list;
         }
 
-        private void schedule(float time) {
-            mScheduledTime = time;
-            mCanceled = false;
+        boolean isEmpty() {
+            return mNext == this;
         }
 
-        private void deschedule() {
-            mScheduledTime = UNSCHEDULED;
+        boolean isLinked() {
+            return mNext != null;
         }
 
-        private void reschedule() {
-            if (repeats()) {
-                if (mCallback != null && mCallback.keepRunning(this) != true) {
-                    return; // Do NOT reschedule
-                }
+        void append(Node node) {
+            node.mPrev = mPrev;
+            node.mNext = this;
+            mPrev.mNext = node;
+            mPrev = node;
+        }
 
-                float next = mTimeBase + (((now() - mTimeBase) / mPeriod) + 1)
-                        * mPeriod;
-                schedule(next);
-                enqueue();
-            }
+        void unlink() {
+            mPrev.mNext = mNext;
+            mNext.mPrev = mPrev;
+            mPrev = null;
+            mNext = null;
         }
 
-        private boolean enqueued() {
-            synchronized (mQueue) {
-                for (EventImplementation event : mQueue) {
-                    if (this == event) {
-                        return true;
-                    }
-                }
+        /** Moves all the nodes of this list to the end of another */
+        void moveTo(Node list) {
+            if (isEmpty()) {
+                return;
             }
-            // else
-            return false;
+            Node first = mNext, last = mPrev;
+            first.mPrev = list.mPrev;
+            list.mPrev.mNext = first;
+            last.mNext = list;
+            list.mPrev = last;
+            mPrev = this;
+            mNext = this;
         }
+    }
+
+    /**
+     * When and how often an event runs. A run-once event has an
+     * {@code mPeriod} of 0. Schedules are immutable: rescheduling an event
+     * swaps its schedule for a new one, which is how the GL thread notices.
+     */
+    private static class Schedule {
+        final long mFirst;
+        final long mPeriod;
+        final KeepRunning mCallback;
 
-        private boolean scheduled() {
-            return mScheduledTime != UNSCHEDULED;
+        Schedule(long first, long period, KeepRunning callback) {
+            mFirst = first;
+            mPeriod = period;
+            mCallback = callback;
         }
+    }
+
+    private class Event extends Node implements PeriodicEvent {
 
-        private boolean repeats() {
-            return mPeriod != UNSCHEDULED;
+        /*
+         * Task, and run-count
+         */
+
+        private final Runnable mTask;
+        private int mRunCount = 0;
+
+        /**
+         * Special flag, used to adjust {@link #mRunCount} if
+         * {@link PeriodicEvent#runEvery(float, float, int)} is called from
+         * within {@link #mTask}.
+         */
+        private boolean mRunning = false;
+
+        /*
+         * Scheduling fields.
+         * 
+         * Any thread may set mSchedule, to null when the event is canceled,
+         * and then posts the event to mIncoming. The GL thread files the
+         * event on the wheel by mDue, the next execution of the schedule it
+         * last filed, mFiled.
+         */
+
+        private final AtomicReference<Schedule> mSchedule = new AtomicReference<Schedule>();
+        private volatile Schedule mFiled = null;
+        private volatile long mDue;
+        private long mReadyFrame;
+
+        private void post(Schedule schedule) {
+            mSchedule.set(schedule);
+            mIncoming.add(this);
+        }
+
+        private void setDelay(float delay) {
+            post(new Schedule(now() + toNanos(delay), 0, null));
+        }
+
+        private void setRepeat(float delay, float period, KeepRunning callback) {
+            post(new Schedule(now() + toNanos(delay), Math.max(
+                    toNanos(period), 1), callback));
+        }
+
+        /** Unschedules the event, unless it was rescheduled meanwhile */
+        private void stop(Schedule schedule) {
+            if (mSchedule.compareAndSet(schedule, null)) {
+                mFiled = null;
+            }
         }
 
         /*
@@ -488,16 +712,12 @@ public class GVRPeriodicEngine {
         private Event(Runnable task, float delay) {
             mTask = task;
             setDelay(delay);
-
-            enqueue();
         }
 
         private Event(Runnable task, float delay, float period,
                 KeepRunning callback) {
             mTask = task;
             setRepeat(delay, period, callback);
-
-            enqueue();
         }
 
         /*
@@ -511,27 +731,23 @@ public class GVRPeriodicEngine {
 
         @Override
         public float getCurrentWait() {
-            return scheduled() ? mScheduledTime - now() : UNSCHEDULED;
+            Schedule schedule = mSchedule.get();
+            if (schedule == null) {
+                return UNSCHEDULED;
+            }
+            long due = schedule == mFiled ? mDue : schedule.mFirst;
+            return (due - now()) / 1e9f;
         }
 
         @Override
         public void cancel() {
-            synchronized (mQueue) {
-                deschedule();
-                lockedDequeue();
-                mCanceled = true;
-            }
+            post(null);
         }
 
         @Override
         public void runAfter(float delay) {
             validateDelay(delay);
-
-            synchronized (mQueue) {
-                lockedDequeue();
-                setDelay(delay);
-                lockedEnqueue();
-            }
+            setDelay(delay);
         }
 
         @Override
@@ -549,56 +765,53 @@ public class GVRPeriodicEngine {
         public void runEvery(float delay, float period, KeepRunning callback) {
             validateDelay(delay);
             validatePeriod(period);
-
-            synchronized (mQueue) {
-                lockedDequeue();
-                setRepeat(delay, period, callback);
-                lockedEnqueue();
-            }
-        }
-
-        /*
-         * EventImplementation
-         */
-
-        @Override
-        public float getScheduledTime() {
-            return mScheduledTime;
+            setRepeat(delay, period, callback);
         }
 
         /*
-         * Comparable<EventImplementation>
+         * Execution, on the GL thread
          */
 
-        @Override
-        public int compareTo(EventImplementation other) {
-            final float delta = getScheduledTime() - other.getScheduledTime();
-            return delta < 0 ? -1 : (delta == 0 ? 0 : 1);
-        }
-
-        /*
-         * Runnable
-         */
+        private void run() {
+            final Schedule schedule = mFiled;
 
-        @Override
-        public void run() {
             mRunning = true;
-            mTask.run();
-            mRunning = false;
+            try {
+                mTask.run();
+            } finally {
+                mRunning = false;
+            }
             mRunCount += 1;
 
             /*
-             * Normally, the event will NOT be enqueued at this point. But, if
-             * the event has rescheduled itself (using the PeriodicEvent
-             * returned when it was created) then it WILL be enqueued, and we
-             * shouldn't re-enqueue it.
+             * If the event was rescheduled or canceled while it ran, it has
+             * been posted to mIncoming and must not be filed again here.
              */
-            if (enqueued() != true) {
-                deschedule();
-                reschedule();
+            if (mSchedule.get() != schedule) {
+                return;
+            }
+            if (schedule.mPeriod == 0
+                    || (schedule.mCallback != null && schedule.mCallback
+                            .keepRunning(this) != true)) {
+                stop(schedule);
+                return;
+            }
+            if (mSchedule.get() != schedule) {
+                return; // Rescheduled by the callback
             }
-        }
 
+            final long period = schedule.mPeriod;
+            final long now = now();
+            long next = mDue + period;
+            if (next <= now) {
+                long missed = (now - next) / period + 1;
+                next += missed * period;
+                mSkippedCount += missed;
+            }
+            mDue = next;
+            file(this);
+            mFiledCount += 1;
+        }
     }
 
     private static class RunFor implements KeepRunning {
@@ -3,6 +3,8 @@ package org.gearvrf.script;
 import java.io.IOException;
 import java.io.InputStream;
 
+import javax.script.Invocable;
+
 import org.gearvrf.GVRContext;
 
 /**
@@ -53,6 +55,11 @@ public class GVRJavascriptScriptFile extends GVRScriptFile {
         setScriptText(scriptText);
     }
     
+    @Override
+    protected boolean isInvocable() {
+        return mLocalEngine instanceof Invocable;
+    }
+
     protected String getInvokeStatement(String eventName, Object[] params) {
         StringBuilder sb = new StringBuilder();
 
@@ -206,6 +206,30 @@ public class GVRScriptBehavior extends GVRBehavior implements IPickEvents, ISens
         invokeFunction("onStep", noargs);
     }
 
+    /**
+     * Script behaviors are stepped together by the script manager
+     * instead of each one being a draw frame listener.
+     */
+    @Override
+    protected void startListening()
+    {
+        if (mHasFrameCallback && !mIsListening)
+        {
+            getGVRContext().getScriptManager().addStepBehavior(this);
+            mIsListening = true;
+        }
+    }
+
+    @Override
+    protected void stopListening()
+    {
+        if (mIsListening)
+        {
+            getGVRContext().getScriptManager().removeStepBehavior(this);
+            mIsListening = false;
+        }
+    }
+
     public void onEnter(GVRSceneObject sceneObj, GVRPicker.GVRPickedObject hit)
     {
          if ((sceneObj == getOwnerObject()) && !invokeFunction("onPickEnter", new Object[] { sceneObj, hit }))
@@ -25,6 +25,9 @@ import java.util.Set;
 import java.util.TreeMap;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.Invocable;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
@@ -78,6 +81,9 @@ public abstract class GVRScriptFile {
     // Cache for function invocation statements
     protected final Map<String, String> mInvokeStatementCache;
 
+    // Cache for compiled function invocation statements
+    protected final Map<String, CompiledScript> mCompiledStatementCache;
+
     /**
      * Constructor.
      *
@@ -92,6 +98,7 @@ public abstract class GVRScriptFile {
         mGvrContext = gvrContext;
         mLanguage = language;
         mInvokeStatementCache = new TreeMap<String, String>();
+        mCompiledStatementCache = new TreeMap<String, CompiledScript>();
 
         // Get an engine because some impl. requires a new engine to
         // enforce context
@@ -179,8 +186,6 @@ public abstract class GVRScriptFile {
             return false;
         }
 
-        String statement = getInvokeStatementCached(funcName, params);
-
         synchronized (mEngineLock) {
             localBindings = mLocalEngine.getBindings(ScriptContext.ENGINE_SCOPE);
             if (localBindings == null) {
@@ -189,10 +194,32 @@ public abstract class GVRScriptFile {
             }
         }
 
+        // Call the function directly if the engine allows it, the
+        // parameters are passed as they are without going through bindings
+        if (isInvocable()) {
+            try {
+                ((Invocable) mLocalEngine).invokeFunction(funcName, params);
+            } catch (NoSuchMethodException e) {
+                addBadFunction(funcName);
+                mLastError = funcName + " is not defined";
+                return false;
+            } catch (ScriptException e) {
+                addBadFunction(funcName);
+                mLastError = e.getMessage();
+                return false;
+            }
+            return true;
+        }
+
         fillBindings(localBindings, params);
 
         try {
-            mLocalEngine.eval(statement);
+            CompiledScript compiled = getCompiledStatementCached(funcName, params);
+            if (compiled != null) {
+                compiled.eval();
+            } else {
+                mLocalEngine.eval(getInvokeStatementCached(funcName, params));
+            }
         } catch (ScriptException e) {
             // The function is either undefined or throws, avoid invoking it later
             addBadFunction(funcName);
@@ -205,6 +232,17 @@ public abstract class GVRScriptFile {
         return true;
     }
 
+    /**
+     * Tells whether script functions can be called directly through
+     * {@link Invocable} instead of evaluating an invocation statement.
+     * The engine must see the same global variables either way.
+     *
+     * @return true to use {@link Invocable#invokeFunction(String, Object...)}
+     */
+    protected boolean isInvocable() {
+        return false;
+    }
+
     /**
      * Access to values modified during invoking of Script file
      * Enables X3D to get values script modifies..
@@ -298,5 +336,22 @@ public abstract class GVRScriptFile {
         }
     }
 
+    private final CompiledScript getCompiledStatementCached(String eventName, Object[] params)
+            throws ScriptException {
+        if (!(mLocalEngine instanceof Compilable)) {
+            return null;
+        }
+        synchronized (mCompiledStatementCache) {
+            CompiledScript compiled = mCompiledStatementCache.get(eventName);
+            if (compiled == null) {
+                String statement = getInvokeStatementCached(eventName, params);
+                compiled = ((Compilable) mLocalEngine).compile(statement);
+                mCompiledStatementCache.put(eventName, compiled);
+            }
+
+            return compiled;
+        }
+    }
+
     protected abstract String getInvokeStatement(String eventName, Object[] params);
 }
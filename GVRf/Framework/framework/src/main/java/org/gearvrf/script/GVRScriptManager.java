@@ -20,20 +20,26 @@ import com.naef.jnlua.script.LuaScriptEngineFactory;
 import org.gearvrf.GVRAndroidResource;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRContextProxy;
+import org.gearvrf.GVRDrawFrameListener;
 import org.gearvrf.GVREventListeners;
 import org.gearvrf.GVRMain;
 import org.gearvrf.GVRResourceVolume;
 import org.gearvrf.GVRScene;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.IScriptEvents;
+import org.gearvrf.debug.GVRProfiler;
 import org.gearvrf.script.javascript.RhinoScriptEngineFactory;
+import org.gearvrf.utility.Log;
+import org.mozilla.javascript.Context;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.script.Bindings;
 import javax.script.ScriptContext;
@@ -57,6 +63,16 @@ public class GVRScriptManager {
 
     protected Map<IScriptable, GVRScriptFile> mScriptMap;
 
+    // Script behaviors with an onStep function, all stepped from one
+    // draw frame listener
+    protected final List<GVRScriptBehavior> mStepBehaviors = new CopyOnWriteArrayList<GVRScriptBehavior>();
+    private final GVRDrawFrameListener mStepListener = new GVRDrawFrameListener() {
+        @Override
+        public void onDrawFrame(float frameTime) {
+            stepBehaviors(frameTime);
+        }
+    };
+
     // For script bundles. All special targets start with @.
     public static final String TARGET_PREFIX = "@";
     public static final String TARGET_GVRMAIN = "@GVRMain";
@@ -208,6 +224,46 @@ public class GVRScriptManager {
         return mScriptMap.get(target);
     }
 
+    void addStepBehavior(GVRScriptBehavior behavior) {
+        synchronized (mStepBehaviors) {
+            if (mStepBehaviors.isEmpty()) {
+                mGvrContext.registerDrawFrameListener(mStepListener);
+            }
+            mStepBehaviors.add(behavior);
+        }
+    }
+
+    void removeStepBehavior(GVRScriptBehavior behavior) {
+        synchronized (mStepBehaviors) {
+            if (mStepBehaviors.remove(behavior) && mStepBehaviors.isEmpty()) {
+                mGvrContext.unregisterDrawFrameListener(mStepListener);
+            }
+        }
+    }
+
+    /*
+     * Calls onStep for every script behavior. The Javascript context is
+     * entered once for the whole batch, so each function call only
+     * increments its nesting count.
+     */
+    private void stepBehaviors(float frameTime) {
+        long startTime = GVRProfiler.SCRIPT.begin();
+        Context.enter();
+        try {
+            for (GVRScriptBehavior behavior : mStepBehaviors) {
+                try {
+                    behavior.onDrawFrame(frameTime);
+                } catch (final Exception exc) {
+                    Log.e(TAG, "Script behavior %s threw %s", behavior, exc.toString());
+                    exc.printStackTrace();
+                }
+            }
+        } finally {
+            Context.exit();
+        }
+        GVRProfiler.SCRIPT.end(startTime);
+    }
+
     /**
      * Loads a script file using {@link GVRAndroidResource}.
      * @param resource The resource object.
@@ -72,6 +72,14 @@ public class RhinoScriptEngine extends AbstractScriptEngine
     private ScriptEngineFactory factory;
     private InterfaceImplementor implementor;
 
+    /* runtime scope of the last script context used. Creating a scope
+     * evaluates the print function, which is too costly to repeat on
+     * every function call. The scope keeps no state of its own, it
+     * reads and writes the bindings of its context.
+     */
+    private Scriptable cachedScope;
+    private ScriptContext cachedScopeContext;
+
     /*
     // in Phobos we want to support all javascript features
     static {
@@ -297,6 +305,11 @@ public class RhinoScriptEngine extends AbstractScriptEngine
         if (ctxt == null) {
             throw new NullPointerException("null script context");
         }
+        synchronized (this) {
+            if (ctxt == cachedScopeContext) {
+                return cachedScope;
+            }
+        }
 
         // we create a scope for the given ScriptContext
         Scriptable newScope = new ExternalScriptable(ctxt, indexedProps);
@@ -319,6 +332,10 @@ public class RhinoScriptEngine extends AbstractScriptEngine
         } finally {
             cx.exit();
         }
+        synchronized (this) {
+            cachedScope = newScope;
+            cachedScopeContext = ctxt;
+        }
         return newScope;
     }
     
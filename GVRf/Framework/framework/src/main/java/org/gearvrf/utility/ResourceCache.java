@@ -38,6 +38,22 @@ import org.gearvrf.GVRTexture;
 public class ResourceCache<T extends GVRHybridObject> extends ResourceCacheBase {
     private static final String TAG = Log.tag(ResourceCache.class);
 
+    /** Create a cache which only keeps weak references */
+    public ResourceCache() {
+        super();
+    }
+
+    /**
+     * Create a cache which keeps recently used resources in memory.
+     *
+     * @param maxSize
+     *            Budget in bytes for the resources kept in memory, 0 to only
+     *            keep weak references.
+     */
+    public ResourceCache(long maxSize) {
+        super(maxSize);
+    }
+
     /** Save a weak reference to the resource */
     public void put(GVRAndroidResource androidResource, T resource) {
         Log.d(TAG, "put resource %s to cache", androidResource);
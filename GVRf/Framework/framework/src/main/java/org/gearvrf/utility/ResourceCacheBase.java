@@ -16,16 +16,28 @@
 package org.gearvrf.utility;
 
 import org.gearvrf.GVRAndroidResource;
+import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRTexture;
 
 import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Basic cache-by-resource-description.
  *
  * Keeps system from reloading resources, so long as a previous copy is still in
  * memory.
+ * <p>
+ * By default only weak references are kept, so a resource is dropped from the
+ * cache at the first garbage collection after the application stops using it.
+ * A cache with a size budget (see {@link #setMaxSize(long)}) also keeps the most
+ * recently used resources strongly reachable until their estimated sizes add up
+ * to the budget. When the budget is exceeded, the least recently used
+ * resources are evicted back to weak references.
  *
  * @since 2.0.2
  */
@@ -35,30 +47,178 @@ public class ResourceCacheBase<T> {
     private final Map<GVRAndroidResource, WeakReference<T>> cache //
             = new ConcurrentHashMap<GVRAndroidResource, WeakReference<T>>();
 
+    /* Strongly held entries in access order, guarded by itself */
+    private final LinkedHashMap<GVRAndroidResource, Entry<T>> lru //
+            = new LinkedHashMap<GVRAndroidResource, Entry<T>>(16, 0.75f, true);
+    private long maxSize;
+    private long size;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private static final class Entry<T> {
+        final T resource;
+        final long size;
+
+        Entry(T resource, long size) {
+            this.resource = resource;
+            this.size = size;
+        }
+    }
+
+    /** Create a cache which only keeps weak references */
+    public ResourceCacheBase() {
+        this(0);
+    }
+
+    /**
+     * Create a cache which keeps recently used resources in memory.
+     *
+     * @param maxSize
+     *            Budget in bytes for the resources kept in memory, 0 to only
+     *            keep weak references.
+     */
+    public ResourceCacheBase(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
     /** Save a weak reference to the resource */
     public void put(GVRAndroidResource androidResource, T resource) {
         Log.d(TAG, "put resource %s to cache", androidResource);
 
         cache.put(androidResource, new WeakReference<T>(resource));
+        long resourceSize = (getMaxSize() > 0) ? sizeOf(resource) : 0;
+
+        synchronized (lru) {
+            Entry<T> previous = lru.remove(androidResource);
+            if (previous != null) {
+                size -= previous.size;
+            }
+            if (maxSize > 0 && resourceSize > 0) {
+                if (resourceSize <= maxSize) {
+                    lru.put(androidResource, new Entry<T>(resource, resourceSize));
+                    size += resourceSize;
+                    trimTo(maxSize);
+                }
+            }
+        }
     }
 
     /** Get the cached resource, or {@code null} */
     public T get(GVRAndroidResource androidResource) {
-        WeakReference<T> reference = cache.get(androidResource);
-        if (reference == null) {
-            // Not in map
-            // Log.d(TAG, "get(%s) returning %s", androidResource, null);
-            return null;
+        T cached = null;
+
+        synchronized (lru) {
+            // Touch the entry, to make it the most recently used one
+            Entry<T> entry = lru.get(androidResource);
+            if (entry != null) {
+                cached = entry.resource;
+            }
+        }
+
+        if (cached == null) {
+            WeakReference<T> reference = cache.get(androidResource);
+            if (reference == null) {
+                // Not in map
+                // Log.d(TAG, "get(%s) returning %s", androidResource, null);
+                missCount.incrementAndGet();
+                return null;
+            }
+            cached = reference.get();
         }
-        T cached = reference.get();
         if (cached == null) {
             // In map, but not in memory
             cache.remove(androidResource);
+            missCount.incrementAndGet();
         } else {
             // No one will ever read this stream
             androidResource.closeStream();
+            hitCount.incrementAndGet();
         }
         // Log.d(TAG, "get(%s) returning %s", androidResource, cached);
         return cached;
     }
+
+    /**
+     * Set the budget for resources kept in memory. Lowering the budget
+     * evicts the least recently used resources right away.
+     *
+     * @param maxSize
+     *            Budget in bytes, 0 to only keep weak references.
+     */
+    public void setMaxSize(long maxSize) {
+        synchronized (lru) {
+            this.maxSize = maxSize;
+            trimTo(maxSize);
+        }
+    }
+
+    /** @return The budget in bytes for resources kept in memory */
+    public long getMaxSize() {
+        synchronized (lru) {
+            return maxSize;
+        }
+    }
+
+    /** @return The estimated size in bytes of the resources kept in memory */
+    public long getSize() {
+        synchronized (lru) {
+            return size;
+        }
+    }
+
+    /** @return The number of {@link #get} calls which found the resource */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /** @return The number of {@link #get} calls which returned {@code null} */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /** @return The number of resources evicted to stay within the budget */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /** Drop all resources kept in memory and reset the counters */
+    public void clear() {
+        synchronized (lru) {
+            lru.clear();
+            size = 0;
+        }
+        cache.clear();
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+    }
+
+    /**
+     * Estimate the memory used by a resource. Override to account for
+     * resource types this class does not know.
+     *
+     * @return The size in bytes, which should be at least 1.
+     */
+    protected long sizeOf(T resource) {
+        if (resource instanceof GVRByteArray) {
+            return Math.max(1, ((GVRByteArray) resource).getByteArray().length);
+        } else if (resource instanceof GVRTexture) {
+            return Math.max(1, ((GVRTexture) resource).getDataSize());
+        } else if (resource instanceof GVRMesh) {
+            return Math.max(1, ((GVRMesh) resource).getDataSize());
+        }
+        return 1;
+    }
+
+    private void trimTo(long budget) {
+        Iterator<Entry<T>> iterator = lru.values().iterator();
+        while (size > budget && iterator.hasNext()) {
+            Entry<T> eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.size;
+            evictionCount.incrementAndGet();
+        }
+    }
 }
@@ -22,6 +22,7 @@ import org.gearvrf.GVRCursorController;
 import org.gearvrf.io.GVRControllerType;
 import org.gearvrf.io.GVRInputManager;
 import org.gearvrf.utility.Log;
+import org.gearvrf.utility.Threads;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -33,6 +34,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 
 import javax.xml.parsers.SAXParser;
@@ -53,6 +55,7 @@ import org.gearvrf.GVRDirectLight;
 import org.gearvrf.GVRLODGroup;
 import org.gearvrf.GVRMaterial;
 import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRScene;
 import org.gearvrf.GVRPerspectiveCamera;
 import org.gearvrf.GVRPhongShader;
 import org.gearvrf.GVRPointLight;
@@ -162,6 +165,7 @@ public class X3Dobject {
     private GVRSceneObject meshAttachedSceneObject = null;
     private GVRRenderData gvrRenderData = null;
     private GVRMesh gvrMesh = null;
+    private boolean gvrMeshShared = false; // DEFined or USEd IndexedFaceSet
     private GVRMaterial gvrMaterial = null;
     private boolean gvrMaterialUSEd = false; // for DEFine and USE gvrMaterial for
     // x3d APPEARANCE and MATERIAL nodes
@@ -198,6 +202,13 @@ public class X3Dobject {
 
     private Vector<InlineObject> inlineObjects = new Vector<InlineObject>();
 
+    // When loading progressively, top level nodes are added to this scene
+    // disabled and are enabled once their end tag and meshes are complete.
+    private GVRScene progressiveScene = null;
+    private ArrayList<GVRSceneObject> pendingSceneObjects = new ArrayList<GVRSceneObject>();
+    // IndexedFaceSet meshes being built and top level nodes waiting on them
+    private ArrayList<Future<?>> backgroundTasks = new ArrayList<Future<?>>();
+
 
     /**
      * public list of <Viewpoints> since camera position can be
@@ -272,6 +283,17 @@ public class X3Dobject {
      * enables getting to the root of the scene graph by
      * calling GVRSceneObject.getSceneObjectByName(X3D_ROOT_NODE);
      */
+    // The vertex data of one IndexedFaceSet, so the mesh can be built
+    // on another thread while parsing continues with fresh lists.
+    private static class IndexedFaceSetData {
+        Vector<Vertex> vertices;
+        Vector<VertexNormal> vertexNormal;
+        Vector<TextureValues> textureCoord;
+        Vector<Coordinates> indexedFaceSet;
+        ArrayList<Integer> texcoordIndices;
+        ArrayList<Integer> normalIndices;
+    };
+
     /*********************************************/
     /********** X3Dobject Constructor ************/
     /*********************************************/
@@ -313,6 +335,18 @@ public class X3Dobject {
     } // end Constructor
 
 
+    /**
+     * Attach the X3D root to the scene while parsing.
+     * Each top level node is shown when it has been completely parsed
+     * and its meshes have been constructed, which happens in the
+     * background while the parser moves on to the next node.
+     * @param scene scene to add the X3D root to, null to disable
+     */
+    public void setProgressiveScene(GVRScene scene) {
+        progressiveScene = scene;
+    }
+
+
     /*********************************************/
     /********** Utility Functions to *************/
     /************* Assist Parsing ****************/
@@ -381,6 +415,25 @@ public class X3Dobject {
         indexedVertexNormals.add(newCoordinates);
     }
 
+    // Hand the current IndexedFaceSet lists over to the caller and
+    //   start new ones for the next IndexedFaceSet
+    private IndexedFaceSetData takeIndexedFaceSetData() {
+        IndexedFaceSetData data = new IndexedFaceSetData();
+        data.vertices = vertices;
+        data.vertexNormal = vertexNormal;
+        data.textureCoord = textureCoord;
+        data.indexedFaceSet = indexedFaceSet;
+        data.texcoordIndices = texcoordIndices;
+        data.normalIndices = normalIndices;
+        vertices = new Vector<Vertex>();
+        vertexNormal = new Vector<VertexNormal>();
+        textureCoord = new Vector<TextureValues>();
+        indexedFaceSet = new Vector<Coordinates>();
+        texcoordIndices = new ArrayList<Integer>();
+        normalIndices = new ArrayList<Integer>();
+        return data;
+    }
+
     private Coordinates GetIndexedVertexNormals(int index)
 
     {
@@ -704,9 +757,14 @@ public class X3Dobject {
 
         private GVRSceneObject AddGVRSceneObject() {
             GVRSceneObject newObject = new GVRSceneObject(gvrContext);
-            if (currentSceneObject == null)
+            if (currentSceneObject == null) {
+                if (progressiveScene != null) {
+                    // hidden until the whole node has been parsed
+                    newObject.setEnable(false);
+                    pendingSceneObjects.add(newObject);
+                }
                 root.addChildObject(newObject);
-            else
+            } else
                 currentSceneObject.addChildObject(newObject);
             return newObject;
 
@@ -1174,9 +1232,11 @@ public class X3Dobject {
                     if (useItem != null) {
                         gvrMesh = useItem.getGVRMesh();
                     }
+                    gvrMeshShared = true;
                 } else {
                     gvrMesh = new GVRMesh(gvrContext);
                     attributeValue = attributes.getValue("DEF");
+                    gvrMeshShared = (attributeValue != null);
                     if (attributeValue != null) {
                         DefinedItem definedItem = new DefinedItem(attributeValue);
                         definedItem.setGVRMesh(gvrMesh);
@@ -1396,7 +1456,7 @@ public class X3Dobject {
                         parseNumbersString(vectorAttribute, X3Dobject.normalsComponent, 3);
 
                         // initialize the list
-                        char[] ifs = gvrMesh.getIndices();
+                        int[] ifs = gvrMesh.getIntIndices();
 
                         float[] normalVectorList = new float[ifs.length * 3];
                         // check if an indexedVertexNormals list is present
@@ -3322,8 +3382,20 @@ public class X3Dobject {
             } else if (qName.equalsIgnoreCase("TextureTransform")) {
                 ;
             } else if (qName.equalsIgnoreCase("IndexedFaceSet")) {
-                if (reorganizeVerts) {
-                    organizeVertices(gvrMesh);
+                if (reorganizeVerts && (progressiveScene != null) && !gvrMeshShared) {
+                    // build the mesh in the background, it stays hidden
+                    //   until its top level node is shown.
+                    final GVRMesh mesh = gvrMesh;
+                    final IndexedFaceSetData data = takeIndexedFaceSetData();
+                    backgroundTasks.add(Threads.spawn(new Callable<GVRMesh>() {
+                        public GVRMesh call() {
+                            organizeVertices(mesh, data);
+                            return mesh;
+                        }
+                    }));
+                    reorganizeVerts = false;
+                } else if (reorganizeVerts) {
+                    organizeVertices(gvrMesh, takeIndexedFaceSetData());
                     reorganizeVerts = false;
                 }
                 gvrRenderData.setMesh(gvrMesh);
@@ -3505,9 +3577,9 @@ public class X3Dobject {
         // First generate the polygon normal from the cross product of any
         // 2 lines of the polygon.  Second, for each vertex, sum the polygon
         // normals shared by this vertex
-        private void generateNormals() {
+        private void generateNormals(IndexedFaceSetData data) {
             try {
-                Vector3f[] polygonNormal = new Vector3f[indexedFaceSet.size()];
+                Vector3f[] polygonNormal = new Vector3f[data.indexedFaceSet.size()];
                 for (int i = 0; i < polygonNormal.length; i++) {
                     polygonNormal[i] = new Vector3f();
                 }
@@ -3515,11 +3587,11 @@ public class X3Dobject {
                 short[] polygonIFS = new short[3];
                 try {
                     Vertex[] polygonVertex = new Vertex[3];
-                    for (int f = 0; f < indexedFaceSet.size(); f++) {
-                        Coordinates coordinate = indexedFaceSet.get(f);
+                    for (int f = 0; f < data.indexedFaceSet.size(); f++) {
+                        Coordinates coordinate = data.indexedFaceSet.get(f);
                         polygonIFS = coordinate.getCoordinates();
                         for (int i = 0; i < 3; i++) {
-                            polygonVertex[i] = vertices.get(polygonIFS[i]);
+                            polygonVertex[i] = data.vertices.get(polygonIFS[i]);
                         }
                         // get the sides of 2 lines of this polygons
                         Vector3f side0 = new Vector3f();
@@ -3537,13 +3609,13 @@ public class X3Dobject {
                 }
                 // Calculate the vertex normals by summing & normalizing all the
                 // polygon normals who share this vertex.
-                Vector3f[] vertexNormals = new Vector3f[vertices.size()];
+                Vector3f[] vertexNormals = new Vector3f[data.vertices.size()];
                 try {
                     for (int i = 0; i < vertexNormals.length; i++) {
                         vertexNormals[i] = new Vector3f();
                         try {
-                            for (char f = 0; f < indexedFaceSet.size(); f++) {
-                                Coordinates coordinate = indexedFaceSet.get(f);
+                            for (char f = 0; f < data.indexedFaceSet.size(); f++) {
+                                Coordinates coordinate = data.indexedFaceSet.get(f);
                                 polygonIFS = coordinate.getCoordinates();
                                 for (int j = 0; j < 3; j++) {
                                     if (i == polygonIFS[j]) {
@@ -3566,13 +3638,13 @@ public class X3Dobject {
                 //   and add the normal indices to the IndexedFaceSet
                 for (Vector3f vns : vertexNormals) {
                     float[] vn = new float[]{vns.x, vns.y, vns.z};
-                    AddVertexNormal(vn);
+                    data.vertexNormal.add(new VertexNormal(vn));
                 }
-                for (char f = 0; f < indexedFaceSet.size(); f++) {
-                    Coordinates coordinate = indexedFaceSet.get(f);
+                for (char f = 0; f < data.indexedFaceSet.size(); f++) {
+                    Coordinates coordinate = data.indexedFaceSet.get(f);
                     polygonIFS = coordinate.getCoordinates();
                     for (int i = 0; i < 3; i++) {
-                        normalIndices.add((int) polygonIFS[i]);
+                        data.normalIndices.add((int) polygonIFS[i]);
                     }
                 }
             } catch (Exception e) {
@@ -3580,11 +3652,11 @@ public class X3Dobject {
             }
         }  //  end generateNormals
 
-        private void organizeVertices(GVRMesh mesh) {
-            boolean hasNormals = normalIndices.size() > 0;
-            boolean hasTexcoords = texcoordIndices.size() > 0;
+        private void organizeVertices(GVRMesh mesh, IndexedFaceSetData data) {
+            boolean hasNormals = data.normalIndices.size() > 0;
+            boolean hasTexcoords = data.texcoordIndices.size() > 0;
             Map<String, Integer> vertexMap = new LinkedHashMap<String, Integer>();
-            char[] newIndices = new char[indexedFaceSet.size() * 3];
+            char[] newIndices = new char[data.indexedFaceSet.size() * 3];
             List<Float> gvrVerts = new ArrayList<Float>();
             List<Float> gvrNormals = new ArrayList<Float>();
             List<Float> gvrTexcoords = new ArrayList<Float>();
@@ -3592,14 +3664,14 @@ public class X3Dobject {
             float maxYtextureCoordinate = Float.MIN_VALUE;
 
             if (!hasNormals) {
-                generateNormals();
+                generateNormals(data);
                 hasNormals = true;
             }
             //
             // Scan all the faces and compose the set of unique vertices
             //
-            for (char f = 0; f < indexedFaceSet.size(); f++) {
-                Coordinates coordinate = indexedFaceSet.get(f);
+            for (char f = 0; f < data.indexedFaceSet.size(); f++) {
+                Coordinates coordinate = data.indexedFaceSet.get(f);
                 float x;
                 float y;
                 float z;
@@ -3612,7 +3684,7 @@ public class X3Dobject {
                 for (char j = 0; j < 3; j++) {
                     int findex = f * 3 + j;
                     int vindex = coordinate.getCoordinate(j);
-                    Vertex srcVert = vertices.get(vindex);
+                    Vertex srcVert = data.vertices.get(vindex);
                     String key = "";
 
                     x = srcVert.getVertexCoord(0);
@@ -3620,16 +3692,16 @@ public class X3Dobject {
                     z = srcVert.getVertexCoord(2);
                     key += String.valueOf(x) + String.valueOf(y) + String.valueOf(z);
                     if (hasNormals) {
-                        int nindex = normalIndices.get(findex);
-                        VertexNormal nml = vertexNormal.get(nindex);
+                        int nindex = data.normalIndices.get(findex);
+                        VertexNormal nml = data.vertexNormal.get(nindex);
                         nx = nml.getVertexNormalCoord(0);
                         ny = nml.getVertexNormalCoord(1);
                         nz = nml.getVertexNormalCoord(2);
                         key += String.valueOf(nx) + String.valueOf(ny) + String.valueOf(nz);
                     }
                     if (hasTexcoords) {
-                        int tindex = texcoordIndices.get(findex);
-                        TextureValues tv = textureCoord.get(tindex);
+                        int tindex = data.texcoordIndices.get(findex);
+                        TextureValues tv = data.textureCoord.get(tindex);
                         u = tv.coord[0];
                         v = tv.coord[1];
                         key += String.valueOf(u) + String.valueOf(v);
@@ -3721,6 +3793,47 @@ public class X3Dobject {
 
     } // end UserHandler
 
+    /**
+     * Parser used for progressive loading. When the end tag of a top
+     * level node is reached the node is shown, after waiting in the
+     * background for the meshes which are still being built.
+     */
+    class ProgressiveHandler extends UserHandler {
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+                throws SAXException {
+            super.endElement(uri, localName, qName);
+            if ((currentSceneObject == null) && !pendingSceneObjects.isEmpty()) {
+                final ArrayList<GVRSceneObject> completed =
+                        new ArrayList<GVRSceneObject>(pendingSceneObjects);
+                // USEd render data may share a mesh from an earlier node,
+                //   so wait for every mesh started so far
+                final ArrayList<Future<?>> meshes = new ArrayList<Future<?>>(backgroundTasks);
+                pendingSceneObjects.clear();
+                backgroundTasks.add(Threads.spawn(new Runnable() {
+                    public void run() {
+                        waitFor(meshes);
+                        for (GVRSceneObject sceneObject : completed) {
+                            progressiveScene.bindShaders(sceneObject);
+                            sceneObject.setEnable(true);
+                        }
+                    }
+                }));
+            }
+        }
+    } // end ProgressiveHandler
+
+    private static void waitFor(List<Future<?>> tasks) {
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (Exception exception) {
+                Log.e(TAG, "X3D background mesh construction error: " + exception);
+            }
+        }
+    }
+
     public void Parse(InputStream inputStream, ShaderSettings shaderSettings) {
         try {
             this.shaderSettings = shaderSettings;
@@ -3728,7 +3841,15 @@ public class X3Dobject {
             // Parse the initial X3D file
             SAXParserFactory factory = SAXParserFactory.newInstance();
             SAXParser saxParser = factory.newSAXParser();
-            UserHandler userhandler = new UserHandler();
+            UserHandler userhandler;
+            if (progressiveScene != null) {
+                if (root.getParent() == null) {
+                    progressiveScene.addSceneObject(root);
+                }
+                userhandler = new ProgressiveHandler();
+            } else {
+                userhandler = new UserHandler();
+            }
             saxParser.parse(inputStream, userhandler);
 
             // parse the Inline files
@@ -3766,6 +3887,13 @@ public class X3Dobject {
         } catch (Exception exception) {
             Log.e(TAG, "X3D/XML Parsing Exception = " + exception);
         }
-
+        // wait for meshes still being built so the asset is complete
+        //   when the load event is sent
+        waitFor(backgroundTasks);
+        backgroundTasks.clear();
+        for (GVRSceneObject sceneObject : pendingSceneObjects) {
+            sceneObject.setEnable(true);
+        }
+        pendingSceneObjects.clear();
     } // end Parse
 }
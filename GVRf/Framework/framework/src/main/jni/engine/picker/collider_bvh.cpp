@@ -0,0 +1,387 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Bounding volume hierarchy over the world bounds of the colliders
+ * in a scene, used to accelerate ray picking.
+ ***************************************************************************/
+
+#include "collider_bvh.h"
+
+#include <algorithm>
+#include <limits>
+
+#include "objects/mesh.h"
+#include "objects/scene_object.h"
+#include "objects/components/collider.h"
+#include "objects/components/mesh_collider.h"
+#include "objects/components/render_data.h"
+#include "objects/components/sphere_collider.h"
+#include "objects/components/transform.h"
+
+namespace gvr {
+
+/*
+ * If more than this fraction of the colliders moved since the last
+ * update, the tree is rebuilt instead of refitted to keep it balanced.
+ */
+static const int REBUILD_FRACTION = 4;
+static const int MAX_DEPTH = 64;
+
+ColliderBVH::ColliderBVH() :
+        version_(-1),
+        root_(-1) {
+}
+
+ColliderBVH::~ColliderBVH() {
+    std::lock_guard<std::mutex> lock(dirty_mutex_);
+    unlinkLeaves();
+}
+
+void ColliderBVH::clear() {
+    std::lock_guard<std::mutex> lock(dirty_mutex_);
+    unlinkLeaves();
+    nodes_.clear();
+    leaves_.clear();
+    unbounded_.clear();
+    version_ = -1;
+    root_ = -1;
+}
+
+/*
+ * Detach the colliders from the leaves so they no longer
+ * report changes to this hierarchy.
+ * The caller must hold the dirty list lock.
+ */
+void ColliderBVH::unlinkLeaves() {
+    for (auto it = leaves_.begin(); it != leaves_.end(); ++it) {
+        Collider* collider = it->collider;
+        if ((collider != NULL) && (collider->bvh_ == this)) {
+            collider->bvh_ = NULL;
+            collider->bvh_leaf_ = -1;
+            collider->bvh_dirty_ = false;
+        }
+    }
+    dirty_.clear();
+}
+
+void ColliderBVH::markDirty(Collider* collider) {
+    std::lock_guard<std::mutex> lock(dirty_mutex_);
+    if ((collider->bvh_ == this) && !collider->bvh_dirty_) {
+        collider->bvh_dirty_ = true;
+        dirty_.push_back(collider);
+    }
+}
+
+void ColliderBVH::forget(Collider* collider) {
+    std::lock_guard<std::mutex> lock(dirty_mutex_);
+    if (collider->bvh_ != this) {
+        return;
+    }
+    if (collider->bvh_dirty_) {
+        dirty_.erase(std::remove(dirty_.begin(), dirty_.end(), collider), dirty_.end());
+    }
+    if (collider->bvh_leaf_ >= 0) {
+        leaves_[collider->bvh_leaf_].collider = NULL;
+    }
+    collider->bvh_ = NULL;
+    collider->bvh_leaf_ = -1;
+    collider->bvh_dirty_ = false;
+}
+
+void ColliderBVH::update(const std::vector<Component*>& colliders, int version) {
+    std::lock_guard<std::mutex> lock(dirty_mutex_);
+
+    if (version != version_) {
+        unlinkLeaves();
+        leaves_.clear();
+        unbounded_.clear();
+        for (auto it = colliders.begin(); it != colliders.end(); ++it) {
+            Collider* collider = reinterpret_cast<Collider*>(*it);
+            long shape = collider->shape_type();
+
+            if ((shape == COLLIDER_SHAPE_SPHERE) || (shape == COLLIDER_SHAPE_MESH)) {
+                Leaf leaf;
+                leaf.collider = collider;
+                leaf.empty = true;
+                leaf.node = -1;
+                updateLeaf(leaf);
+                collider->bvh_ = this;
+                collider->bvh_leaf_ = leaves_.size();
+                collider->bvh_dirty_ = false;
+                leaves_.push_back(leaf);
+            } else {
+                unbounded_.push_back(collider);
+            }
+        }
+        version_ = version;
+        rebuild();
+        return;
+    }
+    if (dirty_.empty()) {
+        return;
+    }
+
+    int numChanged = 0;
+    scratch_.clear();
+    for (auto it = dirty_.begin(); it != dirty_.end(); ++it) {
+        Collider* collider = *it;
+        int index = collider->bvh_leaf_;
+
+        collider->bvh_dirty_ = false;
+        if (updateLeaf(leaves_[index])) {
+            scratch_.push_back(index);
+            ++numChanged;
+        }
+    }
+    dirty_.clear();
+    if (numChanged == 0) {
+        return;
+    }
+    if (numChanged > leaves_.size() / REBUILD_FRACTION) {
+        rebuild();
+        return;
+    }
+    for (auto it = scratch_.begin(); it != scratch_.end(); ++it) {
+        const Leaf& leaf = leaves_[*it];
+        Node& node = nodes_[leaf.node];
+
+        node.min = leaf.min;
+        node.max = leaf.max;
+        refitFrom(node.parent);
+    }
+}
+
+/*
+ * Compute the bounds of the collision geometry in the
+ * coordinate system of the collider's scene object.
+ * These are the same bounds the colliders use in isHit.
+ * @return false if the collider cannot be hit
+ */
+bool ColliderBVH::computeLocalBounds(Collider* collider, glm::vec3& min, glm::vec3& max) const {
+    SceneObject* owner = collider->owner_object();
+    RenderData* rd = (owner != NULL) ? owner->render_data() : NULL;
+    Mesh* mesh = (rd != NULL) ? rd->mesh() : NULL;
+
+    if (collider->shape_type() == COLLIDER_SHAPE_SPHERE) {
+        SphereCollider* sphere = static_cast<SphereCollider*>(collider);
+        glm::vec3 center(0, 0, 0);
+        float radius = sphere->get_radius();
+
+        if (mesh != NULL) {
+            const BoundingVolume& meshbv = mesh->getBoundingVolume();
+            center = meshbv.center();
+            if (radius <= 0) {
+                radius = meshbv.radius();
+            }
+        }
+        if (radius <= 0) {
+            radius = 1;
+        }
+        min = center - glm::vec3(radius);
+        max = center + glm::vec3(radius);
+        return true;
+    }
+
+    MeshCollider* meshCollider = static_cast<MeshCollider*>(collider);
+    if (meshCollider->mesh() != NULL) {
+        mesh = meshCollider->mesh();
+    }
+    if ((owner == NULL) || (mesh == NULL)) {
+        return false;
+    }
+    const BoundingVolume& bounds = mesh->getBoundingVolume();
+    min = bounds.min_corner();
+    max = bounds.max_corner();
+    return (min.x <= max.x) && (min.y <= max.y) && (min.z <= max.z);
+}
+
+/*
+ * Recompute the world bounds of a leaf.
+ * @return true if the world bounds changed
+ */
+bool ColliderBVH::updateLeaf(Leaf& leaf) {
+    SceneObject* owner = leaf.collider->owner_object();
+    Transform* t = (owner != NULL) ? owner->transform() : NULL;
+    glm::vec3 localMin;
+    glm::vec3 localMax;
+    bool empty = !computeLocalBounds(leaf.collider, localMin, localMax);
+
+    if (empty) {
+        if (leaf.empty) {
+            return false;
+        }
+        leaf.empty = true;
+        leaf.min = glm::vec3(std::numeric_limits<float>::infinity());
+        leaf.max = glm::vec3(-std::numeric_limits<float>::infinity());
+        return true;
+    }
+    glm::mat4 model_matrix;
+    if (t != NULL) {
+        model_matrix = t->getModelMatrix();
+    }
+    glm::vec3 center = (localMin + localMax) * 0.5f;
+    glm::vec3 extent = (localMax - localMin) * 0.5f;
+    glm::mat3 absMatrix(model_matrix);
+
+    for (int i = 0; i < 3; ++i) {
+        absMatrix[i] = glm::abs(absMatrix[i]);
+    }
+    glm::vec3 worldCenter(model_matrix * glm::vec4(center, 1.0f));
+    glm::vec3 worldExtent(absMatrix * extent);
+    glm::vec3 min = worldCenter - worldExtent;
+    glm::vec3 max = worldCenter + worldExtent;
+
+    if (!leaf.empty && (min == leaf.min) && (max == leaf.max)) {
+        return false;
+    }
+    leaf.empty = false;
+    leaf.min = min;
+    leaf.max = max;
+    return true;
+}
+
+void ColliderBVH::refitFrom(int nodeIndex) {
+    while (nodeIndex >= 0) {
+        Node& node = nodes_[nodeIndex];
+        const Node& left = nodes_[node.left];
+        const Node& right = nodes_[node.right];
+
+        node.min = glm::min(left.min, right.min);
+        node.max = glm::max(left.max, right.max);
+        nodeIndex = node.parent;
+    }
+}
+
+void ColliderBVH::rebuild() {
+    nodes_.clear();
+    root_ = -1;
+    if (leaves_.empty()) {
+        return;
+    }
+    nodes_.reserve(leaves_.size() * 2);
+    scratch_.resize(leaves_.size());
+    for (int i = 0; i < leaves_.size(); ++i) {
+        scratch_[i] = i;
+    }
+    root_ = build(scratch_.data(), scratch_.size(), -1);
+}
+
+/*
+ * Build the subtree for the given leaves by splitting them
+ * at the median of their centers along the longest axis.
+ * @return index of the subtree root node
+ */
+int ColliderBVH::build(int* indices, int count, int parent) {
+    int nodeIndex = nodes_.size();
+    Node node;
+
+    node.parent = parent;
+    node.left = -1;
+    node.right = -1;
+    node.leaf = -1;
+    if (count == 1) {
+        Leaf& leaf = leaves_[indices[0]];
+        node.leaf = indices[0];
+        node.min = leaf.min;
+        node.max = leaf.max;
+        leaf.node = nodeIndex;
+        nodes_.push_back(node);
+        return nodeIndex;
+    }
+    nodes_.push_back(node);
+
+    glm::vec3 cmin(std::numeric_limits<float>::max());
+    glm::vec3 cmax(-std::numeric_limits<float>::max());
+    for (int i = 0; i < count; ++i) {
+        const Leaf& leaf = leaves_[indices[i]];
+        glm::vec3 c = leaf.empty ? glm::vec3(0) : (leaf.min + leaf.max) * 0.5f;
+        cmin = glm::min(cmin, c);
+        cmax = glm::max(cmax, c);
+    }
+    glm::vec3 size = cmax - cmin;
+    int axis = 0;
+    if (size.y > size[axis]) {
+        axis = 1;
+    }
+    if (size.z > size[axis]) {
+        axis = 2;
+    }
+    const std::vector<Leaf>& leaves = leaves_;
+    std::nth_element(indices, indices + count / 2, indices + count,
+                     [&leaves, axis](int a, int b) {
+                         const Leaf& la = leaves[a];
+                         const Leaf& lb = leaves[b];
+                         float ca = la.empty ? 0 : la.min[axis] + la.max[axis];
+                         float cb = lb.empty ? 0 : lb.min[axis] + lb.max[axis];
+                         return ca < cb;
+                     });
+    int left = build(indices, count / 2, nodeIndex);
+    int right = build(indices + count / 2, count - count / 2, nodeIndex);
+    Node& n = nodes_[nodeIndex];
+
+    n.left = left;
+    n.right = right;
+    n.min = glm::min(nodes_[left].min, nodes_[right].min);
+    n.max = glm::max(nodes_[left].max, nodes_[right].max);
+    return nodeIndex;
+}
+
+/*
+ * Slab test of a ray against an axially aligned box.
+ * Only intersections in front of the ray origin count.
+ */
+bool ColliderBVH::intersect(const glm::vec3& min, const glm::vec3& max,
+                            const glm::vec3& rayStart, const glm::vec3& invDir) {
+    glm::vec3 t1 = (min - rayStart) * invDir;
+    glm::vec3 t2 = (max - rayStart) * invDir;
+    glm::vec3 tnear = glm::min(t1, t2);
+    glm::vec3 tfar = glm::max(t1, t2);
+    float tmin = glm::max(glm::max(tnear.x, tnear.y), tnear.z);
+    float tmax = glm::min(glm::min(tfar.x, tfar.y), tfar.z);
+
+    return (tmax >= 0.0f) && (tmin <= tmax);
+}
+
+void ColliderBVH::raycast(const glm::vec3& rayStart, const glm::vec3& rayDir,
+                          std::vector<Collider*>& candidates) const {
+    candidates.insert(candidates.end(), unbounded_.begin(), unbounded_.end());
+    if (root_ < 0) {
+        return;
+    }
+    glm::vec3 invDir(1.0f / rayDir.x, 1.0f / rayDir.y, 1.0f / rayDir.z);
+    int stack[MAX_DEPTH];
+    int top = 0;
+
+    stack[top++] = root_;
+    while (top > 0) {
+        const Node& node = nodes_[stack[--top]];
+
+        if (!intersect(node.min, node.max, rayStart, invDir)) {
+            continue;
+        }
+        if (node.leaf >= 0) {
+            Collider* collider = leaves_[node.leaf].collider;
+            if (collider != NULL) {
+                candidates.push_back(collider);
+            }
+        } else if (top + 2 <= MAX_DEPTH) {
+            stack[top++] = node.right;
+            stack[top++] = node.left;
+        }
+    }
+}
+
+}
@@ -0,0 +1,116 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * Bounding volume hierarchy over the world bounds of the colliders
+ * in a scene, used to accelerate ray picking.
+ ***************************************************************************/
+
+#ifndef COLLIDER_BVH_H_
+#define COLLIDER_BVH_H_
+
+#include <mutex>
+#include <vector>
+#include "glm/glm.hpp"
+
+namespace gvr {
+class Collider;
+class Component;
+class Transform;
+
+class ColliderBVH {
+public:
+    ColliderBVH();
+    ~ColliderBVH();
+
+    /*
+     * Bring the hierarchy up to date with the input collider list.
+     * The tree is rebuilt if the collider list has changed since
+     * the last update (as indicated by the version number).
+     * Otherwise only the colliders queued by markDirty since the
+     * last update are refitted, so the cost does not depend on
+     * the number of colliders which did not move.
+     * The caller must hold the scene collider lock.
+     */
+    void update(const std::vector<Component*>& colliders, int version);
+
+    /*
+     * Queue a collider whose world bounds may have changed.
+     * Called from Collider::invalidateBounds on any thread.
+     */
+    void markDirty(Collider* collider);
+
+    /*
+     * Remove all references to a collider which is being destroyed.
+     */
+    void forget(Collider* collider);
+
+    /*
+     * Gather the colliders whose world bounds are penetrated by the ray.
+     * Colliders without known bounds (such as box colliders) are always
+     * returned. The ray is in world coordinates.
+     */
+    void raycast(const glm::vec3& rayStart, const glm::vec3& rayDir,
+                 std::vector<Collider*>& candidates) const;
+
+    void clear();
+
+private:
+    struct Node {
+        glm::vec3   min;
+        glm::vec3   max;
+        int         parent;
+        int         left;       // child nodes, -1 for a leaf
+        int         right;
+        int         leaf;       // index into leaves_, -1 for an interior node
+    };
+
+    struct Leaf {
+        Collider*   collider;   // NULL once the collider is destroyed
+        glm::vec3   min;
+        glm::vec3   max;
+        bool        empty;      // collider cannot be hit
+        int         node;
+    };
+
+    bool computeLocalBounds(Collider* collider, glm::vec3& min, glm::vec3& max) const;
+    bool updateLeaf(Leaf& leaf);
+    void unlinkLeaves();
+    void refitFrom(int nodeIndex);
+    int  build(int* indices, int count, int parent);
+    void rebuild();
+    static bool intersect(const glm::vec3& min, const glm::vec3& max,
+                          const glm::vec3& rayStart, const glm::vec3& invDir);
+
+private:
+    ColliderBVH(const ColliderBVH& bvh);
+    ColliderBVH(ColliderBVH&& bvh);
+    ColliderBVH& operator=(const ColliderBVH& bvh);
+    ColliderBVH& operator=(ColliderBVH&& bvh);
+
+private:
+    std::vector<Node>       nodes_;
+    std::vector<Leaf>       leaves_;
+    std::vector<Collider*>  unbounded_;
+    std::vector<int>        scratch_;
+    std::vector<Collider*>  dirty_;
+    std::mutex              dirty_mutex_;   // guards dirty_, leaves_ and the collider links
+    int                     version_;
+    int                     root_;
+};
+
+}
+
+#endif
@@ -0,0 +1,129 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * On-device benchmark comparing linear and BVH ray picking.
+ ***************************************************************************/
+
+#include "pick_benchmark.h"
+
+#include <chrono>
+#include <random>
+#include <vector>
+
+#include "collider_bvh.h"
+#include "objects/scene_object.h"
+#include "objects/components/sphere_collider.h"
+#include "objects/components/transform.h"
+
+namespace gvr {
+
+static const float WORLD_SIZE = 1000.0f;
+static const float COLLIDER_RADIUS = 1.0f;
+
+static float elapsedMillis(std::chrono::steady_clock::time_point start) {
+    std::chrono::duration<float, std::milli> elapsed = std::chrono::steady_clock::now() - start;
+    return elapsed.count();
+}
+
+static int castRay(Collider* collider, const glm::vec3& rayStart, const glm::vec3& rayDir) {
+    ColliderData data = collider->isHit(rayStart, rayDir);
+    return data.IsHit ? 1 : 0;
+}
+
+void PickBenchmark::run(int numColliders, int numRays, int numMoved, PickBenchmarkResult& result) {
+    std::mt19937 random(12345);
+    std::uniform_real_distribution<float> position(-WORLD_SIZE / 2, WORLD_SIZE / 2);
+    std::uniform_real_distribution<float> direction(-1.0f, 1.0f);
+    std::vector<SceneObject*> owners;
+    std::vector<Component*> colliders;
+
+    owners.reserve(numColliders);
+    colliders.reserve(numColliders);
+    for (int i = 0; i < numColliders; ++i) {
+        SceneObject* owner = new SceneObject();
+        Transform* transform = new Transform();
+        SphereCollider* collider = new SphereCollider();
+
+        owner->attachComponent(transform);
+        transform->set_position(position(random), position(random), position(random));
+        collider->set_radius(COLLIDER_RADIUS);
+        /*
+         * Bypass Collider::set_owner_object so the collider
+         * is not added to the main scene.
+         */
+        collider->Component::set_owner_object(owner);
+        owners.push_back(owner);
+        colliders.push_back(collider);
+    }
+
+    std::vector<glm::vec3> rays(numRays);
+    for (int i = 0; i < numRays; ++i) {
+        rays[i] = glm::normalize(glm::vec3(direction(random), direction(random), direction(random)));
+    }
+    glm::vec3 rayStart(0, 0, 0);
+
+    ColliderBVH* bvh = new ColliderBVH();
+    auto start = std::chrono::steady_clock::now();
+    bvh->update(colliders, 0);
+    result.buildTime = elapsedMillis(start);
+
+    result.linearHits = 0;
+    start = std::chrono::steady_clock::now();
+    for (int r = 0; r < numRays; ++r) {
+        for (auto it = colliders.begin(); it != colliders.end(); ++it) {
+            result.linearHits += castRay(reinterpret_cast<Collider*>(*it), rayStart, rays[r]);
+        }
+    }
+    result.linearTime = elapsedMillis(start);
+
+    std::vector<Collider*> candidates;
+    result.bvhHits = 0;
+    start = std::chrono::steady_clock::now();
+    for (int r = 0; r < numRays; ++r) {
+        candidates.clear();
+        bvh->raycast(rayStart, rays[r], candidates);
+        for (auto it = candidates.begin(); it != candidates.end(); ++it) {
+            result.bvhHits += castRay(*it, rayStart, rays[r]);
+        }
+    }
+    result.bvhTime = elapsedMillis(start);
+
+    /*
+     * The colliders are not components of their owners, so the
+     * transform does not reach them. Queue them explicitly.
+     */
+    for (int i = 0; (i < numMoved) && (i < numColliders); ++i) {
+        owners[i]->transform()->translate(COLLIDER_RADIUS, 0, 0);
+        reinterpret_cast<Collider*>(colliders[i])->invalidateBounds();
+    }
+    start = std::chrono::steady_clock::now();
+    bvh->update(colliders, 0);
+    result.refitTime = elapsedMillis(start);
+
+    delete bvh;
+    for (int i = 0; i < numColliders; ++i) {
+        Component* collider = colliders[i];
+        Transform* transform = owners[i]->transform();
+
+        collider->Component::set_owner_object(NULL);
+        owners[i]->detachComponent(transform);
+        delete collider;
+        delete transform;
+        delete owners[i];
+    }
+}
+
+}
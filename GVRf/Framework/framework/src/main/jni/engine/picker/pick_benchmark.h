@@ -0,0 +1,60 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * On-device benchmark comparing linear and BVH ray picking.
+ ***************************************************************************/
+
+#ifndef PICK_BENCHMARK_H_
+#define PICK_BENCHMARK_H_
+
+namespace gvr {
+
+/*
+ * Timings of one benchmark run, in milliseconds.
+ * The hit counts of both paths must match.
+ */
+struct PickBenchmarkResult {
+    float   buildTime;      // building the hierarchy from scratch
+    float   linearTime;     // casting all rays against every collider
+    float   bvhTime;        // casting all rays through the hierarchy
+    float   refitTime;      // refitting after moving some colliders
+    int     linearHits;
+    int     bvhHits;
+};
+
+class PickBenchmark {
+public:
+    /*
+     * Scatter sphere colliders at random positions, then cast
+     * random rays from the origin against them, once by testing
+     * every collider like Picker::pickScene does without
+     * acceleration and once through a ColliderBVH.
+     * The colliders belong to scene objects which are not part
+     * of any scene, so the running application is not affected.
+     *
+     * @param numColliders  number of sphere colliders
+     * @param numRays       number of rays cast on each path
+     * @param numMoved      number of colliders moved before refitting
+     */
+    static void run(int numColliders, int numRays, int numMoved, PickBenchmarkResult& result);
+
+private:
+    PickBenchmark();
+};
+
+}
+
+#endif
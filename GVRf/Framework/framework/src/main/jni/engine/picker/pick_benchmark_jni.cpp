@@ -0,0 +1,45 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * JNI
+ ***************************************************************************/
+
+#include "pick_benchmark.h"
+
+#include "util/gvr_jni.h"
+
+namespace gvr {
+extern "C" {
+    JNIEXPORT jfloatArray JNICALL
+    Java_org_gearvrf_debug_NativePickBenchmark_run(JNIEnv * env,
+            jobject obj, jint numColliders, jint numRays, jint numMoved);
+}
+
+JNIEXPORT jfloatArray JNICALL
+Java_org_gearvrf_debug_NativePickBenchmark_run(JNIEnv * env,
+        jobject obj, jint numColliders, jint numRays, jint numMoved) {
+    PickBenchmarkResult result;
+    PickBenchmark::run(numColliders, numRays, numMoved, result);
+
+    jfloat values[] = { result.buildTime, result.linearTime, result.bvhTime, result.refitTime,
+                        (jfloat) result.linearHits, (jfloat) result.bvhHits };
+    jfloatArray jresult = env->NewFloatArray(6);
+    env->SetFloatArrayRegion(jresult, 0, 6, values);
+    return jresult;
+}
+
+}
@@ -53,23 +53,42 @@ void Picker::pickScene(Scene* scene, std::vector<ColliderData>& picklist, Transf
     const glm::mat4& model_matrix = t->getModelMatrix();
 
     Collider::transformRay(model_matrix, ray_start, ray_dir);
-    for (auto it = colliders.begin(); it != colliders.end(); ++it) {
-        Collider* collider = reinterpret_cast<Collider*>(*it);
-        SceneObject* owner = collider->owner_object();
-        if (collider->enabled() && (owner != NULL) && owner->enabled()) {
-            ColliderData data = collider->isHit(ray_start, ray_dir);
-            if ((collider->pick_distance() > 0) && (collider->pick_distance() < data.Distance)) {
-                data.IsHit = false;
-            }
-            if (data.IsHit) {
-                picklist.push_back(data);
+    if (scene->getPickAccelerated()) {
+        bool pickVisible = scene->getPickVisible();
+        std::vector<Collider*> candidates;
+        scene->getColliderBVH().raycast(ray_start, ray_dir, candidates);
+        for (auto it = candidates.begin(); it != candidates.end(); ++it) {
+            if (!pickVisible || scene->isColliderVisible(*it)) {
+                pickCollider(*it, ray_start, ray_dir, picklist);
             }
         }
+    } else {
+        for (auto it = colliders.begin(); it != colliders.end(); ++it) {
+            pickCollider(reinterpret_cast<Collider*>(*it), ray_start, ray_dir, picklist);
+        }
     }
     std::sort(picklist.begin(), picklist.end(), compareColliderData);
     scene->unlockColliders();
 }
 
+/*
+ * Intersects a single collider with the input ray and
+ * adds it to the pick list if it was hit.
+ */
+void Picker::pickCollider(Collider* collider, const glm::vec3& ray_start, const glm::vec3& ray_dir,
+                          std::vector<ColliderData>& picklist) {
+    SceneObject* owner = collider->owner_object();
+    if (collider->enabled() && (owner != NULL) && owner->enabled()) {
+        ColliderData data = collider->isHit(ray_start, ray_dir);
+        if ((collider->pick_distance() > 0) && (collider->pick_distance() < data.Distance)) {
+            data.IsHit = false;
+        }
+        if (data.IsHit) {
+            picklist.push_back(data);
+        }
+    }
+}
+
 void Picker::pickScene(Scene* scene, std::vector<ColliderData>& pickList) {
     Transform* t = scene->main_camera_rig()->getHeadTransform();
     pickScene(scene, pickList, t, 0, 0, 0, 0, 0, -1.0f);
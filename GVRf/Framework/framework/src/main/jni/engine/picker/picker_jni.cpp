@@ -34,6 +34,10 @@ extern "C" {
     Java_org_gearvrf_NativePicker_pickObjects(JNIEnv * env,
                                               jobject obj, jlong jscene, jlong jtransform, jfloat ox, jfloat oy, jfloat oz, jfloat dx,
                                               jfloat dy, jfloat dz);
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_NativePicker_pickObjectsToBuffer(JNIEnv * env,
+                                                      jobject obj, jlong jscene, jlong jtransform, jfloat ox, jfloat oy, jfloat oz, jfloat dx,
+                                                      jfloat dy, jfloat dz, jobject jhit_buffer, jlongArray jcolliders, jint capacity);
     JNIEXPORT jobject JNICALL
     Java_org_gearvrf_NativePicker_pickSceneObject(JNIEnv * env,
                                                   jobject obj, jlong jscene_object,
@@ -110,6 +114,59 @@ Java_org_gearvrf_NativePicker_pickObjects(JNIEnv * env,
     return pickList;
 }
 
+/*
+ * Picks the scene into a caller owned hit buffer instead of creating
+ * Java objects. The layout of each hit in the buffer must match
+ * GVRPicker.GVRPickHits:
+ * distance, hit position (3), face index (int), barycentric coordinates (3),
+ * texture coordinates (2), normal (3).
+ * Only the closest hits which fit in the buffer are returned.
+ * @return total number of hits, which may be larger than the capacity
+ */
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativePicker_pickObjectsToBuffer(JNIEnv * env,
+                                                  jobject obj, jlong jscene, jlong jtransform, jfloat ox, jfloat oy, jfloat oz, jfloat dx,
+                                                  jfloat dy, jfloat dz, jobject jhit_buffer, jlongArray jcolliders, jint capacity)
+{
+    static const int HIT_STRIDE = 13;
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    Transform* t = reinterpret_cast<Transform*>(jtransform);
+    float* hits = (float*) env->GetDirectBufferAddress(jhit_buffer);
+    std::vector<ColliderData> colliders;
+
+    if (t == NULL) {
+        t = scene->main_camera_rig()->getHeadTransform();
+    }
+    Picker::pickScene(scene, colliders, t, ox, oy, oz, dx, dy, dz);
+
+    int size = colliders.size();
+    int n = (size < capacity) ? size : capacity;
+    jlong* ptrArray = env->GetLongArrayElements(jcolliders, 0);
+
+    for (int i = 0; i < n; ++i)
+    {
+        const ColliderData& data = colliders[i];
+        float* hit = hits + i * HIT_STRIDE;
+
+        ptrArray[i] = reinterpret_cast<jlong>(data.ColliderHit);
+        hit[0] = data.Distance;
+        hit[1] = data.HitPosition.x;
+        hit[2] = data.HitPosition.y;
+        hit[3] = data.HitPosition.z;
+        *reinterpret_cast<jint*>(hit + 4) = data.FaceIndex;
+        hit[5] = data.BarycentricCoordinates.x;
+        hit[6] = data.BarycentricCoordinates.y;
+        hit[7] = data.BarycentricCoordinates.z;
+        hit[8] = data.TextureCoordinates.x;
+        hit[9] = data.TextureCoordinates.y;
+        hit[10] = data.NormalCoordinates.x;
+        hit[11] = data.NormalCoordinates.y;
+        hit[12] = data.NormalCoordinates.z;
+    }
+    env->ReleaseLongArrayElements(jcolliders, ptrArray, 0);
+    return size;
+}
+
 JNIEXPORT jobject JNICALL
 Java_org_gearvrf_NativePicker_pickSceneObject(JNIEnv * env,
                                               jobject obj, jlong jscene_object,
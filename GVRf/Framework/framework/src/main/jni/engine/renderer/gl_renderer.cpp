@@ -523,7 +523,11 @@ namespace gvr
 
         for (int curr_pass = 0; curr_pass < render_data->pass_count(); ++curr_pass)
         {
-            numberTriangles += render_data->mesh()->getNumTriangles();
+            int instances = 1;
+            if (render_data->instance_buffer() != nullptr) {
+                instances = render_data->instance_buffer()->getInstanceCount();
+            }
+            numberTriangles += render_data->mesh()->getNumTriangles() * instances;
             numberDrawCalls++;
 
             set_face_culling(render_data->pass(curr_pass)->cull_face());
@@ -653,11 +657,18 @@ namespace gvr
 
         programId = shader->getProgramId();
         //there is no program associated with EXTERNAL_RENDERER_SHADER
-        if (-1 != programId) {
+        if ((-1 != programId) && (render_data->instance_buffer() != nullptr)) {
+            glBindVertexArray(mesh->getVAOId(programId));
+            renderInstances(render_data, programId);
+            glBindVertexArray(0);
+        } else if (-1 != programId) {
             glBindVertexArray(mesh->getVAOId(programId));
             if (mesh->indices().size() > 0) {
                 glDrawElements(render_data->draw_mode(), mesh->indices().size(), GL_UNSIGNED_SHORT, 0);
 
+            } else if (mesh->int_indices().size() > 0) {
+                glDrawElements(render_data->draw_mode(), mesh->int_indices().size(), GL_UNSIGNED_INT, 0);
+
             } else {
                 glDrawArrays(render_data->draw_mode(), 0, mesh->vertices().size());
             }
@@ -665,6 +676,30 @@ namespace gvr
         }
         checkGLError("renderMesh::renderMaterialShader");
     }
+
+    /*
+     * Draws all the instances of the render data in one call. Nothing is
+     * drawn if the program ignores the instance matrix, like the shadow
+     * map shader does.
+     */
+    void GLRenderer::renderInstances(RenderData* render_data, int programId) {
+        Mesh* mesh = render_data->mesh();
+        int instances = render_data->instance_buffer()->bindAttributes(programId);
+
+        if (instances <= 0) {
+            return;
+        }
+        if (mesh->indices().size() > 0) {
+            glDrawElementsInstanced(render_data->draw_mode(), mesh->indices().size(),
+                    GL_UNSIGNED_SHORT, 0, instances);
+        } else if (mesh->int_indices().size() > 0) {
+            glDrawElementsInstanced(render_data->draw_mode(), mesh->int_indices().size(),
+                    GL_UNSIGNED_INT, 0, instances);
+        } else {
+            glDrawArraysInstanced(render_data->draw_mode(), 0, mesh->vertices().size(),
+                    instances);
+        }
+    }
 }
 
 
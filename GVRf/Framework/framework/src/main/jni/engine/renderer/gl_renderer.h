@@ -104,6 +104,7 @@ private:
     // Pure Virtual
     virtual void renderMesh(RenderState& rstate, RenderData* render_data);
     virtual void renderMaterialShader(RenderState& rstate, RenderData* render_data, Material *material) ;
+    void renderInstances(RenderData* render_data, int programId);
     void occlusion_cull(Scene* scene,
                     std::vector<SceneObject*>& scene_objects,
                     ShaderManager *shader_manager, glm::mat4 vp_matrix);
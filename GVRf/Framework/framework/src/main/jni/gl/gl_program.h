@@ -30,7 +30,7 @@ namespace gvr {
 class GLProgram {
 public:
     GLProgram(const char* pVertexSourceStrings,
-            const char* pFragmentSourceStrings) {
+            const char* pFragmentSourceStrings, bool retrievable = false) {
         GLint vertex_shader_string_lengths[1] = { (GLint) strlen(
                 pVertexSourceStrings) };
         GLint fragment_shader_string_lengths[1] = { (GLint) strlen(
@@ -38,7 +38,12 @@ public:
 
         id_ = createProgram(1, &pVertexSourceStrings,
                 vertex_shader_string_lengths, &pFragmentSourceStrings,
-                fragment_shader_string_lengths);
+                fragment_shader_string_lengths, retrievable);
+    }
+
+    // takes ownership of a program linked elsewhere, e.g. from a binary
+    explicit GLProgram(GLuint id) :
+            id_(id) {
     }
 
     GLProgram(const char** pVertexSourceStrings,
@@ -90,7 +95,8 @@ public:
             const char** pVertexSourceStrings,
             const GLint* pVertexSourceStringLengths,
             const char** pFragmentSourceStrings,
-            const GLint* pFragmentSourceStringLengths) {
+            const GLint* pFragmentSourceStringLengths,
+            bool retrievable = false) {
         GLuint vertexShader = loadShader(GL_VERTEX_SHADER, strLength,
                 pVertexSourceStrings, pVertexSourceStringLengths);
         if (!vertexShader) {
@@ -118,6 +124,10 @@ public:
             glAttachShader(program, pixelShader);
             checkGLError("glAttachShader");
 
+            if (retrievable) {
+                glProgramParameteri(program, GL_PROGRAM_BINARY_RETRIEVABLE_HINT,
+                        GL_TRUE);
+            }
             glLinkProgram(program);
             GLint linkStatus = GL_FALSE;
             glGetProgramiv(program, GL_LINK_STATUS, &linkStatus);
@@ -0,0 +1,170 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * On-disk cache of linked GL program binaries.
+ ***************************************************************************/
+
+#include "gl_program_cache.h"
+
+#include <stdio.h>
+#include <unistd.h>
+#include <vector>
+
+#include "util/gvr_log.h"
+
+namespace gvr {
+
+namespace {
+const uint32_t MAGIC = 0x47565250; // "GVRP"
+const size_t MAX_BINARY_SIZE = 16 * 1024 * 1024;
+
+// FNV-1a, stable from one launch to the next unlike std::hash
+uint64_t hash(uint64_t h, const char* data, size_t size) {
+    for (size_t i = 0; i < size; ++i) {
+        h ^= static_cast<unsigned char>(data[i]);
+        h *= 1099511628211ULL;
+    }
+    return h;
+}
+
+uint64_t hash(uint64_t h, const std::string& s) {
+    return hash(h, s.c_str(), s.size() + 1);
+}
+
+uint64_t hash(uint64_t h, const GLubyte* s) {
+    const char* chars = reinterpret_cast<const char*>(s);
+    return (chars != nullptr) ? hash(h, chars, strlen(chars) + 1) : h;
+}
+}
+
+std::mutex GLProgramCache::lock_;
+std::string GLProgramCache::directory_;
+
+void GLProgramCache::setDirectory(const std::string& directory) {
+    std::lock_guard<std::mutex> lock(lock_);
+    directory_ = directory;
+}
+
+GLProgram* GLProgramCache::createProgram(const std::string& vertex_shader,
+        const std::string& fragment_shader) {
+    std::string file_name = fileName(vertex_shader, fragment_shader);
+
+    if (file_name.empty()) {
+        return new GLProgram(vertex_shader.c_str(), fragment_shader.c_str());
+    }
+    GLuint program = load(file_name);
+    if (program != 0) {
+        return new GLProgram(program);
+    }
+
+    GLProgram* compiled = new GLProgram(vertex_shader.c_str(),
+            fragment_shader.c_str(), true);
+    if (compiled->id() != 0) {
+        store(file_name, compiled->id());
+    }
+    return compiled;
+}
+
+std::string GLProgramCache::fileName(const std::string& vertex_shader,
+        const std::string& fragment_shader) {
+    std::string directory;
+    {
+        std::lock_guard<std::mutex> lock(lock_);
+        directory = directory_;
+    }
+    if (directory.empty()) {
+        return directory;
+    }
+
+    uint64_t h = 14695981039346656037ULL;
+    h = hash(h, vertex_shader);
+    h = hash(h, fragment_shader);
+    h = hash(h, glGetString(GL_VENDOR));
+    h = hash(h, glGetString(GL_RENDERER));
+    h = hash(h, glGetString(GL_VERSION));
+
+    char name[24];
+    snprintf(name, sizeof(name), "%016llx.bin",
+            static_cast<unsigned long long>(h));
+    return directory + "/" + name;
+}
+
+GLuint GLProgramCache::load(const std::string& file_name) {
+    FILE* file = fopen(file_name.c_str(), "rb");
+    if (file == nullptr) {
+        return 0;
+    }
+
+    uint32_t header[3];
+    std::vector<char> binary;
+    bool valid = (fread(header, sizeof(header), 1, file) == 1)
+            && (header[0] == MAGIC) && (header[2] > 0)
+            && (header[2] <= MAX_BINARY_SIZE);
+    if (valid) {
+        binary.resize(header[2]);
+        valid = (fread(binary.data(), binary.size(), 1, file) == 1);
+    }
+    fclose(file);
+
+    GLuint program = 0;
+    if (valid) {
+        program = glCreateProgram();
+        glProgramBinary(program, header[1], binary.data(), binary.size());
+
+        GLint linkStatus = GL_FALSE;
+        glGetProgramiv(program, GL_LINK_STATUS, &linkStatus);
+        if (linkStatus != GL_TRUE) {
+            glDeleteProgram(program);
+            program = 0;
+        }
+    }
+    if (program == 0) {
+        LOGW("GLProgramCache: discarding %s", file_name.c_str());
+        unlink(file_name.c_str());
+    }
+    return program;
+}
+
+void GLProgramCache::store(const std::string& file_name, GLuint program) {
+    GLint length = 0;
+    glGetProgramiv(program, GL_PROGRAM_BINARY_LENGTH, &length);
+    if (length <= 0) {
+        return;
+    }
+
+    std::vector<char> binary(length);
+    GLenum format = 0;
+    glGetProgramBinary(program, length, &length, &format, binary.data());
+    if (length <= 0) {
+        return;
+    }
+
+    // written to a temporary file first so a crash never leaves half a binary
+    std::string temp_name = file_name + ".tmp";
+    FILE* file = fopen(temp_name.c_str(), "wb");
+    if (file == nullptr) {
+        return;
+    }
+    uint32_t header[3] = { MAGIC, format, static_cast<uint32_t>(length) };
+    bool written = (fwrite(header, sizeof(header), 1, file) == 1)
+            && (fwrite(binary.data(), length, 1, file) == 1);
+    written = (fclose(file) == 0) && written;
+    if (!written || (rename(temp_name.c_str(), file_name.c_str()) != 0)) {
+        unlink(temp_name.c_str());
+    }
+}
+
+}
@@ -0,0 +1,59 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/***************************************************************************
+ * On-disk cache of linked GL program binaries.
+ ***************************************************************************/
+
+#ifndef GL_PROGRAM_CACHE_H_
+#define GL_PROGRAM_CACHE_H_
+
+#include <mutex>
+#include <string>
+
+#include "gl/gl_program.h"
+
+namespace gvr {
+
+/*
+ * Keeps the binary of every program it links in a file named after a hash
+ * of the shader sources and of the GL driver, and loads the program from
+ * that file the next time the same sources are used, skipping compilation.
+ * A binary the driver does not accept any more, for example after a driver
+ * update, is deleted and the program is compiled from its sources.
+ */
+class GLProgramCache {
+public:
+    // empty to disable the cache
+    static void setDirectory(const std::string& directory);
+
+    // must be called on the GL thread
+    static GLProgram* createProgram(const std::string& vertex_shader,
+            const std::string& fragment_shader);
+
+private:
+    GLProgramCache();
+
+    static std::string fileName(const std::string& vertex_shader,
+            const std::string& fragment_shader);
+    static GLuint load(const std::string& file_name);
+    static void store(const std::string& file_name, GLuint program);
+
+    static std::mutex lock_;
+    static std::string directory_;
+};
+
+}
+#endif
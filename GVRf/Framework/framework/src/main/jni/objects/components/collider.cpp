@@ -20,6 +20,7 @@
 #include "collider.h"
 #include "glm/gtc/type_ptr.hpp"
 #include "glm/gtc/matrix_inverse.hpp"
+#include "engine/picker/collider_bvh.h"
 #include "objects/scene.h"
 #include "objects/scene_object.h"
 
@@ -44,6 +45,19 @@ void Collider::transformRay(const glm::mat4& model_matrix, glm::vec3& rayStart,
 }
 
 
+Collider::~Collider() {
+    if (bvh_ != NULL) {
+        bvh_->forget(this);
+    }
+}
+
+void Collider::invalidateBounds() {
+    ColliderBVH* bvh = bvh_;
+    if (bvh != NULL) {
+        bvh->markDirty(this);
+    }
+}
+
 void Collider::set_owner_object(SceneObject* obj) {
     if (obj == owner_object())
     {
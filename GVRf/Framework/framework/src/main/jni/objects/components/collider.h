@@ -29,6 +29,7 @@
 
 namespace gvr {
 class Collider;
+class ColliderBVH;
 
 /*
  * Information from a collision when a collider is picked.
@@ -57,10 +58,12 @@ public:
  */
 class Collider: public Component {
 public:
-    Collider() :Component(getComponentType()), pick_distance_(0) {}
-    Collider(long long type) : Component(type), pick_distance_(0) {}
+    Collider() :Component(getComponentType()), pick_distance_(0),
+            bvh_(NULL), bvh_leaf_(-1), bvh_dirty_(false), visible_stamp_(~0u) {}
+    Collider(long long type) : Component(type), pick_distance_(0),
+            bvh_(NULL), bvh_leaf_(-1), bvh_dirty_(false), visible_stamp_(~0u) {}
 
-    virtual ~Collider() {}
+    virtual ~Collider();
 
     /*
      * Hit test the input ray against this collider.
@@ -94,9 +97,36 @@ public:
     }
     static void transformRay(const glm::mat4& matrix, glm::vec3& rayStart, glm::vec3& rayDir);
 
+    /*
+     * Called when the world bounds of the collider may have changed
+     * because its transform or its collision geometry changed.
+     * Queues the collider to be refitted in the bounding volume
+     * hierarchy of the scene before the next pick.
+     */
+    void invalidateBounds();
+
+    /*
+     * Stamp of the last cull in which the collider was visible,
+     * set by Scene::pick.
+     */
+    void set_visible_stamp(unsigned int stamp) {
+        visible_stamp_ = stamp;
+    }
+
+    unsigned int visible_stamp() const {
+        return visible_stamp_;
+    }
+
 protected:
     float pick_distance_;
 
+private:
+    friend class ColliderBVH;
+    ColliderBVH*    bvh_;           // hierarchy this collider is a leaf of
+    int             bvh_leaf_;      // index of the leaf in the hierarchy
+    bool            bvh_dirty_;     // queued in the hierarchy dirty list
+    unsigned int    visible_stamp_;
+
     Collider(const Collider& collider);
     Collider(Collider&& collider);
     Collider& operator=(const Collider& collider);
@@ -158,9 +158,9 @@ static void calcBarycentric(const glm::vec3 &p, const glm::vec3 &a, const glm::v
 static void populateBarycentricCoords(const Mesh& mesh, ColliderData& colliderData) {
     const std::vector<glm::vec3> &vertices = mesh.vertices();
 
-    glm::vec3 v1(vertices[mesh.triangles()[colliderData.FaceIndex * 3]]);
-    glm::vec3 v2(vertices[mesh.triangles()[colliderData.FaceIndex * 3 + 1]]);
-    glm::vec3 v3(vertices[mesh.triangles()[colliderData.FaceIndex * 3 + 2]]);
+    glm::vec3 v1(vertices[mesh.getIndex(colliderData.FaceIndex * 3)]);
+    glm::vec3 v2(vertices[mesh.getIndex(colliderData.FaceIndex * 3 + 1)]);
+    glm::vec3 v3(vertices[mesh.getIndex(colliderData.FaceIndex * 3 + 2)]);
 
     calcBarycentric(colliderData.HitPosition, v1, v2, v3, colliderData.BarycentricCoordinates);
 }
@@ -176,13 +176,13 @@ static void populateSurfaceCoords(const Mesh &mesh, ColliderData &colliderData)
     populateBarycentricCoords(mesh, colliderData);
     try{
         const std::vector<glm::vec2> &texCoords = mesh.getVec2Vector("a_texcoord"); //may not exist
-        glm::vec2 u1(texCoords[mesh.triangles()[colliderData.FaceIndex * 3]]);
-        glm::vec2 u2(texCoords[mesh.triangles()[colliderData.FaceIndex * 3 + 1]]);
-        glm::vec2 u3(texCoords[mesh.triangles()[colliderData.FaceIndex * 3 + 2]]);
+        glm::vec2 u1(texCoords[mesh.getIndex(colliderData.FaceIndex * 3)]);
+        glm::vec2 u2(texCoords[mesh.getIndex(colliderData.FaceIndex * 3 + 1)]);
+        glm::vec2 u3(texCoords[mesh.getIndex(colliderData.FaceIndex * 3 + 2)]);
 
-        glm::vec3 n1(mesh.normals()[mesh.triangles()[colliderData.FaceIndex * 3]]);
-        glm::vec3 n2(mesh.normals()[mesh.triangles()[colliderData.FaceIndex * 3 + 1]]);
-        glm::vec3 n3(mesh.normals()[mesh.triangles()[colliderData.FaceIndex * 3 + 2]]);
+        glm::vec3 n1(mesh.normals()[mesh.getIndex(colliderData.FaceIndex * 3)]);
+        glm::vec3 n2(mesh.normals()[mesh.getIndex(colliderData.FaceIndex * 3 + 1)]);
+        glm::vec3 n3(mesh.normals()[mesh.getIndex(colliderData.FaceIndex * 3 + 2)]);
 
         colliderData.TextureCoordinates =   u1 * colliderData.BarycentricCoordinates.x
                                             + u2 * colliderData.BarycentricCoordinates.y
@@ -210,10 +210,10 @@ ColliderData MeshCollider::isHit(const Mesh& mesh, const glm::vec3& rayStart, co
     const std::vector<glm::vec3>& vertices = mesh.vertices();
     ColliderData data;
     if (vertices.size() > 0) {
-        for (int i = 0; i < mesh.triangles().size(); i += 3) {
-            glm::vec3 V1(vertices[mesh.triangles()[i]]);
-            glm::vec3 V2(vertices[mesh.triangles()[i + 1]]);
-            glm::vec3 V3(vertices[mesh.triangles()[i + 2]]);
+        for (int i = 0; i < mesh.getIndexCount(); i += 3) {
+            glm::vec3 V1(vertices[mesh.getIndex(i)]);
+            glm::vec3 V2(vertices[mesh.getIndex(i + 1)]);
+            glm::vec3 V3(vertices[mesh.getIndex(i + 2)]);
 
             /*
              * Compute the point where the ray penetrates the mesh in
@@ -46,6 +46,7 @@ public:
 
     void set_mesh(Mesh* mesh) {
         mesh_ = mesh;
+        invalidateBounds();
     }
 
     ColliderData isHit(const glm::vec3& rayStart, const glm::vec3& rayDir);
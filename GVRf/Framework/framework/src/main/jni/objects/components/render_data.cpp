@@ -16,6 +16,8 @@
 
 #include "objects/hybrid_object.h"
 #include "objects/components/render_data.h"
+#include "objects/components/collider.h"
+#include "objects/scene_object.h"
 
 namespace gvr {
 
@@ -39,6 +41,23 @@ void RenderData::set_mesh(Mesh* mesh) {
     mesh_ = mesh;
     mesh->add_dirty_flag(dirty_flag_);
     *dirty_flag_ = true;
+    if (owner_object() != nullptr) {
+        Collider* collider = owner_object()->collider();
+        if (collider != nullptr) {
+            collider->invalidateBounds();
+        }
+    }
+}
+
+/*
+ * Instanced render datas are drawn on their own, never merged by the
+ * batch manager.
+ */
+void RenderData::set_instance_buffer(InstanceBuffer* instance_buffer) {
+    instance_buffer_ = instance_buffer;
+    batching_ = (instance_buffer == nullptr);
+    hash_code_dirty_ = true;
+    *dirty_flag_ = true;
 }
 
 void RenderData::setDirty(bool dirty){
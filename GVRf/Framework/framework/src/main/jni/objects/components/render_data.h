@@ -26,6 +26,7 @@
 #include "gl/gl_program.h"
 #include "glm/glm.hpp"
 #include "objects/mesh.h"
+#include "objects/instance_buffer.h"
 #include "objects/components/component.h"
 #include "objects/render_pass.h"
 #include "objects/material.h"
@@ -73,7 +74,7 @@ public:
                     depth_test_(true), depth_mask_(true), alpha_blend_(true), alpha_to_coverage_(false),
                     source_alpha_blend_func_(GL_ONE), dest_alpha_blend_func_(GL_ONE_MINUS_SRC_ALPHA),
                     sample_coverage_(1.0f), invert_coverage_mask_(GL_FALSE), draw_mode_(GL_TRIANGLES),
-                    texture_capturer(0), cast_shadows_(true), dirty_flag_(std::make_shared<bool>(true)) {
+                    texture_capturer(0), cast_shadows_(true), instance_buffer_(nullptr), dirty_flag_(std::make_shared<bool>(true)) {
     }
 
     void copy(const RenderData& rdata) {
@@ -87,6 +88,7 @@ public:
         render_mask_ = rdata.render_mask_;
         cast_shadows_ = rdata.cast_shadows_;
         batch_ = rdata.batch_;
+        instance_buffer_ = rdata.instance_buffer_;
         for(int i=0;i<rdata.render_pass_list_.size();i++) {
             render_pass_list_.push_back((rdata.render_pass_list_)[i]);
         }
@@ -133,6 +135,12 @@ public:
 
     void set_mesh(Mesh* mesh);
 
+    InstanceBuffer* instance_buffer() const {
+        return instance_buffer_;
+    }
+
+    void set_instance_buffer(InstanceBuffer* instance_buffer);
+
     void add_pass(RenderPass* render_pass);
     const RenderPass* pass(int pass) const;
 
@@ -214,7 +222,7 @@ public:
     }
 
     void set_batching(bool status) {
-        batching_ = status;
+        batching_ = status && (instance_buffer_ == nullptr);
     }
 
     bool batching() {
@@ -372,6 +380,7 @@ public:
             render_data_string.append(to_string(sample_coverage_));
             render_data_string.append(to_string(invert_coverage_mask_));
             render_data_string.append(to_string(draw_mode_));
+            render_data_string.append(to_string(instance_buffer_));
 
             render_data_string.append(to_string(stencilTestFlag_));
             render_data_string.append(to_string(stencilMaskMask_));
@@ -417,6 +426,7 @@ private:
     static const int DEFAULT_RENDERING_ORDER = Geometry;
     Mesh* mesh_;
     Batch* batch_;
+    InstanceBuffer* instance_buffer_;
     bool hash_code_dirty_;
     std::string hash_code;
     std::vector<RenderPass*> render_pass_list_;
@@ -23,6 +23,7 @@
 
 #include "objects/mesh.h"
 #include "objects/material.h"
+#include "objects/scene_object.h"
 #include "objects/components/texture_capturer.h"
 
 namespace gvr {
@@ -39,6 +40,14 @@ extern "C" {
     Java_org_gearvrf_NativeRenderData_setMesh(JNIEnv * env,
             jobject obj, jlong jrender_data, jlong jmesh);
 
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeRenderData_setInstanceBuffer(JNIEnv * env,
+            jobject obj, jlong jrender_data, jlong jinstance_buffer);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeRenderData_instancesChanged(JNIEnv * env,
+            jobject obj, jlong jrender_data);
+
     JNIEXPORT void JNICALL
     Java_org_gearvrf_NativeRenderData_addPass(JNIEnv* env,
             jobject obj, jlong jrender_data, jlong jrender_pass);
@@ -211,6 +220,28 @@ Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
 render_data->set_mesh(mesh);
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeRenderData_setInstanceBuffer(JNIEnv * env,
+        jobject obj, jlong jrender_data, jlong jinstance_buffer) {
+    RenderData* render_data = reinterpret_cast<RenderData*>(jrender_data);
+    InstanceBuffer* instance_buffer = reinterpret_cast<InstanceBuffer*>(jinstance_buffer);
+    render_data->set_instance_buffer(instance_buffer);
+    Java_org_gearvrf_NativeRenderData_instancesChanged(env, obj, jrender_data);
+}
+
+/*
+ * The bounds of the owner depend on the instance matrices.
+ */
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeRenderData_instancesChanged(JNIEnv * env,
+        jobject obj, jlong jrender_data) {
+    RenderData* render_data = reinterpret_cast<RenderData*>(jrender_data);
+    SceneObject* owner = render_data->owner_object();
+    if (owner != nullptr) {
+        owner->dirtyHierarchicalBoundingVolume();
+    }
+}
+
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeRenderData_addPass(JNIEnv* env,
         jobject obj, jlong jrender_data, jlong jrender_pass) {
@@ -44,6 +44,7 @@ public:
     void set_radius(float r)
     {
         radius_ = r;
+        invalidateBounds();
     }
 
     float get_radius()
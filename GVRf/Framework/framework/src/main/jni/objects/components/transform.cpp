@@ -22,6 +22,8 @@
 #include "glm/gtc/type_ptr.hpp"
 
 #include "objects/scene_object.h"
+#include "objects/components/collider.h"
+#include "objects/transform_buffer.h"
 #include <math.h>
 namespace gvr {
 
@@ -30,14 +32,35 @@ Transform::Transform() :
         rotation_(
                 glm::quat(1.0f, 0.0f, 0.0f, 0.0f)), scale_(
                 glm::vec3(1.0f, 1.0f, 1.0f)), model_matrix_(
-                Lazy<glm::mat4>(glm::mat4())) {
+                Lazy<glm::mat4>(glm::mat4())), version_(0) {
 }
 
 Transform::~Transform() {
+    for (auto it = buffer_slots_.begin(); it != buffer_slots_.end(); ++it) {
+        it->first->clearTransform(it->second);
+    }
+}
+
+void Transform::addBufferSlot(TransformBuffer* buffer, int index) {
+    buffer_slots_.push_back(std::make_pair(buffer, index));
+}
+
+void Transform::removeBufferSlot(TransformBuffer* buffer, int index) {
+    for (auto it = buffer_slots_.begin(); it != buffer_slots_.end(); ++it) {
+        if ((it->first == buffer) && (it->second == index)) {
+            buffer_slots_.erase(it);
+            return;
+        }
+    }
 }
 
 void Transform::invalidate(bool rotationUpdated) {
     owner_object()->setTransformDirty();
+    ++version_;
+    Collider* collider = owner_object()->collider();
+    if (collider != nullptr) {
+        collider->invalidateBounds();
+    }
     if (model_matrix_.isValid()) {
         model_matrix_.invalidate();
         std::vector<SceneObject*> childrenCopy = owner_object()->children();
@@ -22,6 +22,7 @@
 #define TRANSFORM_H_
 
 #include <memory>
+#include <vector>
 
 #include "glm/glm.hpp"
 #include "glm/gtx/quaternion.hpp"
@@ -31,6 +32,8 @@
 #include "objects/components/component.h"
 
 namespace gvr {
+class TransformBuffer;
+
 class Transform: public Component {
 public:
     Transform();
@@ -178,6 +181,14 @@ public:
         return model_matrix_.isValid();
     }
 
+    /*
+     * Incremented every time the model matrix is invalidated.
+     * Caches of world space data compare it to detect changes.
+     */
+    unsigned int version() const {
+        return version_;
+    }
+
     void invalidate(bool rotationUpdated);
     glm::mat4 getModelMatrix(bool forceRecalculate = false);
     glm::mat4 getLocalModelMatrix();
@@ -191,6 +202,13 @@ public:
             float pivot_y, float pivot_z);
     void setModelMatrix(glm::mat4 mat);
 
+    /*
+     * Slots of the transform buffers reading this transform, which are
+     * cleared when it is deleted.
+     */
+    void addBufferSlot(TransformBuffer* buffer, int index);
+    void removeBufferSlot(TransformBuffer* buffer, int index);
+
 private:
     Transform(const Transform& transform);
     Transform(Transform&& transform);
@@ -203,6 +221,8 @@ private:
     glm::vec3 scale_;
 
     Lazy<glm::mat4> model_matrix_;
+    unsigned int version_;
+    std::vector<std::pair<TransformBuffer*, int>> buffer_slots_;
 };
 
 }
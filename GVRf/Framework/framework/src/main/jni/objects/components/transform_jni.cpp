@@ -114,6 +114,14 @@ JNIEXPORT jfloatArray JNICALL
 Java_org_gearvrf_NativeTransform_getLocalModelMatrix(JNIEnv * env,
         jobject obj, jlong jtransform);
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_getModelMatrixInto(JNIEnv * env,
+        jobject obj, jlong jtransform, jfloatArray jmatrix, jint offset);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_getLocalModelMatrixInto(JNIEnv * env,
+        jobject obj, jlong jtransform, jfloatArray jmatrix, jint offset);
+
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeTransform_setModelMatrix(JNIEnv * env,
         jobject obj, jlong jtransform, jfloatArray mat);
@@ -148,6 +156,11 @@ Java_org_gearvrf_NativeTransform_rotateWithPivot(
         jfloat quat_x, jfloat quat_y, jfloat quat_z, jfloat pivot_x,
         jfloat pivot_y, jfloat pivot_z);
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_setTransforms(JNIEnv * env,
+        jobject obj, jlongArray jtransforms, jintArray jkinds,
+        jfloatArray jvalues, jint count);
+
 }
 ;
 
@@ -346,6 +359,22 @@ Java_org_gearvrf_NativeTransform_getLocalModelMatrix(JNIEnv * env,
     return jmatrix;
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_getModelMatrixInto(JNIEnv * env,
+        jobject obj, jlong jtransform, jfloatArray jmatrix, jint offset) {
+    Transform* transform = reinterpret_cast<Transform*>(jtransform);
+    glm::mat4 matrix = transform->getModelMatrix();
+    env->SetFloatArrayRegion(jmatrix, offset, 16, glm::value_ptr(matrix));
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_getLocalModelMatrixInto(JNIEnv * env,
+        jobject obj, jlong jtransform, jfloatArray jmatrix, jint offset) {
+    Transform* transform = reinterpret_cast<Transform*>(jtransform);
+    glm::mat4 matrix = transform->getLocalModelMatrix();
+    env->SetFloatArrayRegion(jmatrix, offset, 16, glm::value_ptr(matrix));
+}
+
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeTransform_setModelMatrix(JNIEnv * env,
 		jobject obj, jlong jtransform, jfloatArray mat){
@@ -406,5 +435,43 @@ Java_org_gearvrf_NativeTransform_rotateWithPivot(
             pivot_y, pivot_z);
 }
 
+// kinds of writes, matching GVRTransformBatch
+enum {
+    SET_POSITION = 0, SET_ROTATION = 1, SET_SCALE = 2
+};
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_setTransforms(JNIEnv * env,
+        jobject obj, jlongArray jtransforms, jintArray jkinds,
+        jfloatArray jvalues, jint count) {
+    jlong* transforms = env->GetLongArrayElements(jtransforms, 0);
+    jint* kinds = env->GetIntArrayElements(jkinds, 0);
+    jfloat* values = env->GetFloatArrayElements(jvalues, 0);
+
+    for (int i = 0; i < count; ++i) {
+        Transform* transform = reinterpret_cast<Transform*>(transforms[i]);
+        const jfloat* v = values + i * 4;
+
+        if (nullptr == transform) {
+            continue;   // released after the write was recorded
+        }
+
+        switch (kinds[i]) {
+        case SET_POSITION:
+            transform->set_position(v[0], v[1], v[2]);
+            break;
+        case SET_ROTATION:
+            transform->set_rotation(v[0], v[1], v[2], v[3]);
+            break;
+        case SET_SCALE:
+            transform->set_scale(v[0], v[1], v[2]);
+            break;
+        }
+    }
+    env->ReleaseFloatArrayElements(jvalues, values, JNI_ABORT);
+    env->ReleaseIntArrayElements(jkinds, kinds, JNI_ABORT);
+    env->ReleaseLongArrayElements(jtransforms, transforms, JNI_ABORT);
+}
+
 
 }
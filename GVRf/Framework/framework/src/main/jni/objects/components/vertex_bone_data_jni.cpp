@@ -26,6 +26,16 @@ Java_org_gearvrf_NativeVertexBoneData_setVertexBoneWeight(JNIEnv * env, jclass c
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeVertexBoneData_normalizeWeights(JNIEnv * env, jclass clz, jlong ptr);
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeVertexBoneData_setBoneWeights(JNIEnv * env, jclass clz, jlong ptr,
+        jintArray jboneIds, jfloatArray jboneWeights);
+
+JNIEXPORT jintArray JNICALL
+Java_org_gearvrf_NativeVertexBoneData_getBoneIndices(JNIEnv * env, jclass clz, jlong ptr);
+
+JNIEXPORT jfloatArray JNICALL
+Java_org_gearvrf_NativeVertexBoneData_getBoneWeights(JNIEnv * env, jclass clz, jlong ptr);
+
 } // extern "C"
 ;
 
@@ -55,4 +65,42 @@ Java_org_gearvrf_NativeVertexBoneData_normalizeWeights(JNIEnv * env, jclass clz,
     boneData->normalizeWeights();
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeVertexBoneData_setBoneWeights(JNIEnv * env, jclass clz, jlong ptr,
+        jintArray jboneIds, jfloatArray jboneWeights) {
+    VertexBoneData *boneData = reinterpret_cast<VertexBoneData*>(ptr);
+    int length = std::min(env->GetArrayLength(jboneIds), env->GetArrayLength(jboneWeights));
+    jint* boneIds = env->GetIntArrayElements(jboneIds, 0);
+    jfloat* boneWeights = env->GetFloatArrayElements(jboneWeights, 0);
+    boneData->setBoneWeights(boneIds, boneWeights, length);
+    env->ReleaseFloatArrayElements(jboneWeights, boneWeights, JNI_ABORT);
+    env->ReleaseIntArrayElements(jboneIds, boneIds, JNI_ABORT);
+}
+
+JNIEXPORT jintArray JNICALL
+Java_org_gearvrf_NativeVertexBoneData_getBoneIndices(JNIEnv * env, jclass clz, jlong ptr) {
+    VertexBoneData *boneData = reinterpret_cast<VertexBoneData*>(ptr);
+    int length = boneData->boneData.size() * BONES_PER_VERTEX;
+    jintArray jboneIds = env->NewIntArray(length);
+    jint* boneIds = env->GetIntArrayElements(jboneIds, 0);
+    for (int i = 0; i < length; ++i) {
+        boneIds[i] = boneData->boneData[i / BONES_PER_VERTEX].ids[i % BONES_PER_VERTEX];
+    }
+    env->ReleaseIntArrayElements(jboneIds, boneIds, 0);
+    return jboneIds;
+}
+
+JNIEXPORT jfloatArray JNICALL
+Java_org_gearvrf_NativeVertexBoneData_getBoneWeights(JNIEnv * env, jclass clz, jlong ptr) {
+    VertexBoneData *boneData = reinterpret_cast<VertexBoneData*>(ptr);
+    int length = boneData->boneData.size() * BONES_PER_VERTEX;
+    jfloatArray jboneWeights = env->NewFloatArray(length);
+    jfloat* boneWeights = env->GetFloatArrayElements(jboneWeights, 0);
+    for (int i = 0; i < length; ++i) {
+        boneWeights[i] = boneData->boneData[i / BONES_PER_VERTEX].weights[i % BONES_PER_VERTEX];
+    }
+    env->ReleaseFloatArrayElements(jboneWeights, boneWeights, 0);
+    return jboneWeights;
+}
+
 } // namespace gvr
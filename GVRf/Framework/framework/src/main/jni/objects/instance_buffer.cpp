@@ -0,0 +1,222 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Per-instance vertex attributes of an instanced render data.
+ ***************************************************************************/
+
+#include "instance_buffer.h"
+
+#include <algorithm>
+#include <cmath>
+#include <cstring>
+#include <limits>
+
+#include "util/gvr_gl.h"
+#include "util/gvr_log.h"
+
+namespace gvr {
+
+static const char* INSTANCE_MATRIX = "a_instance_matrix";
+static const int MATRIX_SIZE = 16;
+
+InstanceBuffer::InstanceBuffer() :
+        HybridObject(), stride_(0), matrix_offset_(-1), capacity_(0),
+        instance_count_(0), dirty_first_(0), dirty_end_(0), vbo_(0),
+        vbo_capacity_(0), bounds_dirty_(true), mesh_center_(), mesh_radius_(0) {
+}
+
+InstanceBuffer::~InstanceBuffer() {
+    if (0 != vbo_) {
+        GL(glDeleteBuffers(1, &vbo_));
+    }
+}
+
+void InstanceBuffer::setLayout(const std::vector<std::string>& names,
+        const std::vector<int>& sizes) {
+    std::lock_guard<std::mutex> lock(lock_);
+    names_ = names;
+    sizes_ = sizes;
+    offsets_.clear();
+    stride_ = 0;
+    matrix_offset_ = -1;
+    for (int i = 0; i < names_.size(); ++i) {
+        if ((names_[i] == INSTANCE_MATRIX) && (sizes_[i] == MATRIX_SIZE)) {
+            matrix_offset_ = stride_;
+        }
+        offsets_.push_back(stride_);
+        stride_ += sizes_[i];
+    }
+    data_.assign(capacity_ * stride_, 0.0f);
+    locations_.clear();
+    vbo_capacity_ = 0;
+    dirty_first_ = 0;
+    dirty_end_ = capacity_;
+    bounds_dirty_ = true;
+}
+
+void InstanceBuffer::setCapacity(int capacity) {
+    std::lock_guard<std::mutex> lock(lock_);
+    capacity_ = capacity;
+    data_.resize(capacity_ * stride_, 0.0f);
+    instance_count_ = std::min(instance_count_, capacity_);
+    dirty_end_ = std::min(dirty_end_, capacity_);
+    dirty_first_ = std::min(dirty_first_, dirty_end_);
+}
+
+void InstanceBuffer::setData(int first, int count, const float* data) {
+    std::lock_guard<std::mutex> lock(lock_);
+    if ((first < 0) || (count <= 0) || (first + count > capacity_)) {
+        return;
+    }
+    memcpy(&data_[first * stride_], data, count * stride_ * sizeof(float));
+    if (dirty_first_ == dirty_end_) {
+        dirty_first_ = first;
+        dirty_end_ = first + count;
+    } else {
+        dirty_first_ = std::min(dirty_first_, first);
+        dirty_end_ = std::max(dirty_end_, first + count);
+    }
+    if ((matrix_offset_ >= 0) && (first < instance_count_)) {
+        bounds_dirty_ = true;
+    }
+}
+
+void InstanceBuffer::setInstanceCount(int count) {
+    std::lock_guard<std::mutex> lock(lock_);
+    instance_count_ = std::max(0, std::min(count, capacity_));
+    bounds_dirty_ = true;
+}
+
+int InstanceBuffer::getInstanceCount() {
+    std::lock_guard<std::mutex> lock(lock_);
+    return instance_count_;
+}
+
+int InstanceBuffer::getStride() {
+    std::lock_guard<std::mutex> lock(lock_);
+    return stride_;
+}
+
+const std::vector<GLint>& InstanceBuffer::getLocations(GLuint programId) {
+    auto it = locations_.find(programId);
+    if (it != locations_.end()) {
+        return it->second;
+    }
+    std::vector<GLint>& locations = locations_[programId];
+    for (auto name = names_.begin(); name != names_.end(); ++name) {
+        locations.push_back(glGetAttribLocation(programId, name->c_str()));
+    }
+    return locations;
+}
+
+/*
+ * Uploads the instances which changed, then points the attributes of
+ * the bound vertex array object at the instance buffer. Attributes
+ * larger than a vec4, like the instance matrix, use consecutive
+ * locations.
+ */
+int InstanceBuffer::bindAttributes(GLuint programId) {
+    std::lock_guard<std::mutex> lock(lock_);
+    if ((instance_count_ == 0) || (stride_ == 0)) {
+        return 0;
+    }
+    const std::vector<GLint>& locations = getLocations(programId);
+    for (int i = 0; i < locations.size(); ++i) {
+        if ((offsets_[i] == matrix_offset_) && (locations[i] < 0)) {
+            // e.g. the shadow map shader, which would draw every
+            // instance at the origin
+            return 0;
+        }
+    }
+
+    if (0 == vbo_) {
+        glGenBuffers(1, &vbo_);
+    }
+    glBindBuffer(GL_ARRAY_BUFFER, vbo_);
+    if (vbo_capacity_ != capacity_) {
+        glBufferData(GL_ARRAY_BUFFER, data_.size() * sizeof(float), data_.data(),
+                GL_DYNAMIC_DRAW);
+        vbo_capacity_ = capacity_;
+    } else if (dirty_first_ < dirty_end_) {
+        glBufferSubData(GL_ARRAY_BUFFER, dirty_first_ * stride_ * sizeof(float),
+                (dirty_end_ - dirty_first_) * stride_ * sizeof(float),
+                &data_[dirty_first_ * stride_]);
+    }
+    dirty_first_ = dirty_end_ = 0;
+
+    GLsizei stride = stride_ * sizeof(float);
+    for (int i = 0; i < locations.size(); ++i) {
+        if (locations[i] < 0) {
+            continue;
+        }
+        for (int column = 0; column * 4 < sizes_[i]; ++column) {
+            GLuint location = locations[i] + column;
+            GLint size = std::min(4, sizes_[i] - column * 4);
+            GLvoid* offset = (GLvoid*) ((offsets_[i] + column * 4) * sizeof(float));
+
+            glEnableVertexAttribArray(location);
+            glVertexAttribPointer(location, size, GL_FLOAT, GL_FALSE, stride, offset);
+            glVertexAttribDivisor(location, 1);
+        }
+    }
+    glBindBuffer(GL_ARRAY_BUFFER, 0);
+    return instance_count_;
+}
+
+BoundingVolume InstanceBuffer::getBoundingVolume(const BoundingVolume& mesh_volume) {
+    std::lock_guard<std::mutex> lock(lock_);
+    if (matrix_offset_ < 0) {
+        return mesh_volume;
+    }
+    if (!bounds_dirty_ && (mesh_center_ == mesh_volume.center())
+            && (mesh_radius_ == mesh_volume.radius())) {
+        return bounds_;
+    }
+    mesh_center_ = mesh_volume.center();
+    mesh_radius_ = mesh_volume.radius();
+    bounds_.reset();
+
+    const float c[3] = { mesh_center_.x, mesh_center_.y, mesh_center_.z };
+    glm::vec3 min_corner(std::numeric_limits<float>::infinity());
+    glm::vec3 max_corner(-std::numeric_limits<float>::infinity());
+
+    for (int i = 0; i < instance_count_; ++i) {
+        const float* m = &data_[i * stride_ + matrix_offset_];
+        float scale = 0;
+
+        // largest scale of the column major matrix, so the mesh sphere
+        // bounds the instance whatever its rotation
+        for (int column = 0; column < 3; ++column) {
+            const float* v = m + column * 4;
+            scale = std::max(scale, v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
+        }
+        float radius = mesh_radius_ * sqrtf(scale);
+        for (int row = 0; row < 3; ++row) {
+            float center = m[row] * c[0] + m[4 + row] * c[1] + m[8 + row] * c[2] + m[12 + row];
+            min_corner[row] = std::min(min_corner[row], center - radius);
+            max_corner[row] = std::max(max_corner[row], center + radius);
+        }
+    }
+    if (instance_count_ > 0) {
+        bounds_.expand(min_corner);
+        bounds_.expand(max_corner);
+    }
+    bounds_dirty_ = false;
+    return bounds_;
+}
+
+}
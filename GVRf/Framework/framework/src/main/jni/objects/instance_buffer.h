@@ -0,0 +1,101 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * Per-instance vertex attributes of an instanced render data.
+ ***************************************************************************/
+
+#ifndef INSTANCE_BUFFER_H_
+#define INSTANCE_BUFFER_H_
+
+#include <mutex>
+#include <string>
+#include <unordered_map>
+#include <vector>
+
+#include "gl/gl_headers.h"
+
+#include "objects/hybrid_object.h"
+#include "objects/bounding_volume.h"
+
+namespace gvr {
+
+/*
+ * Instances are stored interleaved: each one has the attributes of the
+ * layout, one after the other. Any thread may write instances; the GL
+ * thread uploads the ones which changed before drawing.
+ */
+class InstanceBuffer: public HybridObject {
+public:
+    InstanceBuffer();
+    virtual ~InstanceBuffer();
+
+    void setLayout(const std::vector<std::string>& names, const std::vector<int>& sizes);
+    void setCapacity(int capacity);
+    void setData(int first, int count, const float* data);
+    void setInstanceCount(int count);
+    int getInstanceCount();
+
+    /*
+     * Number of floats in one instance.
+     */
+    int getStride();
+
+    /*
+     * Must be called on the rendering thread, with the vertex array
+     * object of the mesh bound. Returns the number of instances to draw,
+     * 0 if the program does not read the instance matrix of the layout.
+     */
+    int bindAttributes(GLuint programId);
+
+    /*
+     * Union of the bounding volumes of the instances, in the space of
+     * the owner object. Only the instance matrices are considered.
+     */
+    BoundingVolume getBoundingVolume(const BoundingVolume& mesh_volume);
+
+private:
+    InstanceBuffer(const InstanceBuffer& buffer);
+    InstanceBuffer(InstanceBuffer&& buffer);
+    InstanceBuffer& operator=(const InstanceBuffer& buffer);
+    InstanceBuffer& operator=(InstanceBuffer&& buffer);
+
+    const std::vector<GLint>& getLocations(GLuint programId);
+
+private:
+    std::mutex lock_;
+    std::vector<std::string> names_;
+    std::vector<int> sizes_;
+    std::vector<int> offsets_;
+    int stride_;
+    int matrix_offset_;
+    std::vector<float> data_;
+    int capacity_;
+    int instance_count_;
+    int dirty_first_;
+    int dirty_end_;
+    GLuint vbo_;
+    int vbo_capacity_;
+    std::unordered_map<GLuint, std::vector<GLint>> locations_;
+
+    bool bounds_dirty_;
+    BoundingVolume bounds_;
+    glm::vec3 mesh_center_;
+    float mesh_radius_;
+};
+
+}
+#endif
@@ -0,0 +1,99 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * JNI
+ ***************************************************************************/
+
+#include "instance_buffer.h"
+
+#include "util/gvr_jni.h"
+
+namespace gvr {
+extern "C" {
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativeInstanceBuffer_ctor(JNIEnv * env, jobject obj);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeInstanceBuffer_setLayout(JNIEnv * env,
+        jobject obj, jlong jbuffer, jobjectArray jnames, jintArray jsizes);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeInstanceBuffer_setCapacity(JNIEnv * env,
+        jobject obj, jlong jbuffer, jint capacity);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeInstanceBuffer_setData(JNIEnv * env,
+        jobject obj, jlong jbuffer, jfloatArray jdata, jint first, jint count);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeInstanceBuffer_setInstanceCount(JNIEnv * env,
+        jobject obj, jlong jbuffer, jint count);
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativeInstanceBuffer_ctor(JNIEnv * env, jobject obj) {
+    return reinterpret_cast<jlong>(new InstanceBuffer());
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeInstanceBuffer_setLayout(JNIEnv * env,
+        jobject obj, jlong jbuffer, jobjectArray jnames, jintArray jsizes) {
+    InstanceBuffer* buffer = reinterpret_cast<InstanceBuffer*>(jbuffer);
+    int length = env->GetArrayLength(jnames);
+    std::vector<std::string> names;
+    std::vector<int> sizes(length);
+
+    for (int i = 0; i < length; ++i) {
+        jstring jname = static_cast<jstring>(env->GetObjectArrayElement(jnames, i));
+        const char* name = env->GetStringUTFChars(jname, 0);
+        names.push_back(std::string(name));
+        env->ReleaseStringUTFChars(jname, name);
+        env->DeleteLocalRef(jname);
+    }
+    env->GetIntArrayRegion(jsizes, 0, length, sizes.data());
+    buffer->setLayout(names, sizes);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeInstanceBuffer_setCapacity(JNIEnv * env,
+        jobject obj, jlong jbuffer, jint capacity) {
+    InstanceBuffer* buffer = reinterpret_cast<InstanceBuffer*>(jbuffer);
+    buffer->setCapacity(capacity);
+}
+
+/*
+ * jdata is the whole Java copy of the buffer; only the instances from
+ * first to first + count are copied.
+ */
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeInstanceBuffer_setData(JNIEnv * env,
+        jobject obj, jlong jbuffer, jfloatArray jdata, jint first, jint count) {
+    InstanceBuffer* buffer = reinterpret_cast<InstanceBuffer*>(jbuffer);
+    int stride = buffer->getStride();
+    std::vector<float> data(count * stride);
+    env->GetFloatArrayRegion(jdata, first * stride, count * stride, data.data());
+    buffer->setData(first, count, data.data());
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeInstanceBuffer_setInstanceCount(JNIEnv * env,
+        jobject obj, jlong jbuffer, jint count) {
+    InstanceBuffer* buffer = reinterpret_cast<InstanceBuffer*>(jbuffer);
+    buffer->setInstanceCount(count);
+}
+
+}
@@ -19,6 +19,8 @@
 
 #include "mesh.h"
 
+#include <algorithm>
+
 #include "assimp/Importer.hpp"
 #include "glm/gtc/matrix_inverse.hpp"
 
@@ -194,6 +196,9 @@ namespace gvr {
                 // Skip dynamic attributes. Currently only bones are dynamic attributes which changes each frame.
                 // They are handled seperately.
             }
+            else if (strncmp(attrName, "a_instance", 10) == 0) {
+                // Per-instance attributes come from the InstanceBuffer of the render data.
+            }
             else {
                 attrData.type = GL_FLOAT;
                 int loc = glGetAttribLocation(programId, attrName);
@@ -285,6 +290,85 @@ namespace gvr {
     }
 
 
+    void Mesh::createBuffer(std::vector<GLfloat> &buffer, int first, int end) {
+        for (int i = first; i < end; i++) {
+            for (auto it = attrMapping.begin(); it != attrMapping.end(); ++it) {
+                const GLAttributeMapping& currAttr = *it;
+                const float *ptr = (float *) currAttr.data;
+                for (int k = 0; k < currAttr.size; k++) {
+                    buffer.push_back(ptr[i * currAttr.size + k]);
+                }
+            }
+        }
+    }
+
+    void Mesh::set_float_range(const std::string& key, int first, const float* data, int count) {
+        float* dest = NULL;
+        int components = 0;
+        int size = 0;
+
+        if (key == "a_position") {
+            dest = reinterpret_cast<float*>(vertices_.data());
+            components = 3;
+            size = vertices_.size();
+        } else if (key == "a_normal") {
+            dest = reinterpret_cast<float*>(normals_.data());
+            components = 3;
+            size = normals_.size();
+        } else {
+            auto it = vec2_vectors_.find(key);
+            if (it != vec2_vectors_.end()) {
+                dest = reinterpret_cast<float*>(it->second.data());
+                components = 2;
+                size = it->second.size();
+            }
+        }
+        if ((dest == NULL) || (first < 0) || (count < 0) || (first + count > size)) {
+            LOGE("Mesh::set_float_range() : cannot set %d vertices of %s at %d", count, key.c_str(), first);
+            return;
+        }
+        memcpy(dest + first * components, data, count * components * sizeof(float));
+        if ((key == "a_position") && have_bounding_volume_) {
+            for (int i = first; i < first + count; ++i) {
+                bounding_volume.expand(vertices_[i]);
+            }
+        }
+        for (auto it = program_ids_.begin(); it != program_ids_.end(); ++it) {
+            GLVaoVboId& ids = it->second;
+            if (ids.dirty_first == ids.dirty_end) {
+                ids.dirty_first = first;
+                ids.dirty_end = first + count;
+            } else {
+                ids.dirty_first = std::min(ids.dirty_first, first);
+                ids.dirty_end = std::max(ids.dirty_end, first + count);
+            }
+        }
+        dirty();
+    }
+
+    /*
+     * Upload the vertices changed by set_float_range to the
+     * interleaved vertex buffer of a program.
+     */
+    void Mesh::updateVBORange(int programId, GLVaoVboId& ids) {
+        int totalStride;
+        int attrLength;
+        std::vector<GLfloat> buffer;
+
+        attrMapping.clear();
+        createAttributeMapping(programId, totalStride, attrLength);
+        int end = std::min(ids.dirty_end, attrLength);
+        if (ids.dirty_first < end) {
+            buffer.reserve((end - ids.dirty_first) * totalStride);
+            createBuffer(buffer, ids.dirty_first, end);
+            glBindBuffer(GL_ARRAY_BUFFER, ids.static_vboID);
+            glBufferSubData(GL_ARRAY_BUFFER, sizeof(GLfloat) * ids.dirty_first * totalStride,
+                            sizeof(GLfloat) * buffer.size(), buffer.data());
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        }
+        ids.dirty_first = ids.dirty_end = 0;
+    }
+
     const GLuint Mesh::getVAOId(int programId) {
         if (programId == -1) {
             LOGI("!! %p Prog Id -- %d ", this, programId);
@@ -297,7 +381,11 @@ namespace gvr {
         auto it = program_ids_.find(programId);
         if (it != program_ids_.end())
         {
-            GLVaoVboId id = it->second;
+            GLVaoVboId& id = it->second;
+            if (id.dirty_first != id.dirty_end)
+            {
+                updateVBORange(programId, id);
+            }
             return id.vaoID;
         }
         vao_dirty_ = true;
@@ -333,10 +421,11 @@ namespace gvr {
         auto it = program_ids_.find(programId);
         if (it != program_ids_.end()) {
 
-            GLVaoVboId ids = it->second;
+            GLVaoVboId& ids = it->second;
             vaoID_ = ids.vaoID;
             triangle_vboID_ = ids.triangle_vboID;
             static_vboID_ = ids.static_vboID;
+            ids.dirty_first = ids.dirty_end = 0;
         }
         else {
             glGenVertexArrays(1, &vaoID_);
@@ -347,9 +436,14 @@ namespace gvr {
 
         glBindVertexArray(vaoID_);
         glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, triangle_vboID_);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, sizeof(unsigned short) * indices_.size(),
-                     &indices_[0], GL_STATIC_DRAW);
-        numTriangles_ = indices_.size() / 3;
+        if (!int_indices_.empty()) {
+            glBufferData(GL_ELEMENT_ARRAY_BUFFER, sizeof(unsigned int) * int_indices_.size(),
+                         &int_indices_[0], GL_STATIC_DRAW);
+        } else {
+            glBufferData(GL_ELEMENT_ARRAY_BUFFER, sizeof(unsigned short) * indices_.size(),
+                         &indices_[0], GL_STATIC_DRAW);
+        }
+        numTriangles_ = getIndexCount() / 3;
 
         attrMapping.clear();
         int totalStride;
@@ -384,6 +478,7 @@ namespace gvr {
             id.vaoID = vaoID_;
             id.static_vboID = static_vboID_;
             id.triangle_vboID = triangle_vboID_;
+            id.dirty_first = id.dirty_end = 0;
             program_ids_[programId] = id;
         }
         vao_dirty_ = false;
@@ -46,6 +46,7 @@ public:
             vertices_(),
             normals_(),
             indices_(),
+            int_indices_(),
             float_vectors_(),
             vec2_vectors_(),
             vec3_vectors_(),
@@ -72,6 +73,8 @@ public:
         normals.swap(normals_);
         std::vector<unsigned short> indices;
         indices.swap(indices_);
+        std::vector<unsigned int> int_indices;
+        int_indices.swap(int_indices_);
 
         deleteVaos();
     }
@@ -143,18 +146,30 @@ public:
         dirty();
     }
 
+    /*
+     * Overwrite a range of vertices of one float attribute in place.
+     * The key is "a_position", "a_normal" or the name of a vec2
+     * attribute such as "a_texcoord". Only the changed vertices are
+     * uploaded to vertex buffers which already exist.
+     * The bounding volume is grown to include new positions,
+     * it does not shrink when vertices are overwritten.
+     */
+    void set_float_range(const std::string& key, int first, const float* data, int count);
+
     const std::vector<unsigned short>& triangles() const {
         return indices_;
     }
 
     void set_triangles(const std::vector<unsigned short>& triangles) {
         indices_ = triangles;
+        int_indices_.clear();
         vao_dirty_ = true;
         dirty();
     }
 
     void set_triangles(std::vector<unsigned short>&& triangles) {
         indices_ = std::move(triangles);
+        int_indices_.clear();
         vao_dirty_ = true;
         dirty();
     }
@@ -165,16 +180,67 @@ public:
 
     void set_indices(const std::vector<unsigned short>& indices) {
         indices_ = indices;
+        int_indices_.clear();
         vao_dirty_ = true;
         dirty();
     }
 
     void set_indices(std::vector<unsigned short>&& indices) {
         indices_ = std::move(indices);
+        int_indices_.clear();
+        vao_dirty_ = true;
+        dirty();
+    }
+
+    /**
+     * 32-bit indices, only used when the mesh has more vertices
+     * than 16-bit indices can address.
+     */
+    const std::vector<unsigned int>& int_indices() const {
+        return int_indices_;
+    }
+
+    void set_int_indices(std::vector<unsigned int>&& indices) {
+        int_indices_ = std::move(indices);
+        indices_.clear();
         vao_dirty_ = true;
         dirty();
     }
 
+    /**
+     * Number of indices, whichever storage holds them.
+     */
+    size_t getIndexCount() const {
+        return int_indices_.empty() ? indices_.size() : int_indices_.size();
+    }
+
+    unsigned int getIndex(size_t i) const {
+        return int_indices_.empty() ? indices_[i] : int_indices_[i];
+    }
+
+    /**
+     * Number of bytes of vertex and index data held by the mesh,
+     * computed from the vertex and index counts.
+     */
+    size_t getDataSize() const {
+        size_t size = (vertices_.size() + normals_.size()) * sizeof(glm::vec3);
+        size += indices_.size() * sizeof(unsigned short);
+        size += int_indices_.size() * sizeof(unsigned int);
+        for (auto it = float_vectors_.begin(); it != float_vectors_.end(); ++it) {
+            size += it->second.size() * sizeof(float);
+        }
+        for (auto it = vec2_vectors_.begin(); it != vec2_vectors_.end(); ++it) {
+            size += it->second.size() * sizeof(glm::vec2);
+        }
+        for (auto it = vec3_vectors_.begin(); it != vec3_vectors_.end(); ++it) {
+            size += it->second.size() * sizeof(glm::vec3);
+        }
+        for (auto it = vec4_vectors_.begin(); it != vec4_vectors_.end(); ++it) {
+            size += it->second.size() * sizeof(glm::vec4);
+        }
+        return size;
+    }
+
     bool hasAttribute(std::string key) const {
         if (vec3_vectors_.find(key) != vec3_vectors_.end()) {
             return true;
@@ -360,6 +426,7 @@ private:
     std::map<std::string, std::vector<glm::vec3>> vec3_vectors_;
     std::map<std::string, std::vector<glm::vec4>> vec4_vectors_;
     std::vector<unsigned short> indices_;
+    std::vector<unsigned int> int_indices_;
 
     // add location slot map
     std::map<int, std::string> attribute_float_keys_;
@@ -373,6 +440,8 @@ private:
         GLuint vaoID;
         GLuint static_vboID;
         GLuint triangle_vboID;
+        int dirty_first;    // vertices changed by set_float_range
+        int dirty_end;      // since the buffer was uploaded
     };
 
     std::map<GLuint, GLVaoVboId> program_ids_;
@@ -388,6 +457,8 @@ private:
 
     void createAttributeMapping(int programId, int& totalStride, int& attrLength);
     void createBuffer(std::vector<GLfloat>& buffer, int attrLength);
+    void createBuffer(std::vector<GLfloat>& buffer, int first, int end);
+    void updateVBORange(int programId, GLVaoVboId& ids);
 
     // triangle information
     GLuint numTriangles_;
@@ -96,10 +96,36 @@ extern "C" {
     Java_org_gearvrf_NativeMesh_getSphereBound(JNIEnv * env,
             jobject obj, jlong jmesh, jfloatArray jsphere);
 
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_NativeMesh_getDataSize(JNIEnv * env,
+            jobject obj, jlong jmesh);
+
     JNIEXPORT jobjectArray JNICALL
     Java_org_gearvrf_NativeMesh_getAttribNames(JNIEnv * env,
             jobject obj, jlong jmesh);
 
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeMesh_setFloatBuffer(JNIEnv * env,
+            jobject obj, jlong jmesh, jstring key, jint components,
+            jobject jbuffer, jint offset, jint length);
+
+    JNIEXPORT jintArray JNICALL
+    Java_org_gearvrf_NativeMesh_getIntIndices(JNIEnv * env,
+            jobject obj, jlong jmesh);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeMesh_setIntIndices(JNIEnv * env,
+            jobject obj, jlong jmesh, jintArray indices);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeMesh_setIndexBuffer(JNIEnv * env,
+            jobject obj, jlong jmesh, jobject jbuffer, jint offset, jint length);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeMesh_setFloatRange(JNIEnv * env,
+            jobject obj, jlong jmesh, jstring key, jint components,
+            jfloatArray jdata, jint first, jint count);
+
 };
 
 JNIEXPORT jobjectArray JNICALL
@@ -429,4 +455,143 @@ Java_org_gearvrf_NativeMesh_getSphereBound(JNIEnv * env,
     sphere[3] = bvol.radius();
     env->SetFloatArrayRegion(jsphere, 0, 4, sphere);
 }
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeMesh_getDataSize(JNIEnv * env,
+        jobject obj, jlong jmesh) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    return static_cast<jint>(mesh->getDataSize());
+}
+
+/*
+ * Copies the contents of a direct, native order FloatBuffer straight into
+ * the mesh attribute named by key, without going through a Java array.
+ */
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setFloatBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jstring key, jint components,
+        jobject jbuffer, jint offset, jint length) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    const float* data = static_cast<const float*>(env->GetDirectBufferAddress(jbuffer));
+    if (data == nullptr) {
+        LOGE("NativeMesh::setFloatBuffer buffer is not direct");
+        return;
+    }
+    data += offset;
+    const char* char_key = env->GetStringUTFChars(key, 0);
+    std::string native_key = std::string(char_key);
+    env->ReleaseStringUTFChars(key, char_key);
+    int count = length / components;
+
+    switch (components) {
+    case 1:
+        mesh->setFloatVector(native_key, std::vector<float>(data, data + length));
+        break;
+
+    case 2: {
+        const glm::vec2* vec2_pointer = reinterpret_cast<const glm::vec2*>(data);
+        mesh->setVec2Vector(native_key, std::vector<glm::vec2>(vec2_pointer, vec2_pointer + count));
+        break;
+    }
+
+    case 3: {
+        const glm::vec3* vec3_pointer = reinterpret_cast<const glm::vec3*>(data);
+        std::vector<glm::vec3> native_vec3_vector(vec3_pointer, vec3_pointer + count);
+        if (native_key == "a_position") {
+            mesh->set_vertices(std::move(native_vec3_vector));
+        } else if (native_key == "a_normal") {
+            mesh->set_normals(std::move(native_vec3_vector));
+        } else {
+            mesh->setVec3Vector(native_key, native_vec3_vector);
+        }
+        break;
+    }
+
+    case 4: {
+        const glm::vec4* vec4_pointer = reinterpret_cast<const glm::vec4*>(data);
+        mesh->setVec4Vector(native_key, std::vector<glm::vec4>(vec4_pointer, vec4_pointer + count));
+        break;
+    }
+
+    default:
+        LOGE("NativeMesh::setFloatBuffer unsupported component count %d", components);
+        break;
+    }
+}
+
+/*
+ * Indices which all fit in 16 bits are stored as shorts so the mesh can
+ * still be batched, larger ones are kept as 32-bit indices.
+ */
+static void setIntIndices(Mesh* mesh, const jint* indices, int length) {
+    unsigned int max_index = 0;
+    for (int i = 0; i < length; ++i) {
+        max_index = std::max(max_index, static_cast<unsigned int>(indices[i]));
+    }
+    if (max_index <= 0xFFFF) {
+        std::vector<unsigned short> native_indices(indices, indices + length);
+        mesh->set_indices(std::move(native_indices));
+    } else {
+        std::vector<unsigned int> native_indices(indices, indices + length);
+        mesh->set_int_indices(std::move(native_indices));
+    }
+}
+
+JNIEXPORT jintArray JNICALL
+Java_org_gearvrf_NativeMesh_getIntIndices(JNIEnv * env,
+        jobject obj, jlong jmesh) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    size_t count = mesh->getIndexCount();
+    jintArray jindices = env->NewIntArray(count);
+    if (!mesh->int_indices().empty()) {
+        env->SetIntArrayRegion(jindices, 0, count,
+                reinterpret_cast<const jint*>(mesh->int_indices().data()));
+    } else {
+        std::vector<jint> indices(mesh->indices().begin(), mesh->indices().end());
+        env->SetIntArrayRegion(jindices, 0, count, indices.data());
+    }
+    return jindices;
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setIntIndices(JNIEnv * env,
+        jobject obj, jlong jmesh, jintArray indices) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    jint* jindices_pointer = env->GetIntArrayElements(indices, 0);
+    int indices_length = env->GetArrayLength(indices);
+    setIntIndices(mesh, jindices_pointer, indices_length);
+    env->ReleaseIntArrayElements(indices, jindices_pointer, JNI_ABORT);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setIndexBuffer(JNIEnv * env,
+        jobject obj, jlong jmesh, jobject jbuffer, jint offset, jint length) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    const jint* data = static_cast<const jint*>(env->GetDirectBufferAddress(jbuffer));
+    if (data == nullptr) {
+        LOGE("NativeMesh::setIndexBuffer buffer is not direct");
+        return;
+    }
+    setIntIndices(mesh, data + offset, length);
+}
+
+/*
+ * Copies vertices first .. first + count - 1 of an attribute array
+ * which holds the whole mesh into the same vertices of the mesh.
+ * Only the range is read from the Java array.
+ */
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeMesh_setFloatRange(JNIEnv * env,
+        jobject obj, jlong jmesh, jstring key, jint components,
+        jfloatArray jdata, jint first, jint count) {
+    Mesh* mesh = reinterpret_cast<Mesh*>(jmesh);
+    const char* char_key = env->GetStringUTFChars(key, 0);
+    std::string native_key = std::string(char_key);
+    env->ReleaseStringUTFChars(key, char_key);
+
+    float* data = static_cast<float*>(env->GetPrimitiveArrayCritical(jdata, 0));
+    mesh->set_float_range(native_key, first, data + first * components, count);
+    env->ReleasePrimitiveArrayCritical(jdata, data, JNI_ABORT);
+}
+
 }
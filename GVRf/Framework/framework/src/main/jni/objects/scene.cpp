@@ -32,6 +32,9 @@ Scene::Scene() :
         dirtyFlag_(0),
         occlusion_flag_(false),
         pick_visible_(true),
+        pick_accelerated_(false),
+        collider_version_(0),
+        visible_stamp_(0),
         is_shadowmap_invalid(true) {
     if (main_scene() == NULL) {
         set_main_scene(this);
@@ -62,6 +65,7 @@ void Scene::clearAllColliders() {
     lockColliders();
     allColliders.clear();
     visibleColliders.clear();
+    ++collider_version_;
     unlockColliders();
 }
 
@@ -70,6 +74,7 @@ void Scene::gatherColliders() {
     allColliders.clear();
     visibleColliders.clear();
     scene_root_.getAllComponents(allColliders, Collider::getComponentType());
+    ++collider_version_;
     unlockColliders();
 }
 
@@ -78,6 +83,7 @@ void Scene::pick(SceneObject* sceneobj) {
     if (pick_visible_) {
          Collider* collider = reinterpret_cast<Collider*>(sceneobj->getComponent(Collider::getComponentType()));
         if (collider) {
+            collider->set_visible_stamp(visible_stamp_);
             visibleColliders.push_back(collider);
         }
      }
@@ -88,6 +94,7 @@ void Scene::addCollider(Collider* collider) {
     if (it == allColliders.end()) {
         lockColliders();
         allColliders.push_back(collider);
+        ++collider_version_;
         unlockColliders();
     }
 }
@@ -97,6 +104,7 @@ void Scene::removeCollider(Collider* collider) {
     if (it != allColliders.end()) {
         lockColliders();
         allColliders.erase(it);
+        ++collider_version_;
         unlockColliders();
     }
 }
@@ -29,6 +29,8 @@
 #include "components/camera_rig.h"
 #include "engine/renderer/renderer.h"
 #include "objects/light.h"
+#include "engine/picker/collider_bvh.h"
+#include "objects/components/collider.h"
 
 namespace gvr {
 class SceneObject;
@@ -110,6 +112,32 @@ public:
      */
     bool getPickVisible() const { return pick_visible_; }
 
+    /*
+     * If set to true, picking against all colliders uses a
+     * bounding volume hierarchy over the collider world bounds
+     * instead of testing every collider.
+     * If only visible objects are pickable, the colliders
+     * found in the hierarchy are filtered by visibility.
+     */
+    void setPickAccelerated(bool flag) { pick_accelerated_ = flag; }
+
+    /*
+     * Returns true if the picking acceleration structure
+     * is used when picking against all colliders.
+     */
+    bool getPickAccelerated() const { return pick_accelerated_; }
+
+    /*
+     * Get the picking acceleration structure, updated
+     * to match the current collider list. Only the colliders
+     * which moved since the last call are refitted.
+     * You must have called lockColliders first.
+     */
+    const ColliderBVH& getColliderBVH() {
+        collider_bvh_.update(allColliders, collider_version_);
+        return collider_bvh_;
+    }
+
     /*
      * Add a collider to the internal collider list.
      * This list is used to optimize picking by only
@@ -132,7 +160,10 @@ public:
      * to contain only the pickable objects that are visible.
      * This function does not lock the collider list!
      */
-    void clearVisibleColliders() { visibleColliders.clear(); }
+    void clearVisibleColliders() {
+        visibleColliders.clear();
+        ++visible_stamp_;
+    }
 
     /*
      * Called during culling to add a scene object's
@@ -140,13 +171,21 @@ public:
      */
     void pick(SceneObject* sceneobj);
 
+    /*
+     * Returns true if the collider was added to the
+     * visible collider list during the last cull.
+     */
+    bool isColliderVisible(const Collider* collider) const {
+        return collider->visible_stamp() == visible_stamp_;
+    }
+
     /*
      * Get the current collider list and lock it.
      * If set_pick_visible is set the visible collider list
      * is returned. Otherwise the list of all colliders is returned.
      * You should call unlockColliders after you are done with the list.
      */
-    const std::vector<Component*> lockColliders() {
+    const std::vector<Component*>& lockColliders() {
         collider_mutex_.lock();
         return pick_visible_ ? visibleColliders : allColliders;
     }
@@ -181,6 +220,10 @@ private:
     bool frustum_flag_;
     bool occlusion_flag_;
     bool pick_visible_;
+    bool pick_accelerated_;
+    int collider_version_;
+    unsigned int visible_stamp_;
+    ColliderBVH collider_bvh_;
     std::mutex collider_mutex_;
     std::vector<Light*> lightList;
     std::vector<Component*> allColliders;
@@ -48,6 +48,9 @@ extern "C" {
     Java_org_gearvrf_NativeScene_setPickVisible(JNIEnv * env,
             jobject obj, jlong jscene, jboolean flag);
     JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeScene_setPickAccelerated(JNIEnv * env,
+            jobject obj, jlong jscene, jboolean flag);
+    JNIEXPORT void JNICALL
     Java_org_gearvrf_NativeScene_setOcclusionQuery(JNIEnv * env,
             jobject obj, jlong jscene, jboolean flag);
 
@@ -150,6 +153,13 @@ Java_org_gearvrf_NativeScene_setPickVisible(JNIEnv * env,
     scene->setPickVisible(static_cast<bool>(flag));
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeScene_setPickAccelerated(JNIEnv * env,
+        jobject obj, jlong jscene, jboolean flag) {
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    scene->setPickAccelerated(static_cast<bool>(flag));
+}
+
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeScene_setOcclusionQuery(JNIEnv * env,
         jobject obj, jlong jscene, jboolean flag) {
@@ -344,8 +344,12 @@ BoundingVolume& SceneObject::getBoundingVolume() {
         // if (!render_data_->mesh()->hasBoundingVolume()
         // || !transform_->isModelMatrixValid()) {
         mesh_bounding_volume = rdata->mesh()->getBoundingVolume();
+        if (rdata->instance_buffer() != nullptr) {
+            mesh_bounding_volume = rdata->instance_buffer()->getBoundingVolume(mesh_bounding_volume);
+        }
         if (mesh_bounding_volume.radius() > 0) {
-            mesh_bounding_volume.transform(rdata->mesh()->getBoundingVolume(), transform()->getModelMatrix());
+            BoundingVolume local_bounding_volume = mesh_bounding_volume;
+            mesh_bounding_volume.transform(local_bounding_volume, transform()->getModelMatrix());
             transformed_bounding_volume_ = mesh_bounding_volume;
         }
     }
@@ -87,6 +87,14 @@ extern "C" {
     JNIEXPORT jfloatArray JNICALL
     Java_org_gearvrf_NativeSceneObject_expandBoundingVolumeByCenterAndRadius(JNIEnv * env,
             jobject obj, jlong jSceneObject, jfloat centerX, jfloat centerY, jfloat centerZ, jfloat radius);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeSceneObject_getBoundingBoxes(JNIEnv * env,
+            jobject obj, jlongArray jSceneObjects, jint count, jfloatArray jboxes);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeSceneObject_getBoundingSpheres(JNIEnv * env,
+            jobject obj, jlongArray jSceneObjects, jint count, jfloatArray jspheres);
 } // extern "C"
 
 JNIEXPORT jlong JNICALL
@@ -242,4 +250,55 @@ Java_org_gearvrf_NativeSceneObject_expandBoundingVolumeByCenterAndRadius(JNIEnv
     return boundingVolumeToArray(env, bvol);
 }
 
+/*
+ * Writes, for each scene object, 1 if it is enabled (0 otherwise) followed
+ * by the minimum and maximum corners of its hierarchical bounding box.
+ */
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeSceneObject_getBoundingBoxes(JNIEnv * env,
+        jobject obj, jlongArray jSceneObjects, jint count, jfloatArray jboxes) {
+    jlong* sceneObjects = env->GetLongArrayElements(jSceneObjects, 0);
+    jfloat* boxes = env->GetFloatArrayElements(jboxes, 0);
+
+    for (int i = 0; i < count; ++i) {
+        SceneObject* sceneObject = reinterpret_cast<SceneObject*>(sceneObjects[i]);
+        const BoundingVolume& bvol = sceneObject->getBoundingVolume();
+        jfloat* box = boxes + i * 7;
+
+        box[0] = sceneObject->enabled() ? 1.0f : 0.0f;
+        box[1] = bvol.min_corner().x;
+        box[2] = bvol.min_corner().y;
+        box[3] = bvol.min_corner().z;
+        box[4] = bvol.max_corner().x;
+        box[5] = bvol.max_corner().y;
+        box[6] = bvol.max_corner().z;
+    }
+    env->ReleaseLongArrayElements(jSceneObjects, sceneObjects, JNI_ABORT);
+    env->ReleaseFloatArrayElements(jboxes, boxes, 0);
+}
+
+/*
+ * Writes, for each scene object, the center and the radius of its
+ * hierarchical bounding sphere.
+ */
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeSceneObject_getBoundingSpheres(JNIEnv * env,
+        jobject obj, jlongArray jSceneObjects, jint count, jfloatArray jspheres) {
+    jlong* sceneObjects = env->GetLongArrayElements(jSceneObjects, 0);
+    jfloat* spheres = env->GetFloatArrayElements(jspheres, 0);
+
+    for (int i = 0; i < count; ++i) {
+        SceneObject* sceneObject = reinterpret_cast<SceneObject*>(sceneObjects[i]);
+        const BoundingVolume& bvol = sceneObject->getBoundingVolume();
+        jfloat* sphere = spheres + i * 4;
+
+        sphere[0] = bvol.center().x;
+        sphere[1] = bvol.center().y;
+        sphere[2] = bvol.center().z;
+        sphere[3] = bvol.radius();
+    }
+    env->ReleaseLongArrayElements(jSceneObjects, sceneObjects, JNI_ABORT);
+    env->ReleaseFloatArrayElements(jspheres, spheres, 0);
+}
+
 } // namespace gvr
@@ -0,0 +1,103 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * World matrices of a set of transforms, copied into memory shared with Java.
+ ***************************************************************************/
+
+#include "transform_buffer.h"
+
+#include <cstring>
+
+#include "glm/gtc/type_ptr.hpp"
+
+#include "objects/components/transform.h"
+
+namespace gvr {
+
+TransformBuffer::TransformBuffer() :
+        HybridObject(), matrices_(nullptr), versions_(nullptr), capacity_(0) {
+}
+
+TransformBuffer::~TransformBuffer() {
+    for (int i = 0; i < capacity_; ++i) {
+        if (nullptr != transforms_[i]) {
+            transforms_[i]->removeBufferSlot(this, i);
+        }
+    }
+}
+
+void TransformBuffer::setStorage(float* matrices, int* versions, int capacity) {
+    matrices_ = matrices;
+    versions_ = versions;
+    capacity_ = capacity;
+    transforms_.resize(capacity, nullptr);
+    copied_versions_.resize(capacity, 0);
+}
+
+void TransformBuffer::setTransform(int index, Transform* transform) {
+    if ((index < 0) || (index >= capacity_)) {
+        return;
+    }
+    if (nullptr != transforms_[index]) {
+        transforms_[index]->removeBufferSlot(this, index);
+    }
+    transforms_[index] = transform;
+    if (nullptr != transform) {
+        transform->addBufferSlot(this, index);
+        // force a copy on the next update
+        copied_versions_[index] = transform->version() - 1;
+    }
+}
+
+/*
+ * The matrix last copied for the slot stays in the Java buffer.
+ */
+void TransformBuffer::clearTransform(int index) {
+    transforms_[index] = nullptr;
+}
+
+/*
+ * Copies the world matrices which changed since the last update.
+ * Transform::invalidate bumps the version of a transform and of
+ * every descendant with a valid matrix, so an unchanged version means
+ * the copy is current. Getting a world matrix only recomputes the
+ * invalid matrices on the path to the root, so shared ancestors are
+ * resolved once.
+ */
+int TransformBuffer::update() {
+    int changed = 0;
+
+    for (int i = 0; i < capacity_; ++i) {
+        Transform* t = transforms_[i];
+
+        if ((nullptr == t) || (nullptr == t->owner_object())) {
+            continue;
+        }
+        unsigned int version = t->version();
+        if ((version == copied_versions_[i]) && t->isModelMatrixValid()) {
+            continue;
+        }
+        glm::mat4 matrix = t->getModelMatrix();
+        std::memcpy(matrices_ + i * 16, glm::value_ptr(matrix), 16 * sizeof(float));
+        ++versions_[i];
+        copied_versions_[i] = version;
+        ++changed;
+    }
+    return changed;
+}
+
+}
@@ -0,0 +1,62 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * World matrices of a set of transforms, copied into memory shared with Java.
+ ***************************************************************************/
+
+#ifndef TRANSFORM_BUFFER_H_
+#define TRANSFORM_BUFFER_H_
+
+#include <vector>
+
+#include "objects/hybrid_object.h"
+
+namespace gvr {
+class Transform;
+
+class TransformBuffer: public HybridObject {
+public:
+    TransformBuffer();
+    virtual ~TransformBuffer();
+
+    /*
+     * The storage belongs to Java direct buffers: 16 floats and one int
+     * per transform. Matrices already copied are kept.
+     */
+    void setStorage(float* matrices, int* versions, int capacity);
+    void setTransform(int index, Transform* transform);
+    int update();
+
+    // called by a transform being deleted
+    void clearTransform(int index);
+
+private:
+    TransformBuffer(const TransformBuffer& buffer);
+    TransformBuffer(TransformBuffer&& buffer);
+    TransformBuffer& operator=(const TransformBuffer& buffer);
+    TransformBuffer& operator=(TransformBuffer&& buffer);
+
+private:
+    float* matrices_;
+    int* versions_;
+    int capacity_;
+    std::vector<Transform*> transforms_;
+    std::vector<unsigned int> copied_versions_;
+};
+
+}
+#endif
@@ -0,0 +1,74 @@
+/* Copyright 2016 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/***************************************************************************
+ * JNI
+ ***************************************************************************/
+
+#include "transform_buffer.h"
+
+#include "objects/components/transform.h"
+#include "util/gvr_jni.h"
+
+namespace gvr {
+extern "C" {
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativeTransformBuffer_ctor(JNIEnv * env, jobject obj);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBuffer_setStorage(JNIEnv * env,
+        jobject obj, jlong jbuffer, jobject jmatrices, jobject jversions,
+        jint capacity);
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBuffer_setTransform(JNIEnv * env,
+        jobject obj, jlong jbuffer, jint index, jlong jtransform);
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeTransformBuffer_update(JNIEnv * env,
+        jobject obj, jlong jbuffer);
+}
+
+JNIEXPORT jlong JNICALL
+Java_org_gearvrf_NativeTransformBuffer_ctor(JNIEnv * env, jobject obj) {
+    return reinterpret_cast<jlong>(new TransformBuffer());
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBuffer_setStorage(JNIEnv * env,
+        jobject obj, jlong jbuffer, jobject jmatrices, jobject jversions,
+        jint capacity) {
+    TransformBuffer* buffer = reinterpret_cast<TransformBuffer*>(jbuffer);
+    float* matrices = static_cast<float*>(env->GetDirectBufferAddress(jmatrices));
+    int* versions = static_cast<int*>(env->GetDirectBufferAddress(jversions));
+    buffer->setStorage(matrices, versions, capacity);
+}
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransformBuffer_setTransform(JNIEnv * env,
+        jobject obj, jlong jbuffer, jint index, jlong jtransform) {
+    TransformBuffer* buffer = reinterpret_cast<TransformBuffer*>(jbuffer);
+    buffer->setTransform(index, reinterpret_cast<Transform*>(jtransform));
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativeTransformBuffer_update(JNIEnv * env,
+        jobject obj, jlong jbuffer) {
+    TransformBuffer* buffer = reinterpret_cast<TransformBuffer*>(jbuffer);
+    return buffer->update();
+}
+
+}
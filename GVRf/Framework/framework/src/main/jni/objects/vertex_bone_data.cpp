@@ -66,6 +66,30 @@ void VertexBoneData::setVertexBoneWeight(int vertexId, int boneSlot, int boneId,
     boneDataElement.weights[boneSlot] = boneWeight;
 }
 
+/*
+ * Copies packed bone indices and weights, BONES_PER_VERTEX per vertex,
+ * and normalizes the weights.
+ */
+void VertexBoneData::setBoneWeights(const int* boneIds, const float* boneWeights, int length) {
+    int numVertices = std::min(static_cast<int>(boneData.size()), length / BONES_PER_VERTEX);
+    if (numVertices * BONES_PER_VERTEX != length) {
+        LOGW("Bone data for %d vertices, mesh has %d", length / BONES_PER_VERTEX,
+             static_cast<int>(boneData.size()));
+    }
+    for (int i = 0; i < numVertices; ++i) {
+        BoneData& boneDataElement = boneData[i];
+        for (int j = 0; j < BONES_PER_VERTEX; ++j) {
+            int boneId = boneIds[i * BONES_PER_VERTEX + j];
+            if (unlikely(MAX_BONES <= boneId || 0 > boneId)) {
+                FAIL("index out of bounds; boneId: %d", boneId);
+            }
+            boneDataElement.ids[j] = boneId;
+            boneDataElement.weights[j] = boneWeights[i * BONES_PER_VERTEX + j];
+        }
+    }
+    normalizeWeights();
+}
+
 void VertexBoneData::normalizeWeights() {
     if (bones.empty())
         return;
@@ -57,6 +57,7 @@ public:
     int getFreeBoneSlot(int vertexId);
     void setVertexBoneWeight(int vertexId, int boneSlot, int boneId, float boneWeight);
     void normalizeWeights();
+    void setBoneWeights(const int* boneIds, const float* boneWeights, int length);
 
     struct BoneData {
         uint32_t ids[BONES_PER_VERTEX];
@@ -18,6 +18,7 @@
  ***************************************************************************/
 
 #include "custom_shader.h"
+#include "gl/gl_program_cache.h"
 #include "objects/scene.h"
 #include "util/gvr_log.h"
 
@@ -31,7 +32,7 @@ CustomShader::CustomShader(const std::string& vertex_shader, const std::string&
 void CustomShader::initializeOnDemand(RenderState* rstate) {
     if (nullptr == program_)
     {
-        program_ = new GLProgram(vertexShader_.c_str(), fragmentShader_.c_str());
+        program_ = GLProgramCache::createProgram(vertexShader_, fragmentShader_);
         if(use_multiview && !(strstr(vertexShader_.c_str(),"gl_ViewID_OVR")
                 && strstr(vertexShader_.c_str(),"GL_OVR_multiview2")
                 && strstr(vertexShader_.c_str(),"GL_OVR_multiview2"))){
@@ -19,6 +19,7 @@
 
 #include "shader_manager.h"
 
+#include "gl/gl_program_cache.h"
 #include "util/gvr_jni.h"
 
 namespace gvr {
@@ -33,6 +34,9 @@ Java_org_gearvrf_NativeShaderManager_addCustomShader(
 JNIEXPORT jlong JNICALL
 Java_org_gearvrf_NativeShaderManager_getCustomShader(
         JNIEnv * env, jobject obj, jlong jshader_manager, jint id);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeShaderManager_setProgramCacheDirectory(
+        JNIEnv * env, jobject obj, jstring jdirectory);
 }
 
 JNIEXPORT jlong JNICALL
@@ -71,4 +75,16 @@ Java_org_gearvrf_NativeShaderManager_getCustomShader(
 }
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeShaderManager_setProgramCacheDirectory(
+    JNIEnv * env, jobject obj, jstring jdirectory) {
+    if (jdirectory == nullptr) {
+        GLProgramCache::setDirectory(std::string());
+        return;
+    }
+    const char* directory = env->GetStringUTFChars(jdirectory, 0);
+    GLProgramCache::setDirectory(std::string(directory));
+    env->ReleaseStringUTFChars(jdirectory, directory);
+}
+
 }